@@ -5,23 +5,25 @@
  */
 package seak.conmop;
 
+import java.io.File;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.hipparchus.stat.descriptive.DescriptiveStatistics;
 import org.hipparchus.util.FastMath;
 import org.moeaframework.core.Solution;
 import org.moeaframework.problem.AbstractProblem;
-import org.moeaframework.util.Vector;
 import org.orekit.bodies.BodyShape;
 import org.orekit.bodies.GeodeticPoint;
 import org.orekit.bodies.OneAxisEllipsoid;
@@ -36,14 +38,39 @@ import org.orekit.time.TimeScale;
 import org.orekit.time.TimeScalesFactory;
 import org.orekit.utils.Constants;
 import org.orekit.utils.IERSConventions;
-import seak.conmop.deployment.ConstellationDeployment;
+import seak.conmop.coverage.AccessCache;
+import seak.conmop.coverage.AccessCalculator;
+import seak.conmop.coverage.AccessValidator;
+import seak.conmop.coverage.AnalyticAccessCalculator;
+import seak.conmop.coverage.ConstellationCoverage;
+import seak.conmop.coverage.CoverageTimeline;
+import seak.conmop.coverage.SatelliteAccess;
+import seak.conmop.deployment.AnytimePartitionSearch;
+import seak.conmop.deployment.DeploymentOrdering;
 import seak.conmop.deployment.DeploymentStrategy;
+import seak.conmop.deployment.GroupFeasibilityCache;
 import seak.conmop.deployment.Installment;
-import seak.conmop.launch.DeltaV;
+import seak.conmop.deployment.LaunchDVTable;
+import seak.conmop.deployment.ParallelPartitionSearch;
+import seak.conmop.deployment.PartitionIterator;
+import seak.conmop.deployment.PartitionSolver;
+import seak.conmop.deployment.PlaneClustering;
+import seak.conmop.memo.ConstellationKey;
+import seak.conmop.memo.DeploymentKey;
+import seak.conmop.memo.DeploymentMemo;
+import seak.conmop.memo.DeploymentRecord;
+import seak.conmop.memo.FitnessMemo;
+import seak.conmop.memo.FitnessRecord;
+import seak.conmop.parallel.ParallelProblem;
+import seak.conmop.propagation.CachedPropagatorFactory;
+import seak.conmop.propagation.OrbitKey;
+import seak.conmop.propagation.SampledEphemeris;
+import seak.conmop.propagation.TransformTable;
 import seak.conmop.util.Bounds;
 import seak.conmop.variable.BooleanSatelliteVariable;
 import seak.conmop.variable.ConstellationMatrix;
 import seak.conmop.variable.ConstellationVariable;
+import seak.conmop.variable.PackedConstellationVariable;
 import seak.conmop.variable.SatelliteVariable;
 import seak.orekit.coverage.access.TimeIntervalArray;
 import seak.orekit.coverage.analysis.AnalysisMetric;
@@ -51,16 +78,12 @@ import seak.orekit.coverage.analysis.FastCoverageAnalysis;
 import seak.orekit.coverage.analysis.GroundEventAnalyzer;
 import seak.orekit.event.EventAnalysis;
 import seak.orekit.event.GndStationEventAnalysis;
-import seak.orekit.object.CommunicationBand;
 import seak.orekit.object.Constellation;
 import seak.orekit.object.CoverageDefinition;
 import seak.orekit.object.GndStation;
 import seak.orekit.object.Satellite;
-import seak.orekit.object.communications.ReceiverAntenna;
-import seak.orekit.object.communications.TransmitterAntenna;
 import seak.orekit.propagation.PropagatorFactory;
 import seak.orekit.scenario.Scenario;
-import seak.orekit.util.Orbits;
 
 /**
  * Problem to optimize the number of satellites in a constellation and their
@@ -168,11 +191,138 @@ public class ConstellationOptimizer extends AbstractProblem {
      */
     private final double launchLatitude;
 
+    /**
+     * The method to find the order in which a tug deploys a launch group
+     */
+    private final DeploymentOrdering deploymentOrdering;
+
+    /**
+     * How the launch groups are found: "solver" (PartitionSolver),
+     * "enumerate" (streaming the feasible partitions), "parallel" (streaming
+     * the feasible partitions in fork-join tasks) or "anytime" (streaming the
+     * feasible partitions within a budget)
+     */
+    private final String deploymentSearch;
+
+    /**
+     * The time budget [ms] of the anytime deployment search. 0 if the time is
+     * not limited
+     */
+    private final long deploymentTimeBudget;
+
+    /**
+     * The maximum number of group assignments tried by the anytime deployment
+     * search. 0 if the number of nodes is not limited
+     */
+    private final long deploymentNodeBudget;
+
+    /**
+     * The fraction of the tug delta V limit from which the tolerances of the
+     * plane clustering are derived (see PlaneClustering.fromLimits). 0 if only
+     * exactly coplanar satellites are clustered
+     */
+    private final double planeTolerance;
+
+    /**
+     * The table of the launch delta V over the inclination and semi-major
+     * axis bounds. null if the launch delta V is computed exactly
+     */
+    private final LaunchDVTable launchTable;
+
+    /**
+     * True if new solutions store their satellites in packed primitive
+     * columns (see PackedConstellationVariable)
+     */
+    private final boolean packedVariables;
+
+    /**
+     * The number of satellites whose assignments are split into tasks by the
+     * parallel deployment search
+     */
+    private final int deploymentSplitDepth;
+
+    /**
+     * The minimum number of unassigned satellites for which the partitions
+     * are searched in parallel
+     */
+    private final int deploymentParallelThreshold;
+
+    /**
+     * The pool that runs the tasks of the parallel deployment search. null if
+     * the partitions are not searched in parallel
+     */
+    private final ForkJoinPool deploymentPool;
+
     /**
      * The ground stations for downlink
      */
     private final Collection<GndStation> gndStations;
 
+    /**
+     * The mass [kg] of each satellite
+     */
+    private static final double SATELLITE_MASS = 100;
+
+    /**
+     * The objects needed for evaluations that are computed once per problem
+     */
+    private final EvaluationContext sharedContext;
+
+    /**
+     * The evaluation context of each thread that shares the precomputed
+     * objects of the shared context
+     */
+    private final ThreadLocal<EvaluationContext> contexts;
+
+    /**
+     * Computes the access of individual satellites to the points of interest.
+     * null if the coverage is computed with FastCoverageAnalysis
+     */
+    private final AccessCalculator accessCalculator;
+
+    /**
+     * Predicts the access of individual satellites in circular orbits from
+     * the secular J2 rates. null if the accesses are computed from propagated
+     * ephemerides
+     */
+    private final AnalyticAccessCalculator analyticCalculator;
+
+    /**
+     * Compares the predicted accesses against the accesses computed from
+     * propagated ephemerides. null if the predictions are not validated
+     */
+    private final AccessValidator accessValidator;
+
+    /**
+     * The access of individual satellites that were already evaluated. null
+     * if the coverage is computed with FastCoverageAnalysis
+     */
+    private final AccessCache accessCache;
+
+    /**
+     * The time step [s] used to sample satellite states for the cached
+     * coverage analysis
+     */
+    private final double accessStep;
+
+    /**
+     * The length [s] of the slots of the coverage bitsets. 0 if the coverage
+     * statistics are computed from the access intervals
+     */
+    private final double timelineStep;
+
+    /**
+     * The objectives and deployment strategies of constellations that were
+     * already evaluated. null if evaluations are not memoized
+     */
+    private final FitnessMemo fitnessMemo;
+
+    /**
+     * The deployment strategies of constellations that were already
+     * evaluated. null if deployment strategies are not memoized
+     */
+    private final DeploymentMemo deploymentMemo;
+
     /**
      * a dummy constructor for analyzing hypervolumes after the optimization
      */
@@ -234,6 +384,29 @@ public class ConstellationOptimizer extends AbstractProblem {
             this.raanTimeLimit = Double.parseDouble(properties.getProperty("raanTimeLimit", "604800"));
             this.tugDvLimit = Double.parseDouble(properties.getProperty("dvLimit", "2200"));
             this.launchLatitude = Double.parseDouble(properties.getProperty("launchLatitude", "0"));
+            this.deploymentOrdering = DeploymentOrdering.valueOf(
+                    properties.getProperty("deploymentOrdering", "automatic").toUpperCase());
+            //launch groups are found by the "solver" or by "enumerate"-ing the
+            //partitions, serially, in "parallel" for large unassigned sets or
+            //"anytime" within a time and node budget
+            this.deploymentSearch = properties.getProperty("deploymentSearch", "solver").toLowerCase();
+            this.deploymentSplitDepth = Integer.parseInt(properties.getProperty("deploymentSplitDepth", "3"));
+            this.deploymentParallelThreshold = Integer.parseInt(properties.getProperty("deploymentParallelThreshold", "10"));
+            if (deploymentSearch.equals("parallel")) {
+                this.deploymentPool = new ForkJoinPool(Integer.parseInt(properties.getProperty(
+                        "deploymentThreads", Integer.toString(Runtime.getRuntime().availableProcessors()))));
+            } else {
+                this.deploymentPool = null;
+            }
+            this.deploymentTimeBudget = Long.parseLong(properties.getProperty("deploymentTimeBudget", "0"));
+            this.deploymentNodeBudget = Long.parseLong(properties.getProperty("deploymentNodeBudget", "0"));
+            this.planeTolerance = Double.parseDouble(properties.getProperty("planeTolerance", "0"));
+            if (nSatBound.getUpperBound() > GroupFeasibilityCache.MAX_SATELLITES) {
+                Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.WARNING,
+                        "Constellations may have up to {0} satellites. The satellites that are not launched"
+                        + " in large coplanar groups are partitioned in batches of at most {1}.",
+                        new Object[]{nSatBound.getUpperBound(), GroupFeasibilityCache.MAX_SATELLITES});
+            }
 
             //must use IERS_2003 and EME2000 frames to be consistent with STK
             Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
@@ -242,20 +415,179 @@ public class ConstellationOptimizer extends AbstractProblem {
                     Constants.WGS84_EARTH_FLATTENING, earthFrame);
             this.earthMu = Constants.WGS84_EARTH_MU;
 
+            //coverage analysis is either "fast" (FastCoverageAnalysis),
+            //"cached" (union of cached single satellite accesses) or
+            //"analytic" (cached accesses predicted from secular J2 rates)
+            this.accessStep = Double.parseDouble(properties.getProperty("accessStep", "60"));
+            this.sharedContext = new EvaluationContext(poi, earthShape, gndStations);
+            this.contexts = new ThreadLocal<EvaluationContext>() {
+                @Override
+                protected EvaluationContext initialValue() {
+                    return new EvaluationContext(sharedContext);
+                }
+            };
+            String coverageAnalysis = properties.getProperty("coverageAnalysis", "fast");
+            if (poi != null && !coverageAnalysis.equalsIgnoreCase("fast")) {
+                //the rotation to the Earth-fixed frame is tabulated once for the study window
+                String tableFile = properties.getProperty("transformTableFile");
+                TransformTable table;
+                if (tableFile == null) {
+                    table = new TransformTable(inertialFrame, earthFrame, startDate, endDate, accessStep);
+                } else {
+                    table = TransformTable.loadOrCompute(new File(tableFile),
+                            inertialFrame, earthFrame, startDate, endDate, accessStep);
+                }
+                //the points of interest and the ground stations are checked in one pass
+                double[] minElevations = sharedContext.getAccessPointMinElevations();
+                double[] halfAngles = sharedContext.getAccessPointHalfAngles(halfAngle);
+                this.accessCalculator = new AccessCalculator(earthFrame, sharedContext.getAccessPointPositions(),
+                        sharedContext.getAccessPointZeniths(), minElevations, halfAngles, table);
+                this.accessCache = new AccessCache(Integer.parseInt(properties.getProperty("accessCacheSize", "10000")));
+
+                //coverage statistics are either computed from the "intervals"
+                //or from "bitset" timelines discretized with the timeline step
+                if (properties.getProperty("coverageStatistics", "intervals").equalsIgnoreCase("bitset")) {
+                    this.timelineStep = Double.parseDouble(properties.getProperty("timelineStep", "10"));
+                } else {
+                    this.timelineStep = 0;
+                }
+
+                //"analytic" predicts the accesses of circular J2 orbits without propagation
+                if (coverageAnalysis.equalsIgnoreCase("analytic")) {
+                    this.analyticCalculator = new AnalyticAccessCalculator(sharedContext.getAccessPointPositions(),
+                            sharedContext.getAccessPointZeniths(), minElevations, halfAngles, table,
+                            startDate, endDate, Double.parseDouble(properties.getProperty("analyticStep", "30")));
+                    if (Boolean.parseBoolean(properties.getProperty("analyticValidation", "false"))) {
+                        this.accessValidator = new AccessValidator();
+                    } else {
+                        this.accessValidator = null;
+                    }
+                } else {
+                    this.analyticCalculator = null;
+                    this.accessValidator = null;
+                }
+            } else {
+                this.accessCalculator = null;
+                this.accessCache = null;
+                this.timelineStep = 0;
+                this.analyticCalculator = null;
+                this.accessValidator = null;
+            }
+
         } catch (OrekitException ex) {
             Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
             throw new IllegalStateException("Failed to create a new problem");
         }
+
+        //memoize the fitness of evaluated constellations. the memo is shared
+        //by all runs that use this problem and optionally by runs in other
+        //processes through the spill file, which is only reused by a problem
+        //with the same fingerprint
+        int memoSize = Integer.parseInt(properties.getProperty("fitnessMemoSize", "0"));
+        if (memoSize > 0) {
+            String memoFile = properties.getProperty("fitnessMemoFile");
+            int spillSize = Integer.parseInt(properties.getProperty("fitnessMemoSpillSize", "1000000"));
+            this.fitnessMemo = new FitnessMemo(memoSize, memoFile == null ? null : new File(memoFile),
+                    spillSize, fingerprint());
+        } else {
+            this.fitnessMemo = null;
+        }
+
+        //interpolate the launch delta V from a table built over the bounds
+        int launchTableSize = Integer.parseInt(properties.getProperty("launchTableSize", "0"));
+        if (launchTableSize > 0) {
+            this.launchTable = new LaunchDVTable(incBound, smaBound, launchLatitude, launchTableSize);
+            Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.INFO,
+                    "Launch delta V table of {0}x{0} nodes. Max interpolation error {1} m/s",
+                    new Object[]{launchTableSize, launchTable.getMaxError()});
+        } else {
+            this.launchTable = null;
+        }
+
+        //store the satellites of new solutions in packed primitive columns
+        this.packedVariables = Boolean.parseBoolean(properties.getProperty("packedVariables", "false"));
+
+        //memoize the deployment strategies, which do not depend on the
+        //argument of perigee or the anomaly of the satellites
+        int deploymentMemoSize = Integer.parseInt(properties.getProperty("deploymentMemoSize", "0"));
+        if (deploymentMemoSize > 0) {
+            this.deploymentMemo = new DeploymentMemo(deploymentMemoSize);
+        } else {
+            this.deploymentMemo = null;
+        }
     }
 
+    /**
+     * Computes a fingerprint of everything that the objectives depend on: the
+     * study window, the points of interest, the sensor, the ground stations,
+     * the bounds on the variables and all the properties except those of the
+     * fitness memo. The points of interest and the ground stations are
+     * combined independently of their order.
+     *
+     * @return the fingerprint of this problem
+     */
+    private long fingerprint() {
+        long hash = 17;
+        hash = 31 * hash + Double.doubleToLongBits(startDate.durationFrom(AbsoluteDate.J2000_EPOCH));
+        hash = 31 * hash + Double.doubleToLongBits(endDate.durationFrom(AbsoluteDate.J2000_EPOCH));
+        hash = 31 * hash + Double.doubleToLongBits(halfAngle);
+        long points = 0;
+        if (poi != null) {
+            for (GeodeticPoint point : poi) {
+                points += pointHash(point);
+            }
+        }
+        hash = 31 * hash + points;
+        long stations = 0;
+        if (gndStations != null) {
+            for (GndStation station : gndStations) {
+                stations += 31 * pointHash(station.getBaseFrame().getPoint())
+                        + Double.doubleToLongBits(station.getMinEl());
+            }
+        }
+        hash = 31 * hash + stations;
+        hash = 31 * hash + Objects.hash(nSatBound, smaBound, eccBound, incBound, raanBound, apBound, taBound);
+        hash = 31 * hash + propagatorFactory.getPropType().name().hashCode();
+        for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+            if (!name.startsWith("fitnessMemo")) {
+                hash = 31 * hash + (name + "=" + properties.getProperty(name)).hashCode();
+            }
+        }
+        return hash;
+    }
+
+    private static long pointHash(GeodeticPoint point) {
+        long hash = Double.doubleToLongBits(point.getLatitude());
+        hash = 31 * hash + Double.doubleToLongBits(point.getLongitude());
+        hash = 31 * hash + Double.doubleToLongBits(point.getAltitude());
+        //spread the bits so that the sum over the points does not cancel out
+        return hash * 0x9E3779B97F4A7C15L ^ (hash >>> 29);
+    }
+
+    /**
+     * Evaluates the constellation in the given solution. This method can be
+     * called concurrently from several threads (see ParallelProblem). The
+     * satellites, event analyses and scenario are created within this call.
+     * The coverage definition, the satellite antennas and the access buffers
+     * come from the evaluation context of the calling thread and are only
+     * used by that thread. The precomputed tables (transform table, launch
+     * delta V table, positions of the points of interest) are immutable and
+     * shared. The memos and caches shared by all threads (fitness memo,
+     * deployment memo, access cache, ephemeris cache and access validator)
+     * are written by this method and synchronize their own accesses.
+     *
+     * @param solution the solution to evaluate
+     */
     @Override
     public void evaluate(Solution solution) {
 
-        ArrayList<Constellation> constellations = new ArrayList();
         ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
+        EvaluationContext context = contexts.get();
 
-        ArrayList<Satellite> satelliteList = new ArrayList<>();
-        for (SatelliteVariable var : constel.getSatelliteVariables()) {
+        ArrayList<SatelliteVariable> manifested = new ArrayList<>();
+        int nSlots = constel.getSatelliteVariables().size();
+        for (int i = 0; i < nSlots; i++) {
+            SatelliteVariable var = constel.getSatelliteVariable(i);
             if (var instanceof BooleanSatelliteVariable) {
                 if (!((BooleanSatelliteVariable) var).getManifest()) {
                     continue;
@@ -263,53 +595,136 @@ public class ConstellationOptimizer extends AbstractProblem {
             }
             //avoid critically inclined orbit which causes propagation issues
             if (FastMath.abs(var.getInc() - 1.1074628348333333) < 0.05) {
+                var = constel.ownSatelliteVariable(var);
                 var.setInc(1.109208162611111);
             }
-            Orbit orb = var.toOrbit(inertialFrame, startDate, earthMu);
-            HashSet<CommunicationBand> comms = new HashSet<>();
-            comms.add(CommunicationBand.UHF);
-            satelliteList.add(new Satellite("sat", orb, null, new ArrayList(),
-                    new ReceiverAntenna(1, comms), new TransmitterAntenna(1, comms), 100, 100));
+            manifested.add(var);
         }
 
-        constellations.add(new Constellation("constel", satelliteList));
-
-        CoverageDefinition cdef = new CoverageDefinition("", poi, earthShape);
-        cdef.assignConstellation(constellations);
-        HashSet<CoverageDefinition> cdefSet = new HashSet<>();
-        cdefSet.add(cdef);
-
-        ArrayList<EventAnalysis> eventanalyses = new ArrayList<>();
-        FastCoverageAnalysis fca = new FastCoverageAnalysis(startDate, endDate,
-                inertialFrame, cdefSet, halfAngle);
-        eventanalyses.add(fca);
-
-        //declare ground access analysis
-        //assign each satellite to each ground station
-        Map<Satellite, Set<GndStation>> stationAssignment = new HashMap<>();
-        for (Satellite sat : satelliteList) {
-            stationAssignment.put(sat, new HashSet(gndStations));
+        //reuse the fitness of an equal constellation that was already evaluated
+        List<SatelliteVariable> canonical = null;
+        ConstellationKey key = null;
+        if (fitnessMemo != null) {
+            canonical = ConstellationKey.canonicalOrder(constel.getSatelliteVariables());
+            key = ConstellationKey.create(canonical);
+            FitnessRecord record = fitnessMemo.get(key);
+            if (record != null) {
+                solution.setObjectives(record.getObjectives());
+                record.copyAttributes(solution);
+                constel.setDeploymentStrategy(record.toDeploymentStrategy(canonical));
+                return;
+            }
         }
-        GndStationEventAnalysis gndStaEA = new GndStationEventAnalysis(startDate, endDate, inertialFrame, stationAssignment, propagatorFactory);
-        eventanalyses.add(gndStaEA);
 
-        Scenario scen = new Scenario("", startDate, endDate, timeScale,
-                inertialFrame, propagatorFactory, cdefSet, eventanalyses, new ArrayList<>(), properties);
-        try {
-            scen.call();
-        } catch (Exception ex) {
-            Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
-            throw new IllegalStateException("Evaluation failed");
+        ArrayList<Orbit> orbits = new ArrayList<>();
+        for (SatelliteVariable var : manifested) {
+            orbits.add(var.toOrbit(inertialFrame, startDate, earthMu));
         }
 
-        GroundEventAnalyzer gea = new GroundEventAnalyzer(fca.getEvents(cdef));
         Properties properties = new Properties();
         properties.setProperty("threshold", "7200.0");
 
-        DescriptiveStatistics respStats = gea.getStatistics(AnalysisMetric.MEAN_TIME_TO_T, false, properties);
-        DescriptiveStatistics gapStats = gea.getStatistics(AnalysisMetric.DURATION, false, properties);
-        solution.setObjective(0, respStats.getMean());
-        solution.setObjective(1, satelliteList.size());
+        double meanResponse;
+        double maxGndGap;
+        if (accessCalculator == null) {
+            ArrayList<Satellite> satelliteList = new ArrayList<>();
+            for (Orbit orb : orbits) {
+                satelliteList.add(new Satellite("sat", orb, null, new ArrayList(),
+                        context.getReceiver(), context.getTransmitter(), SATELLITE_MASS, SATELLITE_MASS));
+            }
+            ArrayList<Constellation> constellations = new ArrayList();
+            constellations.add(new Constellation("constel", satelliteList));
+
+            CoverageDefinition cdef = context.getCoverageDefinition();
+            cdef.assignConstellation(constellations);
+            HashSet<CoverageDefinition> cdefSet = new HashSet<>();
+            cdefSet.add(cdef);
+
+            ArrayList<EventAnalysis> eventanalyses = new ArrayList<>();
+            FastCoverageAnalysis fca = new FastCoverageAnalysis(startDate, endDate,
+                    inertialFrame, cdefSet, halfAngle);
+            eventanalyses.add(fca);
+
+            //declare ground access analysis
+            //assign each satellite to each ground station
+            Map<Satellite, Set<GndStation>> stationAssignment = new HashMap<>();
+            for (Satellite sat : satelliteList) {
+                stationAssignment.put(sat, context.getGndStations());
+            }
+            GndStationEventAnalysis gndStaEA = new GndStationEventAnalysis(startDate, endDate, inertialFrame, stationAssignment, propagatorFactory);
+            eventanalyses.add(gndStaEA);
+
+            Scenario scen = new Scenario("", startDate, endDate, timeScale,
+                    inertialFrame, propagatorFactory, cdefSet, eventanalyses, new ArrayList<>(), properties);
+            try {
+                scen.call();
+            } catch (Exception ex) {
+                Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
+                throw new IllegalStateException("Evaluation failed");
+            }
+
+            GroundEventAnalyzer gea = new GroundEventAnalyzer(fca.getEvents(cdef));
+            meanResponse = gea.getStatistics(AnalysisMetric.MEAN_TIME_TO_T, false, properties).getMean();
+
+            //check ground sataion gap for each satellite
+            maxGndGap = Double.NEGATIVE_INFINITY;
+            for (Satellite sat : satelliteList) {
+                GroundEventAnalyzer gndStaAnalyzer = new GroundEventAnalyzer(gndStaEA.getEvents(sat));
+                DescriptiveStatistics gndGapStats = gndStaAnalyzer.getStatistics(AnalysisMetric.DURATION, false, properties);
+                maxGndGap = FastMath.max(maxGndGap, gndGapStats.getMax());
+            }
+        } else if (timelineStep > 0) {
+            List<SatelliteAccess> accesses = satelliteAccesses(orbits, context);
+            int nPoi = context.getPoiFrames().size();
+            int nPoints = nPoi + context.getGndStationList().size();
+            CoverageTimeline timeline = context.getCoverageTimeline(
+                    timelineStep, endDate.durationFrom(startDate));
+
+            //a point is covered whenever one of the satellites covers it
+            timeline.clear(0, nPoi);
+            for (SatelliteAccess access : accesses) {
+                timeline.or(access.getTimeline(), 0, nPoi);
+            }
+            double sum = 0;
+            for (int k = 0; k < nPoi; k++) {
+                sum += timeline.meanResponseTime(k);
+            }
+            meanResponse = sum / nPoi;
+
+            //check ground sataion gap for each satellite
+            maxGndGap = Double.NEGATIVE_INFINITY;
+            for (SatelliteAccess access : accesses) {
+                timeline.clear(nPoi, nPoints);
+                timeline.or(access.getTimeline(), nPoi, nPoints);
+                for (int i = nPoi; i < nPoints; i++) {
+                    maxGndGap = FastMath.max(maxGndGap, timeline.maxGap(i));
+                }
+            }
+        } else {
+            List<SatelliteAccess> accesses = satelliteAccesses(orbits, context);
+            List<TopocentricFrame> poiFrames = context.getPoiFrames();
+            double[][] intervals = ConstellationCoverage.union(accesses, poiFrames.size());
+            GroundEventAnalyzer gea = new GroundEventAnalyzer(ConstellationCoverage.toTimeIntervalArrays(
+                    intervals, poiFrames, startDate, endDate));
+            meanResponse = gea.getStatistics(AnalysisMetric.MEAN_TIME_TO_T, false, properties).getMean();
+
+            //check ground sataion gap for each satellite
+            maxGndGap = Double.NEGATIVE_INFINITY;
+            List<TopocentricFrame> stationFrames = context.getGndStationFrames();
+            double[][] stationIntervals = new double[stationFrames.size()][];
+            for (SatelliteAccess access : accesses) {
+                for (int i = 0; i < stationIntervals.length; i++) {
+                    stationIntervals[i] = access.getIntervals(poiFrames.size() + i);
+                }
+                GroundEventAnalyzer gndStaAnalyzer = new GroundEventAnalyzer(ConstellationCoverage.toTimeIntervalArrays(
+                        stationIntervals, stationFrames, startDate, endDate));
+                DescriptiveStatistics gndGapStats = gndStaAnalyzer.getStatistics(AnalysisMetric.DURATION, false, properties);
+                maxGndGap = FastMath.max(maxGndGap, gndGapStats.getMax());
+            }
+        }
+
+        solution.setObjective(0, meanResponse);
+        solution.setObjective(1, orbits.size());
 //        solution.setObjective(1, gapStats.getPercentile(90));
 
 //        //compute average semi-major axis
@@ -318,229 +733,328 @@ public class ConstellationOptimizer extends AbstractProblem {
 //            stats.addValue(sat.getOrbit().getA());
 //        }
 //        solution.setObjective(2, stats.getMean());
-        DeploymentStrategy deployment = deploymentStrategy(constel.getSatelliteVariables());
+        DeploymentStrategy deployment;
+        if (deploymentMemo == null) {
+            deployment = deploymentStrategy(constel.getSatelliteVariables(), solution);
+        } else {
+            //reuse the deployment of a constellation with the same planes and altitudes
+            if (canonical == null) {
+                canonical = ConstellationKey.canonicalOrder(constel.getSatelliteVariables());
+            }
+            DeploymentKey deploymentKey = DeploymentKey.create(canonical);
+            DeploymentRecord record = deploymentMemo.get(deploymentKey);
+            if (record == null) {
+                deployment = deploymentStrategy(constel.getSatelliteVariables(), solution);
+                deploymentMemo.put(deploymentKey, DeploymentRecord.create(solution, deployment, canonical));
+            } else {
+                deployment = record.toDeploymentStrategy(canonical);
+                record.copyAttributes(solution);
+            }
+        }
         constel.setDeploymentStrategy(deployment);
         solution.setObjective(2, deployment.getTotalDV());
 
-        //check ground sataion gap for each satellite
-        double maxGndGap = Double.NEGATIVE_INFINITY;
-        for (Satellite sat : satelliteList) {
-            GroundEventAnalyzer gndStaAnalyzer = new GroundEventAnalyzer(gndStaEA.getEvents(sat));
-            DescriptiveStatistics gndGapStats = gndStaAnalyzer.getStatistics(AnalysisMetric.DURATION, false, properties);
-            maxGndGap = FastMath.max(maxGndGap, gndGapStats.getMax());
+        solution.setObjective(3, maxGndGap);
+
+        if (fitnessMemo != null) {
+            fitnessMemo.put(key, FitnessRecord.create(solution, deployment, canonical));
         }
+    }
 
-        solution.setObjective(3, maxGndGap);
+    /**
+     * Gets the access of each satellite to the points of interest and the
+     * ground stations. The access of a satellite is only computed if it is not
+     * already in the access cache.
+     *
+     * @param orbits the orbits of the satellites in the constellation
+     * @param context the evaluation context of this thread
+     * @return the access of each satellite
+     */
+    private List<SatelliteAccess> satelliteAccesses(List<Orbit> orbits, EvaluationContext context) {
+        ArrayList<SatelliteAccess> accesses = new ArrayList<>(orbits.size());
+        for (Orbit orbit : orbits) {
+            OrbitKey key = new OrbitKey(orbit, startDate, endDate);
+            SatelliteAccess access = accessCache.get(key);
+            if (access == null) {
+                try {
+                    if (analyticCalculator == null) {
+                        access = accessCalculator.compute(sampleEphemeris(orbit), context.getAccessWorkspace());
+                    } else {
+                        access = analyticCalculator.compute(orbit, context.getAccessWorkspace());
+                        if (accessValidator != null) {
+                            accessValidator.compare(accessCalculator.compute(
+                                    sampleEphemeris(orbit), context.getAccessWorkspace()), access);
+                        }
+                    }
+                } catch (OrekitException ex) {
+                    Logger.getLogger(ConstellationOptimizer.class.getName()).log(Level.SEVERE, null, ex);
+                    throw new IllegalStateException("Evaluation failed");
+                }
+                if (timelineStep > 0) {
+                    access = access.withTimeline(context.getCoverageTimeline(
+                            timelineStep, endDate.durationFrom(startDate)));
+                }
+                accessCache.put(key, access);
+            }
+            accesses.add(access);
+        }
+        return accesses;
+    }
+
+    /**
+     * Samples the states of a satellite over the study window. Uses the
+     * ephemeris cache if the propagator factory has one.
+     *
+     * @param orbit the orbit of the satellite at the start date
+     * @return the sampled states
+     * @throws OrekitException
+     */
+    private SampledEphemeris sampleEphemeris(Orbit orbit) throws OrekitException {
+        if (propagatorFactory instanceof CachedPropagatorFactory) {
+            return ((CachedPropagatorFactory) propagatorFactory).getEphemeris(orbit, SATELLITE_MASS);
+        }
+        return new SampledEphemeris(propagatorFactory.createPropagator(orbit, SATELLITE_MASS),
+                startDate, endDate, accessStep, inertialFrame, earthMu);
+    }
+
+    /**
+     * Gets the cache of single satellite accesses
+     *
+     * @return the cache of single satellite accesses. null if the coverage is
+     * computed with FastCoverageAnalysis
+     */
+    public AccessCache getAccessCache() {
+        return accessCache;
+    }
+
+    /**
+     * Gets the timing errors of the predicted accesses against the accesses
+     * computed from propagated ephemerides
+     *
+     * @return the validation of the predicted accesses. null if the analytic
+     * access prediction is not used or not validated
+     */
+    public AccessValidator getAccessValidator() {
+        return accessValidator;
+    }
+
+    /**
+     * Gets the memo of evaluated constellations
+     *
+     * @return the memo of evaluated constellations. null if evaluations are
+     * not memoized
+     */
+    public FitnessMemo getFitnessMemo() {
+        return fitnessMemo;
+    }
+
+    /**
+     * Gets the memo of deployment strategies
+     *
+     * @return the memo of deployment strategies. null if deployment
+     * strategies are not memoized
+     */
+    public DeploymentMemo getDeploymentMemo() {
+        return deploymentMemo;
+    }
+
+    /**
+     * Gets the table of the launch delta V
+     *
+     * @return the table of the launch delta V. null if the launch delta V is
+     * computed exactly
+     */
+    public LaunchDVTable getLaunchTable() {
+        return launchTable;
+    }
+
+    /**
+     * Closes the fitness memo, writing its records to the spill file if there
+     * is one, and shuts down the pool of the parallel deployment search
+     */
+    @Override
+    public void close() {
+        if (fitnessMemo != null) {
+            fitnessMemo.close();
+        }
+        if (deploymentPool != null) {
+            deploymentPool.shutdown();
+        }
     }
 
     @Override
     public Solution newSolution() {
         Solution soln = new Solution(numberOfVariables, numberOfObjectives);
-        soln.setVariable(0, new ConstellationVariable(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound));
+        if (packedVariables) {
+            soln.setVariable(0, new PackedConstellationVariable(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound, false));
+        } else {
+            soln.setVariable(0, new ConstellationVariable(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound));
+        }
 //        soln.setVariable(0, new ConstellationMatrix(nSatBound, smaBound, eccBound, incBound, apBound, raanBound, taBound));
         return soln;
     }
 
     /**
      * Computes the delta v required to deploy the entire constellation by
-     * checking to see if there are large groups that can be launched together
+     * checking to see if there are large groups that can be launched together.
+     * The other satellites are partitioned into launch groups with the
+     * bitmasks of a GroupFeasibilityCache, so at most
+     * GroupFeasibilityCache.MAX_SATELLITES (63) of them are partitioned
+     * together. If more satellites are left, they are partitioned in batches
+     * of consecutive plane clusters and satellites in different batches are
+     * never launched together. The anytime search records whether it was
+     * complete and the lower bounds on the number of launches and the total
+     * delta V as attributes of the solution. The other searches remove these
+     * attributes.
      *
      * @param satellites
+     * @param solution the solution being evaluated
      * @return
      */
-    private DeploymentStrategy deploymentStrategy(Collection<SatelliteVariable> satellites) {
-        //check inclinations and raan first
-        Map<Double, Map<Double, List<SatelliteVariable>>> map = new HashMap();
-        for (SatelliteVariable sat : satellites) {
-            if (!map.containsKey(sat.getInc())) {
-                map.put(sat.getInc(), new HashMap<>());
-            }
-            if (!map.get(sat.getInc()).containsKey(sat.getRaan())) {
-                map.get(sat.getInc()).put(sat.getRaan(), new ArrayList<>());
-            }
-            map.get(sat.getInc()).get(sat.getRaan()).add(sat);
+    private DeploymentStrategy deploymentStrategy(Collection<SatelliteVariable> satellites, Solution solution) {
+        List<SatelliteVariable> sats = new ArrayList<>(satellites);
+
+        //cluster the satellites in near-coplanar groups first
+        double[] inc = new double[sats.size()];
+        double[] raan = new double[sats.size()];
+        double minSma = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < sats.size(); i++) {
+            SatelliteVariable sat = sats.get(i);
+            inc[i] = sat.getInc();
+            raan[i] = sat.getRaan();
+            minSma = FastMath.min(minSma, sat.getSma());
         }
-        
-        Collection<SatelliteVariable> unassignedSats = new ArrayList<>();
-
-        //check for large groups
-        Collection<Collection<SatelliteVariable>> largeGroups = new ArrayList();
-        for (Double inc : map.keySet()) {
-            for (Double raan : map.get(inc).keySet()) {
-                if (map.get(inc).get(raan).size() > 5) {
-                    largeGroups.add(map.get(inc).get(raan));
-                }else{
-                    unassignedSats.addAll(map.get(inc).get(raan));
-                }
-            }
-        }
-
-        //Check if the groups can be launched together
-        Collection<List<SatelliteVariable>> feasibleLargeDeployments = new ArrayList();
-        for (Collection<SatelliteVariable> satGroup : largeGroups) {
-            List<SatelliteVariable> satList = new ArrayList(satGroup);
-            boolean meetsConstraints = true;
-            for (int i = 1; i < satList.size(); i++) {
-                //check RAAN constraint with newly added satellite
-                if (!ConstellationDeployment.raanCompatitble(satList.get(i - 1), satList.get(i), raanTimeLimit)) {
-                    meetsConstraints = false;
-                    break;
-                }
+        PlaneClustering clustering = PlaneClustering.fromLimits(
+                planeTolerance, minSma, raanTimeLimit, tugDvLimit);
+
+        //launch the large groups together if they can be
+        ArrayList<SatelliteVariable> unassignedSats = new ArrayList<>();
+        ArrayList<Installment> largeDeployments = new ArrayList<>();
+        double largeDV = 0;
+        for (int[] group : clustering.cluster(inc, raan)) {
+            ArrayList<SatelliteVariable> satGroup = new ArrayList<>(group.length);
+            for (int i : group) {
+                satGroup.add(sats.get(i));
             }
-            if (ConstellationDeployment.deltaVCompatible(satGroup, tugDvLimit).isEmpty()) {
-                meetsConstraints = false;
-            }
-            if(meetsConstraints){
-                feasibleLargeDeployments.add(satList);
-            }else{
+            Installment installment = group.length > 5 ? launchTogether(satGroup) : null;
+            if (installment != null) {
+                largeDeployments.add(installment);
+                largeDV += installment.getLaunchDV() + installment.getOtherDV();
+            } else {
                 unassignedSats.addAll(satGroup);
             }
         }
-        
-        //find assignments for the other satellites
-        Collection<Collection<List<SatelliteVariable>>> feasibleDeployments = new ArrayList();
-        if(unassignedSats.isEmpty()){
-            feasibleDeployments.add(new ArrayList());
-        }else{
-            feasibleDeployments = enumeratePartitions(unassignedSats);
-        }
-        ArrayList<Installment> minLaunchDeployment = new ArrayList<>();
-        double minDV = Double.POSITIVE_INFINITY;
-        for (Collection<List<SatelliteVariable>> deployment : feasibleDeployments) {
-            //add the large groups
-            deployment.addAll(feasibleLargeDeployments);
-            
-            ArrayList<Installment> bestDeployment = new ArrayList<>();
-            double dv = 0.0;
-            int nSatAssinged = 0;
-
-            for (List<SatelliteVariable> launchGroup : deployment) {
-                List<SatelliteVariable> bestOrder = ConstellationDeployment.deltaVCompatible(launchGroup, tugDvLimit);
-                if (bestOrder.isEmpty()) {
-                    bestDeployment.clear();
-                    break;
-                }
 
-                double tugDV = ConstellationDeployment.deploymentDV(bestOrder);
-
-                //add the dv required to get to first satellite in deployment order
-                double[][] v = DeltaV.launch(bestOrder.get(0).getInc(),
-                        launchLatitude,
-                        Orbits.circularOrbitVelocity(bestOrder.get(0).getSma()),
-                        0.0);
-                double launchDV = FastMath.min(Vector.magnitude(v[0]), Vector.magnitude(v[1]));
-
-                bestDeployment.add(new Installment(bestOrder, launchDV, tugDV));
-                nSatAssinged += bestOrder.size();
-
-                dv += tugDV + launchDV;
-            }
-
-            if (nSatAssinged != satellites.size()) {
-                throw new IllegalStateException("All satellites not included in deployment strategy");
+        //find the assignments of the other satellites with the fewest launches and least delta v
+        ArrayList<Installment> minLaunchDeployment = new ArrayList<>();
+        boolean complete = true;
+        int launchLowerBound = largeDeployments.size();
+        double dvLowerBound = largeDV;
+        for (int from = 0; from < unassignedSats.size(); from += GroupFeasibilityCache.MAX_SATELLITES) {
+            List<SatelliteVariable> batch = unassignedSats.subList(from,
+                    FastMath.min(unassignedSats.size(), from + GroupFeasibilityCache.MAX_SATELLITES));
+            //the feasibility of each launch group is checked once per evaluation
+            GroupFeasibilityCache groups = new GroupFeasibilityCache(batch,
+                    raanTimeLimit, tugDvLimit, launchLatitude, deploymentOrdering, launchTable);
+            long batchSats = (1L << batch.size()) - 1;
+
+            //evaluations on the workers of a ParallelProblem already use all
+            //processors, so they stream the partitions serially instead
+            if (deploymentSearch.equals("parallel")
+                    && batch.size() >= deploymentParallelThreshold
+                    && !ParallelProblem.isWorkerThread()) {
+                minLaunchDeployment.addAll(new ParallelPartitionSearch(groups,
+                        deploymentSplitDepth, deploymentPool).solve(batchSats));
+            } else if (deploymentSearch.equals("anytime")) {
+                AnytimePartitionSearch search = new AnytimePartitionSearch(groups,
+                        deploymentTimeBudget, deploymentNodeBudget);
+                minLaunchDeployment.addAll(search.solve(batchSats));
+                complete &= search.isComplete();
+                launchLowerBound += search.getLaunchLowerBound();
+                dvLowerBound += search.getDVLowerBound();
+            } else if (deploymentSearch.equals("enumerate") || deploymentSearch.equals("parallel")) {
+                minLaunchDeployment.addAll(enumeratePartitions(groups, batchSats));
+            } else {
+                minLaunchDeployment.addAll(new PartitionSolver(groups).solve(batchSats));
             }
+        }
+        if (deploymentSearch.equals("anytime")) {
+            solution.setAttribute("deploymentComplete", complete);
+            solution.setAttribute("launchLowerBound", launchLowerBound);
+            solution.setAttribute("deploymentDVLowerBound", dvLowerBound);
+        } else {
+            //offspring copy the attributes of their parents
+            solution.removeAttribute("deploymentComplete");
+            solution.removeAttribute("launchLowerBound");
+            solution.removeAttribute("deploymentDVLowerBound");
+        }
 
-            if (minLaunchDeployment.isEmpty() || bestDeployment.size() < minLaunchDeployment.size()) {
-                minLaunchDeployment = bestDeployment;
-                minDV = dv;
-            } else if (bestDeployment.size() == minLaunchDeployment.size() && dv < minDV) {
-                minLaunchDeployment = bestDeployment;
-            }
+        //add the large groups
+        minLaunchDeployment.addAll(largeDeployments);
 
-        }
         if (minLaunchDeployment.isEmpty()) {
             throw new IllegalStateException("No deployment strategy found!");
         }
         return new DeploymentStrategy(minLaunchDeployment);
     }
 
-    private Collection<Collection<List<SatelliteVariable>>> enumeratePartitions(Collection<SatelliteVariable> satellites) {
-        ArrayList<SatelliteVariable> sats = new ArrayList<>(satellites);
-
-        //in implementation, we maintain the maximum partition number of the array in the 0th index
-        Collection<int[]> prev = new ArrayList();
-        prev.add(new int[]{0, 0});
-        Collection<Collection<List<SatelliteVariable>>> out;
-        ArrayList<int[]> curr = new ArrayList();;
-        boolean trivial = false;
-
-        //handle trivial cases
-        if (sats.size() == 1) {
-            curr = new ArrayList(prev);
-            trivial = true;
+    /**
+     * Checks if a large group of near-coplanar satellites can be launched
+     * together. Every pair of satellites must be RAAN compatible and the tug
+     * must be able to deploy all of them. Groups with more than
+     * GroupFeasibilityCache.MAX_SATELLITES satellites are not launched
+     * together.
+     *
+     * @param satGroup the satellites of the group
+     * @return the installment of the group or null if it cannot be launched
+     * together
+     */
+    private Installment launchTogether(List<SatelliteVariable> satGroup) {
+        if (satGroup.size() > GroupFeasibilityCache.MAX_SATELLITES) {
+            return null;
         }
-
-        while (!trivial) {
-            curr = new ArrayList();
-            for (int[] subPart : prev) {
-                for (int partNum = 0; partNum <= subPart[0] + 1; partNum++) {
-                    int[] extended = Arrays.copyOf(subPart, subPart.length + 1);
-                    extended[subPart.length] = partNum;
-
-                    //check to see if new member belongs to a new partition
-                    if (subPart[0] < partNum) {
-                        extended[0] = partNum;
-                        curr.add(extended);
-                    } else {
-                        boolean meetsConstraints = true;
-
-                        for (int i = 1; i < extended.length - 1; i++) {
-                            //check if newly added satellite belongs in the same partition as other satellite
-                            if (extended[extended.length - 1] == extended[i]) {
-
-                                //check RAAN constraint with newly added satellite (minus 2 because first index is max partition number)
-                                SatelliteVariable newSat = sats.get(extended.length - 2);
-                                if (!ConstellationDeployment.raanCompatitble(newSat, sats.get(i - 1), raanTimeLimit)) {
-                                    meetsConstraints = false;
-                                    break;
-                                }
-
-                                //check to see if all satellites in same parition as newly added satellite can be launched together
-                                ArrayList<SatelliteVariable> group = new ArrayList<>();
-                                group.add(newSat);
-                                for (int j = 1; j < extended.length - 1; j++) {
-                                    if (extended[j] == extended[extended.length - 1]) {
-                                        group.add(sats.get(j - 1));
-                                    }
-                                }
-
-                                if (ConstellationDeployment.deltaVCompatible(group, tugDvLimit).isEmpty()) {
-                                    meetsConstraints = false;
-                                    break;
-                                }
-                            }
-                        }
-                        if (meetsConstraints) {
-                            //add deployment strategy is constraints are met
-                            curr.add(extended);
-                        }
-                    }
-                }
-            }
-
-            //quite loop when all paritions are complete
-            if (curr.get(0).length == sats.size() + 1) {
-                break;
+        GroupFeasibilityCache group = new GroupFeasibilityCache(satGroup,
+                raanTimeLimit, tugDvLimit, launchLatitude, deploymentOrdering, launchTable);
+        long mask = (1L << satGroup.size()) - 1;
+        for (int i = 0; i < satGroup.size(); i++) {
+            if ((group.getCompatible(i) & mask) != mask) {
+                return null;
             }
-
-            prev = curr;
         }
+        return group.getInstallment(mask);
+    }
 
-        out = new ArrayList(curr.size());
-        for (int[] partition : curr) {
-            //map contains the launch groups (keys are partition numbers)
-            HashMap<Integer, ArrayList<SatelliteVariable>> map = new HashMap<>();
-            for (int i = 1; i < partition.length; i++) {
-                if (!map.containsKey(partition[i])) {
-                    map.put(partition[i], new ArrayList<>());
-                }
-                map.get(partition[i]).add(sats.get(i - 1));
+    /**
+     * Finds the partition of the satellites with the fewest launches and least
+     * delta v by streaming the feasible partitions. Only the best partition
+     * found so far is kept and partitions with more launches than it are
+     * pruned.
+     *
+     * @param groups the feasibility of the groups of satellites
+     * @param satellites the bitmask of the satellites to partition
+     * @return the installment of each launch group
+     */
+    private List<Installment> enumeratePartitions(GroupFeasibilityCache groups, long satellites) {
+        PartitionIterator iter = new PartitionIterator(groups, satellites);
+        long[] minLaunchPartition = null;
+        double minDV = Double.POSITIVE_INFINITY;
+        while (iter.hasNext()) {
+            long[] partition = iter.next();
+            double dv = 0.0;
+            for (long group : partition) {
+                Installment installment = groups.getInstallment(group);
+                dv += installment.getOtherDV() + installment.getLaunchDV();
             }
-            ArrayList<List<SatelliteVariable>> deployment = new ArrayList<>();
-            for (Integer i : map.keySet()) {
-                deployment.add(map.get(i));
+            if (minLaunchPartition == null || partition.length < minLaunchPartition.length
+                    || (partition.length == minLaunchPartition.length && dv < minDV)) {
+                minLaunchPartition = partition;
+                minDV = dv;
+                iter.setLaunchLimit(partition.length);
             }
-            out.add(deployment);
+        }
+        ArrayList<Installment> out = new ArrayList<>(minLaunchPartition.length);
+        for (long group : minLaunchPartition) {
+            out.add(groups.getInstallment(group));
         }
         return out;
     }
@@ -0,0 +1,432 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.hipparchus.util.FastMath;
+import org.orekit.bodies.BodyShape;
+import org.orekit.bodies.GeodeticPoint;
+import org.orekit.frames.TopocentricFrame;
+import seak.conmop.coverage.AccessCalculator;
+import seak.conmop.coverage.CoverageTimeline;
+import seak.orekit.object.CommunicationBand;
+import seak.orekit.object.CoverageDefinition;
+import seak.orekit.object.GndStation;
+import seak.orekit.object.communications.ReceiverAntenna;
+import seak.orekit.object.communications.TransmitterAntenna;
+
+/**
+ * The objects needed to evaluate a constellation that do not depend on the
+ * satellites. The points of interest and ground stations, their Earth-fixed
+ * positions and unit zenith vectors, and the satellite antennas are computed
+ * once per problem and shared read-only. Each thread gets its own context
+ * (see copy constructor) that holds the mutable objects: the coverage
+ * definition to which the satellites are assigned and the buffers used to
+ * compute the satellite accesses.
+ *
+ * @author nozomihitomi
+ */
+public class EvaluationContext {
+
+    /**
+     * The points of interest
+     */
+    private final Set<GeodeticPoint> poi;
+
+    /**
+     * The points of interest in a fixed order
+     */
+    private final List<TopocentricFrame> poiFrames;
+
+    /**
+     * The x, y and z Earth-fixed coordinates [m] of each point of interest
+     */
+    private final double[][] poiPositions;
+
+    /**
+     * The x, y and z components of the Earth-fixed unit zenith vector of each
+     * point of interest
+     */
+    private final double[][] poiZeniths;
+
+    /**
+     * The ground stations that every satellite communicates with
+     */
+    private final Set<GndStation> gndStations;
+
+    /**
+     * The ground stations in a fixed order
+     */
+    private final List<GndStation> gndStationList;
+
+    /**
+     * The frames of the ground stations in a fixed order
+     */
+    private final List<TopocentricFrame> gndStationFrames;
+
+    /**
+     * The x, y and z Earth-fixed coordinates [m] of each ground station
+     */
+    private final double[][] gndStationPositions;
+
+    /**
+     * The x, y and z components of the Earth-fixed unit zenith vector of each
+     * ground station
+     */
+    private final double[][] gndStationZeniths;
+
+    /**
+     * The minimum elevation [rad] of each ground station
+     */
+    private final double[] gndStationMinElevations;
+
+    /**
+     * The x, y and z Earth-fixed coordinates [m] of the points of interest
+     * followed by the ground stations
+     */
+    private final double[][] accessPointPositions;
+
+    /**
+     * The Earth-fixed unit zenith vectors of the points of interest followed
+     * by the ground stations
+     */
+    private final double[][] accessPointZeniths;
+
+    /**
+     * The receiver antenna of every satellite
+     */
+    private final ReceiverAntenna receiver;
+
+    /**
+     * The transmitter antenna of every satellite
+     */
+    private final TransmitterAntenna transmitter;
+
+    /**
+     * The shape of the Earth
+     */
+    private final BodyShape earthShape;
+
+    /**
+     * The coverage definition of this thread. null if there are no points of
+     * interest
+     */
+    private final CoverageDefinition coverageDefinition;
+
+    /**
+     * The buffers of this thread for computing satellite accesses
+     */
+    private final AccessCalculator.Workspace accessWorkspace;
+
+    /**
+     * The coverage bitsets of this thread. Created on first use
+     */
+    private CoverageTimeline coverageTimeline;
+
+    /**
+     * Precomputes the objects shared by all evaluations of a problem
+     *
+     * @param poi the points of interest. may be null
+     * @param earthShape the shape of the Earth
+     * @param gndStations the ground stations that every satellite
+     * communicates with
+     */
+    public EvaluationContext(Set<GeodeticPoint> poi, BodyShape earthShape, Collection<GndStation> gndStations) {
+        this.poi = poi;
+        this.earthShape = earthShape;
+        if (poi == null) {
+            this.poiFrames = null;
+            this.poiPositions = null;
+            this.poiZeniths = null;
+        } else {
+            ArrayList<TopocentricFrame> frames = new ArrayList<>(poi.size());
+            for (GeodeticPoint point : poi) {
+                frames.add(new TopocentricFrame(earthShape, point, "poi" + frames.size()));
+            }
+            this.poiFrames = Collections.unmodifiableList(frames);
+            this.poiPositions = AccessCalculator.positions(frames, earthShape);
+            this.poiZeniths = AccessCalculator.zeniths(frames);
+        }
+        if (gndStations == null) {
+            this.gndStations = Collections.emptySet();
+        } else {
+            this.gndStations = Collections.unmodifiableSet(new HashSet<>(gndStations));
+        }
+        this.gndStationList = Collections.unmodifiableList(new ArrayList<>(this.gndStations));
+        ArrayList<TopocentricFrame> stationFrames = new ArrayList<>(gndStationList.size());
+        this.gndStationMinElevations = new double[gndStationList.size()];
+        for (GndStation station : gndStationList) {
+            gndStationMinElevations[stationFrames.size()] = station.getMinEl();
+            stationFrames.add(station.getBaseFrame());
+        }
+        this.gndStationFrames = Collections.unmodifiableList(stationFrames);
+        this.gndStationPositions = AccessCalculator.positions(stationFrames, earthShape);
+        this.gndStationZeniths = AccessCalculator.zeniths(stationFrames);
+        this.accessPointPositions = concatenate(poiPositions, gndStationPositions);
+        this.accessPointZeniths = concatenate(poiZeniths, gndStationZeniths);
+        HashSet<CommunicationBand> comms = new HashSet<>();
+        comms.add(CommunicationBand.UHF);
+        this.receiver = new ReceiverAntenna(1, comms);
+        this.transmitter = new TransmitterAntenna(1, comms);
+        this.coverageDefinition = createCoverageDefinition();
+        this.accessWorkspace = new AccessCalculator.Workspace();
+    }
+
+    /**
+     * Creates a context for another thread that shares the precomputed objects
+     * of the given context
+     *
+     * @param context the context to share the precomputed objects of
+     */
+    public EvaluationContext(EvaluationContext context) {
+        this.poi = context.poi;
+        this.earthShape = context.earthShape;
+        this.poiFrames = context.poiFrames;
+        this.poiPositions = context.poiPositions;
+        this.poiZeniths = context.poiZeniths;
+        this.gndStations = context.gndStations;
+        this.gndStationList = context.gndStationList;
+        this.gndStationFrames = context.gndStationFrames;
+        this.gndStationPositions = context.gndStationPositions;
+        this.gndStationZeniths = context.gndStationZeniths;
+        this.gndStationMinElevations = context.gndStationMinElevations;
+        this.accessPointPositions = context.accessPointPositions;
+        this.accessPointZeniths = context.accessPointZeniths;
+        this.receiver = context.receiver;
+        this.transmitter = context.transmitter;
+        this.coverageDefinition = createCoverageDefinition();
+        this.accessWorkspace = new AccessCalculator.Workspace();
+    }
+
+    /**
+     * Concatenates the x, y and z arrays of the points of interest and the
+     * ground stations
+     */
+    private static double[][] concatenate(double[][] poiValues, double[][] stationValues) {
+        int nPoi = poiValues == null ? 0 : poiValues[0].length;
+        int nGnd = stationValues[0].length;
+        double[][] out = new double[3][nPoi + nGnd];
+        for (int i = 0; i < 3; i++) {
+            if (nPoi > 0) {
+                System.arraycopy(poiValues[i], 0, out[i], 0, nPoi);
+            }
+            System.arraycopy(stationValues[i], 0, out[i], nPoi, nGnd);
+        }
+        return out;
+    }
+
+    private CoverageDefinition createCoverageDefinition() {
+        if (poi == null) {
+            return null;
+        }
+        return new CoverageDefinition("", poi, earthShape);
+    }
+
+    /**
+     * Gets the points of interest in a fixed order
+     *
+     * @return the points of interest in a fixed order. null if there are no
+     * points of interest
+     */
+    public List<TopocentricFrame> getPoiFrames() {
+        return poiFrames;
+    }
+
+    /**
+     * Gets the Earth-fixed coordinates of the points of interest. The returned
+     * arrays should not be modified.
+     *
+     * @return the x, y and z Earth-fixed coordinates [m] of each point of
+     * interest
+     */
+    public double[][] getPoiPositions() {
+        return poiPositions;
+    }
+
+    /**
+     * Gets the Earth-fixed unit zenith vectors of the points of interest. The
+     * returned arrays should not be modified.
+     *
+     * @return the x, y and z components of the Earth-fixed unit zenith vector
+     * of each point of interest
+     */
+    public double[][] getPoiZeniths() {
+        return poiZeniths;
+    }
+
+    /**
+     * Gets the ground stations that every satellite communicates with
+     *
+     * @return an unmodifiable set of the ground stations
+     */
+    public Set<GndStation> getGndStations() {
+        return gndStations;
+    }
+
+    /**
+     * Gets the ground stations in a fixed order
+     *
+     * @return an unmodifiable list of the ground stations
+     */
+    public List<GndStation> getGndStationList() {
+        return gndStationList;
+    }
+
+    /**
+     * Gets the frames of the ground stations in the order of
+     * getGndStationList()
+     *
+     * @return an unmodifiable list of the frames of the ground stations
+     */
+    public List<TopocentricFrame> getGndStationFrames() {
+        return gndStationFrames;
+    }
+
+    /**
+     * Gets the Earth-fixed coordinates of the ground stations in the order of
+     * getGndStationList(). The returned arrays should not be modified.
+     *
+     * @return the x, y and z Earth-fixed coordinates [m] of each ground
+     * station
+     */
+    public double[][] getGndStationPositions() {
+        return gndStationPositions;
+    }
+
+    /**
+     * Gets the Earth-fixed unit zenith vectors of the ground stations in the
+     * order of getGndStationList(). The returned arrays should not be
+     * modified.
+     *
+     * @return the x, y and z components of the Earth-fixed unit zenith vector
+     * of each ground station
+     */
+    public double[][] getGndStationZeniths() {
+        return gndStationZeniths;
+    }
+
+    /**
+     * Gets the minimum elevations of the ground stations in the order of
+     * getGndStationList(). The returned array should not be modified.
+     *
+     * @return the minimum elevation [rad] of each ground station
+     */
+    public double[] getGndStationMinElevations() {
+        return gndStationMinElevations;
+    }
+
+    /**
+     * Gets the Earth-fixed coordinates of the access points: the points of
+     * interest followed by the ground stations. The returned arrays should
+     * not be modified.
+     *
+     * @return the x, y and z Earth-fixed coordinates [m] of each access point
+     */
+    public double[][] getAccessPointPositions() {
+        return accessPointPositions;
+    }
+
+    /**
+     * Gets the Earth-fixed unit zenith vectors of the access points: the
+     * points of interest followed by the ground stations. The returned arrays
+     * should not be modified.
+     *
+     * @return the x, y and z components of the Earth-fixed unit zenith vector
+     * of each access point
+     */
+    public double[][] getAccessPointZeniths() {
+        return accessPointZeniths;
+    }
+
+    /**
+     * Gets the minimum elevations of the access points: zero for the points
+     * of interest followed by the minimum elevation of the ground stations
+     *
+     * @return a new array with the minimum elevation [rad] of each access
+     * point
+     */
+    public double[] getAccessPointMinElevations() {
+        int nPoi = poiFrames == null ? 0 : poiFrames.size();
+        double[] minElevations = new double[nPoi + gndStationMinElevations.length];
+        System.arraycopy(gndStationMinElevations, 0, minElevations, nPoi, gndStationMinElevations.length);
+        return minElevations;
+    }
+
+    /**
+     * Gets the sensor half angles of the access points: the given half angle
+     * for the points of interest followed by pi for the ground stations, which
+     * are not constrained by the sensor
+     *
+     * @param halfAngle the half angle [rad] of the sensor
+     * @return a new array with the half angle [rad] for each access point
+     */
+    public double[] getAccessPointHalfAngles(double halfAngle) {
+        int nPoi = poiFrames == null ? 0 : poiFrames.size();
+        double[] halfAngles = new double[nPoi + gndStationMinElevations.length];
+        Arrays.fill(halfAngles, 0, nPoi, halfAngle);
+        Arrays.fill(halfAngles, nPoi, halfAngles.length, FastMath.PI);
+        return halfAngles;
+    }
+
+    /**
+     * Gets the receiver antenna of every satellite
+     *
+     * @return the receiver antenna of every satellite
+     */
+    public ReceiverAntenna getReceiver() {
+        return receiver;
+    }
+
+    /**
+     * Gets the transmitter antenna of every satellite
+     *
+     * @return the transmitter antenna of every satellite
+     */
+    public TransmitterAntenna getTransmitter() {
+        return transmitter;
+    }
+
+    /**
+     * Gets the coverage definition of this thread. The constellation being
+     * evaluated is assigned to it before each evaluation.
+     *
+     * @return the coverage definition of this thread
+     */
+    public CoverageDefinition getCoverageDefinition() {
+        return coverageDefinition;
+    }
+
+    /**
+     * Gets the buffers of this thread for computing satellite accesses
+     *
+     * @return the buffers of this thread for computing satellite accesses
+     */
+    public AccessCalculator.Workspace getAccessWorkspace() {
+        return accessWorkspace;
+    }
+
+    /**
+     * Gets the coverage bitsets of this thread over the points of interest
+     * followed by the ground stations
+     *
+     * @param step the length [s] of a slot
+     * @param duration the duration [s] of the study window
+     * @return the coverage bitsets of this thread
+     */
+    public CoverageTimeline getCoverageTimeline(double step, double duration) {
+        if (coverageTimeline == null) {
+            coverageTimeline = new CoverageTimeline(accessPointPositions[0].length, step, duration);
+        }
+        return coverageTimeline;
+    }
+
+}
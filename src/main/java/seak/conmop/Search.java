@@ -46,13 +46,19 @@ import org.orekit.time.TimeScale;
 import org.orekit.time.TimeScalesFactory;
 import org.orekit.utils.Constants;
 import org.orekit.utils.IERSConventions;
+import seak.conmop.memo.DuplicateFilter;
 import seak.conmop.operators.OrbitElementOperator;
+import seak.conmop.operators.SBXPM;
 import seak.conmop.operators.VariableLengthOnePointCrossover;
 import seak.conmop.operators.VariablePM;
 import seak.conmop.operators.knowledge.DecreasePlanes;
 import seak.conmop.operators.knowledge.DistributeAnomaly;
 import seak.conmop.operators.knowledge.DistributePlanes;
 import seak.conmop.operators.knowledge.IncreasePlanes;
+import seak.conmop.parallel.AsynchronousAOS;
+import seak.conmop.parallel.ParallelProblem;
+import seak.conmop.propagation.CachedPropagatorFactory;
+import seak.conmop.propagation.EphemerisCache;
 import seak.conmop.util.Bounds;
 import seak.orekit.object.CommunicationBand;
 import seak.orekit.object.CoverageDefinition;
@@ -98,7 +104,12 @@ public class Search {
         //Enter satellite orbital parameters
         double a = Constants.WGS84_EARTH_EQUATORIAL_RADIUS;
 
-        PropagatorFactory pf = new PropagatorFactory(PropagatorType.J2);
+        //cache the sampled satellite states [512MB] so that satellites that
+        //are passed on unchanged to offspring are not propagated again. States
+        //between the 60 s samples are interpolated to within 1 m
+        EphemerisCache ephemerisCache = new EphemerisCache(512L * 1024L * 1024L);
+        PropagatorFactory pf = new CachedPropagatorFactory(PropagatorType.J2,
+                ephemerisCache, startDate, endDate, 60., 1.);
 
         Properties problemProperty = new Properties();
 
@@ -109,6 +120,24 @@ public class Search {
         //properties for launch deployment
         problemProperty.setProperty("raanTimeLimit", "604800");
         problemProperty.setProperty("dvLimit", "600");
+        //interpolate the launch delta V from a 20x20 table over the bounds
+        problemProperty.setProperty("launchTableSize", "20");
+
+        //compute coverage as the union of cached single satellite accesses.
+        //"analytic" predicts the accesses of the circular orbits without
+        //propagation and "analyticValidation" reports its timing error
+        problemProperty.setProperty("coverageAnalysis", "cached");
+        problemProperty.setProperty("accessCacheSize", "10000");
+        problemProperty.setProperty("transformTableFile", "eme2000_itrf.table");
+
+        //reuse the fitness of constellations that were already evaluated.
+        //the spill file lets later runs of this problem share the records. it
+        //is cleared if the problem changes. at most 1M spilled records [12MB]
+        //are indexed in memory
+        problemProperty.setProperty("fitnessMemoSize", "20000");
+        problemProperty.setProperty("fitnessMemoFile", "fitness.memo");
+        problemProperty.setProperty("fitnessMemoSpillSize", "1000000");
+        problemProperty.setProperty("deploymentMemoSize", "20000");
 
         Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
         BodyShape earthShape = new OneAxisEllipsoid(Constants.WGS84_EARTH_EQUATORIAL_RADIUS,
@@ -137,6 +166,19 @@ public class Search {
         //set up the search parameters
         int populationSize = 200;
         int maxNFE = 10000;
+        //number of threads used to evaluate solutions. 1 evaluates serially
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        //asynchronous steady-state search keeps numberOfThreads evaluations in
+        //flight. The synchronous search only evaluates the initial population
+        //in parallel because EpsilonMOEA reads each offspring right away
+        boolean asynchronous = numberOfThreads > 1;
+        //skip the evaluation of offspring that duplicate recently evaluated
+        //constellations
+        DuplicateFilter duplicateFilter = new DuplicateFilter(problem, 20000);
+        Problem evaluator = duplicateFilter;
+        if (numberOfThreads > 1 && !asynchronous) {
+            evaluator = new ParallelProblem(duplicateFilter, numberOfThreads);
+        }
 //        String mode = "static_";
 //        String mode = "variable_extra";
         String mode = "kd";
@@ -144,21 +186,20 @@ public class Search {
         for (int i = 0; i < 30; i++) {
 
             long startTime = System.nanoTime();
-            Initialization initialization = new RandomInitialization(problem,
+            Initialization initialization = new RandomInitialization(evaluator,
                     populationSize);
 
             Population population = new Population();
             DominanceComparator comparator = new ParetoDominanceComparator();
             EpsilonBoxDominanceArchive archive = new EpsilonBoxDominanceArchive(new double[]{30, 1, 100, 30});
             final TournamentSelection selection = new TournamentSelection(2, comparator);
-            EpsilonMOEA emoea = new EpsilonMOEA(problem, population, archive,
+            EpsilonMOEA emoea = new EpsilonMOEA(evaluator, population, archive,
                     selection, null, initialization, comparator);
 
             //set up variations
             //example of operators you might use
             ArrayList<Variation> operators = new ArrayList();
-            operators.add(new OrbitElementOperator(
-                    new CompoundVariation(new SBX(1, 20), new VariablePM(20))));
+            operators.add(new OrbitElementOperator(new SBXPM(1, 20, 20)));
             operators.add(new VariableLengthOnePointCrossover(1.0, tBounds));
             operators.add(new DecreasePlanes());
             operators.add(new DistributeAnomaly());
@@ -182,37 +223,71 @@ public class Search {
             //create credit assignment
             SetImprovementDominance creditAssignment = new SetImprovementDominance(archive, 1, 0);
 
-            //create AOS
-            AOSVariation aosStrategy = new AOSVariationSI(operatorSelector, creditAssignment, populationSize);
-            AOSMOEA aos = new AOSMOEA(emoea, aosStrategy, true);
-
-            System.out.println(String.format("Initializing population... Size = %d", populationSize));
-            while (aos.getNumberOfEvaluations() < maxNFE) {
-                aos.step();
-                double currentTime = ((System.nanoTime() - startTime) / Math.pow(10, 9)) / 60.;
+            Population allSolutions;
+            Population finalPopulation;
+            AOSMOEA aos = null;
+            long skipped = duplicateFilter.getSkipped();
+            if (asynchronous) {
+                AsynchronousAOS async = new AsynchronousAOS(duplicateFilter, population, archive,
+                        selection, comparator, new RandomInitialization(duplicateFilter, populationSize),
+                        operatorSelector, creditAssignment, numberOfThreads, populationSize);
+                System.out.println(String.format("Running asynchronous search... Evaluations in flight = %d", numberOfThreads));
+                async.run(maxNFE);
                 System.out.println(
-                        String.format("%d NFE out of %d NFE: Time elapsed = %10f min."
-                                + " Approximate time remaining %10f min.",
-                                aos.getNumberOfEvaluations(), maxNFE, currentTime,
-                                currentTime / emoea.getNumberOfEvaluations() * (maxNFE - aos.getNumberOfEvaluations())));
+                        String.format("%d NFE out of %d NFE. Skipped %d duplicate evaluations.",
+                                async.getNumberOfEvaluations(), maxNFE,
+                                duplicateFilter.getSkipped() - skipped));
+                System.out.println(async.getArchive().size());
+                allSolutions = async.getAllSolutions();
+                finalPopulation = async.getPopulation();
+            } else {
+                //create AOS
+                AOSVariation aosStrategy = new AOSVariationSI(operatorSelector, creditAssignment, populationSize);
+                aos = new AOSMOEA(emoea, aosStrategy, true);
+
+                System.out.println(String.format("Initializing population... Size = %d", populationSize));
+                while (aos.getNumberOfEvaluations() < maxNFE) {
+                    aos.step();
+                    double currentTime = ((System.nanoTime() - startTime) / Math.pow(10, 9)) / 60.;
+                    System.out.println(
+                            String.format("%d NFE out of %d NFE: Time elapsed = %10f min."
+                                    + " Approximate time remaining %10f min."
+                                    + " Skipped %d duplicate evaluations.",
+                                    aos.getNumberOfEvaluations(), maxNFE, currentTime,
+                                    currentTime / emoea.getNumberOfEvaluations() * (maxNFE - aos.getNumberOfEvaluations()),
+                                    duplicateFilter.getSkipped() - skipped));
+                    skipped = duplicateFilter.getSkipped();
+                }
+                System.out.println(aos.getArchive().size());
+                allSolutions = aos.getAllSolutions();
+                finalPopulation = aos.getPopulation();
             }
-            System.out.println(aos.getArchive().size());
 
             long endTime = System.nanoTime();
             Logger.getGlobal().finest(String.format("Took %.4f sec", (endTime - startTime) / Math.pow(10, 9)));
+            Logger.getGlobal().finest(ephemerisCache.toString());
+            Logger.getGlobal().finest(duplicateFilter.toString());
+            Logger.getGlobal().finest(((ConstellationOptimizer) problem).getFitnessMemo().toString());
+            Logger.getGlobal().finest(((ConstellationOptimizer) problem).getDeploymentMemo().toString());
+            if (((ConstellationOptimizer) problem).getAccessValidator() != null) {
+                Logger.getGlobal().finest(((ConstellationOptimizer) problem).getAccessValidator().toString());
+            }
 
             try {
-                PopulationIO.write(new File(mode + i + "_all.pop"), aos.getAllSolutions());
-                PopulationIO.write(new File(mode + i + ".pop"), aos.getPopulation());
-                PopulationIO.writeObjectives(new File(mode + i + "_all.obj"), aos.getAllSolutions());
-                PopulationIO.writeObjectives(new File(mode + i + ".obj"), aos.getPopulation());
+                PopulationIO.write(new File(mode + i + "_all.pop"), allSolutions);
+                PopulationIO.write(new File(mode + i + ".pop"), finalPopulation);
+                PopulationIO.writeObjectives(new File(mode + i + "_all.obj"), allSolutions);
+                PopulationIO.writeObjectives(new File(mode + i + ".obj"), finalPopulation);
             } catch (IOException ex) {
                 Logger.getLogger(Search.class.getName()).log(Level.SEVERE, null, ex);
             }
-            AOSHistoryIO.saveCreditHistory(aos.getCreditHistory(), new File(mode + i + ".credit"), ",");
-            AOSHistoryIO.saveSelectionHistory(aos.getSelectionHistory(), new File(mode + i + ".select"), ",");
+            if (aos != null) {
+                AOSHistoryIO.saveCreditHistory(aos.getCreditHistory(), new File(mode + i + ".credit"), ",");
+                AOSHistoryIO.saveSelectionHistory(aos.getSelectionHistory(), new File(mode + i + ".select"), ",");
+            }
         }
 
+        evaluator.close();
         OrekitConfig.end();
     }
 
@@ -0,0 +1,47 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.comparators;
+
+import java.util.Comparator;
+import seak.conmop.util.OrbitalElementEnum;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * Comparator for satellite variables that compares all the orbital elements
+ * lexicographically in the order semi-major axis, eccentricity, inclination,
+ * right ascension of the ascending node, argument of perigee and true anomaly.
+ * Sorting a collection of satellites with this comparator gives an order that
+ * does not depend on the original order of the collection.
+ *
+ * @author nozomihitomi
+ */
+public class OrbitalElementsComparator implements Comparator<SatelliteVariable> {
+
+    /**
+     * The comparators for each orbital element in order of precedence
+     */
+    private final SatelliteComparator[] comparators;
+
+    public OrbitalElementsComparator() {
+        OrbitalElementEnum[] elements = OrbitalElementEnum.values();
+        this.comparators = new SatelliteComparator[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            comparators[i] = new SatelliteComparator(elements[i]);
+        }
+    }
+
+    @Override
+    public int compare(SatelliteVariable o1, SatelliteVariable o2) {
+        for (SatelliteComparator comparator : comparators) {
+            int c = comparator.compare(o1, o2);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import seak.conmop.propagation.OrbitKey;
+
+/**
+ * A least-recently-used cache of the access intervals of individual
+ * satellites keyed by their orbital elements and the study window. The cache
+ * is bounded by the number of satellites it stores. All methods are
+ * thread-safe.
+ *
+ * @author nhitomi
+ */
+public class AccessCache {
+
+    /**
+     * The maximum number of satellites to store
+     */
+    private final int capacity;
+
+    /**
+     * The stored accesses in access order
+     */
+    private final LinkedHashMap<OrbitKey, SatelliteAccess> map;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    /**
+     * Creates a new cache
+     *
+     * @param capacity the maximum number of satellites to store
+     */
+    public AccessCache(final int capacity) {
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<OrbitKey, SatelliteAccess>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2251325370307711587L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<OrbitKey, SatelliteAccess> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Gets the access stored with the given key. Updates the hit and miss
+     * counters.
+     *
+     * @param key the key
+     * @return the stored access or null if there is none
+     */
+    public SatelliteAccess get(OrbitKey key) {
+        SatelliteAccess access;
+        synchronized (map) {
+            access = map.get(key);
+        }
+        if (access == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return access;
+    }
+
+    /**
+     * Stores the access with the given key and evicts the least recently used
+     * access if the cache is full
+     *
+     * @param key the key
+     * @param access the access
+     */
+    public void put(OrbitKey key, SatelliteAccess access) {
+        synchronized (map) {
+            map.put(key, access);
+        }
+    }
+
+    /**
+     * Gets the maximum number of satellites to store
+     *
+     * @return the maximum number of satellites to store
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of satellites stored in the cache
+     *
+     * @return the number of satellites stored in the cache
+     */
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a stored access
+     *
+     * @return the number of lookups that found a stored access
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that did not find a stored access
+     *
+     * @return the number of lookups that did not find a stored access
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AccessCache{size=%d, hits=%d, misses=%d}",
+                size(), getHits(), getMisses());
+    }
+
+}
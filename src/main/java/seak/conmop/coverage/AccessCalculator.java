@@ -0,0 +1,375 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import java.util.Arrays;
+import java.util.List;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.bodies.BodyShape;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.frames.Transform;
+import org.orekit.utils.PVCoordinates;
+import seak.conmop.propagation.SampledEphemeris;
+import seak.conmop.propagation.TransformTable;
+
+/**
+ * Computes the access intervals of a single satellite carrying a nadir
+ * pointing conical sensor to a fixed set of points of interest. A point is in
+ * view when the satellite is above the minimum elevation of the point and the
+ * point is within the half angle of the sensor. Each point can have its own
+ * minimum elevation and half angle so that ground stations (half angle of pi)
+ * can be checked in the same pass as the points of interest. If a transform
+ * table is given, the trajectory is expressed in the Earth-fixed frame with
+ * table lookups instead of Orekit frame transforms. Visibility is checked at
+ * each sample of the satellite ephemeris for the points that a latitude and
+ * longitude bucket index finds within reach of the sub-satellite point, and
+ * the rise and set times are refined by bisection on a cubic Hermite
+ * interpolation of the Earth-fixed satellite trajectory. Instances are
+ * immutable and can be shared across threads.
+ *
+ * @author nhitomi
+ */
+public class AccessCalculator {
+
+    /**
+     * Number of bisections used to refine a rise or set time
+     */
+    private static final int BISECTIONS = 16;
+
+    /**
+     * The angular size [rad] of the cells of the point index
+     */
+    private static final double INDEX_CELL_SIZE = FastMath.toRadians(5.);
+
+    /**
+     * Margin [rad] added to the reach of the satellite when querying the
+     * point index to account for the Earth flattening
+     */
+    private static final double INDEX_MARGIN = FastMath.toRadians(1.);
+
+    /**
+     * The Earth-fixed frame
+     */
+    private final Frame earthFrame;
+
+    /**
+     * The points and their visibility conditions
+     */
+    private final AccessGeometry geometry;
+
+    /**
+     * The index over the points
+     */
+    private final PointIndex index;
+
+    /**
+     * The transform from the ephemeris frame to the Earth-fixed frame. null if
+     * Orekit frame transforms are used
+     */
+    private final TransformTable table;
+
+    /**
+     * Creates a calculator for the given points of interest
+     *
+     * @param points the points of interest
+     * @param earthShape the shape of the Earth
+     * @param halfAngle the half angle [rad] of the conical sensor
+     */
+    public AccessCalculator(List<TopocentricFrame> points, BodyShape earthShape, double halfAngle) {
+        this(earthShape.getBodyFrame(), positions(points, earthShape), zeniths(points), halfAngle);
+    }
+
+    /**
+     * Creates a calculator for points of interest given by their Earth-fixed
+     * positions and zenith directions. The arrays are not copied.
+     *
+     * @param earthFrame the Earth-fixed frame
+     * @param positions the x, y and z Earth-fixed coordinates [m] of each
+     * point
+     * @param zeniths the x, y and z components of the Earth-fixed unit zenith
+     * vector of each point
+     * @param halfAngle the half angle [rad] of the conical sensor
+     */
+    public AccessCalculator(Frame earthFrame, double[][] positions, double[][] zeniths, double halfAngle) {
+        this(earthFrame, positions, zeniths, new double[positions[0].length],
+                fill(positions[0].length, halfAngle), null);
+    }
+
+    /**
+     * Creates a calculator for points given by their Earth-fixed positions
+     * and zenith directions, each with their own minimum elevation and sensor
+     * half angle. The arrays are not copied.
+     *
+     * @param earthFrame the Earth-fixed frame
+     * @param positions the x, y and z Earth-fixed coordinates [m] of each
+     * point
+     * @param zeniths the x, y and z components of the Earth-fixed unit zenith
+     * vector of each point
+     * @param minElevations the minimum elevation [rad] of each point
+     * @param halfAngles the half angle [rad] of the conical sensor for each
+     * point. pi if the sensor does not constrain the access
+     * @param table the transform from the ephemeris frame to the Earth-fixed
+     * frame. null to use Orekit frame transforms
+     */
+    public AccessCalculator(Frame earthFrame, double[][] positions, double[][] zeniths,
+            double[] minElevations, double[] halfAngles, TransformTable table) {
+        this.earthFrame = earthFrame;
+        this.geometry = new AccessGeometry(positions, zeniths, minElevations, halfAngles);
+        this.index = new PointIndex(geometry, INDEX_CELL_SIZE);
+        this.table = table;
+    }
+
+    private static double[] fill(int n, double value) {
+        double[] out = new double[n];
+        Arrays.fill(out, value);
+        return out;
+    }
+
+    /**
+     * Computes the Earth-fixed positions of the points
+     *
+     * @param points the points
+     * @param earthShape the shape of the Earth
+     * @return the x, y and z Earth-fixed coordinates [m] of each point
+     */
+    public static double[][] positions(List<TopocentricFrame> points, BodyShape earthShape) {
+        double[][] positions = new double[3][points.size()];
+        for (int k = 0; k < points.size(); k++) {
+            Vector3D position = earthShape.transform(points.get(k).getPoint());
+            positions[0][k] = position.getX();
+            positions[1][k] = position.getY();
+            positions[2][k] = position.getZ();
+        }
+        return positions;
+    }
+
+    /**
+     * Computes the Earth-fixed zenith directions of the points
+     *
+     * @param points the points
+     * @return the x, y and z components of the Earth-fixed unit zenith vector
+     * of each point
+     */
+    public static double[][] zeniths(List<TopocentricFrame> points) {
+        double[][] zeniths = new double[3][points.size()];
+        for (int k = 0; k < points.size(); k++) {
+            Vector3D zenith = points.get(k).getZenith();
+            zeniths[0][k] = zenith.getX();
+            zeniths[1][k] = zenith.getY();
+            zeniths[2][k] = zenith.getZ();
+        }
+        return zeniths;
+    }
+
+    /**
+     * Gets the number of points of interest
+     *
+     * @return the number of points of interest
+     */
+    public int getNumberOfPoints() {
+        return geometry.size();
+    }
+
+    /**
+     * Computes the access intervals of the satellite with the given ephemeris
+     * to every point of interest
+     *
+     * @param ephemeris the sampled ephemeris of the satellite
+     * @return the access intervals of the satellite
+     * @throws OrekitException
+     */
+    public SatelliteAccess compute(SampledEphemeris ephemeris) throws OrekitException {
+        return compute(ephemeris, new Workspace());
+    }
+
+    /**
+     * Computes the access intervals of the satellite with the given ephemeris
+     * to every point of interest using the buffers of the given workspace
+     *
+     * @param ephemeris the sampled ephemeris of the satellite
+     * @param workspace the buffers to use. Must not be used by another thread
+     * at the same time
+     * @return the access intervals of the satellite
+     * @throws OrekitException
+     */
+    public SatelliteAccess compute(SampledEphemeris ephemeris, Workspace workspace) throws OrekitException {
+        int nSamples = ephemeris.getNumberOfSamples();
+        Trajectory trajectory = workspace.trajectory(ephemeris);
+
+        //express the trajectory in the Earth-fixed frame
+        double[] pos = workspace.pos;
+        double[] vel = workspace.vel;
+        double duration = trajectory.t[nSamples - 1];
+        if (table != null && table.covers(ephemeris.getStartDate(), duration)) {
+            double offset = ephemeris.getStartDate().durationFrom(table.getStartDate());
+            double[] outPos = workspace.outPos;
+            double[] outVel = workspace.outVel;
+            for (int i = 0; i < nSamples; i++) {
+                ephemeris.getPosition(i, pos);
+                ephemeris.getVelocity(i, vel);
+                table.transform(offset + trajectory.t[i], pos, vel, outPos, outVel);
+                trajectory.sx[i] = outPos[0];
+                trajectory.sy[i] = outPos[1];
+                trajectory.sz[i] = outPos[2];
+                trajectory.vx[i] = outVel[0];
+                trajectory.vy[i] = outVel[1];
+                trajectory.vz[i] = outVel[2];
+            }
+        } else {
+            for (int i = 0; i < nSamples; i++) {
+                ephemeris.getPosition(i, pos);
+                ephemeris.getVelocity(i, vel);
+                Transform transform = ephemeris.getFrame().getTransformTo(earthFrame,
+                        ephemeris.getStartDate().shiftedBy(trajectory.t[i]));
+                PVCoordinates pv = transform.transformPVCoordinates(new PVCoordinates(
+                        new Vector3D(pos[0], pos[1], pos[2]), new Vector3D(vel[0], vel[1], vel[2])));
+                trajectory.sx[i] = pv.getPosition().getX();
+                trajectory.sy[i] = pv.getPosition().getY();
+                trajectory.sz[i] = pv.getPosition().getZ();
+                trajectory.vx[i] = pv.getVelocity().getX();
+                trajectory.vy[i] = pv.getVelocity().getY();
+                trajectory.vz[i] = pv.getVelocity().getZ();
+            }
+        }
+
+        //only points within reach of the highest sample can be visible
+        double maxRadius = 0;
+        for (int i = 0; i < nSamples; i++) {
+            maxRadius = FastMath.max(maxRadius, FastMath.sqrt(trajectory.sx[i] * trajectory.sx[i]
+                    + trajectory.sy[i] * trajectory.sy[i] + trajectory.sz[i] * trajectory.sz[i]));
+        }
+        double reach = geometry.maxCentralAngle(maxRadius) + INDEX_MARGIN;
+
+        final Trajectory track = trajectory;
+        double[][] intervals = workspace.scanner.scan(geometry, index, reach,
+                trajectory.t, trajectory.sx, trajectory.sy, trajectory.sz, nSamples,
+                new AccessScanner.Refiner() {
+            @Override
+            public double refine(int k, int i, boolean rising) {
+                return AccessCalculator.this.refine(track, i - 1, k, rising);
+            }
+        });
+        return new SatelliteAccess(intervals);
+    }
+
+    /**
+     * Finds the time of the visibility change between sample i and i+1 by
+     * bisection on the interpolated trajectory
+     *
+     * @param rising true if the point becomes visible at sample i+1
+     */
+    private double refine(Trajectory trajectory, int i, int k, boolean rising) {
+        double lo = 0;
+        double hi = 1;
+        double[] s = new double[3];
+        for (int iter = 0; iter < BISECTIONS; iter++) {
+            double mid = 0.5 * (lo + hi);
+            trajectory.interpolate(i, mid, s);
+            boolean visible = geometry.margin(s[0], s[1], s[2], k) >= 0;
+            if (visible == rising) {
+                hi = mid;
+            } else {
+                lo = mid;
+            }
+        }
+        return trajectory.t[i] + hi * (trajectory.t[i + 1] - trajectory.t[i]);
+    }
+
+    /**
+     * Reusable buffers for computing the access of satellites. The sample
+     * times are only recomputed when the sampling of the ephemeris changes.
+     * A workspace must only be used by one thread at a time.
+     */
+    public static class Workspace {
+
+        private final double[] pos = new double[3];
+
+        private final double[] vel = new double[3];
+
+        private final double[] outPos = new double[3];
+
+        private final double[] outVel = new double[3];
+
+        private Trajectory trajectory;
+
+        /**
+         * Scans the trajectory for visibility changes. Also used by
+         * AnalyticAccessCalculator
+         */
+        final AccessScanner scanner = new AccessScanner();
+
+        /**
+         * The step [s] and duration [s] of the sample times in the trajectory
+         */
+        private double step = Double.NaN, duration = Double.NaN;
+
+        /**
+         * Gets a trajectory with the sample times of the given ephemeris
+         */
+        private Trajectory trajectory(SampledEphemeris ephemeris) {
+            int nSamples = ephemeris.getNumberOfSamples();
+            double lastTime = ephemeris.getTime(nSamples - 1);
+            if (trajectory == null || trajectory.t.length < nSamples) {
+                trajectory = new Trajectory(nSamples);
+                step = Double.NaN;
+            }
+            if (trajectory.n != nSamples || step != ephemeris.getStep() || duration != lastTime) {
+                for (int i = 0; i < nSamples; i++) {
+                    trajectory.t[i] = ephemeris.getTime(i);
+                }
+                trajectory.n = nSamples;
+                step = ephemeris.getStep();
+                duration = lastTime;
+            }
+            return trajectory;
+        }
+    }
+
+    /**
+     * Earth-fixed satellite positions and velocities at the sample times
+     */
+    private static class Trajectory {
+
+        private final double[] t, sx, sy, sz, vx, vy, vz;
+
+        /**
+         * The number of samples in use
+         */
+        private int n;
+
+        Trajectory(int capacity) {
+            this.t = new double[capacity];
+            this.sx = new double[capacity];
+            this.sy = new double[capacity];
+            this.sz = new double[capacity];
+            this.vx = new double[capacity];
+            this.vy = new double[capacity];
+            this.vz = new double[capacity];
+        }
+
+        /**
+         * Cubic Hermite interpolation between sample i and i+1
+         *
+         * @param s the normalized time in [0,1]
+         */
+        void interpolate(int i, double s, double[] out) {
+            double h = t[i + 1] - t[i];
+            double s2 = s * s;
+            double s3 = s2 * s;
+            double h00 = 2 * s3 - 3 * s2 + 1;
+            double h10 = (s3 - 2 * s2 + s) * h;
+            double h01 = -2 * s3 + 3 * s2;
+            double h11 = (s3 - s2) * h;
+            out[0] = h00 * sx[i] + h10 * vx[i] + h01 * sx[i + 1] + h11 * vx[i + 1];
+            out[1] = h00 * sy[i] + h10 * vy[i] + h01 * sy[i + 1] + h11 * vy[i + 1];
+            out[2] = h00 * sz[i] + h10 * vz[i] + h01 * sz[i + 1] + h11 * vz[i + 1];
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import org.hipparchus.util.FastMath;
+
+/**
+ * The Earth-fixed geometry of a set of points and the visibility conditions
+ * of each point: a minimum elevation of the satellite above the local horizon
+ * and a maximum off-nadir angle of the point seen from a nadir pointing
+ * conical sensor. Instances are immutable and can be shared across threads.
+ *
+ * @author nhitomi
+ */
+class AccessGeometry {
+
+    /**
+     * Earth-fixed position [m] of each point
+     */
+    final double[] px, py, pz;
+
+    /**
+     * Earth-fixed zenith direction of each point
+     */
+    final double[] zx, zy, zz;
+
+    /**
+     * Minimum elevation [rad] of each point
+     */
+    private final double[] minElevation;
+
+    /**
+     * Sensor half angle [rad] for each point
+     */
+    private final double[] halfAngle;
+
+    /**
+     * Sine of the minimum elevation of each point
+     */
+    private final double[] sinMinElevation;
+
+    /**
+     * Cosine of the sensor half angle for each point
+     */
+    private final double[] cosHalfAngle;
+
+    /**
+     * Distance [m] of each point from the center of the Earth
+     */
+    private final double[] pointRadius;
+
+    /**
+     * The arrays are not copied.
+     *
+     * @param positions the x, y and z Earth-fixed coordinates [m] of each
+     * point
+     * @param zeniths the x, y and z components of the Earth-fixed unit zenith
+     * vector of each point
+     * @param minElevations the minimum elevation [rad] of each point
+     * @param halfAngles the half angle [rad] of the conical sensor for each
+     * point. pi if the sensor does not constrain the access
+     */
+    AccessGeometry(double[][] positions, double[][] zeniths, double[] minElevations, double[] halfAngles) {
+        this.px = positions[0];
+        this.py = positions[1];
+        this.pz = positions[2];
+        this.zx = zeniths[0];
+        this.zy = zeniths[1];
+        this.zz = zeniths[2];
+        this.minElevation = minElevations;
+        this.halfAngle = halfAngles;
+        this.sinMinElevation = new double[px.length];
+        this.cosHalfAngle = new double[px.length];
+        this.pointRadius = new double[px.length];
+        for (int k = 0; k < px.length; k++) {
+            sinMinElevation[k] = FastMath.sin(minElevations[k]);
+            cosHalfAngle[k] = FastMath.cos(halfAngles[k]);
+            pointRadius[k] = FastMath.sqrt(px[k] * px[k] + py[k] * py[k] + pz[k] * pz[k]);
+        }
+    }
+
+    /**
+     * Gets the number of points
+     *
+     * @return the number of points
+     */
+    int size() {
+        return px.length;
+    }
+
+    /**
+     * The visibility margin of point k from the Earth-fixed satellite position
+     * (x, y, z). Non-negative if the satellite is above the minimum elevation
+     * of the point and the point is within the sensor half angle.
+     */
+    double margin(double x, double y, double z, int k) {
+        double dx = x - px[k];
+        double dy = y - py[k];
+        double dz = z - pz[k];
+        double range = FastMath.sqrt(dx * dx + dy * dy + dz * dz);
+        double radius = FastMath.sqrt(x * x + y * y + z * z);
+
+        //sine of the elevation of the satellite seen from the point
+        double sinElevation = (dx * zx[k] + dy * zy[k] + dz * zz[k]) / range;
+        //cosine of the off-nadir angle of the point seen from the satellite
+        double cosOffNadir = (dx * x + dy * y + dz * z) / (range * radius);
+        return FastMath.min(sinElevation - sinMinElevation[k], cosOffNadir - cosHalfAngle[k]);
+    }
+
+    /**
+     * The largest Earth central angle [rad] between point k and the
+     * sub-satellite point at which a satellite at the given distance from the
+     * center of the Earth can see the point. Computed for a spherical Earth
+     * through the point, so callers should add a small margin for the
+     * ellipsoid.
+     *
+     * @param k the index of the point
+     * @param satRadius the distance [m] of the satellite from the center of
+     * the Earth
+     * @return the largest Earth central angle [rad] at which the point is
+     * visible
+     */
+    double maxCentralAngle(int k, double satRadius) {
+        double ratio = pointRadius[k] / satRadius;
+        //limit from the minimum elevation
+        double lambdaElevation = FastMath.acos(FastMath.min(1., ratio * FastMath.cos(minElevation[k]))) - minElevation[k];
+        //limit from the sensor half angle
+        double sinNadir = FastMath.sin(halfAngle[k]) / ratio;
+        if (halfAngle[k] >= FastMath.PI / 2 || sinNadir >= 1.) {
+            return lambdaElevation;
+        }
+        double lambdaSensor = FastMath.asin(sinNadir) - halfAngle[k];
+        return FastMath.min(lambdaElevation, lambdaSensor);
+    }
+
+    /**
+     * The largest Earth central angle [rad] at which any point can be seen
+     * from a satellite at the given distance from the center of the Earth
+     *
+     * @param satRadius the distance [m] of the satellite from the center of
+     * the Earth
+     * @return the largest Earth central angle [rad] over all points
+     */
+    double maxCentralAngle(double satRadius) {
+        double max = 0;
+        for (int k = 0; k < px.length; k++) {
+            max = FastMath.max(max, maxCentralAngle(k, satRadius));
+        }
+        return max;
+    }
+
+    /**
+     * The geocentric latitude [rad] of point k
+     *
+     * @param k the index of the point
+     * @return the geocentric latitude [rad] of point k
+     */
+    double latitude(int k) {
+        return FastMath.asin(pz[k] / pointRadius[k]);
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import java.util.Arrays;
+import org.hipparchus.util.FastMath;
+
+/**
+ * Scans the Earth-fixed trajectory of a satellite for changes in the
+ * visibility of a set of points. At each sample only the points in the cells
+ * of the point index that are within reach of the sub-satellite point, and
+ * the points that were visible at the previous sample, are tested. Points that
+ * drop out of reach are known to have set. The buffers of a scanner are reused
+ * between scans, so a scanner must only be used by one thread at a time.
+ *
+ * @author nhitomi
+ */
+class AccessScanner {
+
+    /**
+     * Finds the exact time of a visibility change
+     */
+    interface Refiner {
+
+        /**
+         * Finds the time at which the visibility of point k changes between
+         * sample i-1 and sample i
+         *
+         * @param k the index of the point
+         * @param i the index of the sample after the change
+         * @param rising true if the point becomes visible
+         * @return the time [s] of the visibility change
+         */
+        double refine(int k, int i, boolean rising);
+    }
+
+    /**
+     * The rise and set times of each point
+     */
+    private double[][] events;
+
+    /**
+     * The number of rise and set times of each point
+     */
+    private int[] nEvents;
+
+    /**
+     * The points found by the index at the current sample
+     */
+    private int[] candidates;
+
+    /**
+     * The sample at which each point was last found by the index
+     */
+    private int[] stamp;
+
+    /**
+     * The visibility of each point at the previous sample
+     */
+    private boolean[] visible;
+
+    /**
+     * The points that were visible at the previous sample
+     */
+    private int[] visibleList;
+
+    private void ensureCapacity(int nPoints) {
+        if (nEvents == null || nEvents.length != nPoints) {
+            events = new double[nPoints][4];
+            nEvents = new int[nPoints];
+            candidates = new int[nPoints];
+            stamp = new int[nPoints];
+            visible = new boolean[nPoints];
+            visibleList = new int[nPoints];
+        }
+    }
+
+    /**
+     * Computes the access intervals of every point
+     *
+     * @param geometry the points and their visibility conditions
+     * @param index the index over the points
+     * @param reach the largest Earth central angle [rad] at which any point
+     * can be visible from the satellite
+     * @param t the sample times [s]
+     * @param sx the Earth-fixed x coordinate [m] at each sample
+     * @param sy the Earth-fixed y coordinate [m] at each sample
+     * @param sz the Earth-fixed z coordinate [m] at each sample
+     * @param n the number of samples
+     * @param refiner finds the exact time of visibility changes
+     * @return the [rise, set, ...] times [s] indexed by point
+     */
+    double[][] scan(AccessGeometry geometry, PointIndex index, double reach,
+            double[] t, double[] sx, double[] sy, double[] sz, int n, Refiner refiner) {
+        int nPoints = geometry.size();
+        ensureCapacity(nPoints);
+        Arrays.fill(nEvents, 0);
+        Arrays.fill(stamp, -1);
+        Arrays.fill(visible, false);
+        int nVisible = 0;
+
+        for (int i = 0; i < n; i++) {
+            double radius = FastMath.sqrt(sx[i] * sx[i] + sy[i] * sy[i] + sz[i] * sz[i]);
+            double lat = FastMath.asin(sz[i] / radius);
+            double lon = FastMath.atan2(sy[i], sx[i]);
+            int nCandidates = index.query(lat, lon, reach, candidates, stamp, i);
+
+            //points that were visible but are now out of reach have set
+            for (int j = 0; j < nVisible; j++) {
+                int k = visibleList[j];
+                if (stamp[k] != i) {
+                    addEvent(k, refiner.refine(k, i, false));
+                    visible[k] = false;
+                }
+            }
+
+            nVisible = 0;
+            for (int j = 0; j < nCandidates; j++) {
+                int k = candidates[j];
+                boolean vis = geometry.margin(sx[i], sy[i], sz[i], k) >= 0;
+                if (vis != visible[k]) {
+                    addEvent(k, i == 0 ? t[0] : refiner.refine(k, i, vis));
+                    visible[k] = vis;
+                }
+                if (vis) {
+                    visibleList[nVisible++] = k;
+                }
+            }
+        }
+
+        double[][] out = new double[nPoints][];
+        for (int j = 0; j < nVisible; j++) {
+            //close the interval at the end of the window
+            addEvent(visibleList[j], t[n - 1]);
+        }
+        for (int k = 0; k < nPoints; k++) {
+            out[k] = new double[nEvents[k]];
+            System.arraycopy(events[k], 0, out[k], 0, nEvents[k]);
+        }
+        return out;
+    }
+
+    private void addEvent(int k, double time) {
+        if (nEvents[k] == events[k].length) {
+            double[] grown = new double[2 * events[k].length];
+            System.arraycopy(events[k], 0, grown, 0, nEvents[k]);
+            events[k] = grown;
+        }
+        events[k][nEvents[k]++] = time;
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import org.hipparchus.util.FastMath;
+
+/**
+ * Accumulates the timing error of access intervals computed by one method
+ * (e.g. AnalyticAccessCalculator) against a reference method (e.g. the
+ * propagated ephemeris). For every point, each rise or set time of the tested
+ * access is matched to the closest reference time of the same kind. Points
+ * where the two methods find a different number of intervals are counted
+ * separately. The methods of this class are synchronized so that it can be
+ * shared by concurrent evaluations.
+ *
+ * @author nhitomi
+ */
+public class AccessValidator {
+
+    /**
+     * The number of compared rise and set times
+     */
+    private long nEvents;
+
+    /**
+     * The sum of the absolute timing errors [s]
+     */
+    private double sumError;
+
+    /**
+     * The largest absolute timing error [s]
+     */
+    private double maxError;
+
+    /**
+     * The number of compared points
+     */
+    private long nPoints;
+
+    /**
+     * The number of points with a different number of intervals
+     */
+    private long nMismatchedPoints;
+
+    /**
+     * Compares the access intervals of one satellite computed by two methods
+     *
+     * @param reference the reference access
+     * @param test the access to validate
+     */
+    public synchronized void compare(SatelliteAccess reference, SatelliteAccess test) {
+        for (int k = 0; k < reference.getNumberOfPoints(); k++) {
+            double[] ref = reference.getIntervals(k);
+            double[] tst = test.getIntervals(k);
+            nPoints++;
+            if (ref.length != tst.length) {
+                nMismatchedPoints++;
+            }
+            if (ref.length == 0) {
+                continue;
+            }
+            for (int i = 0; i < tst.length; i++) {
+                double error = closest(ref, tst[i], i % 2);
+                nEvents++;
+                sumError += error;
+                maxError = FastMath.max(maxError, error);
+            }
+        }
+    }
+
+    /**
+     * The distance from the given time to the closest reference time of the
+     * same kind
+     *
+     * @param parity 0 for rise times, 1 for set times
+     */
+    private static double closest(double[] ref, double time, int parity) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int j = parity; j < ref.length; j += 2) {
+            min = FastMath.min(min, FastMath.abs(ref[j] - time));
+        }
+        return min;
+    }
+
+    /**
+     * Gets the largest absolute timing error [s]
+     *
+     * @return the largest absolute timing error [s]
+     */
+    public synchronized double getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * Gets the mean absolute timing error [s]
+     *
+     * @return the mean absolute timing error [s]
+     */
+    public synchronized double getMeanError() {
+        return nEvents == 0 ? 0 : sumError / nEvents;
+    }
+
+    /**
+     * Gets the number of points where the methods found a different number
+     * of intervals
+     *
+     * @return the number of points with a different number of intervals
+     */
+    public synchronized long getMismatchedPoints() {
+        return nMismatchedPoints;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("AccessValidator{events=%d, meanError=%.4f s, maxError=%.4f s, points=%d, mismatchedPoints=%d}",
+                nEvents, getMeanError(), maxError, nPoints, nMismatchedPoints);
+    }
+
+}
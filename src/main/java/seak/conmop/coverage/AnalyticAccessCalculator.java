@@ -0,0 +1,371 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import org.hipparchus.util.FastMath;
+import org.hipparchus.util.MathUtils;
+import org.orekit.errors.OrekitException;
+import org.orekit.orbits.CircularOrbit;
+import org.orekit.orbits.Orbit;
+import org.orekit.orbits.OrbitType;
+import org.orekit.propagation.Propagator;
+import org.orekit.propagation.analytical.EcksteinHechlerPropagator;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.Constants;
+import seak.conmop.propagation.TransformTable;
+
+/**
+ * Computes the access intervals of a satellite in a circular orbit without
+ * propagating it. The satellite moves along its orbit and the orbit plane
+ * precesses at the secular J2 rates, so the inertial position is known in
+ * closed form at any time. The secular rates apply to mean elements, so the
+ * mean elements of the given osculating orbit are estimated first with an
+ * Eckstein-Hechler J2 propagator (see meanTrack()). The position is rotated
+ * into the Earth-fixed frame
+ * with a transform table. The visibility margin of each point is evaluated on
+ * a coarse time grid and each change of sign is refined by false position
+ * root-finding (Illinois variant) on the closed-form margin.
+ *
+ * At each grid time only the points that a latitude and longitude bucket
+ * index finds within reach of the sub-satellite point are tested. Instances
+ * are immutable and can be shared across threads.
+ *
+ * @author nhitomi
+ */
+public class AnalyticAccessCalculator {
+
+    /**
+     * Tolerance [s] on the rise and set times
+     */
+    private static final double TOLERANCE = 1e-3;
+
+    /**
+     * Maximum number of iterations to refine a rise or set time
+     */
+    private static final int MAX_ITERATIONS = 50;
+
+    /**
+     * Margin [rad] added to the largest central angle when querying the point
+     * index to account for the Earth flattening
+     */
+    private static final double PRUNING_MARGIN = FastMath.toRadians(1.);
+
+    /**
+     * The angular size [rad] of the cells of the point index
+     */
+    private static final double INDEX_CELL_SIZE = FastMath.toRadians(5.);
+
+    /**
+     * The number of samples per orbital period over which the osculating
+     * elements are averaged
+     */
+    private static final int SAMPLES_PER_PERIOD = 32;
+
+    /**
+     * The points and their visibility conditions
+     */
+    private final AccessGeometry geometry;
+
+    /**
+     * The index over the points
+     */
+    private final PointIndex index;
+
+    /**
+     * The transform from the inertial frame of the orbits to the Earth-fixed
+     * frame
+     */
+    private final TransformTable table;
+
+    /**
+     * The duration [s] of the study window
+     */
+    private final double duration;
+
+    /**
+     * The time step [s] of the grid on which visibility changes are detected
+     */
+    private final double step;
+
+    /**
+     * The gravitational parameter [m^3/s^2] of the Earth
+     */
+    private final double mu;
+
+    /**
+     * The equatorial radius [m] of the Earth
+     */
+    private final double equatorialRadius;
+
+    /**
+     * The unnormalized J2 coefficient of the Earth
+     */
+    private final double j2;
+
+    /**
+     * Creates a calculator for points given by their Earth-fixed positions
+     * and zenith directions, each with their own minimum elevation and sensor
+     * half angle. The arrays are not copied.
+     *
+     * @param positions the x, y and z Earth-fixed coordinates [m] of each
+     * point
+     * @param zeniths the x, y and z components of the Earth-fixed unit zenith
+     * vector of each point
+     * @param minElevations the minimum elevation [rad] of each point
+     * @param halfAngles the half angle [rad] of the conical sensor for each
+     * point. pi if the sensor does not constrain the access
+     * @param table the transform from the inertial frame of the orbits to the
+     * Earth-fixed frame
+     * @param startDate the start date of the study window
+     * @param endDate the end date of the study window
+     * @param step the time step [s] of the grid on which visibility changes
+     * are detected. Must be shorter than the shortest access.
+     */
+    public AnalyticAccessCalculator(double[][] positions, double[][] zeniths,
+            double[] minElevations, double[] halfAngles, TransformTable table,
+            AbsoluteDate startDate, AbsoluteDate endDate, double step) {
+        this.geometry = new AccessGeometry(positions, zeniths, minElevations, halfAngles);
+        this.index = new PointIndex(geometry, INDEX_CELL_SIZE);
+        this.table = table;
+        this.duration = endDate.durationFrom(startDate);
+        this.step = step;
+        if (!table.covers(startDate, duration)) {
+            throw new IllegalArgumentException("Expected the transform table to cover the study window");
+        }
+        this.mu = Constants.WGS84_EARTH_MU;
+        this.equatorialRadius = Constants.WGS84_EARTH_EQUATORIAL_RADIUS;
+        this.j2 = -Constants.WGS84_EARTH_C20;
+    }
+
+    /**
+     * Computes the access intervals of the satellite with the given orbit to
+     * every point. The orbit is assumed to be circular and its date is taken
+     * as the start of the study window.
+     *
+     * @param orbit the orbit of the satellite at the start of the study window
+     * @return the access intervals of the satellite
+     * @throws OrekitException if the mean elements cannot be estimated
+     */
+    public SatelliteAccess compute(Orbit orbit) throws OrekitException {
+        return compute(orbit, new AccessCalculator.Workspace());
+    }
+
+    /**
+     * Computes the access intervals of the satellite with the given orbit to
+     * every point using the buffers of the given workspace. The orbit is
+     * assumed to be circular and its date is taken as the start of the study
+     * window.
+     *
+     * @param orbit the orbit of the satellite at the start of the study window
+     * @param workspace the buffers to use. Must not be used by another thread
+     * at the same time
+     * @return the access intervals of the satellite
+     * @throws OrekitException if the mean elements cannot be estimated
+     */
+    public SatelliteAccess compute(Orbit orbit, AccessCalculator.Workspace workspace) throws OrekitException {
+        double offset = orbit.getDate().durationFrom(table.getStartDate());
+        if (!table.covers(orbit.getDate(), duration)) {
+            throw new IllegalArgumentException("Expected the orbit date to be within the transform table");
+        }
+        final Track track = meanTrack(orbit, offset);
+
+        //Earth-fixed positions on the time grid
+        int nSamples = (int) FastMath.ceil(duration / step) + 1;
+        final double[] t = new double[nSamples];
+        final double[] sx = new double[nSamples];
+        final double[] sy = new double[nSamples];
+        final double[] sz = new double[nSamples];
+        final double[] ecef = new double[3];
+        for (int i = 0; i < nSamples; i++) {
+            t[i] = FastMath.min(i * step, duration);
+            track.position(t[i], ecef);
+            sx[i] = ecef[0];
+            sy[i] = ecef[1];
+            sz[i] = ecef[2];
+        }
+
+        double reach = geometry.maxCentralAngle(track.sma) + PRUNING_MARGIN;
+        double[][] intervals = workspace.scanner.scan(geometry, index, reach, t, sx, sy, sz, nSamples,
+                new AccessScanner.Refiner() {
+            @Override
+            public double refine(int k, int i, boolean rising) {
+                return AnalyticAccessCalculator.this.refine(track, k,
+                        t[i - 1], geometry.margin(sx[i - 1], sy[i - 1], sz[i - 1], k),
+                        t[i], geometry.margin(sx[i], sy[i], sz[i], k), ecef);
+            }
+        });
+        return new SatelliteAccess(intervals);
+    }
+
+    /**
+     * Estimates the track of the satellite from its osculating orbit. The
+     * short-period J2 terms make the osculating semi-major axis of a low
+     * Earth orbit differ from the mean one by up to about 10 km, so using the
+     * osculating elements in the secular rates would drift the argument of
+     * latitude by about 1 rad over a week. The orbit is instead propagated
+     * with an Eckstein-Hechler J2 propagator, which reads it as osculating
+     * like the reference propagators, and the circular elements are averaged
+     * over one orbital period at the start and at the end of the study
+     * window. The averages give the mean semi-major axis and inclination and
+     * the mean RAAN and argument of latitude. Their secular rates are the
+     * difference of the averages at the start and at the end, or the J2 rates
+     * of the mean elements if the study window is shorter than two periods.
+     *
+     * @param orbit the osculating orbit at the start of the study window
+     * @param offset the time [s] of the orbit date from the start of the
+     * transform table
+     * @return the track of the satellite
+     * @throws OrekitException if the orbit cannot be propagated
+     */
+    private Track meanTrack(Orbit orbit, double offset) throws OrekitException {
+        Propagator propagator = new EcksteinHechlerPropagator(orbit,
+                equatorialRadius, mu, -j2, 0., 0., 0., 0.);
+        double period = orbit.getKeplerianPeriod();
+
+        double[] start = average(propagator, orbit.getDate(), 0., period);
+        double sma = start[0];
+        double inc = start[1];
+        double n = FastMath.sqrt(mu / (sma * sma * sma));
+        double k = 1.5 * j2 * (equatorialRadius / sma) * (equatorialRadius / sma);
+        double cosInc = FastMath.cos(inc);
+        double raanRate = -k * n * cosInc;
+        //drift of argument of perigee plus drift of mean anomaly
+        double argLatRate = n * (1. + k * (4. * cosInc * cosInc - 1.));
+        if (duration >= 2. * period) {
+            double[] end = average(propagator, orbit.getDate(), duration - period, period);
+            double dt = end[4] - start[4];
+            raanRate = secularRate(start[2], end[2], dt, raanRate);
+            argLatRate = secularRate(start[3], end[3], dt, argLatRate);
+        }
+        return new Track(sma, inc, start[2] - raanRate * start[4], raanRate,
+                start[3] - argLatRate * start[4], argLatRate, offset);
+    }
+
+    /**
+     * Averages the circular elements of the propagated orbit over the given
+     * time span. The angles are unwrapped before they are averaged.
+     *
+     * @return the mean semi-major axis [m], inclination [rad], RAAN [rad],
+     * argument of latitude [rad] and the time [s] from the start date that
+     * the mean angles refer to
+     */
+    private static double[] average(Propagator propagator, AbsoluteDate startDate,
+            double from, double span) throws OrekitException {
+        double sma = 0, inc = 0, raan = 0, argLat = 0;
+        double prevRaan = 0, prevArgLat = 0;
+        double dt = span / SAMPLES_PER_PERIOD;
+        for (int i = 0; i < SAMPLES_PER_PERIOD; i++) {
+            CircularOrbit circ = (CircularOrbit) OrbitType.CIRCULAR.convertType(
+                    propagator.propagate(startDate.shiftedBy(from + i * dt)).getOrbit());
+            double r = circ.getRightAscensionOfAscendingNode();
+            double u = circ.getAlphaV();
+            if (i > 0) {
+                r = MathUtils.normalizeAngle(r, prevRaan);
+                u = MathUtils.normalizeAngle(u, prevArgLat + 2. * FastMath.PI / SAMPLES_PER_PERIOD);
+            }
+            prevRaan = r;
+            prevArgLat = u;
+            sma += circ.getA();
+            inc += circ.getI();
+            raan += r;
+            argLat += u;
+        }
+        return new double[]{sma / SAMPLES_PER_PERIOD, inc / SAMPLES_PER_PERIOD,
+            raan / SAMPLES_PER_PERIOD, argLat / SAMPLES_PER_PERIOD,
+            from + 0.5 * (SAMPLES_PER_PERIOD - 1) * dt};
+    }
+
+    /**
+     * Computes the secular rate [rad/s] of an angle from its mean values a
+     * time apart. The number of whole turns in between is resolved with the
+     * given estimate of the rate.
+     */
+    private static double secularRate(double from, double to, double dt, double estimate) {
+        double turns = FastMath.rint((from + estimate * dt - to) / (2. * FastMath.PI));
+        return (to + 2. * FastMath.PI * turns - from) / dt;
+    }
+
+    /**
+     * Finds the time at which the margin of point k changes sign between
+     * times a and b with the Illinois variant of the false position method
+     */
+    private double refine(Track track, int k, double a, double fa, double b, double fb, double[] ecef) {
+        for (int iter = 0; iter < MAX_ITERATIONS && b - a > TOLERANCE; iter++) {
+            double c = b - fb * (b - a) / (fb - fa);
+            if (!(c > a && c < b)) {
+                c = 0.5 * (a + b);
+            }
+            track.position(c, ecef);
+            double fc = geometry.margin(ecef[0], ecef[1], ecef[2], k);
+            if ((fc >= 0) == (fb >= 0)) {
+                b = c;
+                fb = fc;
+                fa *= 0.5;
+            } else {
+                a = c;
+                fa = fc;
+                fb *= 0.5;
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Closed-form position of a satellite in a circular orbit with the
+     * secular drift of the ascending node and argument of latitude
+     */
+    private class Track {
+
+        private final double sma;
+
+        private final double cosInc, sinInc;
+
+        private final double raan0;
+
+        private final double argLat0;
+
+        private final double raanRate;
+
+        private final double argLatRate;
+
+        /**
+         * The time [s] of the orbit date from the start of the transform
+         * table
+         */
+        private final double offset;
+
+        private final double[] inertial = new double[3];
+
+        Track(double sma, double inc, double raan, double raanRate,
+                double argLat, double argLatRate, double offset) {
+            this.sma = sma;
+            this.cosInc = FastMath.cos(inc);
+            this.sinInc = FastMath.sin(inc);
+            this.raan0 = raan;
+            this.raanRate = raanRate;
+            this.argLat0 = argLat;
+            this.argLatRate = argLatRate;
+            this.offset = offset;
+        }
+
+        /**
+         * Computes the Earth-fixed position at time t [s] from the orbit date
+         */
+        void position(double t, double[] out) {
+            double raan = raan0 + raanRate * t;
+            double u = argLat0 + argLatRate * t;
+            double cosRaan = FastMath.cos(raan);
+            double sinRaan = FastMath.sin(raan);
+            double cosU = FastMath.cos(u);
+            double sinU = FastMath.sin(u);
+            inertial[0] = sma * (cosU * cosRaan - sinU * cosInc * sinRaan);
+            inertial[1] = sma * (cosU * sinRaan + sinU * cosInc * cosRaan);
+            inertial[2] = sma * sinU * sinInc;
+            table.transformPosition(offset + t, inertial, out);
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.time.AbsoluteDate;
+import seak.orekit.coverage.access.TimeIntervalArray;
+
+/**
+ * Assembles the coverage of a constellation from the access intervals of its
+ * individual satellites. A point is covered by the constellation whenever it
+ * is covered by at least one satellite, so the coverage of each point is the
+ * union of the satellites' access intervals.
+ *
+ * @author nhitomi
+ */
+public class ConstellationCoverage {
+
+    private ConstellationCoverage() {
+    }
+
+    /**
+     * Merges the access intervals of the satellites for each point of
+     * interest
+     *
+     * @param accesses the access of each satellite in the constellation
+     * @param nPoints the number of points of interest
+     * @return the merged [rise, set, ...] times [s] indexed by point
+     */
+    public static double[][] union(Collection<SatelliteAccess> accesses, int nPoints) {
+        double[][] out = new double[nPoints][];
+        double[][] parts = new double[accesses.size()][];
+        for (int k = 0; k < nPoints; k++) {
+            int i = 0;
+            for (SatelliteAccess access : accesses) {
+                parts[i++] = access.getIntervals(k);
+            }
+            out[k] = union(parts);
+        }
+        return out;
+    }
+
+    /**
+     * Computes the union of several sorted [rise, set, ...] interval arrays.
+     * Touching intervals are merged.
+     *
+     * @param parts the sorted interval arrays
+     * @return the sorted, disjoint union of the intervals
+     */
+    public static double[] union(double[][] parts) {
+        int total = 0;
+        int nonEmpty = 0;
+        double[] single = null;
+        for (double[] part : parts) {
+            if (part.length > 0) {
+                total += part.length;
+                nonEmpty++;
+                single = part;
+            }
+        }
+        if (total == 0) {
+            return new double[0];
+        }
+        if (nonEmpty == 1) {
+            //only one satellite sees this point
+            return single;
+        }
+
+        //k-way merge of the sorted parts by rise time
+        int[] heads = new int[parts.length];
+        double[] merged = new double[total];
+        int m = 0;
+        for (int count = 0; count < total; count += 2) {
+            int next = -1;
+            for (int i = 0; i < parts.length; i++) {
+                if (heads[i] < parts[i].length
+                        && (next < 0 || parts[i][heads[i]] < parts[next][heads[next]])) {
+                    next = i;
+                }
+            }
+            double rise = parts[next][heads[next]];
+            double set = parts[next][heads[next] + 1];
+            heads[next] += 2;
+            if (m > 0 && rise <= merged[m - 1]) {
+                merged[m - 1] = Math.max(merged[m - 1], set);
+            } else {
+                merged[m++] = rise;
+                merged[m++] = set;
+            }
+        }
+        return Arrays.copyOf(merged, m);
+    }
+
+    /**
+     * Converts the merged intervals into the time interval arrays used by the
+     * ground event analyzer. Intervals that are open at the end of the window
+     * are left open.
+     *
+     * @param intervals the merged [rise, set, ...] times [s] indexed by point
+     * @param points the points of interest in the same order as the intervals
+     * @param startDate the start date of the study window
+     * @param endDate the end date of the study window
+     * @return the time interval array of each point
+     */
+    public static Map<TopocentricFrame, TimeIntervalArray> toTimeIntervalArrays(
+            double[][] intervals, List<TopocentricFrame> points,
+            AbsoluteDate startDate, AbsoluteDate endDate) {
+        double duration = endDate.durationFrom(startDate);
+        Map<TopocentricFrame, TimeIntervalArray> out = new HashMap<>(points.size());
+        for (int k = 0; k < points.size(); k++) {
+            TimeIntervalArray array = new TimeIntervalArray(startDate, endDate);
+            double[] times = intervals[k];
+            for (int j = 0; j < times.length; j += 2) {
+                array.addRiseTime(startDate.shiftedBy(times[j]));
+                if (times[j + 1] < duration) {
+                    array.addSetTime(startDate.shiftedBy(times[j + 1]));
+                }
+            }
+            out.put(points.get(k), array);
+        }
+        return out;
+    }
+
+}
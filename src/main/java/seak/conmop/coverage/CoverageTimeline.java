@@ -0,0 +1,269 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import java.util.Arrays;
+
+/**
+ * The coverage of a constellation as one dense bitset per point of interest
+ * over the discretized study window. The coverage is assembled by OR-ing the
+ * compressed bitsets of the individual satellites, and the gap statistics are
+ * computed by scanning whole 64-bit words for runs of clear bits. A timeline
+ * is a reusable buffer and is not thread-safe, so each thread should own one.
+ *
+ * @author nhitomi
+ */
+public class CoverageTimeline {
+
+    /**
+     * The length [s] of a slot
+     */
+    private final double step;
+
+    /**
+     * The duration [s] of the study window
+     */
+    private final double duration;
+
+    /**
+     * The number of slots in the study window
+     */
+    private final int nSlots;
+
+    /**
+     * The number of 64-bit words per point
+     */
+    private final int nWords;
+
+    /**
+     * The number of points of interest
+     */
+    private final int nPoints;
+
+    /**
+     * The bits of all points. The words of point k start at k * nWords
+     */
+    private final long[] bits;
+
+    /**
+     * Creates an empty timeline
+     *
+     * @param nPoints the number of points of interest
+     * @param step the length [s] of a slot
+     * @param duration the duration [s] of the study window
+     */
+    public CoverageTimeline(int nPoints, double step, double duration) {
+        this.step = step;
+        this.duration = duration;
+        this.nSlots = numberOfSlots(step, duration);
+        this.nWords = numberOfWords(nSlots);
+        this.nPoints = nPoints;
+        this.bits = new long[nPoints * nWords];
+    }
+
+    /**
+     * Gets the number of slots needed to cover the study window
+     *
+     * @param step the length [s] of a slot
+     * @param duration the duration [s] of the study window
+     * @return the number of slots needed to cover the study window
+     */
+    public static int numberOfSlots(double step, double duration) {
+        return (int) Math.ceil(duration / step);
+    }
+
+    /**
+     * Gets the number of 64-bit words needed to store the given number of
+     * slots
+     *
+     * @param nSlots the number of slots
+     * @return the number of 64-bit words
+     */
+    static int numberOfWords(int nSlots) {
+        return (nSlots + 63) >>> 6;
+    }
+
+    /**
+     * Sets the bits from slot from (inclusive) to slot to (exclusive)
+     *
+     * @param words the words of the bitset
+     * @param base the index of the first word of the point
+     * @param from the first slot to set
+     * @param to the slot after the last slot to set
+     */
+    static void set(long[] words, int base, int from, int to) {
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[base + first] |= firstMask & lastMask;
+            return;
+        }
+        words[base + first] |= firstMask;
+        for (int w = first + 1; w < last; w++) {
+            words[base + w] = -1L;
+        }
+        words[base + last] |= lastMask;
+    }
+
+    /**
+     * Encodes the access of a satellite on the slots of this timeline
+     *
+     * @param access the access intervals of the satellite
+     * @return the compressed bitset of the access
+     */
+    public SatelliteTimeline encode(SatelliteAccess access) {
+        return SatelliteTimeline.encode(access, step, nSlots);
+    }
+
+    /**
+     * Clears the bits of the points from first (inclusive) to last
+     * (exclusive)
+     *
+     * @param first the first point to clear
+     * @param last the point after the last point to clear
+     */
+    public void clear(int first, int last) {
+        Arrays.fill(bits, first * nWords, last * nWords, 0L);
+    }
+
+    /**
+     * Adds the access of a satellite to the points from first (inclusive) to
+     * last (exclusive)
+     *
+     * @param timeline the compressed bitset of the satellite
+     * @param first the first point to add
+     * @param last the point after the last point to add
+     */
+    public void or(SatelliteTimeline timeline, int first, int last) {
+        if (timeline.getNumberOfSlots() != nSlots) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected a timeline with %d slots. Found %d.", nSlots, timeline.getNumberOfSlots()));
+        }
+        for (int k = first; k < last; k++) {
+            timeline.or(k, bits, k * nWords);
+        }
+    }
+
+    /**
+     * Gets the duration [s] of the longest gap in the coverage of a point.
+     * Gaps at the start and at the end of the study window are included.
+     *
+     * @param point the index of the point of interest
+     * @return the duration [s] of the longest gap. 0 if the point is never
+     * out of view
+     */
+    public double maxGap(int point) {
+        int base = point * nWords;
+        double max = 0;
+        int from = nextClear(base, 0);
+        while (from < nSlots) {
+            int to = nextSet(base, from);
+            max = Math.max(max, gapDuration(from, to));
+            from = nextClear(base, to);
+        }
+        return max;
+    }
+
+    /**
+     * Gets the mean response time [s] of a point, which is the time a request
+     * placed at a uniformly random time in the study window waits until the
+     * point is covered. It is the sum of the squared gap durations divided by
+     * twice the duration of the study window.
+     *
+     * @param point the index of the point of interest
+     * @return the mean response time [s]
+     */
+    public double meanResponseTime(int point) {
+        int base = point * nWords;
+        double sumOfSquares = 0;
+        int from = nextClear(base, 0);
+        while (from < nSlots) {
+            int to = nextSet(base, from);
+            double gap = gapDuration(from, to);
+            sumOfSquares += gap * gap;
+            from = nextClear(base, to);
+        }
+        return sumOfSquares / (2. * duration);
+    }
+
+    /**
+     * Gets the duration [s] of a gap. The last slot can be shorter than the
+     * step if the step does not divide the study window.
+     */
+    private double gapDuration(int from, int to) {
+        return Math.min(to * step, duration) - from * step;
+    }
+
+    /**
+     * Finds the first clear slot at or after the given slot
+     *
+     * @return the first clear slot or the number of slots if there is none
+     */
+    private int nextClear(int base, int from) {
+        if (from >= nSlots) {
+            return nSlots;
+        }
+        int w = from >>> 6;
+        long word = ~bits[base + w] & (-1L << from);
+        while (word == 0) {
+            if (++w == nWords) {
+                return nSlots;
+            }
+            word = ~bits[base + w];
+        }
+        return Math.min((w << 6) + Long.numberOfTrailingZeros(word), nSlots);
+    }
+
+    /**
+     * Finds the first set slot at or after the given slot
+     *
+     * @return the first set slot or the number of slots if there is none
+     */
+    private int nextSet(int base, int from) {
+        if (from >= nSlots) {
+            return nSlots;
+        }
+        int w = from >>> 6;
+        long word = bits[base + w] & (-1L << from);
+        while (word == 0) {
+            if (++w == nWords) {
+                return nSlots;
+            }
+            word = bits[base + w];
+        }
+        return Math.min((w << 6) + Long.numberOfTrailingZeros(word), nSlots);
+    }
+
+    /**
+     * Gets the number of points of interest
+     *
+     * @return the number of points of interest
+     */
+    public int getNumberOfPoints() {
+        return nPoints;
+    }
+
+    /**
+     * Gets the length [s] of a slot
+     *
+     * @return the length [s] of a slot
+     */
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * Gets the duration [s] of the study window
+     *
+     * @return the duration [s] of the study window
+     */
+    public double getDuration() {
+        return duration;
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import org.hipparchus.util.FastMath;
+
+/**
+ * A latitude/longitude bucket index over a set of points. The points are
+ * binned into cells of equal angular size by their geocentric latitude and
+ * longitude. A query returns the points in all cells that intersect a
+ * spherical cap, so that only points near the sub-satellite point have to be
+ * tested for visibility. Instances are immutable and can be shared across
+ * threads.
+ *
+ * @author nhitomi
+ */
+class PointIndex {
+
+    /**
+     * The angular size [rad] of a cell
+     */
+    private final double cellSize;
+
+    /**
+     * The number of latitude bands
+     */
+    private final int nLat;
+
+    /**
+     * The number of longitude cells per band
+     */
+    private final int nLon;
+
+    /**
+     * The indices of the points in each cell, indexed by band * nLon + cell
+     */
+    private final int[][] cells;
+
+    /**
+     * The total number of points
+     */
+    private final int nPoints;
+
+    /**
+     * Bins the points of the geometry
+     *
+     * @param geometry the points to index
+     * @param cellSize the angular size [rad] of a cell
+     */
+    PointIndex(AccessGeometry geometry, double cellSize) {
+        this.nLat = (int) FastMath.ceil(FastMath.PI / cellSize);
+        this.nLon = (int) FastMath.ceil(2. * FastMath.PI / cellSize);
+        this.cellSize = cellSize;
+        this.nPoints = geometry.size();
+
+        int[] cellOf = new int[nPoints];
+        int[] counts = new int[nLat * nLon];
+        for (int k = 0; k < nPoints; k++) {
+            double lat = geometry.latitude(k);
+            double lon = FastMath.atan2(geometry.py[k], geometry.px[k]);
+            cellOf[k] = band(lat) * nLon + column(lon);
+            counts[cellOf[k]]++;
+        }
+        this.cells = new int[nLat * nLon][];
+        for (int c = 0; c < cells.length; c++) {
+            cells[c] = new int[counts[c]];
+            counts[c] = 0;
+        }
+        for (int k = 0; k < nPoints; k++) {
+            cells[cellOf[k]][counts[cellOf[k]]++] = k;
+        }
+    }
+
+    private int band(double lat) {
+        return FastMath.min(nLat - 1, FastMath.max(0, (int) ((lat + FastMath.PI / 2) / cellSize)));
+    }
+
+    private int column(double lon) {
+        int c = (int) FastMath.floor((lon + FastMath.PI) / cellSize);
+        return ((c % nLon) + nLon) % nLon;
+    }
+
+    /**
+     * Gets the total number of indexed points
+     *
+     * @return the total number of indexed points
+     */
+    int size() {
+        return nPoints;
+    }
+
+    /**
+     * Finds the points in the cells that intersect the spherical cap with the
+     * given center and angular radius
+     *
+     * @param lat the geocentric latitude [rad] of the center of the cap
+     * @param lon the longitude [rad] of the center of the cap
+     * @param radius the angular radius [rad] of the cap
+     * @param out the array to write the indices of the points to. Must have
+     * room for all points
+     * @param stamp the array in which the found points are marked with the
+     * given mark
+     * @param mark the mark for the found points
+     * @return the number of points found
+     */
+    int query(double lat, double lon, double radius, int[] out, int[] stamp, int mark) {
+        int n = 0;
+        double latMin = lat - radius;
+        double latMax = lat + radius;
+        boolean coversPole = latMin <= -FastMath.PI / 2 || latMax >= FastMath.PI / 2;
+        int bandMin = band(FastMath.max(latMin, -FastMath.PI / 2));
+        int bandMax = band(FastMath.min(latMax, FastMath.PI / 2));
+        double sinRadius = FastMath.sin(FastMath.min(radius, FastMath.PI / 2));
+        for (int b = bandMin; b <= bandMax; b++) {
+            //the largest absolute latitude of the band within the cap
+            double lo = FastMath.max(latMin, -FastMath.PI / 2 + b * cellSize);
+            double hi = FastMath.min(latMax, -FastMath.PI / 2 + (b + 1) * cellSize);
+            double maxAbsLat = FastMath.max(FastMath.abs(lo), FastMath.abs(hi));
+            double cosLat = FastMath.cos(maxAbsLat);
+
+            int first;
+            int count;
+            if (coversPole || radius >= FastMath.PI / 2 || sinRadius >= cosLat) {
+                first = 0;
+                count = nLon;
+            } else {
+                double halfWidth = FastMath.asin(sinRadius / cosLat);
+                first = column(lon - halfWidth);
+                count = column(lon + halfWidth) - first + 1;
+                if (count <= 0) {
+                    count += nLon;
+                }
+                count = FastMath.min(count, nLon);
+            }
+            for (int j = 0; j < count; j++) {
+                int[] cell = cells[b * nLon + (first + j) % nLon];
+                for (int k : cell) {
+                    out[n++] = k;
+                    stamp[k] = mark;
+                }
+            }
+        }
+        return n;
+    }
+
+}
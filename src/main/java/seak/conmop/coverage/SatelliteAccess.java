@@ -0,0 +1,103 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+/**
+ * The access intervals of one satellite to each point of interest over the
+ * study window. The intervals of a point are stored as a sorted primitive
+ * array of [rise, set, rise, set, ...] times [s] measured from the start of the
+ * study window. An interval that is still open at the end of the window has
+ * its set time equal to the window duration. Instances are immutable and can
+ * be shared across threads.
+ *
+ * @author nhitomi
+ */
+public class SatelliteAccess {
+
+    /**
+     * The access intervals indexed by the point of interest
+     */
+    private final double[][] intervals;
+
+    /**
+     * The access encoded as a compressed bitset over the discretized study
+     * window. null if the access is not encoded
+     */
+    private final SatelliteTimeline timeline;
+
+    /**
+     * Creates the access of a satellite
+     *
+     * @param intervals the access intervals indexed by the point of interest
+     */
+    public SatelliteAccess(double[][] intervals) {
+        this(intervals, null);
+    }
+
+    private SatelliteAccess(double[][] intervals, SatelliteTimeline timeline) {
+        this.intervals = intervals;
+        this.timeline = timeline;
+    }
+
+    /**
+     * Creates a copy of this access that also carries its encoding on the
+     * slots of the given timeline. The intervals are shared with this access.
+     *
+     * @param coverage the timeline that defines the slots
+     * @return the access with its compressed bitset
+     */
+    public SatelliteAccess withTimeline(CoverageTimeline coverage) {
+        return new SatelliteAccess(intervals, coverage.encode(this));
+    }
+
+    /**
+     * Gets the access encoded as a compressed bitset
+     *
+     * @return the compressed bitset of the access. null if the access is not
+     * encoded
+     */
+    public SatelliteTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Gets the number of points of interest
+     *
+     * @return the number of points of interest
+     */
+    public int getNumberOfPoints() {
+        return intervals.length;
+    }
+
+    /**
+     * Gets the [rise, set, ...] times [s] of the given point. The returned
+     * array must not be modified.
+     *
+     * @param point the index of the point of interest
+     * @return the [rise, set, ...] times [s] of the given point
+     */
+    public double[] getIntervals(int point) {
+        return intervals[point];
+    }
+
+    /**
+     * Gets the memory footprint [bytes] of the intervals and of the
+     * compressed bitset
+     *
+     * @return the memory footprint [bytes] of the access
+     */
+    public long getSizeInBytes() {
+        long size = 0;
+        for (double[] array : intervals) {
+            size += 16 + 8L * array.length;
+        }
+        if (timeline != null) {
+            size += timeline.getSizeInBytes();
+        }
+        return size;
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import java.util.Arrays;
+
+/**
+ * The access of one satellite to each point of interest as a compressed
+ * bitset over the discretized study window. The window is divided into slots
+ * of equal length and the bit of a slot is set if the start of the slot lies
+ * within an access interval. A single satellite only sees a point for a small
+ * fraction of the window, so only the non-zero 64-bit words of each point are
+ * stored together with their word index. Instances are immutable and can be
+ * shared across threads.
+ *
+ * @author nhitomi
+ */
+public class SatelliteTimeline {
+
+    /**
+     * The number of slots in the study window
+     */
+    private final int nSlots;
+
+    /**
+     * The first stored word of each point. The words of point k are stored
+     * from offsets[k] to offsets[k + 1]
+     */
+    private final int[] offsets;
+
+    /**
+     * The index of each stored word within the timeline of its point
+     */
+    private final int[] indices;
+
+    /**
+     * The non-zero words of all points
+     */
+    private final long[] words;
+
+    private SatelliteTimeline(int nSlots, int[] offsets, int[] indices, long[] words) {
+        this.nSlots = nSlots;
+        this.offsets = offsets;
+        this.indices = indices;
+        this.words = words;
+    }
+
+    /**
+     * Encodes the access intervals of a satellite as a compressed bitset
+     *
+     * @param access the access intervals of the satellite
+     * @param step the length [s] of a slot
+     * @param nSlots the number of slots in the study window
+     * @return the compressed bitset of the access
+     */
+    public static SatelliteTimeline encode(SatelliteAccess access, double step, int nSlots) {
+        int nPoints = access.getNumberOfPoints();
+        long[] dense = new long[CoverageTimeline.numberOfWords(nSlots)];
+        int[] offsets = new int[nPoints + 1];
+        int[] indices = new int[16];
+        long[] words = new long[16];
+        int n = 0;
+        for (int k = 0; k < nPoints; k++) {
+            double[] times = access.getIntervals(k);
+            if (times.length == 0) {
+                offsets[k + 1] = n;
+                continue;
+            }
+            int first = Integer.MAX_VALUE;
+            int last = -1;
+            for (int j = 0; j < times.length; j += 2) {
+                //slots whose start time lies in [rise, set)
+                int from = (int) Math.ceil(times[j] / step);
+                int to = Math.min((int) Math.ceil(times[j + 1] / step), nSlots);
+                if (from < to) {
+                    CoverageTimeline.set(dense, 0, from, to);
+                    first = Math.min(first, from >>> 6);
+                    last = Math.max(last, (to - 1) >>> 6);
+                }
+            }
+            for (int w = first; w <= last; w++) {
+                if (dense[w] != 0) {
+                    if (n == words.length) {
+                        indices = Arrays.copyOf(indices, 2 * n);
+                        words = Arrays.copyOf(words, 2 * n);
+                    }
+                    indices[n] = w;
+                    words[n] = dense[w];
+                    n++;
+                    dense[w] = 0;
+                }
+            }
+            offsets[k + 1] = n;
+        }
+        return new SatelliteTimeline(nSlots, offsets,
+                Arrays.copyOf(indices, n), Arrays.copyOf(words, n));
+    }
+
+    /**
+     * Gets the number of points of interest
+     *
+     * @return the number of points of interest
+     */
+    public int getNumberOfPoints() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Gets the number of slots in the study window
+     *
+     * @return the number of slots in the study window
+     */
+    public int getNumberOfSlots() {
+        return nSlots;
+    }
+
+    /**
+     * Sets the bits of the given point in a dense bitset
+     *
+     * @param point the index of the point of interest
+     * @param dense the dense bitset
+     * @param base the index of the first word of the point in the dense bitset
+     */
+    void or(int point, long[] dense, int base) {
+        for (int j = offsets[point]; j < offsets[point + 1]; j++) {
+            dense[base + indices[j]] |= words[j];
+        }
+    }
+
+    /**
+     * Gets the memory footprint [bytes] of the bitset
+     *
+     * @return the memory footprint [bytes] of the bitset
+     */
+    public long getSizeInBytes() {
+        return 48 + 4L * offsets.length + 12L * words.length;
+    }
+
+}
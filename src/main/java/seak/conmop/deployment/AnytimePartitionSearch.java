@@ -0,0 +1,215 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Searches the partitions of a set of satellites into launch groups within a
+ * time and node budget. The search is seeded with a greedy first-fit
+ * partition, then streams the feasible partitions (see PartitionIterator)
+ * with fewer or as many launches as the best partition found so far and
+ * stops when the budget is spent. If the budget ran out, the best partition
+ * found so far is returned together with lower bounds on the number of
+ * launches and the total delta V of the best partition. A search is used for a
+ * single constellation and is not thread-safe.
+ *
+ * @author nhitomi
+ */
+public class AnytimePartitionSearch {
+
+    /**
+     * The feasibility of the groups of satellites
+     */
+    private final GroupFeasibilityCache groups;
+
+    /**
+     * The time budget [ms]. 0 if the time is not limited
+     */
+    private final long timeBudget;
+
+    /**
+     * The maximum number of group assignments to try. 0 if the number of
+     * nodes is not limited
+     */
+    private final long nodeBudget;
+
+    /**
+     * True if the last search explored all partitions
+     */
+    private boolean complete;
+
+    /**
+     * The lower bound on the number of launches of the last search
+     */
+    private int launchLowerBound;
+
+    /**
+     * The lower bound [m/s] on the total delta V of the last search
+     */
+    private double dvLowerBound;
+
+    /**
+     * The number of group assignments tried by the last search
+     */
+    private long nodes;
+
+    /**
+     * Creates an anytime search over the satellites of the given cache
+     *
+     * @param groups the feasibility of the groups of satellites
+     * @param timeBudget the time budget [ms]. 0 if the time is not limited
+     * @param nodeBudget the maximum number of group assignments to try. 0 if
+     * the number of nodes is not limited
+     */
+    public AnytimePartitionSearch(GroupFeasibilityCache groups, long timeBudget, long nodeBudget) {
+        this.groups = groups;
+        this.timeBudget = timeBudget;
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Finds the partition of the given satellites with the fewest launches and
+     * the least total delta V that can be found within the budget
+     *
+     * @param satellites the bitmask of the satellites to partition
+     * @return the installment of each launch group
+     */
+    public List<Installment> solve(long satellites) {
+        long start = System.nanoTime();
+        long[] best = greedyPartition(satellites);
+        double minDV = totalDV(best);
+
+        PartitionIterator iter = new PartitionIterator(groups, satellites);
+        iter.setLaunchLimit(best.length);
+        if (timeBudget > 0) {
+            iter.setDeadline(start + timeBudget * 1000000L);
+        }
+        if (nodeBudget > 0) {
+            iter.setNodeLimit(nodeBudget);
+        }
+        while (iter.hasNext()) {
+            long[] partition = iter.next();
+            double dv = totalDV(partition);
+            if (partition.length < best.length
+                    || (partition.length == best.length && dv < minDV)) {
+                best = partition;
+                minDV = dv;
+                iter.setLaunchLimit(partition.length);
+            }
+        }
+        this.nodes = iter.getNodes();
+        this.complete = !iter.isTruncated();
+
+        if (complete) {
+            launchLowerBound = best.length;
+            dvLowerBound = minDV;
+        } else {
+            //pairwise RAAN incompatible satellites need separate launches and
+            //each launch costs at least the cheapest single satellite launch
+            long independent = 0;
+            double minLaunchDV = Double.POSITIVE_INFINITY;
+            for (long bits = satellites; bits != 0; bits &= bits - 1) {
+                int i = Long.numberOfTrailingZeros(bits);
+                if ((groups.getCompatible(i) & independent) == 0) {
+                    independent |= 1L << i;
+                }
+                minLaunchDV = Math.min(minLaunchDV, groups.getInstallment(1L << i).getLaunchDV());
+            }
+            launchLowerBound = Long.bitCount(independent);
+            dvLowerBound = launchLowerBound * minLaunchDV;
+        }
+
+        ArrayList<Installment> out = new ArrayList<>(best.length);
+        for (long group : best) {
+            out.add(groups.getInstallment(group));
+        }
+        return out;
+    }
+
+    /**
+     * Assigns each satellite in increasing index order to the first group it
+     * can join or to a new group
+     *
+     * @param satellites the bitmask of the satellites to partition
+     * @return the bitmasks of the groups
+     */
+    private long[] greedyPartition(long satellites) {
+        long[] blocks = new long[Long.bitCount(satellites)];
+        int nBlocks = 0;
+        for (long bits = satellites; bits != 0; bits &= bits - 1) {
+            int i = Long.numberOfTrailingZeros(bits);
+            long compatible = groups.getCompatible(i);
+            int b = 0;
+            while (b < nBlocks && ((compatible & blocks[b]) != blocks[b]
+                    || groups.getInstallment(blocks[b] | (1L << i)) == null)) {
+                b++;
+            }
+            if (b == nBlocks) {
+                nBlocks++;
+            }
+            blocks[b] |= 1L << i;
+        }
+        long[] out = new long[nBlocks];
+        System.arraycopy(blocks, 0, out, 0, nBlocks);
+        return out;
+    }
+
+    /**
+     * Computes the launch and tug delta V [m/s] of a partition
+     */
+    private double totalDV(long[] partition) {
+        double dv = 0.0;
+        for (long group : partition) {
+            Installment installment = groups.getInstallment(group);
+            dv += installment.getOtherDV() + installment.getLaunchDV();
+        }
+        return dv;
+    }
+
+    /**
+     * Checks if the last search explored all partitions, in which case the
+     * returned partition is optimal
+     *
+     * @return true if the last search explored all partitions
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Gets the lower bound on the number of launches of the last search. Equal
+     * to the number of launches of the returned partition if the search was
+     * complete
+     *
+     * @return the lower bound on the number of launches
+     */
+    public int getLaunchLowerBound() {
+        return launchLowerBound;
+    }
+
+    /**
+     * Gets the lower bound [m/s] on the total delta V of the last search.
+     * Equal to the delta V of the returned partition if the search was
+     * complete
+     *
+     * @return the lower bound [m/s] on the total delta V
+     */
+    public double getDVLowerBound() {
+        return dvLowerBound;
+    }
+
+    /**
+     * Gets the number of group assignments tried by the last search
+     *
+     * @return the number of group assignments tried by the last search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+}
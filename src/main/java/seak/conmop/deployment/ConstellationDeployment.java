@@ -6,14 +6,13 @@
 package seak.conmop.deployment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import org.hipparchus.util.FastMath;
-import seak.architecture.enumeration.FullFactorial;
-import seak.conmop.comparators.SatelliteComparator;
+import org.moeaframework.util.Vector;
 import seak.conmop.launch.DeltaV;
-import seak.conmop.util.OrbitalElementEnum;
 import seak.conmop.variable.SatelliteVariable;
 import seak.orekit.util.Orbits;
 
@@ -24,6 +23,12 @@ import seak.orekit.util.Orbits;
  */
 public class ConstellationDeployment {
 
+    /**
+     * The largest difference [m/s] between the delta v of two deployment
+     * orders that are considered tied (see exactOrder)
+     */
+    public static final double TIE_TOLERANCE = 1e-9;
+
     /**
      * Checks to see if a given group of satellites can be deployed together
      * using a space tug that deploys each satellite at their proper orbits. The
@@ -42,61 +47,434 @@ public class ConstellationDeployment {
      * then an empty list is returned
      */
     public static List<SatelliteVariable> deltaVCompatible(Collection<SatelliteVariable> satellites, double deltaVLimit) {
+        return deltaVCompatible(satellites, deltaVLimit, DeploymentOrdering.AUTOMATIC);
+    }
+
+    /**
+     * Checks to see if a given group of satellites can be deployed together
+     * using a space tug (see deltaVCompatible(Collection, double)). The order
+     * of deployment is found with the given method.
+     *
+     * @param satellites the satellites to be deployed
+     * @param deltaVLimit the limited delta V [m/s]
+     * @param ordering the method to find the order of deployment
+     * @return a list defining the order in which to deploy the satellites with
+     * a minimal deltaV. If the required deltaV exceeds the specified limit,
+     * then an empty list is returned
+     */
+    public static List<SatelliteVariable> deltaVCompatible(Collection<SatelliteVariable> satellites, double deltaVLimit, DeploymentOrdering ordering) {
         //handle the trivial case
         if (satellites.size() <= 1) {
             return new ArrayList<>(satellites);
         }
 
+        List<SatelliteVariable> list = new ArrayList<>(satellites);
+        int[] members = new int[list.size()];
+        double[] sma = new double[list.size()];
+        double[] inc = new double[list.size()];
+        double[] raan = new double[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            members[i] = i;
+            sma[i] = list.get(i).getSma();
+            inc[i] = list.get(i).getInc();
+            raan[i] = list.get(i).getRaan();
+        }
+        int[] order = deploymentOrder(members, sma, inc, raan, transferDV(list), deltaVLimit, ordering);
+        if (order == null) {
+            return new ArrayList();
+        }
+        ArrayList<SatelliteVariable> minDVOrder = new ArrayList<>(order.length);
+        for (int i : order) {
+            minDVOrder.add(list.get(i));
+        }
+        return minDVOrder;
+    }
+
+    /**
+     * Finds the order in which a space tug deploys a group of satellites with
+     * a minimal deltaV (see deltaVCompatible). The satellites are given by
+     * their index into primitive arrays of orbital elements and into a
+     * precomputed matrix of pairwise transfer delta v.
+     *
+     * @param members the indices of the satellites in the group
+     * @param sma the semi-major axis [m] of each satellite
+     * @param inc the inclination [rad] of each satellite
+     * @param raan the right ascension of the ascending node [rad] of each
+     * satellite
+     * @param transfer the delta v [m/s] to transfer from satellite i to
+     * satellite j at index [i][j]
+     * @param deltaVLimit the limited delta V [m/s]
+     * @param ordering the method to find the order of deployment
+     * @return the indices of the satellites in the order of deployment. null
+     * if the required deltaV exceeds the specified limit
+     */
+    static int[] deploymentOrder(int[] members, final double[] sma, final double[] inc, double[] raan,
+            double[][] transfer, double deltaVLimit, DeploymentOrdering ordering) {
+        int n = members.length;
+        if (n <= 1) {
+            return members.clone();
+        }
+
         //find highest altitude satellite
         double maxSma = Double.NEGATIVE_INFINITY;
-        for (SatelliteVariable sat : satellites) {
-            maxSma = FastMath.max(maxSma, sat.getSma());
+        for (int i : members) {
+            maxSma = FastMath.max(maxSma, sma[i]);
         }
 
         //make a list ascedning in inclination
-        ArrayList<SatelliteVariable> satIncList = new ArrayList(satellites);
-        Collections.sort(satIncList, new SatelliteComparator(OrbitalElementEnum.INC));
+        Integer[] incOrder = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            incOrder[i] = members[i];
+        }
+        Arrays.sort(incOrder, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(inc[o1], inc[o2]);
+            }
+        });
 
         //Find best case deltaV for all the plane changes conducted at highest altitude
         double minDVPlaneChange = 0;
         double vel = Orbits.meanMotion(maxSma) * maxSma;
-        for (int i = 1; i < satIncList.size(); i++) {
-            minDVPlaneChange += DeltaV.simplePlaneChange(vel, satIncList.get(i).getInc() - satIncList.get(i - 1).getInc());
+        for (int i = 1; i < n; i++) {
+            minDVPlaneChange += DeltaV.simplePlaneChange(vel, inc[incOrder[i]] - inc[incOrder[i - 1]]);
             if (minDVPlaneChange > deltaVLimit) {
-                return new ArrayList();
+                return null;
             }
         }
-        
+
         //if all satellites have same inclination and raan, just order by altitude
         boolean samePlane = true;
-        for(int i=1; i<satIncList.size(); i++){
-            if(!satIncList.get(i).getInc().equals(satIncList.get(0).getInc())
-                    || !satIncList.get(i).getRaan().equals(satIncList.get(0).getRaan())){
+        for (int i = 1; i < n; i++) {
+            if (Double.compare(inc[incOrder[i]], inc[incOrder[0]]) != 0
+                    || Double.compare(raan[incOrder[i]], raan[incOrder[0]]) != 0) {
                 samePlane = false;
                 break;
             }
         }
-        if(samePlane){
-            Collections.sort(satIncList, new SatelliteComparator(OrbitalElementEnum.SMA));
-            return satIncList;
+        int[] out = new int[n];
+        if (samePlane) {
+            Arrays.sort(incOrder, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Double.compare(sma[o1], sma[o2]);
+                }
+            });
+            for (int i = 0; i < n; i++) {
+                out[i] = incOrder[i];
+            }
+            return out;
+        }
+
+        double[][] cost = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                cost[i][j] = transfer[incOrder[i]][incOrder[j]];
+            }
+        }
+        int[] order;
+        if (ordering == DeploymentOrdering.HEURISTIC
+                || (ordering == DeploymentOrdering.AUTOMATIC && n > DeploymentOrdering.MAX_EXACT_SIZE)) {
+            order = heuristicOrder(cost);
+        } else {
+            order = exactOrder(cost);
+        }
+        for (int i = 0; i < n; i++) {
+            out[i] = incOrder[order[i]];
+        }
+        return out;
+    }
+
+    /**
+     * Computes the delta v required by a tug to transfer between each pair of
+     * satellites (see deploymentDV)
+     *
+     * @param satellites the satellites
+     * @return the delta v [m/s] to transfer from satellite i to satellite j
+     * at index [i][j]
+     */
+    public static double[][] transferDV(List<SatelliteVariable> satellites) {
+        int n = satellites.size();
+        double[] sma = new double[n];
+        double[] inc = new double[n];
+        for (int i = 0; i < n; i++) {
+            sma[i] = satellites.get(i).getSma();
+            inc[i] = satellites.get(i).getInc();
+        }
+        double[][] cost = new double[n][n];
+        transferDV(sma, inc, new double[n], new double[n], n, cost);
+        return cost;
+    }
+
+    /**
+     * Computes the delta v required by a tug to transfer between each pair of
+     * satellites given as columns of their orbital elements (see
+     * transferDV(SatelliteVariable, SatelliteVariable)). The results are
+     * written into the given buffers, so nothing is allocated.
+     *
+     * @param sma the semi-major axis [m] of each satellite
+     * @param inc the inclination of each satellite
+     * @param vel a buffer of at least n values for the circular orbit
+     * velocities
+     * @param plane a buffer of at least n values for the plane angles
+     * @param n the number of satellites
+     * @param out the buffer the delta v [m/s] to transfer from satellite i to
+     * satellite j is written to at index [i][j]
+     */
+    public static void transferDV(double[] sma, double[] inc, double[] vel, double[] plane, int n, double[][] out) {
+        DeltaV.circularOrbitVelocity(sma, n, vel);
+        for (int i = 0; i < n; i++) {
+            plane[i] = FastMath.toRadians(inc[i]);
+        }
+        DeltaV.combinedTransfer(sma, vel, plane, n, out);
+    }
+
+    /**
+     * Computes the delta v required by a tug to transfer from the orbit of
+     * one satellite to another with a combined maneuver of a plane change and
+     * Hohmann Transfer. Assumes all orbits are circular.
+     *
+     * @param from the satellite the tug departs from
+     * @param to the satellite the tug arrives at
+     * @return the required deltaV [m/s]
+     */
+    public static double transferDV(SatelliteVariable from, SatelliteVariable to) {
+        double sma1 = from.getSma();
+        double inc1 = from.getInc();
+
+        double sma2 = to.getSma();
+        double inc2 = to.getInc();
+
+        double vel1 = Orbits.circularOrbitVelocity(sma1);
+        return DeltaV.combinedPlaneChange(vel1,
+                vel1 + DeltaV.hohmannFirstBurn(sma1, sma2),
+                FastMath.toRadians(inc1 - inc2))
+                + DeltaV.hohmannSecondBurn(sma1, sma2);
+    }
+
+    /**
+     * Finds the order that visits every satellite once with the minimal total
+     * transfer cost using the Held-Karp dynamic program over the subsets of
+     * satellites left to visit. The tug may start and end at any satellite.
+     * If several orders have the minimal cost, the lexicographically smallest
+     * one is returned, which is the first minimal order of the brute force
+     * search over all permutations. Costs that differ by at most
+     * TIE_TOLERANCE are ties, so that rounding does not decide between them.
+     *
+     * @param cost the transfer cost between each pair of satellites
+     * @return the indices of the satellites in the order of deployment
+     */
+    public static int[] exactOrder(double[][] cost) {
+        int n = cost.length;
+        if (n > DeploymentOrdering.MAX_EXACT_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected at most %d satellites. Found %d.", DeploymentOrdering.MAX_EXACT_SIZE, n));
+        }
+        if (n == 0) {
+            return new int[0];
         }
 
+        //minimal cost to visit the satellites in a subset starting at the first satellite
+        int nSubsets = 1 << n;
+        double[] best = new double[nSubsets * n];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            best[(1 << i) * n + i] = 0;
+        }
+        for (int subset = 1; subset < nSubsets; subset++) {
+            for (int first = 0; first < n; first++) {
+                if ((subset & (1 << first)) == 0) {
+                    continue;
+                }
+                int rest = subset & ~(1 << first);
+                if (rest == 0) {
+                    continue;
+                }
+                double[] row = cost[first];
+                double value = Double.POSITIVE_INFINITY;
+                for (int next = 0; next < n; next++) {
+                    if ((rest & (1 << next)) != 0) {
+                        value = FastMath.min(value, row[next] + best[rest * n + next]);
+                    }
+                }
+                best[subset * n + first] = value;
+            }
+        }
+
+        //walk forward taking the smallest index that stays on a minimal order
+        int subset = nSubsets - 1;
+        double limit = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            limit = FastMath.min(limit, best[subset * n + i]);
+        }
+        limit += TIE_TOLERANCE;
+        int first = 0;
+        while (best[subset * n + first] > limit) {
+            first++;
+        }
+        int[] order = new int[n];
+        order[0] = first;
+        double deltaV = 0;
+        for (int k = 1; k < n; k++) {
+            int rest = subset & ~(1 << first);
+            int next = -1;
+            int minNext = -1;
+            for (int j = 0; j < n && next < 0; j++) {
+                if ((rest & (1 << j)) == 0) {
+                    continue;
+                }
+                double dv = cost[first][j] + best[rest * n + j];
+                if (deltaV + dv <= limit) {
+                    next = j;
+                } else if (minNext < 0 || dv < cost[first][minNext] + best[rest * n + minNext]) {
+                    minNext = j;
+                }
+            }
+            //rounding may push the minimal order just over the limit
+            if (next < 0) {
+                next = minNext;
+            }
+            order[k] = next;
+            deltaV += cost[first][next];
+            subset = rest;
+            first = next;
+        }
+        return order;
+    }
+
+    /**
+     * Finds an order that visits every satellite once with a low total
+     * transfer cost. A nearest-neighbour order is built from every starting
+     * satellite and the best one is improved by reversing segments (2-opt)
+     * until no reversal reduces the cost.
+     *
+     * @param cost the transfer cost between each pair of satellites
+     * @return the indices of the satellites in the order of deployment
+     */
+    public static int[] heuristicOrder(double[][] cost) {
+        int n = cost.length;
+        int[] order = new int[n];
+        int[] candidate = new int[n];
+        boolean[] visited = new boolean[n];
         double minDV = Double.POSITIVE_INFINITY;
-        ArrayList<SatelliteVariable> minDVOrder = new ArrayList<>();
-        Collection<int[]> orderings = FullFactorial.ffPermuting(satellites.size());
-        for (int[] permutation : orderings) {
-            ArrayList<SatelliteVariable> order = new ArrayList<>();
-            for (int i = 0; i < satellites.size(); i++) {
-                order.add(satIncList.get(permutation[i]));
+        for (int start = 0; start < n; start++) {
+            Arrays.fill(visited, false);
+            candidate[0] = start;
+            visited[start] = true;
+            for (int k = 1; k < n; k++) {
+                int nearest = -1;
+                for (int j = 0; j < n; j++) {
+                    if (!visited[j] && (nearest < 0 || cost[candidate[k - 1]][j] < cost[candidate[k - 1]][nearest])) {
+                        nearest = j;
+                    }
+                }
+                candidate[k] = nearest;
+                visited[nearest] = true;
             }
-            double dv = deploymentDV(order);
+            double dv = orderDV(candidate, cost);
             if (dv < minDV) {
                 minDV = dv;
-                minDVOrder = order;
+                System.arraycopy(candidate, 0, order, 0, n);
             }
         }
 
-        return minDVOrder;
+        //the costs are asymmetric, so each reversal is evaluated on the whole order
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    System.arraycopy(order, 0, candidate, 0, n);
+                    for (int a = i, b = j; a < b; a++, b--) {
+                        int temp = candidate[a];
+                        candidate[a] = candidate[b];
+                        candidate[b] = temp;
+                    }
+                    double dv = orderDV(candidate, cost);
+                    if (dv < minDV) {
+                        minDV = dv;
+                        System.arraycopy(candidate, 0, order, 0, n);
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Computes the total transfer cost of deploying the satellites in the
+     * given order
+     *
+     * @param order the indices of the satellites in the order of deployment
+     * @param cost the transfer cost between each pair of satellites
+     * @return the total transfer cost
+     */
+    public static double orderDV(int[] order, double[][] cost) {
+        double deltaV = 0;
+        for (int i = 1; i < order.length; i++) {
+            deltaV += cost[order[i - 1]][order[i]];
+        }
+        return deltaV;
+    }
+
+    /**
+     * Creates the installment that deploys a group of satellites from a single
+     * launch vehicle and a space tug. The satellites are deployed in the
+     * order with the minimal tug deltaV (see deltaVCompatible) and the launch
+     * vehicle inserts the tug into the orbit of the first satellite.
+     *
+     * @param satellites the satellites to be deployed together
+     * @param deltaVLimit the limited tug delta V [m/s]
+     * @param launchLatitude the latitude [rad] of the launch site
+     * @return the installment with the launch and tug delta V [m/s]. null if
+     * the required tug deltaV exceeds the specified limit
+     */
+    public static Installment installment(Collection<SatelliteVariable> satellites, double deltaVLimit, double launchLatitude) {
+        return installment(satellites, deltaVLimit, launchLatitude, DeploymentOrdering.AUTOMATIC);
+    }
+
+    /**
+     * Creates the installment that deploys a group of satellites from a single
+     * launch vehicle and a space tug (see installment(Collection, double,
+     * double)). The order of deployment is found with the given method.
+     *
+     * @param satellites the satellites to be deployed together
+     * @param deltaVLimit the limited tug delta V [m/s]
+     * @param launchLatitude the latitude [rad] of the launch site
+     * @param ordering the method to find the order of deployment
+     * @return the installment with the launch and tug delta V [m/s]. null if
+     * the required tug deltaV exceeds the specified limit
+     */
+    public static Installment installment(Collection<SatelliteVariable> satellites, double deltaVLimit, double launchLatitude, DeploymentOrdering ordering) {
+        List<SatelliteVariable> bestOrder = deltaVCompatible(satellites, deltaVLimit, ordering);
+        if (bestOrder.isEmpty()) {
+            return null;
+        }
+
+        double tugDV = deploymentDV(bestOrder);
+
+        //add the dv required to get to first satellite in deployment order
+        double launchDV = launchDV(bestOrder.get(0).getInc(), bestOrder.get(0).getSma(), launchLatitude);
+
+        return new Installment(bestOrder, launchDV, tugDV);
+    }
+
+    /**
+     * Computes the delta v required by the launch vehicle to insert the tug
+     * into a circular orbit
+     *
+     * @param inc the inclination [rad] of the orbit
+     * @param sma the semi-major axis [m] of the orbit
+     * @param launchLatitude the latitude [rad] of the launch site
+     * @return the launch delta V [m/s]
+     */
+    static double launchDV(double inc, double sma, double launchLatitude) {
+        double[][] v = DeltaV.launch(inc,
+                launchLatitude,
+                Orbits.circularOrbitVelocity(sma),
+                0.0);
+        return FastMath.min(Vector.magnitude(v[0]), Vector.magnitude(v[1]));
     }
 
     /**
@@ -114,18 +492,7 @@ public class ConstellationDeployment {
         double deltaV = 0;
 
         for (int i = 1; i < satellites.size(); i++) {
-            double sma1 = satellites.get(i - 1).getSma();
-            double inc1 = satellites.get(i - 1).getInc();
-
-            double sma2 = satellites.get(i).getSma();
-            double inc2 = satellites.get(i).getInc();
-
-            double vel1 = Orbits.circularOrbitVelocity(sma1);
-            deltaV
-                    += DeltaV.combinedPlaneChange(vel1,
-                            vel1 + DeltaV.hohmannFirstBurn(sma1, sma2),
-                            FastMath.toRadians(inc1 - inc2))
-                    + DeltaV.hohmannSecondBurn(sma1, sma2);
+            deltaV += transferDV(satellites.get(i - 1), satellites.get(i));
         }
 
         return deltaV;
@@ -153,4 +520,51 @@ public class ConstellationDeployment {
         return deltaRaan <= relativePrecessionRate * time;
     }
 
+    /**
+     * Computes the nodal precession rate of each satellite given as columns of
+     * their orbital elements and writes them into the given buffer
+     *
+     * @param sma the semi-major axis [m] of each satellite
+     * @param ecc the eccentricity of each satellite
+     * @param inc the inclination [rad] of each satellite
+     * @param n the number of satellites
+     * @param out the buffer the nodal precession rates are written to
+     */
+    public static void nodalPrecession(double[] sma, double[] ecc, double[] inc, int n, double[] out) {
+        for (int i = 0; i < n; i++) {
+            out[i] = Orbits.nodalPrecession(sma[i], ecc[i], inc[i]);
+        }
+    }
+
+    /**
+     * Checks which pairs of satellites are close enough to each other in their
+     * ascending nodes (see raanCompatitble(SatelliteVariable,
+     * SatelliteVariable, double)) and writes one bitmask row per satellite
+     * into the given buffer. Each satellite is compatible with itself.
+     *
+     * @param raan the right ascension of the ascending node [rad] of each
+     * satellite
+     * @param precession the nodal precession rate of each satellite (see
+     * nodalPrecession(double[], double[], double[], int, double[]))
+     * @param time the time [s] limit for two spacecraft to drift to their
+     * ascending node due solely to nodal precession
+     * @param n the number of satellites. At most 64
+     * @param out the buffer where bit j of row i is set if satellites i and j
+     * are compatible
+     */
+    public static void raanCompatible(double[] raan, double[] precession, double time, int n, long[] out) {
+        for (int i = 0; i < n; i++) {
+            out[i] = 1L << i;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double deltaRaan = FastMath.abs(raan[j] - raan[i]);
+                if (deltaRaan <= FastMath.abs(precession[j] - precession[i]) * time) {
+                    out[i] |= 1L << j;
+                    out[j] |= 1L << i;
+                }
+            }
+        }
+    }
+
 }
@@ -0,0 +1,39 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+/**
+ * The methods to find the order in which a space tug deploys a group of
+ * satellites
+ *
+ * @author nhitomi
+ */
+public enum DeploymentOrdering {
+
+    /**
+     * The order with the minimal delta V found by the Held-Karp dynamic
+     * program. Limited to groups of MAX_EXACT_SIZE satellites
+     */
+    EXACT,
+
+    /**
+     * A nearest-neighbour order from every starting satellite improved by
+     * 2-opt segment reversals. Not guaranteed to be minimal
+     */
+    HEURISTIC,
+
+    /**
+     * EXACT for groups of up to MAX_EXACT_SIZE satellites and HEURISTIC for
+     * larger groups
+     */
+    AUTOMATIC;
+
+    /**
+     * The largest group for which the exact order is computed
+     */
+    public static final int MAX_EXACT_SIZE = 16;
+
+}
@@ -0,0 +1,292 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import seak.conmop.launch.DeltaV;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * Memoizes whether groups of satellites can be launched together during the
+ * search for the deployment strategy of one constellation. Groups are keyed by
+ * the bitmask of their satellites. The pairwise RAAN compatibility is stored
+ * as one bitmask row per satellite, the pairwise tug transfer delta V as a
+ * primitive matrix and the launch delta V as a primitive column, so that
+ * checking a group never recomputes the orbital mechanics of a pair. They are
+ * computed with the batch methods over the primitive columns of the orbital
+ * elements. A cache is used for a single constellation and holds at most
+ * MAX_SATELLITES (63) satellites, one per bit of a long. It is thread-safe so
+ * that the groups can be checked by a parallel search.
+ *
+ * @author nhitomi
+ */
+public class GroupFeasibilityCache {
+
+    /**
+     * The maximum number of satellites that fit in a bitmask
+     */
+    public static final int MAX_SATELLITES = 63;
+
+    /**
+     * The satellites in the constellation
+     */
+    private final List<SatelliteVariable> satellites;
+
+    /**
+     * The semi-major axis [m] of each satellite
+     */
+    private final double[] sma;
+
+    /**
+     * The inclination [rad] of each satellite
+     */
+    private final double[] inc;
+
+    /**
+     * The right ascension of the ascending node [rad] of each satellite
+     */
+    private final double[] raan;
+
+    /**
+     * Bitmask of the satellites that are RAAN compatible with each satellite.
+     * Each satellite is compatible with itself
+     */
+    private final long[] compatible;
+
+    /**
+     * The delta v [m/s] to transfer from satellite i to satellite j at index
+     * [i][j]
+     */
+    private final double[][] transfer;
+
+    /**
+     * The limited tug delta V [m/s]
+     */
+    private final double deltaVLimit;
+
+    /**
+     * The delta V [m/s] to launch the tug into the orbit of each satellite
+     * (see ConstellationDeployment.launchDV)
+     */
+    private final double[] launchDV;
+
+    /**
+     * The method to find the order of deployment within a group
+     */
+    private final DeploymentOrdering ordering;
+
+    /**
+     * Marks the groups that exceed the tug delta V limit
+     */
+    private static final Installment INFEASIBLE = new Installment(new ArrayList<SatelliteVariable>(), 0, 0);
+
+    /**
+     * The installments of the groups already checked keyed by their bitmask.
+     * Groups that exceed the tug delta V limit are stored as INFEASIBLE
+     */
+    private final ConcurrentHashMap<Long, Installment> installments;
+
+    private final AtomicInteger hits;
+
+    private final AtomicInteger misses;
+
+    /**
+     * Precomputes the pairwise RAAN compatibility and transfer delta V of the
+     * satellites
+     *
+     * @param satellites the satellites in the constellation. At most
+     * MAX_SATELLITES
+     * @param raanTimeLimit the time [s] limit for satellites in the same launch
+     * to drift to their ascending node due solely to nodal precession
+     * @param deltaVLimit the limited tug delta V [m/s]
+     * @param launchLatitude the latitude [rad] of the launch site
+     * @param ordering the method to find the order of deployment within a
+     * group
+     */
+    public GroupFeasibilityCache(List<SatelliteVariable> satellites, double raanTimeLimit,
+            double deltaVLimit, double launchLatitude, DeploymentOrdering ordering) {
+        this(satellites, raanTimeLimit, deltaVLimit, launchLatitude, ordering, null);
+    }
+
+    /**
+     * Precomputes the pairwise RAAN compatibility and transfer delta V of the
+     * satellites. The launch delta V is read from the given table
+     *
+     * @param satellites the satellites in the constellation. At most
+     * MAX_SATELLITES
+     * @param raanTimeLimit the time [s] limit for satellites in the same launch
+     * to drift to their ascending node due solely to nodal precession
+     * @param deltaVLimit the limited tug delta V [m/s]
+     * @param launchLatitude the latitude [rad] of the launch site
+     * @param ordering the method to find the order of deployment within a
+     * group
+     * @param launchTable the table of the launch delta V from the launch site.
+     * null if the launch delta V is computed exactly
+     */
+    public GroupFeasibilityCache(List<SatelliteVariable> satellites, double raanTimeLimit,
+            double deltaVLimit, double launchLatitude, DeploymentOrdering ordering, LaunchDVTable launchTable) {
+        if (satellites.size() > MAX_SATELLITES) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected at most %d satellites. Found %d.", MAX_SATELLITES, satellites.size()));
+        }
+        int n = satellites.size();
+        this.satellites = new ArrayList<>(satellites);
+        this.deltaVLimit = deltaVLimit;
+        this.ordering = ordering;
+        this.sma = new double[n];
+        this.inc = new double[n];
+        this.raan = new double[n];
+        double[] ecc = new double[n];
+        for (int i = 0; i < n; i++) {
+            SatelliteVariable sat = satellites.get(i);
+            sma[i] = sat.getSma();
+            ecc[i] = sat.getEcc();
+            inc[i] = sat.getInc();
+            raan[i] = sat.getRaan();
+        }
+
+        //the pairwise checks run on the primitive columns
+        double[] buffer = new double[n];
+        ConstellationDeployment.nodalPrecession(sma, ecc, inc, n, buffer);
+        this.compatible = new long[n];
+        ConstellationDeployment.raanCompatible(raan, buffer, raanTimeLimit, n, compatible);
+        double[] vel = new double[n];
+        this.transfer = new double[n][n];
+        ConstellationDeployment.transferDV(sma, inc, vel, buffer, n, transfer);
+        this.launchDV = new double[n];
+        if (launchTable == null) {
+            DeltaV.launch(inc, launchLatitude, vel, 0.0, n, launchDV);
+        } else {
+            launchTable.value(inc, sma, n, launchDV);
+        }
+        this.installments = new ConcurrentHashMap<>();
+        this.hits = new AtomicInteger();
+        this.misses = new AtomicInteger();
+    }
+
+    /**
+     * Gets the number of satellites
+     *
+     * @return the number of satellites
+     */
+    public int size() {
+        return satellites.size();
+    }
+
+    /**
+     * Gets the satellite at the given index
+     *
+     * @param index the index of the satellite
+     * @return the satellite at the given index
+     */
+    public SatelliteVariable getSatellite(int index) {
+        return satellites.get(index);
+    }
+
+    /**
+     * Gets the bitmask of the satellites that are RAAN compatible with the
+     * given satellite, including the satellite itself
+     *
+     * @param index the index of the satellite
+     * @return the bitmask of the RAAN compatible satellites
+     */
+    public long getCompatible(int index) {
+        return compatible[index];
+    }
+
+    /**
+     * Checks if two satellites are RAAN compatible
+     *
+     * @param i the index of a satellite
+     * @param j the index of another satellite
+     * @return true if the satellites can drift to their ascending nodes within
+     * the time limit
+     */
+    public boolean isRaanCompatible(int i, int j) {
+        return (compatible[i] & (1L << j)) != 0;
+    }
+
+    /**
+     * Gets the delta v [m/s] to transfer from one satellite to another
+     *
+     * @param from the index of the satellite the tug departs from
+     * @param to the index of the satellite the tug arrives at
+     * @return the delta v [m/s] of the transfer
+     */
+    public double getTransferDV(int from, int to) {
+        return transfer[from][to];
+    }
+
+    /**
+     * Gets the installment that deploys a group of satellites with a single
+     * launch and a tug (see ConstellationDeployment.installment). Only the
+     * tug delta V limit is checked, not the RAAN compatibility.
+     *
+     * @param group the bitmask of the satellites in the group
+     * @return the installment with the best order of deployment and the launch
+     * and tug delta V [m/s]. null if the group exceeds the tug delta V limit
+     */
+    public Installment getInstallment(long group) {
+        Long key = group;
+        Installment installment = installments.get(key);
+        if (installment != null) {
+            hits.incrementAndGet();
+            return installment == INFEASIBLE ? null : installment;
+        }
+        misses.incrementAndGet();
+
+        int[] members = new int[Long.bitCount(group)];
+        int k = 0;
+        for (long bits = group; bits != 0; bits &= bits - 1) {
+            members[k++] = Long.numberOfTrailingZeros(bits);
+        }
+        int[] order = ConstellationDeployment.deploymentOrder(members, sma, inc, raan, transfer, deltaVLimit, ordering);
+        if (order != null) {
+            ArrayList<SatelliteVariable> bestOrder = new ArrayList<>(order.length);
+            double tugDV = 0;
+            for (int i = 0; i < order.length; i++) {
+                bestOrder.add(satellites.get(order[i]));
+                if (i > 0) {
+                    tugDV += transfer[order[i - 1]][order[i]];
+                }
+            }
+
+            //add the dv required to get to first satellite in deployment order
+            installment = new Installment(bestOrder, launchDV[order[0]], tugDV);
+        } else {
+            installment = INFEASIBLE;
+        }
+
+        //keep the first installment if another thread checked the same group
+        Installment previous = installments.putIfAbsent(key, installment);
+        if (previous != null) {
+            installment = previous;
+        }
+        return installment == INFEASIBLE ? null : installment;
+    }
+
+    /**
+     * Gets the number of group checks that were answered from the cache
+     *
+     * @return the number of group checks that were answered from the cache
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of group checks that were computed
+     *
+     * @return the number of group checks that were computed
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import org.hipparchus.analysis.interpolation.BicubicInterpolatingFunction;
+import org.hipparchus.analysis.interpolation.BicubicInterpolator;
+import org.hipparchus.util.FastMath;
+import seak.conmop.util.Bounds;
+
+/**
+ * A lookup table of the delta V required by the launch vehicle to insert the
+ * tug into a circular orbit (see ConstellationDeployment.launchDV) from a fixed
+ * launch site. The delta V is computed once on a regular grid of inclinations
+ * and semi-major axes that covers the bounds of the problem and is
+ * interpolated bicubically in between. The grid extends one node beyond each
+ * bound because the interpolation is only defined between the inner nodes.
+ * Orbits outside the bounds or in cells next to unreachable inclinations are
+ * computed exactly. A table is immutable and thread-safe.
+ *
+ * @author nhitomi
+ */
+public class LaunchDVTable {
+
+    /**
+     * The latitude [rad] of the launch site
+     */
+    private final double launchLatitude;
+
+    /**
+     * The interpolated launch delta V [m/s]
+     */
+    private final BicubicInterpolatingFunction function;
+
+    /**
+     * The largest difference [m/s] between the interpolated and the exact
+     * delta V at the centers of the grid cells
+     */
+    private final double maxError;
+
+    /**
+     * Computes the launch delta V on a grid of inclinations and semi-major
+     * axes
+     *
+     * @param incBound the bounds [rad] on the inclination
+     * @param smaBound the bounds [m] on the semi-major axis
+     * @param launchLatitude the latitude [rad] of the launch site
+     * @param size the number of grid nodes between the bounds along each axis
+     */
+    public LaunchDVTable(Bounds<Double> incBound, Bounds<Double> smaBound, double launchLatitude, int size) {
+        if (size < 2) {
+            throw new IllegalArgumentException("Expected a table of at least 2 nodes along each axis");
+        }
+        this.launchLatitude = launchLatitude;
+        double[] inc = grid(incBound, size);
+        double[] sma = grid(smaBound, size);
+        double[][] dv = new double[inc.length][sma.length];
+        for (int i = 0; i < inc.length; i++) {
+            for (int j = 0; j < sma.length; j++) {
+                dv[i][j] = ConstellationDeployment.launchDV(inc[i], sma[j], launchLatitude);
+            }
+        }
+        this.function = new BicubicInterpolator().interpolate(inc, sma, dv);
+
+        //check the interpolation where it is farthest from the nodes
+        double error = 0;
+        for (int i = 1; i < inc.length - 2; i++) {
+            for (int j = 1; j < sma.length - 2; j++) {
+                double x = (inc[i] + inc[i + 1]) / 2;
+                double y = (sma[j] + sma[j + 1]) / 2;
+                double exact = ConstellationDeployment.launchDV(x, y, launchLatitude);
+                double interpolated = function.value(x, y);
+                if (!Double.isNaN(exact) && !Double.isNaN(interpolated)) {
+                    error = FastMath.max(error, FastMath.abs(interpolated - exact));
+                }
+            }
+        }
+        this.maxError = error;
+    }
+
+    /**
+     * Creates the nodes spanning the bounds and one more node beyond each
+     * bound
+     */
+    private static double[] grid(Bounds<Double> bounds, int size) {
+        double lower = bounds.getLowerBound();
+        double step = (bounds.getUpperBound() - lower) / (size - 1);
+        if (step <= 0) {
+            //fixed values still need increasing nodes
+            step = FastMath.max(FastMath.ulp(lower) * size, 1e-9);
+        }
+        double[] out = new double[size + 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = lower + (i - 1) * step;
+        }
+        return out;
+    }
+
+    /**
+     * Gets the launch delta V to insert the tug into a circular orbit
+     *
+     * @param inc the inclination [rad] of the orbit
+     * @param sma the semi-major axis [m] of the orbit
+     * @return the launch delta V [m/s]
+     */
+    public double value(double inc, double sma) {
+        if (function.isValidPoint(inc, sma)) {
+            double dv = function.value(inc, sma);
+            if (!Double.isNaN(dv)) {
+                return dv;
+            }
+        }
+        return ConstellationDeployment.launchDV(inc, sma, launchLatitude);
+    }
+
+    /**
+     * Gets the launch delta V of each orbit given as columns of their
+     * inclinations and semi-major axes and writes them into the given buffer
+     *
+     * @param inc the inclination [rad] of each orbit
+     * @param sma the semi-major axis [m] of each orbit
+     * @param n the number of orbits
+     * @param out the buffer the launch delta V [m/s] is written to
+     */
+    public void value(double[] inc, double[] sma, int n, double[] out) {
+        for (int i = 0; i < n; i++) {
+            out[i] = value(inc[i], sma[i]);
+        }
+    }
+
+    /**
+     * Gets the largest difference between the interpolated and the exact
+     * delta V at the centers of the grid cells
+     *
+     * @return the largest interpolation error [m/s]
+     */
+    public double getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * Gets the latitude of the launch site
+     *
+     * @return the latitude [rad] of the launch site
+     */
+    public double getLaunchLatitude() {
+        return launchLatitude;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LaunchDVTable{launchLatitude=%f, maxError=%f m/s}", launchLatitude, maxError);
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Searches the feasible partitions of a set of satellites into launch groups
+ * in parallel. The restricted-growth tree of the partitions (see
+ * PartitionIterator) is split at its top levels: every feasible assignment of
+ * the first satellites becomes a fork-join task that streams the partitions
+ * below it. The tasks share the best partition found so far, which prunes
+ * partitions with more launches in all tasks.
+ *
+ * The best partition has the fewest launches, then the least total delta V
+ * and then the lexicographically smallest restricted-growth string. This is
+ * the partition the serial depth-first search keeps, so the result does not
+ * depend on the number of threads or on the order in which tasks finish.
+ *
+ * The tasks run in the given pool, which should be sized for the processors
+ * that are not already busy. The problem owns a pool for this search and does
+ * not use it from the workers of a ParallelProblem.
+ *
+ * @author nhitomi
+ */
+public class ParallelPartitionSearch {
+
+    /**
+     * The feasibility of the groups of satellites
+     */
+    private final GroupFeasibilityCache groups;
+
+    /**
+     * The number of satellites whose assignments are split into tasks
+     */
+    private final int splitDepth;
+
+    /**
+     * The pool that runs the tasks
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a parallel search over the satellites of the given cache
+     *
+     * @param groups the feasibility of the groups of satellites. Must be
+     * thread-safe
+     * @param splitDepth the number of satellites whose assignments are split
+     * into tasks
+     * @param pool the pool that runs the tasks
+     */
+    public ParallelPartitionSearch(GroupFeasibilityCache groups, int splitDepth, ForkJoinPool pool) {
+        if (splitDepth < 1) {
+            throw new IllegalArgumentException("Expected a split depth of at least 1");
+        }
+        this.groups = groups;
+        this.splitDepth = splitDepth;
+        this.pool = pool;
+    }
+
+    /**
+     * Finds the partition of the given satellites with the fewest launches and
+     * the least total delta V
+     *
+     * @param satellites the bitmask of the satellites to partition
+     * @return the installment of each launch group ordered by the lowest
+     * satellite index in the group
+     */
+    public List<Installment> solve(final long satellites) {
+        //the feasible assignments of the first satellites are the task prefixes
+        long top = 0;
+        long bits = satellites;
+        for (int i = 0; i < splitDepth && bits != 0; i++) {
+            top |= Long.lowestOneBit(bits);
+            bits &= bits - 1;
+        }
+        final AtomicReference<Incumbent> incumbent = new AtomicReference<>();
+        final ArrayList<SearchTask> tasks = new ArrayList<>();
+        PartitionIterator prefixes = new PartitionIterator(groups, top);
+        while (prefixes.hasNext()) {
+            tasks.add(new SearchTask(satellites, restrictedGrowthString(prefixes.next(), top), incumbent));
+        }
+        pool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = -5467392187435036241L;
+
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        ArrayList<Installment> out = new ArrayList<>();
+        for (long group : incumbent.get().partition) {
+            out.add(groups.getInstallment(group));
+        }
+        return out;
+    }
+
+    /**
+     * Converts the groups of a partition into the group index of each
+     * satellite in increasing satellite order
+     *
+     * @param partition the bitmasks of the groups ordered by their lowest
+     * satellite
+     * @param satellites the bitmask of the partitioned satellites
+     * @return the restricted-growth string of the partition
+     */
+    private static int[] restrictedGrowthString(long[] partition, long satellites) {
+        int[] out = new int[Long.bitCount(satellites)];
+        int p = 0;
+        for (long bits = satellites; bits != 0; bits &= bits - 1) {
+            long bit = Long.lowestOneBit(bits);
+            for (int b = 0; b < partition.length; b++) {
+                if ((partition[b] & bit) != 0) {
+                    out[p] = b;
+                    break;
+                }
+            }
+            p++;
+        }
+        return out;
+    }
+
+    /**
+     * Streams the partitions below one prefix of the restricted-growth tree
+     */
+    private class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 2395770410935547167L;
+
+        private final long satellites;
+
+        private final int[] prefix;
+
+        private final AtomicReference<Incumbent> incumbent;
+
+        SearchTask(long satellites, int[] prefix, AtomicReference<Incumbent> incumbent) {
+            this.satellites = satellites;
+            this.prefix = prefix;
+            this.incumbent = incumbent;
+        }
+
+        @Override
+        protected void compute() {
+            PartitionIterator iter = new PartitionIterator(groups, satellites, prefix);
+            while (true) {
+                Incumbent best = incumbent.get();
+                if (best != null) {
+                    iter.setLaunchLimit(best.partition.length);
+                }
+                if (!iter.hasNext()) {
+                    break;
+                }
+                long[] partition = iter.next();
+                double dv = 0.0;
+                for (long group : partition) {
+                    Installment installment = groups.getInstallment(group);
+                    dv += installment.getOtherDV() + installment.getLaunchDV();
+                }
+                if (best == null || partition.length < best.partition.length
+                        || (partition.length == best.partition.length && dv <= best.dv)) {
+                    offer(new Incumbent(partition, dv, restrictedGrowthString(partition, satellites)));
+                }
+            }
+        }
+
+        /**
+         * Replaces the shared incumbent if the candidate is better
+         */
+        private void offer(Incumbent candidate) {
+            while (true) {
+                Incumbent best = incumbent.get();
+                if (best != null && !candidate.isBetterThan(best)) {
+                    return;
+                }
+                if (incumbent.compareAndSet(best, candidate)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The best partition found so far
+     */
+    private static class Incumbent {
+
+        /**
+         * The bitmasks of the groups
+         */
+        private final long[] partition;
+
+        /**
+         * The total delta V [m/s]
+         */
+        private final double dv;
+
+        /**
+         * The restricted-growth string of the partition
+         */
+        private final int[] rgs;
+
+        Incumbent(long[] partition, double dv, int[] rgs) {
+            this.partition = partition;
+            this.dv = dv;
+            this.rgs = rgs;
+        }
+
+        /**
+         * Compares the number of launches, the total delta V and the
+         * restricted-growth strings in that order
+         */
+        boolean isBetterThan(Incumbent other) {
+            if (partition.length != other.partition.length) {
+                return partition.length < other.partition.length;
+            }
+            if (dv != other.dv) {
+                return dv < other.dv;
+            }
+            for (int i = 0; i < rgs.length; i++) {
+                if (rgs[i] != other.rgs[i]) {
+                    return rgs[i] < other.rgs[i];
+                }
+            }
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily generates the feasible partitions of a set of satellites into launch
+ * groups. Partitions are generated depth-first as restricted-growth strings,
+ * where the i-th satellite is assigned to one of the groups already opened by
+ * the satellites before it or opens a new group. A satellite only joins a
+ * group if it is RAAN compatible with every member and the extended group
+ * can be deployed within the tug delta V limit, so infeasible branches are
+ * pruned as soon as they appear. Only the current path of the search is kept
+ * in memory, so the memory grows linearly with the number of satellites
+ * instead of with the number of partitions.
+ *
+ * Each partition is returned as the bitmasks of its groups ordered by the
+ * lowest satellite in the group. An iterator is not thread-safe.
+ *
+ * @author nhitomi
+ */
+public class PartitionIterator implements Iterator<long[]> {
+
+    /**
+     * The number of nodes between checks of the clock
+     */
+    private static final long TIME_CHECK_INTERVAL = 256;
+
+    /**
+     * The feasibility of the groups of satellites
+     */
+    private final GroupFeasibilityCache groups;
+
+    /**
+     * The index of the satellite at each position of the string
+     */
+    private final int[] satellites;
+
+    /**
+     * The group assigned to each position of the string
+     */
+    private final int[] assignment;
+
+    /**
+     * The bitmask of each open group
+     */
+    private final long[] blocks;
+
+    /**
+     * The number of open groups
+     */
+    private int nBlocks;
+
+    /**
+     * The number of positions that may not be changed by the search
+     */
+    private final int fixed;
+
+    /**
+     * The maximum number of groups in a generated partition
+     */
+    private int launchLimit;
+
+    /**
+     * The number of group assignments tried so far
+     */
+    private long nodes;
+
+    /**
+     * The maximum number of group assignments to try
+     */
+    private long nodeLimit;
+
+    /**
+     * The time [ns] (see System.nanoTime()) after which the search stops.
+     * Only used if hasDeadline is true
+     */
+    private long deadline;
+
+    private boolean hasDeadline;
+
+    /**
+     * The number of nodes at which the clock is checked next
+     */
+    private long nextTimeCheck;
+
+    /**
+     * True if the search was stopped by the node limit or the deadline
+     */
+    private boolean truncated;
+
+    /**
+     * True if the search has started
+     */
+    private boolean started;
+
+    /**
+     * True if the current assignment is a partition that was not returned yet
+     */
+    private boolean pending;
+
+    /**
+     * True if the search is exhausted
+     */
+    private boolean done;
+
+    /**
+     * Creates an iterator over the feasible partitions of the given
+     * satellites
+     *
+     * @param groups the feasibility of the groups of satellites
+     * @param satellites the bitmask of the satellites to partition
+     */
+    public PartitionIterator(GroupFeasibilityCache groups, long satellites) {
+        this(groups, satellites, new int[0]);
+    }
+
+    /**
+     * Creates an iterator over the feasible partitions of the given
+     * satellites that start with the given restricted-growth prefix. The
+     * prefix must be feasible.
+     *
+     * @param groups the feasibility of the groups of satellites
+     * @param satellites the bitmask of the satellites to partition
+     * @param prefix the groups of the first satellites
+     */
+    public PartitionIterator(GroupFeasibilityCache groups, long satellites, int[] prefix) {
+        this.groups = groups;
+        this.satellites = new int[Long.bitCount(satellites)];
+        int k = 0;
+        for (long bits = satellites; bits != 0; bits &= bits - 1) {
+            this.satellites[k++] = Long.numberOfTrailingZeros(bits);
+        }
+        this.assignment = new int[this.satellites.length];
+        this.blocks = new long[this.satellites.length];
+        this.launchLimit = Integer.MAX_VALUE;
+        this.nodeLimit = Long.MAX_VALUE;
+        for (int p = 0; p < prefix.length; p++) {
+            if (prefix[p] > nBlocks) {
+                throw new IllegalArgumentException("The prefix is not a restricted-growth string");
+            }
+            assignment[p] = prefix[p];
+            if (prefix[p] == nBlocks) {
+                nBlocks++;
+            }
+            blocks[prefix[p]] |= 1L << this.satellites[p];
+        }
+        this.fixed = prefix.length;
+    }
+
+    /**
+     * Limits the number of groups in the partitions that are generated from
+     * now on. Branches that already have more groups are pruned.
+     *
+     * @param launchLimit the maximum number of groups in a partition
+     */
+    public void setLaunchLimit(int launchLimit) {
+        this.launchLimit = launchLimit;
+    }
+
+    /**
+     * Stops the search after the given number of group assignments
+     *
+     * @param nodeLimit the maximum number of group assignments to try
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Stops the search at the given time
+     *
+     * @param deadline the time [ns] (see System.nanoTime()) after which the
+     * search stops
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * Checks if the search was stopped by the node limit or the deadline
+     * before all partitions were generated
+     *
+     * @return true if the search was stopped early
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Gets the number of group assignments tried so far
+     *
+     * @return the number of group assignments tried so far
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!pending && !done) {
+            pending = advance();
+            done = !pending;
+        }
+        return pending;
+    }
+
+    @Override
+    public long[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        pending = false;
+        return Arrays.copyOf(blocks, nBlocks);
+    }
+
+    /**
+     * Moves the search to the next feasible partition
+     *
+     * @return true if there is another feasible partition
+     */
+    private boolean advance() {
+        int n = satellites.length;
+        int p;
+        int from;
+        if (!started) {
+            started = true;
+            p = fixed;
+            from = 0;
+            if (nBlocks > launchLimit) {
+                return false;
+            }
+        } else {
+            if (n == fixed) {
+                return false;
+            }
+            p = n - 1;
+            from = remove(p) + 1;
+        }
+        while (p >= fixed) {
+            if (p == n) {
+                return true;
+            }
+            if (overBudget()) {
+                truncated = true;
+                return false;
+            }
+            if (place(p, from)) {
+                p++;
+                from = 0;
+            } else {
+                p--;
+                if (p >= fixed) {
+                    from = remove(p) + 1;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the node limit and, every TIME_CHECK_INTERVAL nodes, the deadline
+     *
+     * @return true if the search should stop
+     */
+    private boolean overBudget() {
+        if (nodes >= nodeLimit) {
+            return true;
+        }
+        if (hasDeadline && nodes >= nextTimeCheck) {
+            nextTimeCheck = nodes + TIME_CHECK_INTERVAL;
+            return System.nanoTime() - deadline > 0;
+        }
+        return false;
+    }
+
+    /**
+     * Assigns the satellite at the given position to the first feasible group
+     * starting from the given group
+     *
+     * @return true if a feasible group was found
+     */
+    private boolean place(int p, int from) {
+        int sat = satellites[p];
+        long bit = 1L << sat;
+        long compatible = groups.getCompatible(sat);
+        for (int b = from; b <= nBlocks; b++) {
+            nodes++;
+            if (b == nBlocks) {
+                //open a new group if the launch limit allows it
+                if (nBlocks >= launchLimit) {
+                    return false;
+                }
+                nBlocks++;
+            } else if ((compatible & blocks[b]) != blocks[b]
+                    || groups.getInstallment(blocks[b] | bit) == null) {
+                continue;
+            }
+            blocks[b] |= bit;
+            assignment[p] = b;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the satellite at the given position from its group
+     *
+     * @return the group the satellite was assigned to
+     */
+    private int remove(int p) {
+        int b = assignment[p];
+        blocks[b] &= ~(1L << satellites[p]);
+        if (blocks[b] == 0) {
+            nBlocks--;
+        }
+        return b;
+    }
+
+}
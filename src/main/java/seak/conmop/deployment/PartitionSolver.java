@@ -0,0 +1,169 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds the partition of a set of satellites into launch groups that requires
+ * the fewest launches and, among those, the least total delta V. Subsets of
+ * satellites are represented as bitmasks. The solver builds each launch group
+ * from the lowest unassigned satellite by adding satellites in increasing
+ * index order, so an infeasible group prunes all of its extensions, and the
+ * best partition of each remaining subset is memoized. This avoids
+ * materializing every feasible partition, whose number grows with the Bell
+ * number. The feasibility of each group is looked up in a
+ * GroupFeasibilityCache. A solver is used for a single constellation and is
+ * not thread-safe.
+ *
+ * A group is feasible under the same rule as the partition enumeration it
+ * replaces: each satellite must be RAAN compatible with every satellite of
+ * lower index in its group, and the group formed by the satellites up to and
+ * including it must be deployable within the tug delta V limit.
+ *
+ * Among partitions with the fewest launches, the solver returns one with the
+ * least total delta V. The enumeration it replaces did not update its minimum
+ * delta V when it replaced a partition with the same number of launches, so it
+ * returned the last enumerated partition that beat the first one found, which
+ * was not always the one with the least delta V.
+ *
+ * @author nhitomi
+ */
+public class PartitionSolver {
+
+    /**
+     * The feasibility of the groups of satellites
+     */
+    private final GroupFeasibilityCache groups;
+
+    /**
+     * The best plan of the remaining subsets already solved keyed by their
+     * bitmask
+     */
+    private final HashMap<Long, Plan> plans;
+
+    /**
+     * Creates a solver over the satellites of the given cache
+     *
+     * @param groups the feasibility of the groups of satellites
+     */
+    public PartitionSolver(GroupFeasibilityCache groups) {
+        this.groups = groups;
+        this.plans = new HashMap<>();
+    }
+
+    /**
+     * Finds the partition of the given satellites with the fewest launches and
+     * the least total delta V
+     *
+     * @param satellites the bitmask of the satellites to partition
+     * @return the installment of each launch group ordered by the lowest
+     * satellite index in the group
+     */
+    public List<Installment> solve(long satellites) {
+        ArrayList<Installment> out = new ArrayList<>();
+        Plan plan = solvePlan(satellites);
+        while (plan.group != 0) {
+            out.add(groups.getInstallment(plan.group));
+            plan = plan.rest;
+        }
+        return out;
+    }
+
+    /**
+     * Finds the best partition of the remaining satellites
+     *
+     * @param remaining the bitmask of the satellites to partition
+     * @return the best plan
+     */
+    private Plan solvePlan(long remaining) {
+        if (remaining == 0) {
+            return Plan.EMPTY;
+        }
+        Plan best = plans.get(remaining);
+        if (best != null) {
+            return best;
+        }
+
+        //the lowest remaining satellite must be in some group
+        int first = Long.numberOfTrailingZeros(remaining);
+        long candidates = groups.getCompatible(first) & remaining & ~(1L << first);
+        Plan[] incumbent = new Plan[1];
+        extend(1L << first, first, candidates, remaining, incumbent);
+        plans.put(remaining, incumbent[0]);
+        return incumbent[0];
+    }
+
+    /**
+     * Tries the given feasible group and all feasible groups obtained by
+     * adding candidates of higher index than the last added satellite
+     *
+     * @param group the bitmask of the group
+     * @param last the index of the last added satellite
+     * @param candidates the bitmask of the satellites that may be added
+     * @param remaining the bitmask of the satellites to partition
+     * @param incumbent the best plan found so far
+     */
+    private void extend(long group, int last, long candidates, long remaining, Plan[] incumbent) {
+        Plan rest = solvePlan(remaining & ~group);
+        Installment installment = groups.getInstallment(group);
+        int launches = rest.launches + 1;
+        double dv = rest.dv + installment.getLaunchDV() + installment.getOtherDV();
+        if (incumbent[0] == null || launches < incumbent[0].launches
+                || (launches == incumbent[0].launches && dv < incumbent[0].dv)) {
+            incumbent[0] = new Plan(launches, dv, group, rest);
+        }
+
+        long next = candidates & (-1L << (last + 1));
+        while (next != 0) {
+            int j = Long.numberOfTrailingZeros(next);
+            next &= next - 1;
+            long extended = group | (1L << j);
+            //the new satellite must be RAAN compatible with every member
+            if ((groups.getCompatible(j) & group) == group && groups.getInstallment(extended) != null) {
+                extend(extended, j, candidates, remaining, incumbent);
+            }
+        }
+    }
+
+    /**
+     * The best partition of a subset of satellites as a linked list of groups
+     */
+    private static class Plan {
+
+        private static final Plan EMPTY = new Plan(0, 0.0, 0L, null);
+
+        /**
+         * The number of launches
+         */
+        private final int launches;
+
+        /**
+         * The total delta V [m/s]
+         */
+        private final double dv;
+
+        /**
+         * The bitmask of the group containing the lowest satellite
+         */
+        private final long group;
+
+        /**
+         * The best plan of the satellites not in the group
+         */
+        private final Plan rest;
+
+        Plan(int launches, double dv, long group, Plan rest) {
+            this.launches = launches;
+            this.dv = dv;
+            this.group = group;
+            this.rest = rest;
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.hipparchus.util.FastMath;
+import seak.orekit.util.Orbits;
+
+/**
+ * Clusters satellites into near-coplanar groups by their inclination and right
+ * ascension of the ascending node. Satellites are sorted by inclination and
+ * swept into bands: a new band starts at the first satellite whose inclination
+ * exceeds that of the first satellite of the current band by more than the
+ * inclination tolerance. Each band is then swept the same way by RAAN, starting
+ * after the largest gap between consecutive RAANs so that a cluster may wrap
+ * around 2 pi. Every pair of satellites in a cluster therefore differs by at
+ * most the tolerances, however many satellites lie in between. Clustering n
+ * satellites takes O(n log n) time. With zero tolerances, only satellites with
+ * exactly equal inclination and RAAN are clustered together.
+ *
+ * A cluster is only a candidate launch group. Whether its satellites can line
+ * up their ascending nodes within the time limit depends on the precession
+ * rates of each pair and must still be checked (see
+ * GroupFeasibilityCache.getCompatible).
+ *
+ * @author nhitomi
+ */
+public class PlaneClustering {
+
+    /**
+     * The maximum difference [rad] in inclination between any two satellites
+     * of a cluster
+     */
+    private final double incTolerance;
+
+    /**
+     * The maximum difference [rad] in RAAN between any two satellites of a
+     * cluster
+     */
+    private final double raanTolerance;
+
+    /**
+     * Creates a clustering with the given tolerances
+     *
+     * @param incTolerance the maximum difference [rad] in inclination between
+     * any two satellites of a cluster
+     * @param raanTolerance the maximum difference [rad] in RAAN between any
+     * two satellites of a cluster
+     */
+    public PlaneClustering(double incTolerance, double raanTolerance) {
+        if (incTolerance < 0 || raanTolerance < 0) {
+            throw new IllegalArgumentException("Expected non-negative tolerances");
+        }
+        this.incTolerance = incTolerance;
+        this.raanTolerance = raanTolerance;
+    }
+
+    /**
+     * Creates a clustering whose tolerances are derived from the deployment
+     * limits. The inclination tolerance is the plane change that the tug can
+     * perform with the given fraction of its delta V limit at the circular
+     * velocity of the lowest orbit. The RAAN tolerance is the difference in
+     * RAAN that nodal precession closes within the time limit between two
+     * polar orbits at the lowest semi-major axis whose inclinations differ by
+     * the inclination tolerance, where the precession is most sensitive to
+     * the inclination. This is the most favourable pair, so the RAAN tolerance
+     * bounds the clusters but does not guarantee that the satellites of a
+     * cluster are RAAN compatible.
+     *
+     * @param fraction the fraction of the tug delta V limit spent on the plane
+     * change. 0 to only cluster exactly coplanar satellites
+     * @param minSma the lowest semi-major axis [m] of the satellites
+     * @param raanTimeLimit the time [s] limit for satellites in the same launch
+     * to drift to their ascending node due solely to nodal precession
+     * @param deltaVLimit the limited tug delta V [m/s]
+     * @return the clustering with the derived tolerances
+     */
+    public static PlaneClustering fromLimits(double fraction, double minSma, double raanTimeLimit, double deltaVLimit) {
+        if (fraction <= 0) {
+            return new PlaneClustering(0, 0);
+        }
+        double vel = Orbits.circularOrbitVelocity(minSma);
+        double incTolerance = 2. * FastMath.asin(FastMath.min(1.0, fraction * deltaVLimit / (2. * vel)));
+        double relativePrecessionRate = FastMath.abs(
+                Orbits.nodalPrecession(minSma, 0, FastMath.PI / 2. - incTolerance / 2.)
+                - Orbits.nodalPrecession(minSma, 0, FastMath.PI / 2. + incTolerance / 2.));
+        return new PlaneClustering(incTolerance, relativePrecessionRate * raanTimeLimit);
+    }
+
+    /**
+     * Clusters the satellites by their inclination and RAAN
+     *
+     * @param inc the inclination [rad] of each satellite
+     * @param raan the right ascension of the ascending node [rad] of each
+     * satellite
+     * @return the indices of the satellites in each cluster, ordered by RAAN
+     * within a cluster
+     */
+    public List<int[]> cluster(final double[] inc, final double[] raan) {
+        Integer[] byInc = new Integer[inc.length];
+        for (int i = 0; i < inc.length; i++) {
+            byInc[i] = i;
+        }
+        Arrays.sort(byInc, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(inc[o1], inc[o2]);
+            }
+        });
+
+        ArrayList<int[]> out = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= byInc.length; i++) {
+            if (i == byInc.length || inc[byInc[i]] - inc[byInc[start]] > incTolerance) {
+                clusterRaan(Arrays.copyOfRange(byInc, start, i), raan, out);
+                start = i;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Splits a band of satellites with similar inclinations by their RAAN
+     *
+     * @param band the indices of the satellites in the band
+     * @param raan the right ascension of the ascending node [rad] of each
+     * satellite
+     * @param out the list the clusters are added to
+     */
+    private void clusterRaan(Integer[] band, final double[] raan, List<int[]> out) {
+        Arrays.sort(band, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(raan[o1], raan[o2]);
+            }
+        });
+
+        //start after the largest gap, including the gap across 2 pi, so that
+        //a cluster may wrap around. Exact clustering does not wrap
+        int n = band.length;
+        int offset = 0;
+        if (raanTolerance > 0) {
+            double maxGap = raan[band[0]] + 2. * FastMath.PI - raan[band[n - 1]];
+            for (int i = 1; i < n; i++) {
+                double gap = raan[band[i]] - raan[band[i - 1]];
+                if (gap > maxGap) {
+                    maxGap = gap;
+                    offset = i;
+                }
+            }
+        }
+
+        int start = 0;
+        double startRaan = unwrappedRaan(band, raan, offset, 0);
+        for (int k = 1; k <= n; k++) {
+            if (k == n || unwrappedRaan(band, raan, offset, k) - startRaan > raanTolerance) {
+                int[] cluster = new int[k - start];
+                for (int m = 0; m < cluster.length; m++) {
+                    cluster[m] = band[(offset + start + m) % n];
+                }
+                out.add(cluster);
+                start = k;
+                if (k < n) {
+                    startRaan = unwrappedRaan(band, raan, offset, k);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the RAAN of the k-th satellite of a band swept from the given
+     * offset. RAANs past the end of the band are shifted by 2 pi so that they
+     * increase along the sweep
+     */
+    private static double unwrappedRaan(Integer[] band, double[] raan, int offset, int k) {
+        int i = offset + k;
+        if (i < band.length) {
+            return raan[band[i]];
+        }
+        return raan[band[i - band.length]] + 2. * FastMath.PI;
+    }
+
+    /**
+     * Gets the maximum difference [rad] in inclination between any two
+     * satellites of a cluster
+     *
+     * @return the inclination tolerance [rad]
+     */
+    public double getIncTolerance() {
+        return incTolerance;
+    }
+
+    /**
+     * Gets the maximum difference [rad] in RAAN between any two satellites of
+     * a cluster
+     *
+     * @return the RAAN tolerance [rad]
+     */
+    public double getRaanTolerance() {
+        return raanTolerance;
+    }
+
+}
@@ -89,6 +89,60 @@ public class DeltaV {
                 - 2 * veli * velf * FastMath.cos(theta));
     }
 
+    /**
+     * Computes the circular orbit velocity at each semi-major axis and writes
+     * them into the given buffer
+     *
+     * @param sma the semi-major axes [m]
+     * @param n the number of semi-major axes to use
+     * @param out the buffer the velocities [m/s] are written to
+     */
+    public static void circularOrbitVelocity(double[] sma, int n, double[] out) {
+        for (int i = 0; i < n; i++) {
+            out[i] = Orbits.circularOrbitVelocity(sma[i]);
+        }
+    }
+
+    /**
+     * Computes the delta v required to transfer between each pair of circular
+     * orbits with a combined maneuver of a plane change during the first burn
+     * of a Hohmann transfer, followed by its second burn (see
+     * hohmannFirstBurn, hohmannSecondBurn and combinedPlaneChange). The
+     * matrix is written into the given buffer, which is not allocated or
+     * resized.
+     *
+     * @param sma the semi-major axes [m] of the orbits
+     * @param vel the circular orbit velocities [m/s] at the semi-major axes
+     * (see circularOrbitVelocity(double[], int, double[]))
+     * @param plane the angles [rad] of the orbit planes. The plane change
+     * between two orbits is the difference in their angles
+     * @param n the number of orbits to use
+     * @param out the buffer the delta v [m/s] to transfer from orbit i to
+     * orbit j is written to at index [i][j]. The diagonal is set to 0
+     */
+    public static void combinedTransfer(double[] sma, double[] vel, double[] plane, int n, double[][] out) {
+        for (int i = 0; i < n; i++) {
+            double ra = sma[i];
+            double viA = vel[i];
+            double[] row = out[i];
+            for (int j = 0; j < n; j++) {
+                if (i == j) {
+                    row[j] = 0;
+                    continue;
+                }
+                double rb = sma[j];
+                double atx = (ra + rb) / 2;
+                double first = FastMath.abs(FastMath.sqrt(Constants.WGS84_EARTH_MU * (2 / ra - 1 / atx)) - viA);
+                double second = FastMath.abs(viA - FastMath.sqrt(Constants.WGS84_EARTH_MU * (2 / rb - 1 / atx)));
+                double velf = viA + first;
+                row[j] = FastMath.sqrt(viA * viA
+                        + velf * velf
+                        - 2 * viA * velf * FastMath.cos(plane[i] - plane[j]))
+                        + second;
+            }
+        }
+    }
+
     /**
      * Computes the velocity needed to accelerate a payload from rest at the
      * launch site to the required burnout velocity. Components in
@@ -127,6 +181,46 @@ public class DeltaV {
         return out;
     }
 
+    /**
+     * Computes the magnitude of the smaller of the two launch velocities (see
+     * launch(double, double, double, double)) for each target inclination and
+     * burnout velocity and writes them into the given buffer without
+     * allocating the velocity vectors
+     *
+     * @param inclination the target inclinations [rad]
+     * @param latitude latitude [rad] of the launch site
+     * @param velBO the velocities [m/s] at burnout
+     * @param fltPathAngleBO the flight path angle [rad] at burnout
+     * @param n the number of launches to use
+     * @param out the buffer the launch delta v [m/s] is written to
+     */
+    public static void launch(double[] inclination, double latitude, double[] velBO,
+            double fltPathAngleBO, int n, double[] out) {
+        double veq = 2 * FastMath.PI * Constants.WGS84_EARTH_EQUATORIAL_RADIUS / 86400;
+        double cosLatitude = FastMath.cos(latitude);
+        double vl = veq * cosLatitude;
+        double cosFltPath = FastMath.cos(fltPathAngleBO);
+        double sinFltPath = FastMath.sin(fltPathAngleBO);
+        for (int k = 0; k < n; k++) {
+            double cosInc = FastMath.cos(inclination[k]);
+            double inertialAzimuth = FastMath.asin(cosInc / cosLatitude);
+            double correction = FastMath.atan(
+                    (vl * FastMath.cos(inertialAzimuth))
+                    / (velBO[k] - veq * cosInc));
+
+            double vh = velBO[k] * cosFltPath;
+            double vz = velBO[k] * sinFltPath;
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < 2; i++) {
+                double azimuthBO = i == 0 ? inertialAzimuth + correction : inertialAzimuth - correction;
+                double vs = -vh * FastMath.cos(azimuthBO);
+                double ve = vh * FastMath.sin(azimuthBO) - vl;
+                min = FastMath.min(min, FastMath.sqrt(vs * vs + ve * ve + vz * vz));
+            }
+            out[k] = min;
+        }
+    }
+
     /**
      * Uses the Tsiolkovsky rocket equation to compute how much delta v a rocket
      * can provide. Assumes that Isp is provided using g=9.80665 m/s
@@ -0,0 +1,233 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import seak.conmop.comparators.OrbitalElementsComparator;
+import seak.conmop.util.Bounds;
+import seak.conmop.variable.BooleanSatelliteVariable;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * A canonical key for a constellation that does not depend on the order of
+ * the satellites. The satellites are sorted by their orbital elements and
+ * their elements are packed into a single array. Two constellations with the
+ * same satellites listed in a different order have equal keys.
+ *
+ * @author nozomihitomi
+ */
+public class ConstellationKey {
+
+    /**
+     * The number of values stored per satellite: the six orbital elements and
+     * the manifest flag
+     */
+    public static final int VALUES_PER_SATELLITE = 7;
+
+    /**
+     * Comparator used to sort the satellites into canonical order
+     */
+    private static final OrbitalElementsComparator COMPARATOR = new OrbitalElementsComparator();
+
+    /**
+     * The packed values of the satellites in canonical order
+     */
+    private final double[] values;
+
+    /**
+     * The hash of the packed values
+     */
+    private final int hash;
+
+    /**
+     * Creates a key from the packed values of the satellites in canonical
+     * order
+     *
+     * @param values the packed values of the satellites in canonical order
+     */
+    public ConstellationKey(double[] values) {
+        this.values = values;
+        this.hash = Arrays.hashCode(values);
+    }
+
+    /**
+     * Creates a key from a list of satellites that is already in canonical
+     * order.
+     *
+     * @param canonical the satellites sorted with canonicalOrder()
+     * @return the key for the satellites
+     */
+    public static ConstellationKey create(List<SatelliteVariable> canonical) {
+        double[] values = new double[VALUES_PER_SATELLITE * canonical.size()];
+        int k = 0;
+        for (SatelliteVariable sat : canonical) {
+            values[k++] = sat.getSma();
+            values[k++] = sat.getEcc();
+            values[k++] = sat.getInc();
+            values[k++] = sat.getRaan();
+            values[k++] = sat.getArgPer();
+            values[k++] = sat.getTrueAnomaly();
+            values[k++] = isManifested(sat) ? 1. : 0.;
+        }
+        return new ConstellationKey(values);
+    }
+
+    /**
+     * Sorts the satellites by their orbital elements.
+     *
+     * @param satellites the satellites to sort
+     * @return a new list with the satellites in canonical order
+     */
+    public static List<SatelliteVariable> canonicalOrder(Collection<SatelliteVariable> satellites) {
+        ArrayList<SatelliteVariable> sorted = new ArrayList<>(satellites);
+        Collections.sort(sorted, COMPARATOR);
+        return sorted;
+    }
+
+    /**
+     * Sorts the satellites by their quantized orbital elements (see
+     * createQuantized()). Satellites with equal quantized elements keep their
+     * relative order.
+     *
+     * @param satellites the satellites to sort
+     * @param epsilon the quantum as a fraction of the bounds on each element.
+     * 0 to sort by the exact elements
+     * @return a new list with the satellites in quantized canonical order
+     */
+    public static List<SatelliteVariable> quantizedOrder(Collection<SatelliteVariable> satellites, double epsilon) {
+        final ArrayList<SatelliteVariable> sorted = new ArrayList<>(satellites);
+        final double[][] rows = new double[sorted.size()][];
+        Integer[] order = new Integer[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            rows[i] = quantize(sorted.get(i), epsilon);
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                for (int k = 0; k < VALUES_PER_SATELLITE; k++) {
+                    int c = Double.compare(rows[o1][k], rows[o2][k]);
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+                return 0;
+            }
+        });
+        ArrayList<SatelliteVariable> out = new ArrayList<>(sorted.size());
+        for (Integer i : order) {
+            out.add(sorted.get(i));
+        }
+        return out;
+    }
+
+    /**
+     * Creates a key from the quantized orbital elements of the satellites.
+     * Each element is mapped to the index of the interval of width epsilon
+     * times the width of its bounds that contains it, so constellations whose
+     * satellites differ by less than the quantum usually have equal keys.
+     *
+     * @param ordered the satellites sorted with quantizedOrder() using the
+     * same epsilon
+     * @param epsilon the quantum as a fraction of the bounds on each element.
+     * 0 to use the exact elements
+     * @return the key for the satellites
+     */
+    public static ConstellationKey createQuantized(List<SatelliteVariable> ordered, double epsilon) {
+        double[] values = new double[VALUES_PER_SATELLITE * ordered.size()];
+        int k = 0;
+        for (SatelliteVariable sat : ordered) {
+            System.arraycopy(quantize(sat, epsilon), 0, values, k, VALUES_PER_SATELLITE);
+            k += VALUES_PER_SATELLITE;
+        }
+        return new ConstellationKey(values);
+    }
+
+    /**
+     * Quantizes the values of a satellite in the order used by create()
+     */
+    private static double[] quantize(SatelliteVariable sat, double epsilon) {
+        return new double[]{
+            quantize(sat.getSma(), sat.getSmaBound(), epsilon),
+            quantize(sat.getEcc(), sat.getEccBound(), epsilon),
+            quantize(sat.getInc(), sat.getIncBound(), epsilon),
+            quantize(sat.getRaan(), sat.getRaanBound(), epsilon),
+            quantize(sat.getArgPer(), sat.getArgPerBound(), epsilon),
+            quantize(sat.getTrueAnomaly(), sat.getAnomBound(), epsilon),
+            isManifested(sat) ? 1. : 0.};
+    }
+
+    private static double quantize(double value, Bounds<Double> bounds, double epsilon) {
+        if (epsilon <= 0) {
+            return value;
+        }
+        double width = bounds.getUpperBound() - bounds.getLowerBound();
+        if (width <= 0) {
+            return 0.;
+        }
+        return Math.floor((value - bounds.getLowerBound()) / (width * epsilon));
+    }
+
+    /**
+     * Checks if the satellite is manifested in the constellation. Satellites
+     * that are not BooleanSatelliteVariables are always manifested
+     *
+     * @param sat the satellite
+     * @return true if the satellite is manifested
+     */
+    private static boolean isManifested(SatelliteVariable sat) {
+        if (sat instanceof BooleanSatelliteVariable) {
+            Boolean manifest = ((BooleanSatelliteVariable) sat).getManifest();
+            return manifest != null && manifest;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of satellites in the key
+     *
+     * @return the number of satellites in the key
+     */
+    public int getNumberOfSatellites() {
+        return values.length / VALUES_PER_SATELLITE;
+    }
+
+    /**
+     * Gets the packed values of the satellites in canonical order. The
+     * returned array should not be modified.
+     *
+     * @return the packed values of the satellites in canonical order
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final ConstellationKey other = (ConstellationKey) obj;
+        return this.hash == other.hash && Arrays.equals(this.values, other.values);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.util.Arrays;
+import java.util.List;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * A canonical key for the deployment of a constellation. The deployment
+ * strategy only depends on the semi-major axis, eccentricity, inclination and
+ * right ascension of the ascending node of the satellites, so constellations
+ * that only differ in the argument of perigee or the anomaly of their
+ * satellites have equal keys. The satellites are packed in the canonical order
+ * of ConstellationKey, which sorts by these four elements first.
+ *
+ * @author nozomihitomi
+ */
+public class DeploymentKey {
+
+    /**
+     * The number of values stored per satellite: the semi-major axis,
+     * eccentricity, inclination and right ascension of the ascending node
+     */
+    public static final int VALUES_PER_SATELLITE = 4;
+
+    /**
+     * The packed values of the satellites in canonical order
+     */
+    private final double[] values;
+
+    /**
+     * The hash of the packed values
+     */
+    private final int hash;
+
+    private DeploymentKey(double[] values) {
+        this.values = values;
+        this.hash = Arrays.hashCode(values);
+    }
+
+    /**
+     * Creates a key from a list of satellites that is already in canonical
+     * order.
+     *
+     * @param canonical the satellites sorted with
+     * ConstellationKey.canonicalOrder()
+     * @return the key for the satellites
+     */
+    public static DeploymentKey create(List<SatelliteVariable> canonical) {
+        double[] values = new double[VALUES_PER_SATELLITE * canonical.size()];
+        int k = 0;
+        for (SatelliteVariable sat : canonical) {
+            values[k++] = sat.getSma();
+            values[k++] = sat.getEcc();
+            values[k++] = sat.getInc();
+            values[k++] = sat.getRaan();
+        }
+        return new DeploymentKey(values);
+    }
+
+    /**
+     * Gets the number of satellites in the key
+     *
+     * @return the number of satellites in the key
+     */
+    public int getNumberOfSatellites() {
+        return values.length / VALUES_PER_SATELLITE;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final DeploymentKey other = (DeploymentKey) obj;
+        return this.hash == other.hash && Arrays.equals(this.values, other.values);
+    }
+
+}
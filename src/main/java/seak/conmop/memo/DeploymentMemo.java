@@ -0,0 +1,116 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used memo of the deployment strategies of evaluated
+ * constellations keyed by the deployment relevant elements of their
+ * satellites (see DeploymentKey). Offspring that only move satellites along
+ * their orbits reuse the deployment strategy of their parent instead of
+ * searching for it again. The methods of this class are synchronized so that
+ * the memo can be shared by concurrent evaluations.
+ *
+ * @author nozomihitomi
+ */
+public class DeploymentMemo {
+
+    /**
+     * The maximum number of records to store
+     */
+    private final int capacity;
+
+    /**
+     * The stored records in least recently used order
+     */
+    private final LinkedHashMap<DeploymentKey, DeploymentRecord> memory;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Creates a new memo
+     *
+     * @param capacity the maximum number of records to store
+     */
+    public DeploymentMemo(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Expected a capacity of at least 1");
+        }
+        this.capacity = capacity;
+        this.memory = new LinkedHashMap<DeploymentKey, DeploymentRecord>(16, 0.75f, true) {
+            private static final long serialVersionUID = 6081146245339717230L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DeploymentKey, DeploymentRecord> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the deployment strategy of the constellation with the given key
+     *
+     * @param key the key of the constellation
+     * @return the record of the deployment strategy or null if there is none
+     */
+    public synchronized DeploymentRecord get(DeploymentKey key) {
+        DeploymentRecord record = memory.get(key);
+        if (record == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return record;
+    }
+
+    /**
+     * Stores the deployment strategy of the constellation with the given key
+     *
+     * @param key the key of the constellation
+     * @param record the record of the deployment strategy
+     */
+    public synchronized void put(DeploymentKey key, DeploymentRecord record) {
+        memory.put(key, record);
+    }
+
+    /**
+     * Gets the maximum number of records to store
+     *
+     * @return the maximum number of records to store
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of lookups that found a stored record
+     *
+     * @return the number of lookups that found a stored record
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that did not find a stored record
+     *
+     * @return the number of lookups that did not find a stored record
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("DeploymentMemo{size=%d, hits=%d, misses=%d}",
+                memory.size(), hits, misses);
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.moeaframework.core.Solution;
+import seak.conmop.deployment.DeploymentStrategy;
+import seak.conmop.deployment.Installment;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * The stored deployment strategy of a constellation and the attributes that
+ * the anytime deployment search sets on the solution. The satellites in each
+ * installment are stored as indices into the canonical order of the
+ * constellation (see ConstellationKey) so that the record does not hold on to
+ * any satellite variables and can be rebound to another constellation whose
+ * satellites have the same elements at the same canonical positions.
+ *
+ * @author nozomihitomi
+ */
+public class DeploymentRecord {
+
+    /**
+     * The names of the solution attributes that are stored with the
+     * deployment strategy. They are set by the anytime deployment search of
+     * the ConstellationOptimizer and must be Boolean, Integer or Double values
+     */
+    private static final String[] ATTRIBUTES = {"deploymentComplete", "launchLowerBound", "deploymentDVLowerBound"};
+
+    /**
+     * The indices of the satellites deployed in each installment
+     */
+    private final int[][] installments;
+
+    /**
+     * The launch deltaV [m/s] of each installment
+     */
+    private final double[] launchDV;
+
+    /**
+     * The other deltaV [m/s] of each installment
+     */
+    private final double[] otherDV;
+
+    /**
+     * The stored attributes of the solution, by name
+     */
+    private final Map<String, Serializable> attributes;
+
+    private DeploymentRecord(int[][] installments, double[] launchDV, double[] otherDV, Map<String, Serializable> attributes) {
+        this.installments = installments;
+        this.launchDV = launchDV;
+        this.otherDV = otherDV;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Creates a record of a deployment strategy.
+     *
+     * @param solution the solution whose deployment strategy was searched
+     * @param deployment the deployment strategy of the constellation
+     * @param canonical the satellites of the constellation in canonical order
+     * @return the record of the deployment strategy
+     */
+    public static DeploymentRecord create(Solution solution, DeploymentStrategy deployment, List<SatelliteVariable> canonical) {
+        int nInstallments = deployment.getInstallments().size();
+        int[][] indices = new int[nInstallments][];
+        double[] launchDV = new double[nInstallments];
+        double[] otherDV = new double[nInstallments];
+        boolean[] used = new boolean[canonical.size()];
+        int i = 0;
+        for (Installment installment : deployment.getInstallments()) {
+            List<SatelliteVariable> sats = installment.getSatellites();
+            indices[i] = new int[sats.size()];
+            for (int j = 0; j < sats.size(); j++) {
+                indices[i][j] = indexOf(sats.get(j), canonical, used);
+            }
+            launchDV[i] = installment.getLaunchDV();
+            otherDV[i] = installment.getOtherDV();
+            i++;
+        }
+        LinkedHashMap<String, Serializable> attributes = new LinkedHashMap<>();
+        for (String name : ATTRIBUTES) {
+            if (solution.hasAttribute(name)) {
+                attributes.put(name, (Serializable) solution.getAttribute(name));
+            }
+        }
+        return new DeploymentRecord(indices, launchDV, otherDV, attributes);
+    }
+
+    /**
+     * Finds the first unused satellite in the canonical order that is equal to
+     * the given satellite
+     */
+    private static int indexOf(SatelliteVariable sat, List<SatelliteVariable> canonical, boolean[] used) {
+        for (int k = 0; k < canonical.size(); k++) {
+            if (!used[k] && sat.equals(canonical.get(k))) {
+                used[k] = true;
+                return k;
+            }
+        }
+        throw new IllegalArgumentException("Deployment strategy contains a satellite that is not in the constellation");
+    }
+
+    /**
+     * Creates the deployment strategy using the given satellites.
+     *
+     * @param canonical the satellites of an equal constellation in canonical
+     * order
+     * @return the deployment strategy using the given satellites
+     */
+    public DeploymentStrategy toDeploymentStrategy(List<SatelliteVariable> canonical) {
+        ArrayList<Installment> deployment = new ArrayList<>(installments.length);
+        for (int i = 0; i < installments.length; i++) {
+            ArrayList<SatelliteVariable> sats = new ArrayList<>(installments[i].length);
+            for (int index : installments[i]) {
+                sats.add(canonical.get(index));
+            }
+            deployment.add(new Installment(sats, launchDV[i], otherDV[i]));
+        }
+        return new DeploymentStrategy(deployment);
+    }
+
+    /**
+     * Sets the stored attributes on the given solution. Stored attributes
+     * that the searched solution did not have are removed from the given
+     * solution, so that it does not keep the attributes of its parents.
+     *
+     * @param solution the solution of an equal constellation
+     */
+    public void copyAttributes(Solution solution) {
+        for (String name : ATTRIBUTES) {
+            Serializable value = attributes.get(name);
+            if (value == null) {
+                solution.removeAttribute(name);
+            } else {
+                solution.setAttribute(name, value);
+            }
+        }
+    }
+
+    /**
+     * Writes this record
+     *
+     * @param out the output to write to
+     * @throws IOException
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(installments.length);
+        for (int i = 0; i < installments.length; i++) {
+            out.writeInt(installments[i].length);
+            for (int index : installments[i]) {
+                out.writeInt(index);
+            }
+            out.writeDouble(launchDV[i]);
+            out.writeDouble(otherDV[i]);
+        }
+        out.writeInt(attributes.size());
+        for (Map.Entry<String, Serializable> entry : attributes.entrySet()) {
+            out.writeUTF(entry.getKey());
+            Serializable value = entry.getValue();
+            if (value instanceof Boolean) {
+                out.writeByte('Z');
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Integer) {
+                out.writeByte('I');
+                out.writeInt((Integer) value);
+            } else if (value instanceof Double) {
+                out.writeByte('D');
+                out.writeDouble((Double) value);
+            } else {
+                throw new IOException("Cannot write attribute " + entry.getKey() + " of type " + value.getClass());
+            }
+        }
+    }
+
+    /**
+     * Reads a record that was written with write()
+     *
+     * @param in the input to read from
+     * @return the record
+     * @throws IOException
+     */
+    static DeploymentRecord read(DataInput in) throws IOException {
+        int nInstallments = in.readInt();
+        int[][] installments = new int[nInstallments][];
+        double[] launchDV = new double[nInstallments];
+        double[] otherDV = new double[nInstallments];
+        for (int i = 0; i < nInstallments; i++) {
+            installments[i] = new int[in.readInt()];
+            for (int j = 0; j < installments[i].length; j++) {
+                installments[i][j] = in.readInt();
+            }
+            launchDV[i] = in.readDouble();
+            otherDV[i] = in.readDouble();
+        }
+        int n = in.readInt();
+        LinkedHashMap<String, Serializable> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            String name = in.readUTF();
+            byte type = in.readByte();
+            switch (type) {
+                case 'Z':
+                    attributes.put(name, in.readBoolean());
+                    break;
+                case 'I':
+                    attributes.put(name, in.readInt());
+                    break;
+                case 'D':
+                    attributes.put(name, in.readDouble());
+                    break;
+                default:
+                    throw new IOException("Unknown type " + type + " of attribute " + name);
+            }
+        }
+        return new DeploymentRecord(installments, launchDV, otherDV, attributes);
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Solution;
+import seak.conmop.variable.ConstellationVariable;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * Wraps a problem so that a constellation that duplicates a recently evaluated
+ * one is not evaluated again. A duplicate receives a copy of the objectives,
+ * the deployment strategy and the anytime deployment attributes of the
+ * evaluated constellation (see FitnessRecord). The keys of the most recently
+ * evaluated constellations are kept in memory.
+ *
+ * By default, constellations are compared by their exact canonical key (see
+ * ConstellationKey.create()), so only satellites listed in a different order
+ * are duplicates and the copied objectives are exact. With a positive
+ * epsilon, they are compared by their quantized canonical key (see
+ * ConstellationKey.createQuantized()), so satellites differing by less than
+ * the quantum are duplicates as well. This is an approximation: a duplicate
+ * keeps its own orbital elements but receives the objectives of a slightly
+ * different constellation, and two constellations on either side of a
+ * quantum boundary are not duplicates however close they are.
+ *
+ * Only solutions that consist of a single constellation variable are filtered.
+ * The methods of this class are synchronized so that it can be wrapped by a
+ * ParallelProblem, in which case duplicates that are in flight at the same
+ * time are both evaluated.
+ *
+ * @author nhitomi
+ */
+public class DuplicateFilter implements Problem {
+
+    /**
+     * The problem that evaluates the constellations that are not duplicates
+     */
+    private final Problem problem;
+
+    /**
+     * The maximum number of evaluated constellations kept in memory
+     */
+    private final int capacity;
+
+    /**
+     * The quantum as a fraction of the bounds on each orbital element
+     */
+    private final double epsilon;
+
+    /**
+     * The records of the recently evaluated constellations in least recently
+     * used order
+     */
+    private final LinkedHashMap<ConstellationKey, FitnessRecord> recent;
+
+    /**
+     * The number of evaluations that were skipped
+     */
+    private long skipped;
+
+    /**
+     * The number of evaluations that were passed on to the problem
+     */
+    private long evaluated;
+
+    /**
+     * Creates a filter of exact duplicate constellations
+     *
+     * @param problem the problem that evaluates the constellations that are
+     * not duplicates
+     * @param capacity the maximum number of evaluated constellations kept in
+     * memory
+     */
+    public DuplicateFilter(Problem problem, int capacity) {
+        this(problem, capacity, 0);
+    }
+
+    /**
+     * Creates a filter of duplicate constellations. A positive epsilon
+     * approximates the objectives of the duplicates (see the class
+     * documentation)
+     *
+     * @param problem the problem that evaluates the constellations that are
+     * not duplicates
+     * @param capacity the maximum number of evaluated constellations kept in
+     * memory
+     * @param epsilon the quantum as a fraction of the bounds on each orbital
+     * element. 0 to only filter exact duplicates
+     */
+    public DuplicateFilter(Problem problem, int capacity, double epsilon) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Expected a capacity of at least 1");
+        }
+        if (epsilon < 0) {
+            throw new IllegalArgumentException("Expected a non-negative epsilon");
+        }
+        this.problem = problem;
+        this.capacity = capacity;
+        this.epsilon = epsilon;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the problem that evaluates the constellations that are not
+     * duplicates
+     *
+     * @return the problem that evaluates the constellations that are not
+     * duplicates
+     */
+    public Problem getProblem() {
+        return problem;
+    }
+
+    @Override
+    public String getName() {
+        return problem.getName();
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return problem.getNumberOfVariables();
+    }
+
+    @Override
+    public int getNumberOfObjectives() {
+        return problem.getNumberOfObjectives();
+    }
+
+    @Override
+    public int getNumberOfConstraints() {
+        return problem.getNumberOfConstraints();
+    }
+
+    /**
+     * Copies the objectives and attributes of a recently evaluated duplicate
+     * of the solution or else evaluates the solution with the wrapped problem
+     *
+     * @param solution the solution to evaluate
+     */
+    @Override
+    public void evaluate(Solution solution) {
+        if (solution.getNumberOfVariables() != 1
+                || !(solution.getVariable(0) instanceof ConstellationVariable)) {
+            problem.evaluate(solution);
+            return;
+        }
+        ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
+        List<SatelliteVariable> ordered = order(constel.getSatelliteVariables());
+        ConstellationKey key = createKey(ordered);
+        FitnessRecord record = get(key);
+        if (record != null) {
+            solution.setObjectives(record.getObjectives());
+            record.copyAttributes(solution);
+            constel.setDeploymentStrategy(record.toDeploymentStrategy(ordered));
+            return;
+        }
+
+        problem.evaluate(solution);
+
+        //the evaluation may have replaced some satellites (e.g. moved them to
+        //the critical inclination), so the key and the record are both built
+        //from the evaluated constellation
+        if (constel.getDeploymentStrategy() != null) {
+            ordered = order(constel.getSatelliteVariables());
+            put(createKey(ordered), FitnessRecord.create(solution, constel.getDeploymentStrategy(), ordered));
+        }
+    }
+
+    /**
+     * Sorts the satellites in the order of the key
+     */
+    private List<SatelliteVariable> order(Collection<SatelliteVariable> satellites) {
+        if (epsilon > 0) {
+            return ConstellationKey.quantizedOrder(satellites, epsilon);
+        }
+        return ConstellationKey.canonicalOrder(satellites);
+    }
+
+    /**
+     * Creates the exact or quantized key of the ordered satellites
+     */
+    private ConstellationKey createKey(List<SatelliteVariable> ordered) {
+        if (epsilon > 0) {
+            return ConstellationKey.createQuantized(ordered, epsilon);
+        }
+        return ConstellationKey.create(ordered);
+    }
+
+    private synchronized FitnessRecord get(ConstellationKey key) {
+        FitnessRecord record = recent.get(key);
+        if (record == null) {
+            evaluated++;
+        } else {
+            skipped++;
+        }
+        return record;
+    }
+
+    private synchronized void put(ConstellationKey key, FitnessRecord record) {
+        recent.put(key, record);
+        while (recent.size() > capacity) {
+            Map.Entry<ConstellationKey, FitnessRecord> eldest = recent.entrySet().iterator().next();
+            recent.remove(eldest.getKey());
+        }
+    }
+
+    /**
+     * Gets the number of evaluations that were skipped because the solution
+     * duplicated a recently evaluated one
+     *
+     * @return the number of skipped evaluations
+     */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Gets the number of evaluations that were passed on to the wrapped
+     * problem
+     *
+     * @return the number of evaluations passed on to the wrapped problem
+     */
+    public synchronized long getEvaluated() {
+        return evaluated;
+    }
+
+    @Override
+    public Solution newSolution() {
+        return problem.newSolution();
+    }
+
+    @Override
+    public void close() {
+        problem.close();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("DuplicateFilter{size=%d, epsilon=%f, skipped=%d, evaluated=%d}",
+                recent.size(), epsilon, skipped, evaluated);
+    }
+
+}
@@ -0,0 +1,406 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded memo of evaluated constellations. The most recently used records
+ * are kept in memory. If a spill file is given, records that are evicted from
+ * memory are appended to the file and can still be found later. The spill file
+ * is kept when the memo is closed so that it can be shared by later runs of
+ * the same problem.
+ *
+ * The spill file starts with a fingerprint of the problem that produced the
+ * records. A file with a different fingerprint (e.g. other points of interest,
+ * study window or limits) is cleared instead of reused. Only the hash of each
+ * key and the position of the record in the file are kept in memory for the
+ * spilled records, in a fixed size table where new entries replace old ones,
+ * so the memory footprint is bounded. A record that is no longer in the table
+ * is treated as not evaluated.
+ *
+ * The methods of this class are synchronized so that the memo can be shared
+ * by concurrent evaluations.
+ *
+ * @author nozomihitomi
+ */
+public class FitnessMemo {
+
+    /**
+     * Identifies a spill file and the version of its record format
+     */
+    private static final long MAGIC = 0x636f6e6d6f704633L;
+
+    /**
+     * The size [bytes] of the header of the spill file: magic number and
+     * fingerprint
+     */
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * The number of entries per bucket of the spill index
+     */
+    private static final int WAYS = 4;
+
+    /**
+     * The maximum number of records kept in memory
+     */
+    private final int capacity;
+
+    /**
+     * The records kept in memory in least recently used order
+     */
+    private final LinkedHashMap<ConstellationKey, FitnessRecord> memory;
+
+    /**
+     * The spill file. null if records are not spilled to disk
+     */
+    private final RandomAccessFile spill;
+
+    /**
+     * The hash of the key of each entry of the spill index. The index is
+     * organized in buckets of WAYS consecutive entries
+     */
+    private final int[] spillHashes;
+
+    /**
+     * The offset of the record of each entry of the spill index in the spill
+     * file. -1 if the entry is empty
+     */
+    private final long[] spillOffsets;
+
+    /**
+     * The entry of each bucket that is replaced next when the bucket is full
+     */
+    private final byte[] spillVictims;
+
+    /**
+     * The number of records in the spill file
+     */
+    private long spilled;
+
+    private long hits;
+
+    private long spillHits;
+
+    private long misses;
+
+    /**
+     * Creates a memo that is only kept in memory
+     *
+     * @param capacity the maximum number of records kept in memory
+     */
+    public FitnessMemo(int capacity) {
+        this(capacity, null, 0, 0);
+    }
+
+    /**
+     * Creates a memo that spills evicted records to the given file. If the
+     * file already exists and holds records of a problem with the same
+     * fingerprint, the records in it are made available to this memo.
+     * Otherwise the file is cleared.
+     *
+     * @param capacity the maximum number of records kept in memory
+     * @param spillFile the spill file. null if records should not be spilled
+     * to disk
+     * @param spillCapacity the number of spilled records that can be indexed.
+     * Rounded up to a multiple of the bucket size
+     * @param fingerprint identifies the problem that evaluates the
+     * constellations. Records are only reused by a problem with the same
+     * fingerprint
+     */
+    public FitnessMemo(int capacity, File spillFile, int spillCapacity, long fingerprint) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Expected a capacity of at least 1");
+        }
+        this.capacity = capacity;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true);
+        if (spillFile == null) {
+            this.spill = null;
+            this.spillHashes = null;
+            this.spillOffsets = null;
+            this.spillVictims = null;
+        } else {
+            if (spillCapacity < 1) {
+                throw new IllegalArgumentException("Expected a spill capacity of at least 1");
+            }
+            int buckets = (spillCapacity + WAYS - 1) / WAYS;
+            this.spillHashes = new int[buckets * WAYS];
+            this.spillOffsets = new long[buckets * WAYS];
+            this.spillVictims = new byte[buckets];
+            Arrays.fill(spillOffsets, -1);
+            try {
+                this.spill = new RandomAccessFile(spillFile, "rw");
+                if (!hasHeader(fingerprint)) {
+                    if (spill.length() > 0) {
+                        Logger.getLogger(FitnessMemo.class.getName()).log(Level.WARNING,
+                                "Spill file {0} was written by another problem or version. Clearing it.", spillFile);
+                    }
+                    spill.setLength(0);
+                    spill.writeLong(MAGIC);
+                    spill.writeLong(fingerprint);
+                }
+                indexSpillFile();
+            } catch (IOException ex) {
+                Logger.getLogger(FitnessMemo.class.getName()).log(Level.SEVERE, null, ex);
+                throw new IllegalStateException("Failed to open the spill file " + spillFile);
+            }
+        }
+    }
+
+    /**
+     * Checks if the spill file starts with the header of the given problem
+     *
+     * @param fingerprint the fingerprint of the problem
+     * @return true if the spill file holds records of the given problem
+     * @throws IOException
+     */
+    private boolean hasHeader(long fingerprint) throws IOException {
+        if (spill.length() < HEADER_BYTES) {
+            return false;
+        }
+        spill.seek(0);
+        return spill.readLong() == MAGIC && spill.readLong() == fingerprint;
+    }
+
+    /**
+     * Reads the hashes and offsets of the records already in the spill file.
+     * The file is truncated after the last complete record, so that a record
+     * cut short by an interrupted run is dropped.
+     *
+     * @throws IOException
+     */
+    private void indexSpillFile() throws IOException {
+        long offset = HEADER_BYTES;
+        long length = spill.length();
+        while (offset + 8 <= length) {
+            spill.seek(offset);
+            int size = spill.readInt();
+            int hash = spill.readInt();
+            if (size < 0 || offset + 8 + size > length) {
+                break;
+            }
+            addToSpillIndex(hash, offset);
+            spilled++;
+            offset += 8 + size;
+        }
+        if (offset < length) {
+            Logger.getLogger(FitnessMemo.class.getName()).log(Level.WARNING,
+                    "Dropping {0} bytes of an incomplete record at the end of the spill file", length - offset);
+            spill.setLength(offset);
+        }
+    }
+
+    /**
+     * Gets the first entry of the bucket of the spill index for the given hash
+     */
+    private int bucket(int hash) {
+        int h = hash ^ (hash >>> 16);
+        return Math.floorMod(h * 0x9E3779B9, spillVictims.length) * WAYS;
+    }
+
+    /**
+     * Adds the offset of a spilled record to the spill index. If the bucket
+     * of the hash is full, the entries of the bucket are replaced in turn.
+     */
+    private void addToSpillIndex(int hash, long offset) {
+        int first = bucket(hash);
+        for (int i = first; i < first + WAYS; i++) {
+            if (spillOffsets[i] == offset) {
+                return;
+            }
+        }
+        for (int i = first; i < first + WAYS; i++) {
+            if (spillOffsets[i] < 0) {
+                spillHashes[i] = hash;
+                spillOffsets[i] = offset;
+                return;
+            }
+        }
+        int b = first / WAYS;
+        int victim = first + spillVictims[b];
+        spillVictims[b] = (byte) ((spillVictims[b] + 1) % WAYS);
+        spillHashes[victim] = hash;
+        spillOffsets[victim] = offset;
+    }
+
+    /**
+     * Gets the record of the constellation with the given key
+     *
+     * @param key the key of the constellation
+     * @return the record of the constellation or null if it has not been
+     * evaluated
+     */
+    public synchronized FitnessRecord get(ConstellationKey key) {
+        FitnessRecord record = memory.get(key);
+        if (record != null) {
+            hits++;
+            return record;
+        }
+        if (spill != null) {
+            record = readSpilled(key);
+            if (record != null) {
+                spillHits++;
+                putInMemory(key, record);
+                return record;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores the record of the constellation with the given key
+     *
+     * @param key the key of the constellation
+     * @param record the record of the constellation
+     */
+    public synchronized void put(ConstellationKey key, FitnessRecord record) {
+        putInMemory(key, record);
+    }
+
+    private void putInMemory(ConstellationKey key, FitnessRecord record) {
+        memory.put(key, record);
+        while (memory.size() > capacity) {
+            Map.Entry<ConstellationKey, FitnessRecord> eldest = memory.entrySet().iterator().next();
+            memory.remove(eldest.getKey());
+            if (spill != null) {
+                if (eldest.getValue().getOffset() < 0) {
+                    writeSpilled(eldest.getKey(), eldest.getValue());
+                } else {
+                    //the entry may have been replaced while the record was in memory
+                    addToSpillIndex(eldest.getKey().hashCode(), eldest.getValue().getOffset());
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the spill file for the record with the given key
+     */
+    private FitnessRecord readSpilled(ConstellationKey key) {
+        int hash = key.hashCode();
+        int first = bucket(hash);
+        try {
+            for (int entry = first; entry < first + WAYS; entry++) {
+                long offset = spillOffsets[entry];
+                if (offset < 0 || spillHashes[entry] != hash) {
+                    continue;
+                }
+                spill.seek(offset);
+                byte[] bytes = new byte[spill.readInt()];
+                spill.readInt();
+                spill.readFully(bytes);
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+                double[] values = new double[in.readInt()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.readDouble();
+                }
+                if (key.equals(new ConstellationKey(values))) {
+                    FitnessRecord record = FitnessRecord.read(in);
+                    record.setOffset(offset);
+                    return record;
+                }
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(FitnessMemo.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return null;
+    }
+
+    /**
+     * Appends the record to the end of the spill file
+     */
+    private void writeSpilled(ConstellationKey key, FitnessRecord record) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            double[] values = key.getValues();
+            out.writeInt(values.length);
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+            record.write(out);
+            out.flush();
+
+            long offset = spill.length();
+            spill.seek(offset);
+            spill.writeInt(bytes.size());
+            spill.writeInt(key.hashCode());
+            spill.write(bytes.toByteArray());
+            record.setOffset(offset);
+            addToSpillIndex(key.hashCode(), offset);
+            spilled++;
+        } catch (IOException ex) {
+            Logger.getLogger(FitnessMemo.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Writes all records held in memory to the spill file and closes it. Does
+     * nothing to the records if there is no spill file.
+     */
+    public synchronized void close() {
+        if (spill == null) {
+            return;
+        }
+        for (Map.Entry<ConstellationKey, FitnessRecord> entry : memory.entrySet()) {
+            if (entry.getValue().getOffset() < 0) {
+                writeSpilled(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            spill.close();
+        } catch (IOException ex) {
+            Logger.getLogger(FitnessMemo.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Gets the number of lookups that were found in memory
+     *
+     * @return the number of lookups that were found in memory
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that were found in the spill file
+     *
+     * @return the number of lookups that were found in the spill file
+     */
+    public synchronized long getSpillHits() {
+        return spillHits;
+    }
+
+    /**
+     * Gets the number of lookups that were not found
+     *
+     * @return the number of lookups that were not found
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("FitnessMemo{size=%d, spilled=%d, hits=%d, spillHits=%d, misses=%d}",
+                memory.size(), spilled, hits, spillHits, misses);
+    }
+
+}
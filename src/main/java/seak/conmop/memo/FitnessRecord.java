@@ -0,0 +1,141 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import org.moeaframework.core.Solution;
+import seak.conmop.deployment.DeploymentStrategy;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * The stored result of evaluating a constellation: the objective values, the
+ * deployment strategy and the attributes that the anytime deployment search
+ * sets on the solution. The satellites in the deployment strategy are stored
+ * as indices into the canonical order of the constellation (see
+ * ConstellationKey and DeploymentRecord) so that the record does not hold on
+ * to any satellite variables and can be rebound to an equal constellation.
+ *
+ * @author nozomihitomi
+ */
+public class FitnessRecord {
+
+    /**
+     * The objective values
+     */
+    private final double[] objectives;
+
+    /**
+     * The deployment strategy
+     */
+    private final DeploymentRecord deployment;
+
+    /**
+     * The offset of this record in the spill file. Negative if the record is
+     * not in the spill file.
+     */
+    private long offset;
+
+    private FitnessRecord(double[] objectives, DeploymentRecord deployment) {
+        this.objectives = objectives;
+        this.deployment = deployment;
+        this.offset = -1;
+    }
+
+    /**
+     * Creates a record of an evaluated constellation.
+     *
+     * @param solution the evaluated solution of the constellation
+     * @param deployment the deployment strategy of the constellation
+     * @param canonical the satellites of the constellation in canonical order
+     * @return the record of the evaluated constellation
+     */
+    public static FitnessRecord create(Solution solution, DeploymentStrategy deployment, List<SatelliteVariable> canonical) {
+        return new FitnessRecord(solution.getObjectives(), DeploymentRecord.create(solution, deployment, canonical));
+    }
+
+    /**
+     * Gets a copy of the objective values
+     *
+     * @return a copy of the objective values
+     */
+    public double[] getObjectives() {
+        return objectives.clone();
+    }
+
+    /**
+     * Sets the stored attributes on the given solution. Stored attributes
+     * that the evaluated solution did not have are removed from the given
+     * solution, so that it does not keep the attributes of its parents.
+     *
+     * @param solution the solution of an equal constellation
+     */
+    public void copyAttributes(Solution solution) {
+        deployment.copyAttributes(solution);
+    }
+
+    /**
+     * Creates the deployment strategy using the given satellites.
+     *
+     * @param canonical the satellites of an equal constellation in canonical
+     * order
+     * @return the deployment strategy using the given satellites
+     */
+    public DeploymentStrategy toDeploymentStrategy(List<SatelliteVariable> canonical) {
+        return deployment.toDeploymentStrategy(canonical);
+    }
+
+    /**
+     * Gets the offset of this record in the spill file
+     *
+     * @return the offset of this record in the spill file. Negative if the
+     * record is not in the spill file.
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Sets the offset of this record in the spill file
+     *
+     * @param offset the offset of this record in the spill file
+     */
+    void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Writes this record
+     *
+     * @param out the output to write to
+     * @throws IOException
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(objectives.length);
+        for (double objective : objectives) {
+            out.writeDouble(objective);
+        }
+        deployment.write(out);
+    }
+
+    /**
+     * Reads a record that was written with write()
+     *
+     * @param in the input to read from
+     * @return the record
+     * @throws IOException
+     */
+    static FitnessRecord read(DataInput in) throws IOException {
+        double[] objectives = new double[in.readInt()];
+        for (int i = 0; i < objectives.length; i++) {
+            objectives[i] = in.readDouble();
+        }
+        return new FitnessRecord(objectives, DeploymentRecord.read(in));
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.operators;
+
+import java.util.Map;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.variable.RealVariable;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * Compares satellites with the vector representation that the orbit element
+ * operators pass to the operators on real variables. The locus maps the name
+ * of each orbital element in the search (sma, ecc, inc, ap, raan, ta) to its
+ * position within the elements of a satellite.
+ *
+ * @author nhitomi
+ */
+final class OrbitElementLocus {
+
+    private OrbitElementLocus() {
+    }
+
+    /**
+     * Checks if the operator changed any of the orbital elements of a
+     * satellite
+     *
+     * @param sat the satellite before the operation
+     * @param child the vector representation of the constellation after the
+     * operation
+     * @param satCount the index of the satellite's first element in the vector
+     * @param variableLocus the locus of each orbital element within a satellite
+     * @return true if any orbital element is different from the satellite's
+     */
+    static boolean isChanged(SatelliteVariable sat, Solution child, int satCount, Map<String, Integer> variableLocus) {
+        if (variableLocus.containsKey("sma")
+                && ((RealVariable) child.getVariable(satCount + variableLocus.get("sma"))).getValue() != sat.getSma()) {
+            return true;
+        }
+        if (variableLocus.containsKey("ecc")
+                && ((RealVariable) child.getVariable(satCount + variableLocus.get("ecc"))).getValue() != sat.getEcc()) {
+            return true;
+        }
+        if (variableLocus.containsKey("inc")
+                && ((RealVariable) child.getVariable(satCount + variableLocus.get("inc"))).getValue() != sat.getInc()) {
+            return true;
+        }
+        if (variableLocus.containsKey("ap")
+                && ((RealVariable) child.getVariable(satCount + variableLocus.get("ap"))).getValue() != sat.getArgPer()) {
+            return true;
+        }
+        if (variableLocus.containsKey("raan")
+                && ((RealVariable) child.getVariable(satCount + variableLocus.get("raan"))).getValue() != sat.getRaan()) {
+            return true;
+        }
+        return variableLocus.containsKey("ta")
+                && ((RealVariable) child.getVariable(satCount + variableLocus.get("ta"))).getValue() != sat.getTrueAnomaly();
+    }
+
+}
@@ -6,6 +6,7 @@
 package seak.conmop.operators;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -15,9 +16,14 @@ import org.moeaframework.core.Solution;
 import org.moeaframework.core.Variation;
 import org.moeaframework.core.variable.RealVariable;
 import seak.conmop.variable.ConstellationVariable;
+import seak.conmop.variable.OrbitalElementBounds;
 import seak.conmop.variable.SatelliteVariable;
 
 /**
+ * Operates on the orbital elements of the satellites with the given operator
+ * on real variables. If the operator is an SBXPM, the orbital elements of
+ * constellations are crossed and mutated directly as arrays of primitive
+ * values that are reused between calls, so instances are not thread-safe.
  *
  * @author nhitomi
  */
@@ -25,6 +31,38 @@ public class OrbitElementOperator implements Variation {
 
     private final Variation operator;
 
+    /**
+     * The bounds of the constellations the locus was computed for
+     */
+    private OrbitalElementBounds locusBounds;
+
+    /**
+     * The orbital elements included in the search, in the order of
+     * OrbitalElementBounds. Elements whose lower bound equals the upper bound
+     * are not included
+     */
+    private int[] locus;
+
+    /**
+     * The indices of the satellites selected from each constellation
+     */
+    private final int[][] satsToCrossIndex = new int[2][0];
+
+    /**
+     * The orbital elements of the selected satellites of each constellation
+     */
+    private final double[][] values = new double[2][0];
+
+    /**
+     * The lower bound on each value
+     */
+    private double[] lower = new double[0];
+
+    /**
+     * The upper bound on each value
+     */
+    private double[] upper = new double[0];
+
     public OrbitElementOperator(Variation operator) {
         this.operator = operator;
     }
@@ -92,6 +130,10 @@ public class OrbitElementOperator implements Variation {
      * @return recombined constellation variables
      */
     private ConstellationVariable[] evolve(ConstellationVariable[] constellations) {
+        if (operator instanceof SBXPM && constellations.length == 2) {
+            return evolve(constellations, (SBXPM) operator);
+        }
+
         //find the minimum number of satellites contained in any of the constellations
         int minNSats = Integer.MAX_VALUE;
         for (int i = 0; i < constellations.length; i++) {
@@ -116,27 +158,27 @@ public class OrbitElementOperator implements Variation {
         //assume that each satellite variable has the same upper and lower bounds
         SatelliteVariable repSat = satsToCross[0][0];
         int locusIndex = 0;
-        if (!repSat.getSmaBound().getLowerBound().equals(repSat.getSmaBound().getUpperBound())) {
+        if (!repSat.getSmaBound().isFixed()) {
             variableLocus.put("sma", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getEccBound().getLowerBound().equals(repSat.getEccBound().getUpperBound())) {
+        if (!repSat.getEccBound().isFixed()) {
             variableLocus.put("ecc", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getIncBound().getLowerBound().equals(repSat.getIncBound().getUpperBound())) {
+        if (!repSat.getIncBound().isFixed()) {
             variableLocus.put("inc", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getArgPerBound().getLowerBound().equals(repSat.getArgPerBound().getUpperBound())) {
+        if (!repSat.getArgPerBound().isFixed()) {
             variableLocus.put("ap", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getRaanBound().getLowerBound().equals(repSat.getRaanBound().getUpperBound())) {
+        if (!repSat.getRaanBound().isFixed()) {
             variableLocus.put("raan", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getAnomBound().getLowerBound().equals(repSat.getAnomBound().getUpperBound())) {
+        if (!repSat.getAnomBound().isFixed()) {
             variableLocus.put("ta", locusIndex);
         }
 
@@ -149,27 +191,27 @@ public class OrbitElementOperator implements Variation {
                 SatelliteVariable sat = satsToCross[i][j];
                 if (variableLocus.containsKey("sma")) {
                     parent.setVariable(satCount + variableLocus.get("sma"),
-                            new RealVariable(sat.getSma(), sat.getSmaBound().getLowerBound(), sat.getSmaBound().getUpperBound()));
+                            new RealVariable(sat.getSma(), sat.getSmaBound().getLower(), sat.getSmaBound().getUpper()));
                 }
                 if (variableLocus.containsKey("ecc")) {
                     parent.setVariable(satCount + variableLocus.get("ecc"),
-                            new RealVariable(sat.getEcc(), sat.getEccBound().getLowerBound(), sat.getEccBound().getUpperBound()));
+                            new RealVariable(sat.getEcc(), sat.getEccBound().getLower(), sat.getEccBound().getUpper()));
                 }
                 if (variableLocus.containsKey("inc")) {
                     parent.setVariable(satCount + variableLocus.get("inc"),
-                            new RealVariable(sat.getInc(), sat.getIncBound().getLowerBound(), sat.getIncBound().getUpperBound()));
+                            new RealVariable(sat.getInc(), sat.getIncBound().getLower(), sat.getIncBound().getUpper()));
                 }
                 if (variableLocus.containsKey("ap")) {
                     parent.setVariable(satCount + variableLocus.get("ap"),
-                            new RealVariable(sat.getArgPer(), sat.getArgPerBound().getLowerBound(), sat.getArgPerBound().getUpperBound()));
+                            new RealVariable(sat.getArgPer(), sat.getArgPerBound().getLower(), sat.getArgPerBound().getUpper()));
                 }
                 if (variableLocus.containsKey("raan")) {
                     parent.setVariable(satCount + variableLocus.get("raan"),
-                            new RealVariable(sat.getRaan(), sat.getRaanBound().getLowerBound(), sat.getRaanBound().getUpperBound()));
+                            new RealVariable(sat.getRaan(), sat.getRaanBound().getLower(), sat.getRaanBound().getUpper()));
                 }
                 if (variableLocus.containsKey("ta")) {
                     parent.setVariable(satCount + variableLocus.get("ta"),
-                            new RealVariable(sat.getTrueAnomaly(), sat.getAnomBound().getLowerBound(), sat.getAnomBound().getUpperBound()));
+                            new RealVariable(sat.getTrueAnomaly(), sat.getAnomBound().getLower(), sat.getAnomBound().getUpper()));
                 }
                 satCount += variableLocus.size();
             }
@@ -184,7 +226,14 @@ public class OrbitElementOperator implements Variation {
             int satCount = 0;
             Solution child = children[i];
             for (int j = 0; j < minNSats; j++) {
-                SatelliteVariable satVar = (SatelliteVariable) satsToCross[i][j];
+                //a satellite selected twice may already have been replaced
+                SatelliteVariable current = constellations[i].getSatelliteVariable(satsToCrossIndex[i][j]);
+                if (!OrbitElementLocus.isChanged(current, child, satCount, variableLocus)) {
+                    //leave the satellite shared with the parent
+                    satCount += variableLocus.size();
+                    continue;
+                }
+                SatelliteVariable satVar = constellations[i].ownSatelliteVariable(current);
                 if (variableLocus.containsKey("sma")) {
                     satVar.setSma(((RealVariable) child.getVariable(satCount + variableLocus.get("sma"))).getValue());
                 }
@@ -212,6 +261,172 @@ public class OrbitElementOperator implements Variation {
         return out;
     }
 
+    /**
+     * Crosses and mutates the orbital elements of two constellations as arrays
+     * of primitive values. The satellites are selected and the random numbers
+     * are drawn in the same order as when the operator is applied to the
+     * vector representation of the constellations.
+     *
+     * @param constellations the two constellations to recombine
+     * @param sbxpm the crossover and mutation
+     * @return recombined constellation variables
+     */
+    private ConstellationVariable[] evolve(ConstellationVariable[] constellations, SBXPM sbxpm) {
+        int minNSats = FastMath.min(constellations[0].getNumberOfSatellites(),
+                constellations[1].getNumberOfSatellites());
+        updateLocus(constellations[0]);
+        int n = locus.length * minNSats;
+        ensureCapacity(minNSats, n);
+
+        //select the satellites to cross and read their orbital elements
+        for (int i = 0; i < 2; i++) {
+            int nCandidates = constellations[i].getSatelliteVariables().size();
+            for (int j = 0; j < minNSats; j++) {
+                satsToCrossIndex[i][j] = PRNG.nextInt(nCandidates);
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < minNSats; j++) {
+                SatelliteVariable sat = constellations[i].getSatelliteVariable(satsToCrossIndex[i][j]);
+                for (int k = 0; k < locus.length; k++) {
+                    values[i][j * locus.length + k] = getElement(sat, locus[k]);
+                }
+            }
+        }
+
+        sbxpm.evolve(values[0], values[1], lower, upper, n);
+
+        //only the satellites that changed are copied from the parents. A
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < minNSats; j++) {
+                int offset = j * locus.length;
+                SatelliteVariable sat = constellations[i].getSatelliteVariable(satsToCrossIndex[i][j]);
+                boolean changed = false;
+                for (int k = 0; k < locus.length; k++) {
+                    if (values[i][offset + k] != getElement(sat, locus[k])) {
+                        changed = true;
+                        break;
+                    }
+                }
+                if (!changed) {
+                    continue;
+                }
+                sat = constellations[i].ownSatelliteVariable(sat);
+                for (int k = 0; k < locus.length; k++) {
+                    setElement(sat, locus[k], values[i][offset + k]);
+                }
+            }
+        }
+        return constellations;
+    }
+
+    /**
+     * Computes the locus of the orbital elements and the bounds on each value
+     * if the constellation has other bounds than the previous one
+     */
+    private void updateLocus(ConstellationVariable constellation) {
+        if (locusBounds != null
+                && locusBounds.getBounds(OrbitalElementBounds.SMA) == constellation.getSmaBound()
+                && locusBounds.getBounds(OrbitalElementBounds.ECC) == constellation.getEccBound()
+                && locusBounds.getBounds(OrbitalElementBounds.INC) == constellation.getIncBound()
+                && locusBounds.getBounds(OrbitalElementBounds.ARG_PER) == constellation.getArgPerBound()
+                && locusBounds.getBounds(OrbitalElementBounds.RAAN) == constellation.getRaanBound()
+                && locusBounds.getBounds(OrbitalElementBounds.ANOM) == constellation.getAnomBound()) {
+            return;
+        }
+        locusBounds = new OrbitalElementBounds(
+                constellation.getSmaBound(), constellation.getEccBound(),
+                constellation.getIncBound(), constellation.getArgPerBound(),
+                constellation.getRaanBound(), constellation.getAnomBound());
+        int nLocus = 0;
+        int[] elements = new int[OrbitalElementBounds.NUMBER_OF_ELEMENTS];
+        for (int e = 0; e < OrbitalElementBounds.NUMBER_OF_ELEMENTS; e++) {
+            if (!locusBounds.getBounds(e).isFixed()) {
+                elements[nLocus] = e;
+                nLocus++;
+            }
+        }
+        locus = Arrays.copyOf(elements, nLocus);
+        fillBounds();
+    }
+
+    /**
+     * Grows the buffers to hold the given number of satellites and values
+     */
+    private void ensureCapacity(int nSats, int n) {
+        for (int i = 0; i < 2; i++) {
+            if (satsToCrossIndex[i].length < nSats) {
+                satsToCrossIndex[i] = new int[nSats];
+            }
+        }
+        if (lower.length < n) {
+            for (int i = 0; i < 2; i++) {
+                values[i] = new double[n];
+            }
+            lower = new double[n];
+            upper = new double[n];
+            fillBounds();
+        }
+    }
+
+    /**
+     * Fills the bounds on each value for the current capacity
+     */
+    private void fillBounds() {
+        if (locus.length == 0) {
+            return;
+        }
+        for (int i = 0; i < lower.length; i++) {
+            int e = locus[i % locus.length];
+            lower[i] = locusBounds.getLowerBound(e);
+            upper[i] = locusBounds.getUpperBound(e);
+        }
+    }
+
+    private static double getElement(SatelliteVariable sat, int element) {
+        switch (element) {
+            case OrbitalElementBounds.SMA:
+                return sat.getSma();
+            case OrbitalElementBounds.ECC:
+                return sat.getEcc();
+            case OrbitalElementBounds.INC:
+                return sat.getInc();
+            case OrbitalElementBounds.ARG_PER:
+                return sat.getArgPer();
+            case OrbitalElementBounds.RAAN:
+                return sat.getRaan();
+            case OrbitalElementBounds.ANOM:
+                return sat.getTrueAnomaly();
+            default:
+                throw new IllegalArgumentException("Unknown orbital element " + element);
+        }
+    }
+
+    private static void setElement(SatelliteVariable sat, int element, double value) {
+        switch (element) {
+            case OrbitalElementBounds.SMA:
+                sat.setSma(value);
+                break;
+            case OrbitalElementBounds.ECC:
+                sat.setEcc(value);
+                break;
+            case OrbitalElementBounds.INC:
+                sat.setInc(value);
+                break;
+            case OrbitalElementBounds.ARG_PER:
+                sat.setArgPer(value);
+                break;
+            case OrbitalElementBounds.RAAN:
+                sat.setRaan(value);
+                break;
+            case OrbitalElementBounds.ANOM:
+                sat.setTrueAnomaly(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown orbital element " + element);
+        }
+    }
+
     /**
      * Operates on the real-valued orbital elements with the given operator
      *
@@ -225,27 +440,27 @@ public class OrbitElementOperator implements Variation {
         //assume that each satellite variable has the same upper and lower bounds
         SatelliteVariable repSat = satellites[0];
         int locusIndex = 0;
-        if (!repSat.getSmaBound().getLowerBound().equals(repSat.getSmaBound().getUpperBound())) {
+        if (!repSat.getSmaBound().isFixed()) {
             variableLocus.put("sma", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getEccBound().getLowerBound().equals(repSat.getEccBound().getUpperBound())) {
+        if (!repSat.getEccBound().isFixed()) {
             variableLocus.put("ecc", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getIncBound().getLowerBound().equals(repSat.getIncBound().getUpperBound())) {
+        if (!repSat.getIncBound().isFixed()) {
             variableLocus.put("inc", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getArgPerBound().getLowerBound().equals(repSat.getArgPerBound().getUpperBound())) {
+        if (!repSat.getArgPerBound().isFixed()) {
             variableLocus.put("ap", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getRaanBound().getLowerBound().equals(repSat.getRaanBound().getUpperBound())) {
+        if (!repSat.getRaanBound().isFixed()) {
             variableLocus.put("raan", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getAnomBound().getLowerBound().equals(repSat.getAnomBound().getUpperBound())) {
+        if (!repSat.getAnomBound().isFixed()) {
             variableLocus.put("ta", locusIndex);
         }
 
@@ -255,27 +470,27 @@ public class OrbitElementOperator implements Variation {
             SatelliteVariable sat = satellites[i];
             if (variableLocus.containsKey("sma")) {
                 parent.setVariable(variableLocus.get("sma"),
-                        new RealVariable(sat.getSma(), sat.getSmaBound().getLowerBound(), sat.getSmaBound().getUpperBound()));
+                        new RealVariable(sat.getSma(), sat.getSmaBound().getLower(), sat.getSmaBound().getUpper()));
             }
             if (variableLocus.containsKey("ecc")) {
                 parent.setVariable(variableLocus.get("ecc"),
-                        new RealVariable(sat.getEcc(), sat.getEccBound().getLowerBound(), sat.getEccBound().getUpperBound()));
+                        new RealVariable(sat.getEcc(), sat.getEccBound().getLower(), sat.getEccBound().getUpper()));
             }
             if (variableLocus.containsKey("inc")) {
                 parent.setVariable(variableLocus.get("inc"),
-                        new RealVariable(sat.getInc(), sat.getIncBound().getLowerBound(), sat.getIncBound().getUpperBound()));
+                        new RealVariable(sat.getInc(), sat.getIncBound().getLower(), sat.getIncBound().getUpper()));
             }
             if (variableLocus.containsKey("ap")) {
                 parent.setVariable(variableLocus.get("ap"),
-                        new RealVariable(sat.getArgPer(), sat.getArgPerBound().getLowerBound(), sat.getArgPerBound().getUpperBound()));
+                        new RealVariable(sat.getArgPer(), sat.getArgPerBound().getLower(), sat.getArgPerBound().getUpper()));
             }
             if (variableLocus.containsKey("raan")) {
                 parent.setVariable(variableLocus.get("raan"),
-                        new RealVariable(sat.getRaan(), sat.getRaanBound().getLowerBound(), sat.getRaanBound().getUpperBound()));
+                        new RealVariable(sat.getRaan(), sat.getRaanBound().getLower(), sat.getRaanBound().getUpper()));
             }
             if (variableLocus.containsKey("ta")) {
                 parent.setVariable(variableLocus.get("ta"),
-                        new RealVariable(sat.getTrueAnomaly(), sat.getAnomBound().getLowerBound(), sat.getAnomBound().getUpperBound()));
+                        new RealVariable(sat.getTrueAnomaly(), sat.getAnomBound().getLower(), sat.getAnomBound().getUpper()));
             }
             parents[i] = parent;
         }
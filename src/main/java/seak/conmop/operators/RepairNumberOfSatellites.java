@@ -13,6 +13,7 @@ import org.moeaframework.core.Variation;
 import seak.conmop.variable.BooleanSatelliteVariable;
 import seak.conmop.variable.ConstellationMatrix;
 import seak.conmop.variable.ConstellationVariable;
+import seak.conmop.variable.PackedConstellationVariable;
 import seak.conmop.variable.SatelliteVariable;
 
 /**
@@ -33,10 +34,11 @@ public class RepairNumberOfSatellites implements Variation {
         Solution child = parents[0].copy();
         for (int i = 0; i < child.getNumberOfVariables(); i++) {
             Variable var = child.getVariable(i);
-            if (var instanceof ConstellationMatrix) {
-                ConstellationMatrix constelVar = (ConstellationMatrix)var;
+            if (var instanceof ConstellationMatrix
+                    || (var instanceof PackedConstellationVariable && ((PackedConstellationVariable) var).hasManifest())) {
+                ConstellationVariable constelVar = (ConstellationVariable)var;
                 //check if the number of satellites is within the allowable bounds
-                while (constelVar.getNumberOfSatellites() < constelVar.getSatelliteBound().getLowerBound()) {
+                while (constelVar.getNumberOfSatellites() < constelVar.getSatelliteBound().getLower()) {
                     //turn on a random satellite that is off
                     ArrayList<BooleanSatelliteVariable> offSats = new ArrayList<>();
                     for (SatelliteVariable sat : constelVar.getSatelliteVariables()) {
@@ -45,9 +47,9 @@ public class RepairNumberOfSatellites implements Variation {
                         }
                     }
                     int select = PRNG.nextInt(offSats.size());
-                    offSats.get(select).setManifest(true);
+                    ((BooleanSatelliteVariable) constelVar.ownSatelliteVariable(offSats.get(select))).setManifest(true);
                 }
-                while (constelVar.getNumberOfSatellites() > constelVar.getSatelliteBound().getUpperBound()) {
+                while (constelVar.getNumberOfSatellites() > constelVar.getSatelliteBound().getUpper()) {
                     //turn off a random satellite that is on
                     ArrayList<BooleanSatelliteVariable> onSats = new ArrayList<>();
                     for (SatelliteVariable sat : constelVar.getSatelliteVariables()) {
@@ -56,15 +58,15 @@ public class RepairNumberOfSatellites implements Variation {
                         }
                     }
                     int select = PRNG.nextInt(onSats.size());
-                    onSats.get(select).setManifest(false);
+                    ((BooleanSatelliteVariable) constelVar.ownSatelliteVariable(onSats.get(select))).setManifest(false);
                 }
             } else if(var instanceof ConstellationVariable){
                 ConstellationVariable constelVar = (ConstellationVariable)var;
                 //check if the number of satellites is within the allowable bounds
-                if (constelVar.getNumberOfSatellites() < constelVar.getSatelliteBound().getLowerBound()) {
+                if (constelVar.getNumberOfSatellites() < constelVar.getSatelliteBound().getLower()) {
 
                 } 
-                while(constelVar.getNumberOfSatellites() > constelVar.getSatelliteBound().getUpperBound()) {
+                while(constelVar.getNumberOfSatellites() > constelVar.getSatelliteBound().getUpper()) {
                     //remove a random sallite from the chromosome
                     ArrayList<SatelliteVariable> sats = new ArrayList(constelVar.getSatelliteVariables());
                     sats.remove(PRNG.nextInt(sats.size()));
@@ -0,0 +1,201 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.operators;
+
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variable;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.variable.RealVariable;
+
+/**
+ * Simulated binary crossover followed by polynomial mutation of each offspring
+ * that operates directly on arrays of real values. It draws the same random
+ * numbers in the same order as new CompoundVariation(new SBX(probability,
+ * sbxDistributionIndex), new VariablePM(pmDistributionIndex)) and therefore
+ * produces the same offspring from the same parents and random seed, without
+ * allocating any Solution or RealVariable.
+ *
+ * @author nhitomi
+ */
+public class SBXPM implements Variation {
+
+    /**
+     * The tolerance below which two parent values are considered equal and
+     * are not crossed
+     */
+    private static final double EPS = 1.0e-10;
+
+    /**
+     * The probability of applying the crossover
+     */
+    private final double probability;
+
+    /**
+     * The distribution index of the simulated binary crossover
+     */
+    private final double sbxDistributionIndex;
+
+    /**
+     * The distribution index of the polynomial mutation
+     */
+    private final double pmDistributionIndex;
+
+    /**
+     * Creates the crossover and mutation. The probability of mutating each
+     * value is the inverse of the number of values (see VariablePM)
+     *
+     * @param probability the probability of applying the crossover
+     * @param sbxDistributionIndex the distribution index of the simulated
+     * binary crossover
+     * @param pmDistributionIndex the distribution index of the polynomial
+     * mutation
+     */
+    public SBXPM(double probability, double sbxDistributionIndex, double pmDistributionIndex) {
+        this.probability = probability;
+        this.sbxDistributionIndex = sbxDistributionIndex;
+        this.pmDistributionIndex = pmDistributionIndex;
+    }
+
+    @Override
+    public int getArity() {
+        return 2;
+    }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        Solution result1 = parents[0].copy();
+        Solution result2 = parents[1].copy();
+        int n = result1.getNumberOfVariables();
+        double[] x1 = new double[n];
+        double[] x2 = new double[n];
+        double[] lower = new double[n];
+        double[] upper = new double[n];
+        for (int i = 0; i < n; i++) {
+            Variable var1 = result1.getVariable(i);
+            Variable var2 = result2.getVariable(i);
+            if (!(var1 instanceof RealVariable) || !(var2 instanceof RealVariable)) {
+                throw new IllegalArgumentException("Expected only real variables.");
+            }
+            x1[i] = ((RealVariable) var1).getValue();
+            x2[i] = ((RealVariable) var2).getValue();
+            lower[i] = ((RealVariable) var1).getLowerBound();
+            upper[i] = ((RealVariable) var1).getUpperBound();
+        }
+        evolve(x1, x2, lower, upper, n);
+        for (int i = 0; i < n; i++) {
+            ((RealVariable) result1.getVariable(i)).setValue(x1[i]);
+            ((RealVariable) result2.getVariable(i)).setValue(x2[i]);
+        }
+        return new Solution[]{result1, result2};
+    }
+
+    /**
+     * Crosses two vectors of real values and then mutates each of them. The
+     * vectors are modified in place.
+     *
+     * @param x1 the values of the first parent. Replaced by the values of the
+     * first offspring
+     * @param x2 the values of the second parent. Replaced by the values of the
+     * second offspring
+     * @param lower the lower bound on each value
+     * @param upper the upper bound on each value
+     * @param n the number of values
+     */
+    public void evolve(double[] x1, double[] x2, double[] lower, double[] upper, int n) {
+        if (PRNG.nextDouble() <= probability) {
+            for (int i = 0; i < n; i++) {
+                if (PRNG.nextBoolean()) {
+                    crossover(x1, x2, i, lower[i], upper[i]);
+                }
+            }
+        }
+        mutate(x1, lower, upper, n);
+        mutate(x2, lower, upper, n);
+    }
+
+    /**
+     * Simulated binary crossover of the i-th values of two vectors. The
+     * offspring values are swapped between the vectors with a probability of
+     * 0.5.
+     */
+    private void crossover(double[] x1, double[] x2, int i, double lb, double ub) {
+        double y1 = x1[i];
+        double y2 = x2[i];
+        if (Math.abs(y1 - y2) <= EPS) {
+            return;
+        }
+        if (y1 > y2) {
+            double tmp = y1;
+            y1 = y2;
+            y2 = tmp;
+        }
+        double u = PRNG.nextDouble();
+        double c1 = 0.5 * ((y1 + y2) - spread(1.0 + 2.0 * (y1 - lb) / (y2 - y1), u) * (y2 - y1));
+        double c2 = 0.5 * ((y1 + y2) + spread(1.0 + 2.0 * (ub - y2) / (y2 - y1), u) * (y2 - y1));
+        c1 = clamp(c1, lb, ub);
+        c2 = clamp(c2, lb, ub);
+        if (PRNG.nextBoolean()) {
+            x1[i] = c2;
+            x2[i] = c1;
+        } else {
+            x1[i] = c1;
+            x2[i] = c2;
+        }
+    }
+
+    /**
+     * Computes the spread factor of an offspring
+     *
+     * @param beta the inverse of the spread factor that reaches the bound
+     * @param u the random number shared by both offspring
+     * @return the spread factor
+     */
+    private double spread(double beta, double u) {
+        double alpha = 2.0 - Math.pow(1.0 / beta, sbxDistributionIndex + 1.0);
+        if (u <= 1.0 / alpha) {
+            return Math.pow(alpha * u, 1.0 / (sbxDistributionIndex + 1.0));
+        } else {
+            return Math.pow(1.0 / (2.0 - alpha * u), 1.0 / (sbxDistributionIndex + 1.0));
+        }
+    }
+
+    /**
+     * Polynomial mutation of each value with a probability that is the
+     * inverse of the number of values
+     */
+    private void mutate(double[] x, double[] lower, double[] upper, int n) {
+        for (int i = 0; i < n; i++) {
+            if (PRNG.nextDouble() <= 1. / n) {
+                double u = PRNG.nextDouble();
+                double lb = lower[i];
+                double ub = upper[i];
+                double dx = ub - lb;
+                double delta;
+                if (u < 0.5) {
+                    double bl = (x[i] - lb) / dx;
+                    double b = 2.0 * u + (1.0 - 2.0 * u) * Math.pow(1.0 - bl, pmDistributionIndex + 1.0);
+                    delta = Math.pow(b, 1.0 / (pmDistributionIndex + 1.0)) - 1.0;
+                } else {
+                    double bu = (ub - x[i]) / dx;
+                    double b = 2.0 * (1.0 - u) + 2.0 * (u - 0.5) * Math.pow(1.0 - bu, pmDistributionIndex + 1.0);
+                    delta = 1.0 - Math.pow(b, 1.0 / (pmDistributionIndex + 1.0));
+                }
+                x[i] = clamp(x[i] + delta * dx, lb, ub);
+            }
+        }
+    }
+
+    private static double clamp(double value, double lb, double ub) {
+        if (value < lb) {
+            return lb;
+        } else if (value > ub) {
+            return ub;
+        }
+        return value;
+    }
+
+}
@@ -103,27 +103,27 @@ public class StaticOrbitElementOperator implements Variation {
         //assume that each satellite variable has the same upper and lower bounds
         SatelliteVariable repSat = constellations[0].createSatelliteVariable();
         int locusIndex = 0;
-        if (!repSat.getSmaBound().getLowerBound().equals(repSat.getSmaBound().getUpperBound())) {
+        if (!repSat.getSmaBound().isFixed()) {
             variableLocus.put("sma", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getEccBound().getLowerBound().equals(repSat.getEccBound().getUpperBound())) {
+        if (!repSat.getEccBound().isFixed()) {
             variableLocus.put("ecc", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getIncBound().getLowerBound().equals(repSat.getIncBound().getUpperBound())) {
+        if (!repSat.getIncBound().isFixed()) {
             variableLocus.put("inc", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getArgPerBound().getLowerBound().equals(repSat.getArgPerBound().getUpperBound())) {
+        if (!repSat.getArgPerBound().isFixed()) {
             variableLocus.put("ap", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getRaanBound().getLowerBound().equals(repSat.getRaanBound().getUpperBound())) {
+        if (!repSat.getRaanBound().isFixed()) {
             variableLocus.put("raan", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getAnomBound().getLowerBound().equals(repSat.getAnomBound().getUpperBound())) {
+        if (!repSat.getAnomBound().isFixed()) {
             variableLocus.put("ta", locusIndex);
         }
 
@@ -135,27 +135,27 @@ public class StaticOrbitElementOperator implements Variation {
             for (SatelliteVariable sat : constellations[i].getSatelliteVariables()) {
                 if (variableLocus.containsKey("sma")) {
                     parent.setVariable(satCount + variableLocus.get("sma"),
-                            new RealVariable(sat.getSma(), sat.getSmaBound().getLowerBound(), sat.getSmaBound().getUpperBound()));
+                            new RealVariable(sat.getSma(), sat.getSmaBound().getLower(), sat.getSmaBound().getUpper()));
                 }
                 if (variableLocus.containsKey("ecc")) {
                     parent.setVariable(satCount + variableLocus.get("ecc"),
-                            new RealVariable(sat.getEcc(), sat.getEccBound().getLowerBound(), sat.getEccBound().getUpperBound()));
+                            new RealVariable(sat.getEcc(), sat.getEccBound().getLower(), sat.getEccBound().getUpper()));
                 }
                 if (variableLocus.containsKey("inc")) {
                     parent.setVariable(satCount + variableLocus.get("inc"),
-                            new RealVariable(sat.getInc(), sat.getIncBound().getLowerBound(), sat.getIncBound().getUpperBound()));
+                            new RealVariable(sat.getInc(), sat.getIncBound().getLower(), sat.getIncBound().getUpper()));
                 }
                 if (variableLocus.containsKey("ap")) {
                     parent.setVariable(satCount + variableLocus.get("ap"),
-                            new RealVariable(sat.getArgPer(), sat.getArgPerBound().getLowerBound(), sat.getArgPerBound().getUpperBound()));
+                            new RealVariable(sat.getArgPer(), sat.getArgPerBound().getLower(), sat.getArgPerBound().getUpper()));
                 }
                 if (variableLocus.containsKey("raan")) {
                     parent.setVariable(satCount + variableLocus.get("raan"),
-                            new RealVariable(sat.getRaan(), sat.getRaanBound().getLowerBound(), sat.getRaanBound().getUpperBound()));
+                            new RealVariable(sat.getRaan(), sat.getRaanBound().getLower(), sat.getRaanBound().getUpper()));
                 }
                 if (variableLocus.containsKey("ta")) {
                     parent.setVariable(satCount + variableLocus.get("ta"),
-                            new RealVariable(sat.getTrueAnomaly(), sat.getAnomBound().getLowerBound(), sat.getAnomBound().getUpperBound()));
+                            new RealVariable(sat.getTrueAnomaly(), sat.getAnomBound().getLower(), sat.getAnomBound().getUpper()));
                 }
                 BinaryVariable manifest = new BinaryVariable(1);
                 manifest.set(0, ((BooleanSatelliteVariable) sat).getManifest());
@@ -172,8 +172,16 @@ public class StaticOrbitElementOperator implements Variation {
             ArrayList<SatelliteVariable> satList = new ArrayList<>();
             int satCount = 0;
             Solution child = children[i];
-            for (SatelliteVariable sat : constellations[i].getSatelliteVariables()) {
-                BooleanSatelliteVariable satVar = (BooleanSatelliteVariable) sat;
+            int nSlots = constellations[i].getSatelliteVariables().size();
+            for (int j = 0; j < nSlots; j++) {
+                SatelliteVariable sat = constellations[i].getSatelliteVariable(j);
+                if (!isChanged((BooleanSatelliteVariable) sat, child, satCount, variableLocus)) {
+                    //leave the satellite shared with the parent
+                    satCount += variableLocus.size() + 1;
+                    satList.add(sat);
+                    continue;
+                }
+                BooleanSatelliteVariable satVar = (BooleanSatelliteVariable) out[i].ownSatelliteVariable(sat);
                 if (variableLocus.containsKey("sma")) {
                     satVar.setSma(((RealVariable) child.getVariable(satCount + variableLocus.get("sma"))).getValue());
                 }
@@ -201,6 +209,25 @@ public class StaticOrbitElementOperator implements Variation {
         return out;
     }
 
+    /**
+     * Checks if the operator changed any of the orbital elements or the
+     * manifest of a satellite
+     *
+     * @param sat the satellite before the operation
+     * @param child the vector representation of the constellation after the
+     * operation
+     * @param satCount the index of the satellite's first element in the vector
+     * @param variableLocus the locus of each orbital element within a satellite
+     * @return true if any orbital element or the manifest is different from
+     * the satellite's
+     */
+    private static boolean isChanged(BooleanSatelliteVariable sat, Solution child, int satCount, HashMap<String, Integer> variableLocus) {
+        if (OrbitElementLocus.isChanged(sat, child, satCount, variableLocus)) {
+            return true;
+        }
+        return ((BinaryVariable) child.getVariable(satCount + variableLocus.size())).get(0) != sat.getManifest();
+    }
+
     /**
      * Operates on the real-valued orbital elements with the given operator
      *
@@ -216,27 +243,27 @@ public class StaticOrbitElementOperator implements Variation {
         //assume that each satellite variable has the same upper and lower bounds
         SatelliteVariable repSat = satellites[0];
         int locusIndex = 0;
-        if (!repSat.getSmaBound().getLowerBound().equals(repSat.getSmaBound().getUpperBound())) {
+        if (!repSat.getSmaBound().isFixed()) {
             variableLocus.put("sma", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getEccBound().getLowerBound().equals(repSat.getEccBound().getUpperBound())) {
+        if (!repSat.getEccBound().isFixed()) {
             variableLocus.put("ecc", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getIncBound().getLowerBound().equals(repSat.getIncBound().getUpperBound())) {
+        if (!repSat.getIncBound().isFixed()) {
             variableLocus.put("inc", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getArgPerBound().getLowerBound().equals(repSat.getArgPerBound().getUpperBound())) {
+        if (!repSat.getArgPerBound().isFixed()) {
             variableLocus.put("ap", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getRaanBound().getLowerBound().equals(repSat.getRaanBound().getUpperBound())) {
+        if (!repSat.getRaanBound().isFixed()) {
             variableLocus.put("raan", locusIndex);
             locusIndex++;
         }
-        if (!repSat.getAnomBound().getLowerBound().equals(repSat.getAnomBound().getUpperBound())) {
+        if (!repSat.getAnomBound().isFixed()) {
             variableLocus.put("ta", locusIndex);
         }
 
@@ -246,27 +273,27 @@ public class StaticOrbitElementOperator implements Variation {
 
             if (variableLocus.containsKey("sma")) {
                 parent.setVariable(variableLocus.get("sma"),
-                        new RealVariable(sat.getSma(), sat.getSmaBound().getLowerBound(), sat.getSmaBound().getUpperBound()));
+                        new RealVariable(sat.getSma(), sat.getSmaBound().getLower(), sat.getSmaBound().getUpper()));
             }
             if (variableLocus.containsKey("ecc")) {
                 parent.setVariable(variableLocus.get("ecc"),
-                        new RealVariable(sat.getEcc(), sat.getEccBound().getLowerBound(), sat.getEccBound().getUpperBound()));
+                        new RealVariable(sat.getEcc(), sat.getEccBound().getLower(), sat.getEccBound().getUpper()));
             }
             if (variableLocus.containsKey("inc")) {
                 parent.setVariable(variableLocus.get("inc"),
-                        new RealVariable(sat.getInc(), sat.getIncBound().getLowerBound(), sat.getIncBound().getUpperBound()));
+                        new RealVariable(sat.getInc(), sat.getIncBound().getLower(), sat.getIncBound().getUpper()));
             }
             if (variableLocus.containsKey("ap")) {
                 parent.setVariable(variableLocus.get("ap"),
-                        new RealVariable(sat.getArgPer(), sat.getArgPerBound().getLowerBound(), sat.getArgPerBound().getUpperBound()));
+                        new RealVariable(sat.getArgPer(), sat.getArgPerBound().getLower(), sat.getArgPerBound().getUpper()));
             }
             if (variableLocus.containsKey("raan")) {
                 parent.setVariable(variableLocus.get("raan"),
-                        new RealVariable(sat.getRaan(), sat.getRaanBound().getLowerBound(), sat.getRaanBound().getUpperBound()));
+                        new RealVariable(sat.getRaan(), sat.getRaanBound().getLower(), sat.getRaanBound().getUpper()));
             }
             if (variableLocus.containsKey("ta")) {
                 parent.setVariable(variableLocus.get("ta"),
-                        new RealVariable(sat.getTrueAnomaly(), sat.getAnomBound().getLowerBound(), sat.getAnomBound().getUpperBound()));
+                        new RealVariable(sat.getTrueAnomaly(), sat.getAnomBound().getLower(), sat.getAnomBound().getUpper()));
             }
             BinaryVariable manifest = new BinaryVariable(1);
             manifest.set(0, ((BooleanSatelliteVariable) sat).getManifest());
@@ -56,12 +56,16 @@ public class DecreasePlanes extends AbstractCheckParent {
         DeploymentStrategy deploymentStrategy = constelVariable.getDeploymentStrategy();
 
         //Select an installment to move
-        ArrayList<Installment> candidates = new ArrayList(deploymentStrategy.getInstallments());
+        ArrayList<Installment> installments = new ArrayList(deploymentStrategy.getInstallments());
+        ArrayList<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < installments.size(); i++) {
+            candidates.add(i);
+        }
         Collections.shuffle(candidates);
-        Installment candidate = candidates.get(0);
+        Installment candidate = installments.get(candidates.get(0));
 
         //Find random installment to merge with
-        Installment candidateOther = candidates.get(1);
+        Installment candidateOther = installments.get(candidates.get(1));
 
         DescriptiveStatistics raans = new DescriptiveStatistics();
         DescriptiveStatistics incs = new DescriptiveStatistics();
@@ -73,14 +77,17 @@ public class DecreasePlanes extends AbstractCheckParent {
         double meanInc = incs.getMean();
 
         //move candidate to other's plane
-        for (SatelliteVariable var : candidate.getSatellites()) {
+        for (SatelliteVariable sat : candidate.getSatellites()) {
+            SatelliteVariable var = constelVariable.ownSatelliteVariable(sat);
             var.setInc(meanInc);
             var.setRaan(meanRaan);
         }
 
+        //the installments now refer to the modified satellites
+        installments = new ArrayList(constelVariable.getDeploymentStrategy().getInstallments());
         ArrayList<SatelliteVariable> sats = new ArrayList<>();
-        for (Installment installment : candidates) {
-            sats.addAll(installment.getSatellites());
+        for (Integer index : candidates) {
+            sats.addAll(installments.get(index).getSatellites());
         }
         constelVariable.setSatelliteVariables(sats);
         return constelVariable;
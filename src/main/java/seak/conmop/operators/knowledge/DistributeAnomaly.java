@@ -53,15 +53,12 @@ public class DistributeAnomaly extends AbstractCheckParent  {
     private ConstellationVariable evolve(ConstellationVariable constelVariable) {
         DeploymentStrategy deploymentStrategy = constelVariable.getDeploymentStrategy();
 
-        ArrayList<SatelliteVariable> allSats = new ArrayList<>();
-
         //randomly select a installment to operate on
         ArrayList<Installment> installmentCandidates = new ArrayList();
         for (Installment installment : deploymentStrategy.getInstallments()) {
             if (installment.getSatellites().size() > 1) {
                 installmentCandidates.add(installment);
             }
-            allSats.addAll(installment.getSatellites());
         }
 
         if (installmentCandidates.isEmpty()) {
@@ -83,16 +80,21 @@ public class DistributeAnomaly extends AbstractCheckParent  {
             if (newAnomaly < 0) {
                 newAnomaly += 2. * FastMath.PI;
             }
-            sats.get(i).setTrueAnomaly(newAnomaly);
+            constelVariable.ownSatelliteVariable(sats.get(i)).setTrueAnomaly(newAnomaly);
         }
         for (int i = n + 1; i < sats.size(); i++) {
             double newAnomaly = anchor.getTrueAnomaly() + separation * (i - n);
             if (newAnomaly > 2. * FastMath.PI) {
                 newAnomaly -= 2. * FastMath.PI;
             }
-            sats.get(i).setTrueAnomaly(newAnomaly);
+            constelVariable.ownSatelliteVariable(sats.get(i)).setTrueAnomaly(newAnomaly);
         }
 
+        //the installments now refer to the modified satellites
+        ArrayList<SatelliteVariable> allSats = new ArrayList<>();
+        for (Installment installment : constelVariable.getDeploymentStrategy().getInstallments()) {
+            allSats.addAll(installment.getSatellites());
+        }
         constelVariable.setSatelliteVariables(allSats);
         return constelVariable;
     }
@@ -51,11 +51,9 @@ public class DistributePlanes extends AbstractCheckParent  {
     private ConstellationVariable evolve(ConstellationVariable constelVariable) {
         DeploymentStrategy deploymentStrategy = constelVariable.getDeploymentStrategy();
 
-        ArrayList<SatelliteVariable> allSats = new ArrayList<>();
         ArrayList<Installment> installmentCandidates = new ArrayList();
         for (Installment installment : deploymentStrategy.getInstallments()) {
             installmentCandidates.add(installment);
-            allSats.addAll(installment.getSatellites());
         }
 
         int nplanes = installmentCandidates.size();
@@ -77,7 +75,7 @@ public class DistributePlanes extends AbstractCheckParent  {
                 newRaan += 2. * FastMath.PI;
             }
             for (SatelliteVariable sat : installmentCandidates.get(i).getSatellites()) {
-                sat.setRaan(newRaan);
+                constelVariable.ownSatelliteVariable(sat).setRaan(newRaan);
             }
         }
         for (int i = n + 1; i < installmentCandidates.size(); i++) {
@@ -86,10 +84,15 @@ public class DistributePlanes extends AbstractCheckParent  {
                 newRaan -= 2. * FastMath.PI;
             }
             for (SatelliteVariable sat : installmentCandidates.get(i).getSatellites()) {
-                sat.setRaan(newRaan);
+                constelVariable.ownSatelliteVariable(sat).setRaan(newRaan);
             }
         }
 
+        //the installments now refer to the modified satellites
+        ArrayList<SatelliteVariable> allSats = new ArrayList<>();
+        for (Installment installment : constelVariable.getDeploymentStrategy().getInstallments()) {
+            allSats.addAll(installment.getSatellites());
+        }
         constelVariable.setSatelliteVariables(allSats);
         return constelVariable;
     }
@@ -52,15 +52,12 @@ public class IncreasePlanes extends AbstractCheckParent  {
     private ConstellationVariable evolve(ConstellationVariable constelVariable) {
         DeploymentStrategy deploymentStrategy = constelVariable.getDeploymentStrategy();
 
-        ArrayList<SatelliteVariable> sats = new ArrayList<>();
-
         //randomly select a installment to break up
         ArrayList<Installment> installmentCandidates = new ArrayList();
         for (Installment installment : deploymentStrategy.getInstallments()) {
             if (installment.getSatellites().size() > 1) {
                 installmentCandidates.add(installment);
             }
-            sats.addAll(installment.getSatellites());
         }
 
         if (installmentCandidates.isEmpty()) {
@@ -85,9 +82,14 @@ public class IncreasePlanes extends AbstractCheckParent  {
         Collections.shuffle(satCandidates);
         //put half of the satellites in the chosen plane into new plane at new raan
         for(int i=0; i< Math.floorDiv(satCandidates.size(),2); i++){
-            satCandidates.get(i).setRaan(newRaan);
+            constelVariable.ownSatelliteVariable(satCandidates.get(i)).setRaan(newRaan);
         }
 
+        //the installments now refer to the modified satellites
+        ArrayList<SatelliteVariable> sats = new ArrayList<>();
+        for (Installment installment : constelVariable.getDeploymentStrategy().getInstallments()) {
+            sats.addAll(installment.getSatellites());
+        }
         constelVariable.setSatelliteVariables(sats);
         return constelVariable;
     }
@@ -100,7 +102,7 @@ public class IncreasePlanes extends AbstractCheckParent  {
                     ConstellationVariable constelVariable
                             = (ConstellationVariable) parent.getVariable(i);
                     if (constelVariable.getDeploymentStrategy().getInstallments().size()
-                            < constelVariable.getSatelliteBound().getUpperBound()) {
+                            < constelVariable.getSatelliteBound().getUpper()) {
                         return true;
                     }
                 }
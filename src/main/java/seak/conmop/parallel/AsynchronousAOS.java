@@ -0,0 +1,382 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.parallel;
+
+import aos.creditassignment.Credit;
+import aos.creditassignment.setimprovement.SetImprovementDominance;
+import aos.operatorselectors.OperatorSelector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import org.moeaframework.core.EpsilonBoxDominanceArchive;
+import org.moeaframework.core.Initialization;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Population;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Selection;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.comparator.DominanceComparator;
+
+/**
+ * Asynchronous steady-state driver for an epsilon-MOEA with adaptive operator
+ * selection. A fixed number of evaluations are kept in flight. As soon as one
+ * evaluation completes, the solution is inserted into the population and the
+ * epsilon-box dominance archive, and a new offspring is created with the
+ * operator chosen by the operator selector and submitted for evaluation. Slow
+ * evaluations therefore never stall the other workers.
+ *
+ * Credits are computed with the set improvement credit assignment over windows
+ * of a fixed number of completed offspring, as in the generational AOS.
+ *
+ * @author nhitomi
+ */
+public class AsynchronousAOS {
+
+    /**
+     * The problem to solve. Must be safe to evaluate from several threads
+     */
+    private final Problem problem;
+
+    /**
+     * The population
+     */
+    private final Population population;
+
+    /**
+     * The epsilon-box dominance archive
+     */
+    private final EpsilonBoxDominanceArchive archive;
+
+    /**
+     * The selection operator used to pick parents from the population
+     */
+    private final Selection selection;
+
+    /**
+     * The comparator used to insert solutions into the population
+     */
+    private final DominanceComparator comparator;
+
+    /**
+     * The initialization of the population
+     */
+    private final Initialization initialization;
+
+    /**
+     * The operator selector
+     */
+    private final OperatorSelector operatorSelector;
+
+    /**
+     * The set improvement credit assignment
+     */
+    private final SetImprovementDominance creditAssignment;
+
+    /**
+     * The number of evaluations kept in flight
+     */
+    private final int numberOfThreads;
+
+    /**
+     * The number of completed offspring between two credit updates
+     */
+    private final int creditWindow;
+
+    /**
+     * The target size of the population
+     */
+    private final int populationSize;
+
+    /**
+     * Every solution that was evaluated
+     */
+    private final Population allSolutions;
+
+    /**
+     * The operator that created each offspring still waiting for credit
+     */
+    private final Map<Variation, List<Solution>> pendingCredit;
+
+    /**
+     * The number of completed evaluations
+     */
+    private int numberOfEvaluations;
+
+    /**
+     * The number of offspring that received credit so far
+     */
+    private int numberOfCreditedOffspring;
+
+    /**
+     * Creates a new asynchronous driver
+     *
+     * @param problem the problem to solve. Must be safe to evaluate from
+     * several threads
+     * @param population the population
+     * @param archive the epsilon-box dominance archive. Must be the same
+     * archive given to the credit assignment
+     * @param selection the selection operator used to pick parents from the
+     * population
+     * @param comparator the comparator used to insert solutions into the
+     * population
+     * @param initialization the initialization of the population
+     * @param operatorSelector the operator selector
+     * @param creditAssignment the set improvement credit assignment
+     * @param numberOfThreads the number of evaluations kept in flight
+     * @param populationSize the target size of the population. Also used as
+     * the number of completed offspring between two credit updates
+     */
+    public AsynchronousAOS(Problem problem, Population population,
+            EpsilonBoxDominanceArchive archive, Selection selection,
+            DominanceComparator comparator, Initialization initialization,
+            OperatorSelector operatorSelector, SetImprovementDominance creditAssignment,
+            int numberOfThreads, int populationSize) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected at least one worker thread. Found %d", numberOfThreads));
+        }
+        this.problem = problem;
+        this.population = population;
+        this.archive = archive;
+        this.selection = selection;
+        this.comparator = comparator;
+        this.initialization = initialization;
+        this.operatorSelector = operatorSelector;
+        this.creditAssignment = creditAssignment;
+        this.numberOfThreads = numberOfThreads;
+        this.populationSize = populationSize;
+        this.creditWindow = populationSize;
+        this.allSolutions = new Population();
+        this.pendingCredit = new HashMap<>();
+        this.numberOfEvaluations = 0;
+        this.numberOfCreditedOffspring = 0;
+    }
+
+    /**
+     * Runs the search until the given number of function evaluations have
+     * completed. Children of an operator that would exceed the number of
+     * function evaluations are dropped.
+     *
+     * @param maxNFE the maximum number of function evaluations
+     */
+    public void run(int maxNFE) {
+        //workers of a parallel problem do not start parallel deployment searches
+        ExecutorService executor = ParallelProblem.newWorkerPool(numberOfThreads);
+        CompletionService<Evaluated> completion = new ExecutorCompletionService<>(executor);
+        int inFlight = 0;
+        int submitted = 0;
+        try {
+            //queue the initial population. Workers pick them up as they free up
+            for (Solution solution : initialization.initialize()) {
+                if (submitted >= maxNFE) {
+                    break;
+                }
+                completion.submit(new Evaluation(solution, null));
+                inFlight++;
+                submitted++;
+            }
+
+            while (inFlight > 0) {
+                Evaluated done = completion.take().get();
+                inFlight--;
+                numberOfEvaluations++;
+                insert(done);
+
+                //keep the workers busy with new offspring
+                while (inFlight < numberOfThreads && submitted < maxNFE
+                        && population.size() > 1) {
+                    Variation operator = operatorSelector.nextOperator();
+                    for (Solution child : operator.evolve(selectParents(operator.getArity()))) {
+                        //drop the children that would exceed the evaluation budget
+                        if (submitted >= maxNFE) {
+                            break;
+                        }
+                        completion.submit(new Evaluation(child, operator));
+                        inFlight++;
+                        submitted++;
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for evaluation", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Evaluation failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Inserts an evaluated solution into the population and the archive and
+     * assigns credit to the operators once a full window of offspring has
+     * completed
+     *
+     * @param evaluated the evaluated solution
+     */
+    private void insert(Evaluated evaluated) {
+        Solution solution = evaluated.solution;
+        allSolutions.add(solution);
+        addToPopulation(solution);
+        archive.add(solution);
+
+        if (evaluated.operator == null) {
+            return;
+        }
+        if (!pendingCredit.containsKey(evaluated.operator)) {
+            pendingCredit.put(evaluated.operator, new ArrayList<>());
+        }
+        pendingCredit.get(evaluated.operator).add(solution);
+        numberOfCreditedOffspring++;
+
+        if (numberOfCreditedOffspring % creditWindow == 0) {
+            Map<Variation, Solution[]> offspring = new HashMap<>();
+            for (Variation operator : pendingCredit.keySet()) {
+                List<Solution> children = pendingCredit.get(operator);
+                offspring.put(operator, children.toArray(new Solution[children.size()]));
+            }
+            Map<Variation, Credit> credits = creditAssignment.compute(offspring, numberOfEvaluations);
+            for (Variation operator : credits.keySet()) {
+                operatorSelector.update(credits.get(operator), operator);
+            }
+            pendingCredit.clear();
+        }
+    }
+
+    /**
+     * Adds the solution to the population using the same replacement strategy
+     * as the epsilon-MOEA. Until the population reaches its target size, all
+     * solutions are added.
+     *
+     * @param newSolution the solution to add
+     */
+    private void addToPopulation(Solution newSolution) {
+        if (population.size() < populationSize) {
+            population.add(newSolution);
+            return;
+        }
+
+        List<Integer> dominates = new ArrayList<>();
+        boolean dominated = false;
+        for (int i = 0; i < population.size(); i++) {
+            int flag = comparator.compare(newSolution, population.get(i));
+            if (flag < 0) {
+                dominates.add(i);
+            } else if (flag > 0) {
+                dominated = true;
+            }
+        }
+
+        if (!dominates.isEmpty()) {
+            population.remove(dominates.get(PRNG.nextInt(dominates.size())));
+            population.add(newSolution);
+        } else if (!dominated) {
+            population.remove(PRNG.nextInt(population.size()));
+            population.add(newSolution);
+        }
+    }
+
+    /**
+     * Selects parents in the same manner as the epsilon-MOEA: one parent from
+     * the archive and the rest from the population
+     *
+     * @param arity the number of parents to select
+     * @return the selected parents
+     */
+    private Solution[] selectParents(int arity) {
+        Solution[] parents;
+        if (archive.size() <= 1) {
+            parents = selection.select(arity, population);
+        } else {
+            Solution[] fromPopulation = selection.select(arity - 1, population);
+            parents = new Solution[arity];
+            System.arraycopy(fromPopulation, 0, parents, 0, arity - 1);
+            parents[arity - 1] = archive.get(PRNG.nextInt(archive.size()));
+        }
+        PRNG.shuffle(parents);
+        return parents;
+    }
+
+    /**
+     * Gets the number of completed evaluations
+     *
+     * @return the number of completed evaluations
+     */
+    public int getNumberOfEvaluations() {
+        return numberOfEvaluations;
+    }
+
+    /**
+     * Gets the population
+     *
+     * @return the population
+     */
+    public Population getPopulation() {
+        return population;
+    }
+
+    /**
+     * Gets the epsilon-box dominance archive
+     *
+     * @return the epsilon-box dominance archive
+     */
+    public EpsilonBoxDominanceArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Gets every solution that was evaluated
+     *
+     * @return every solution that was evaluated
+     */
+    public Population getAllSolutions() {
+        return allSolutions;
+    }
+
+    /**
+     * An evaluated solution and the operator that created it
+     */
+    private static class Evaluated {
+
+        private final Solution solution;
+
+        private final Variation operator;
+
+        Evaluated(Solution solution, Variation operator) {
+            this.solution = solution;
+            this.operator = operator;
+        }
+    }
+
+    /**
+     * Evaluates one solution on a worker thread
+     */
+    private class Evaluation implements Callable<Evaluated> {
+
+        private final Solution solution;
+
+        private final Variation operator;
+
+        Evaluation(Solution solution, Variation operator) {
+            this.solution = solution;
+            this.operator = operator;
+        }
+
+        @Override
+        public Evaluated call() throws Exception {
+            problem.evaluate(solution);
+            return new Evaluated(solution, operator);
+        }
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.parallel;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variable;
+
+/**
+ * A solution whose evaluation may still be running on a worker thread. Any
+ * access to the variables, objectives, constraints or attributes, and any copy
+ * of the solution, waits until the evaluation completes, since the evaluation
+ * may write to all of them. The problem evaluates this instance directly so
+ * that auxiliary information stored in the variables (e.g. the deployment
+ * strategy of a constellation) is kept. Accesses from the worker thread that
+ * evaluates this solution do not wait.
+ *
+ * @author nhitomi
+ */
+public class FutureSolution extends Solution {
+
+    private static final long serialVersionUID = 3420927563201848710L;
+
+    /**
+     * The pending evaluation of this solution. Null if there is no pending
+     * evaluation
+     */
+    private transient volatile Future<?> future;
+
+    /**
+     * The worker thread that is currently evaluating this solution. Accesses
+     * from this thread must not wait on the pending evaluation
+     */
+    private transient volatile Thread worker;
+
+    /**
+     * Wraps a copy of the given solution
+     *
+     * @param solution the solution to copy
+     */
+    public FutureSolution(Solution solution) {
+        super(solution);
+    }
+
+    /**
+     * Sets the pending evaluation of this solution
+     *
+     * @param future the pending evaluation
+     */
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Marks the thread that evaluates this solution
+     *
+     * @param worker the thread that evaluates this solution. null once the
+     * evaluation is done
+     */
+    void setWorker(Thread worker) {
+        this.worker = worker;
+    }
+
+    /**
+     * Checks if this solution has finished its evaluation
+     *
+     * @return true if there is no pending evaluation
+     */
+    public boolean isDone() {
+        Future<?> pending = future;
+        return pending == null || pending.isDone();
+    }
+
+    /**
+     * Waits until the pending evaluation, if any, completes.
+     */
+    public void await() {
+        Future<?> pending = future;
+        if (pending == null || Thread.currentThread() == worker) {
+            return;
+        }
+        try {
+            pending.get();
+            future = null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for evaluation", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Evaluation failed", ex.getCause());
+        }
+    }
+
+    @Override
+    public double getObjective(int index) {
+        await();
+        return super.getObjective(index);
+    }
+
+    @Override
+    public double[] getObjectives() {
+        await();
+        return super.getObjectives();
+    }
+
+    @Override
+    public double getConstraint(int index) {
+        await();
+        return super.getConstraint(index);
+    }
+
+    @Override
+    public double[] getConstraints() {
+        await();
+        return super.getConstraints();
+    }
+
+    @Override
+    public boolean violatesConstraints() {
+        await();
+        return super.violatesConstraints();
+    }
+
+    @Override
+    public Variable getVariable(int index) {
+        await();
+        return super.getVariable(index);
+    }
+
+    @Override
+    public void setVariable(int index, Variable variable) {
+        await();
+        super.setVariable(index, variable);
+    }
+
+    @Override
+    public void setObjective(int index, double objective) {
+        await();
+        super.setObjective(index, objective);
+    }
+
+    @Override
+    public void setObjectives(double[] objectives) {
+        await();
+        super.setObjectives(objectives);
+    }
+
+    @Override
+    public void setConstraint(int index, double constraint) {
+        await();
+        super.setConstraint(index, constraint);
+    }
+
+    @Override
+    public void setConstraints(double[] constraints) {
+        await();
+        super.setConstraints(constraints);
+    }
+
+    @Override
+    public Object getAttribute(String key) {
+        await();
+        return super.getAttribute(key);
+    }
+
+    @Override
+    public Object setAttribute(String key, Serializable value) {
+        await();
+        return super.setAttribute(key, value);
+    }
+
+    @Override
+    public Object removeAttribute(String key) {
+        await();
+        return super.removeAttribute(key);
+    }
+
+    @Override
+    public boolean hasAttribute(String key) {
+        await();
+        return super.hasAttribute(key);
+    }
+
+    @Override
+    public Map<String, Serializable> getAttributes() {
+        await();
+        return super.getAttributes();
+    }
+
+    @Override
+    public void addAttributes(Map<String, Object> attributes) {
+        await();
+        super.addAttributes(attributes);
+    }
+
+    @Override
+    public void clearAttributes() {
+        await();
+        super.clearAttributes();
+    }
+
+    @Override
+    public Solution copy() {
+        await();
+        return new FutureSolution(this);
+    }
+
+}
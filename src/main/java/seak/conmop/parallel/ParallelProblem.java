@@ -0,0 +1,207 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.parallel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Solution;
+
+/**
+ * Wraps a problem so that its evaluations run on a pool of worker threads. The
+ * solutions created by this problem are futures: evaluate() returns
+ * immediately and the objectives are collected the first time they are read.
+ * Evaluating a whole population (e.g. the initial population) therefore fans
+ * out across all workers before any result is needed. Steady-state algorithms
+ * such as EpsilonMOEA read the objectives of each offspring right after
+ * evaluating it, so with them only the initial population is evaluated in
+ * parallel. AsynchronousAOS keeps the workers busy during the whole search.
+ *
+ * The wrapped problem must be safe to evaluate from several threads at once.
+ * Each evaluation must build its own simulation objects so that they stay
+ * confined to the worker thread.
+ *
+ * @author nhitomi
+ */
+public class ParallelProblem implements Problem {
+
+    /**
+     * The problem to evaluate in parallel
+     */
+    private final Problem problem;
+
+    /**
+     * The worker pool
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of workers in the pool
+     */
+    private final int numberOfThreads;
+
+    /**
+     * Creates a parallel problem with the given number of worker threads
+     *
+     * @param problem the problem to evaluate in parallel
+     * @param numberOfThreads the number of worker threads
+     */
+    public ParallelProblem(Problem problem, int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Expected at least one worker thread. Found %d", numberOfThreads));
+        }
+        this.problem = problem;
+        this.numberOfThreads = numberOfThreads;
+        this.executor = newWorkerPool(numberOfThreads);
+    }
+
+    /**
+     * Creates a pool of worker threads for which isWorkerThread() is true
+     *
+     * @param numberOfThreads the number of worker threads
+     * @return the pool of worker threads
+     */
+    static ExecutorService newWorkerPool(int numberOfThreads) {
+        return Executors.newFixedThreadPool(numberOfThreads, new WorkerFactory());
+    }
+
+    /**
+     * Gets the problem that is evaluated in parallel
+     *
+     * @return the problem that is evaluated in parallel
+     */
+    public Problem getProblem() {
+        return problem;
+    }
+
+    /**
+     * Gets the number of worker threads
+     *
+     * @return the number of worker threads
+     */
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    @Override
+    public String getName() {
+        return problem.getName();
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return problem.getNumberOfVariables();
+    }
+
+    @Override
+    public int getNumberOfObjectives() {
+        return problem.getNumberOfObjectives();
+    }
+
+    @Override
+    public int getNumberOfConstraints() {
+        return problem.getNumberOfConstraints();
+    }
+
+    /**
+     * Submits the evaluation of the solution to the worker pool. Solutions
+     * that were not created by this problem are evaluated on the calling
+     * thread.
+     *
+     * @param solution the solution to evaluate
+     */
+    @Override
+    public void evaluate(Solution solution) {
+        if (solution instanceof FutureSolution) {
+            final FutureSolution futureSolution = (FutureSolution) solution;
+            //wait for any earlier evaluation of this solution before resubmitting
+            futureSolution.await();
+            futureSolution.setFuture(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    futureSolution.setWorker(Thread.currentThread());
+                    try {
+                        problem.evaluate(futureSolution);
+                    } finally {
+                        futureSolution.setWorker(null);
+                    }
+                }
+            }));
+        } else {
+            problem.evaluate(solution);
+        }
+    }
+
+    /**
+     * Evaluates all the given solutions in parallel and waits until all
+     * evaluations complete
+     *
+     * @param solutions the solutions to evaluate
+     */
+    public void evaluateAll(Solution[] solutions) {
+        for (Solution solution : solutions) {
+            evaluate(solution);
+        }
+        for (Solution solution : solutions) {
+            if (solution instanceof FutureSolution) {
+                ((FutureSolution) solution).await();
+            }
+        }
+    }
+
+    @Override
+    public Solution newSolution() {
+        return new FutureSolution(problem.newSolution());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        problem.close();
+    }
+
+    /**
+     * Creates named daemon worker threads so that an unclosed problem does
+     * not keep the JVM alive
+     */
+    private static class WorkerFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new WorkerThread(r, "conmop-eval-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * The threads of the worker pools
+     */
+    private static class WorkerThread extends Thread {
+
+        WorkerThread(Runnable r, String name) {
+            super(r, name);
+        }
+    }
+
+    /**
+     * Checks if the calling thread is a worker of a parallel problem or of an
+     * asynchronous AOS. An
+     * evaluation running on a worker should not start parallel work of its
+     * own, since the workers already occupy the processors.
+     *
+     * @return true if the calling thread is a worker of a parallel problem
+     */
+    public static boolean isWorkerThread() {
+        return Thread.currentThread() instanceof WorkerThread;
+    }
+
+}
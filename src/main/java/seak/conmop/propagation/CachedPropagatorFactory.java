@@ -0,0 +1,136 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.propagation;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.orekit.errors.OrekitException;
+import org.orekit.orbits.Orbit;
+import org.orekit.propagation.Propagator;
+import org.orekit.time.AbsoluteDate;
+import seak.orekit.propagation.PropagatorFactory;
+import seak.orekit.propagation.PropagatorType;
+
+/**
+ * Propagator factory that propagates each distinct orbit only once over the
+ * study window. The states of a new orbit are sampled at a fixed step and
+ * stored in an ephemeris cache. Later requests for an orbit with the same
+ * elements return a propagator that interpolates the stored samples (see
+ * SampledEphemeris for the interpolation error). The interpolation error of
+ * each new ephemeris is checked against the propagator at the midpoints of
+ * every CHECK_STRIDE-th interval. Orbits that are not defined at the start of
+ * the study window are propagated normally.
+ *
+ * @author nhitomi
+ */
+public class CachedPropagatorFactory extends PropagatorFactory {
+
+    /**
+     * The number of sampling intervals between midpoints at which the
+     * interpolation error of a new ephemeris is checked
+     */
+    private static final int CHECK_STRIDE = 60;
+
+    /**
+     * The ephemeris cache
+     */
+    private final EphemerisCache cache;
+
+    /**
+     * The start date of the study window
+     */
+    private final AbsoluteDate startDate;
+
+    /**
+     * The end date of the study window
+     */
+    private final AbsoluteDate endDate;
+
+    /**
+     * The time step [s] between samples
+     */
+    private final double step;
+
+    /**
+     * The maximum allowed interpolation error [m] in position
+     */
+    private final double maxError;
+
+    /**
+     * Creates a new factory
+     *
+     * @param type the type of propagator used to compute new ephemerides
+     * @param cache the ephemeris cache
+     * @param startDate the start date of the study window
+     * @param endDate the end date of the study window
+     * @param step the time step [s] between samples
+     * @param maxError the maximum allowed interpolation error [m] in position.
+     * Infinity to skip the check
+     */
+    public CachedPropagatorFactory(PropagatorType type, EphemerisCache cache,
+            AbsoluteDate startDate, AbsoluteDate endDate, double step, double maxError) {
+        super(type);
+        this.cache = cache;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.step = step;
+        this.maxError = maxError;
+    }
+
+    @Override
+    public Propagator createPropagator(Orbit orbit, double mass) {
+        try {
+            if (!orbit.getDate().equals(startDate)) {
+                return super.createPropagator(orbit, mass);
+            }
+            return getEphemeris(orbit, mass).toPropagator(mass);
+        } catch (OrekitException ex) {
+            Logger.getLogger(CachedPropagatorFactory.class.getName()).log(Level.SEVERE, null, ex);
+            throw new IllegalStateException("Failed to create propagator");
+        }
+    }
+
+    /**
+     * Gets the sampled ephemeris of the given orbit over the study window.
+     * The orbit is only propagated if its ephemeris is not in the cache.
+     *
+     * @param orbit the orbit at the start of the study window
+     * @param mass the mass [kg] of the satellite
+     * @return the sampled ephemeris of the orbit
+     * @throws OrekitException
+     * @throws IllegalStateException if the interpolation error of a new
+     * ephemeris exceeds the allowed error
+     */
+    public SampledEphemeris getEphemeris(Orbit orbit, double mass) throws OrekitException {
+        OrbitKey key = new OrbitKey(orbit, startDate, endDate);
+        SampledEphemeris ephemeris = cache.get(key);
+        if (ephemeris == null) {
+            Propagator propagator = super.createPropagator(orbit, mass);
+            ephemeris = new SampledEphemeris(propagator, startDate, endDate,
+                    step, orbit.getFrame(), orbit.getMu());
+            if (!Double.isInfinite(maxError)) {
+                double error = ephemeris.getInterpolationError(propagator, CHECK_STRIDE);
+                if (error > maxError) {
+                    throw new IllegalStateException(String.format(
+                            "Interpolation error (%f m) exceeds the allowed error (%f m). Reduce the time step (%f s)",
+                            error, maxError, step));
+                }
+            }
+            cache.put(key, ephemeris);
+        }
+        return ephemeris;
+    }
+
+    /**
+     * Gets the ephemeris cache
+     *
+     * @return the ephemeris cache
+     */
+    public EphemerisCache getCache() {
+        return cache;
+    }
+
+}
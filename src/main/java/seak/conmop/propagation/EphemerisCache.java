@@ -0,0 +1,170 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.propagation;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A least-recently-used cache of sampled ephemerides keyed by the orbital
+ * elements and the study window. The cache is bounded by the total memory
+ * footprint of the stored samples. All methods are thread-safe.
+ *
+ * @author nhitomi
+ */
+public class EphemerisCache {
+
+    /**
+     * The maximum memory footprint [bytes] of the stored samples
+     */
+    private final long maxSizeInBytes;
+
+    /**
+     * The stored ephemerides in access order
+     */
+    private final LinkedHashMap<OrbitKey, SampledEphemeris> map;
+
+    /**
+     * The current memory footprint [bytes] of the stored samples
+     */
+    private long sizeInBytes;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    private final AtomicLong evictions;
+
+    /**
+     * Creates a new cache
+     *
+     * @param maxSizeInBytes the maximum memory footprint [bytes] of the stored
+     * samples
+     */
+    public EphemerisCache(long maxSizeInBytes) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+        this.sizeInBytes = 0;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+    }
+
+    /**
+     * Gets the ephemeris stored with the given key. Updates the hit and miss
+     * counters.
+     *
+     * @param key the key
+     * @return the stored ephemeris or null if there is none
+     */
+    public SampledEphemeris get(OrbitKey key) {
+        SampledEphemeris ephemeris;
+        synchronized (map) {
+            ephemeris = map.get(key);
+        }
+        if (ephemeris == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return ephemeris;
+    }
+
+    /**
+     * Stores the ephemeris with the given key and evicts the least recently
+     * used ephemerides until the cache is within its size limit. Ephemerides
+     * larger than the size limit are not stored.
+     *
+     * @param key the key
+     * @param ephemeris the ephemeris
+     */
+    public void put(OrbitKey key, SampledEphemeris ephemeris) {
+        if (ephemeris.getSizeInBytes() > maxSizeInBytes) {
+            return;
+        }
+        synchronized (map) {
+            SampledEphemeris previous = map.put(key, ephemeris);
+            if (previous != null) {
+                sizeInBytes -= previous.getSizeInBytes();
+            }
+            sizeInBytes += ephemeris.getSizeInBytes();
+            Iterator<Map.Entry<OrbitKey, SampledEphemeris>> iter = map.entrySet().iterator();
+            while (sizeInBytes > maxSizeInBytes && iter.hasNext()) {
+                sizeInBytes -= iter.next().getValue().getSizeInBytes();
+                iter.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of ephemerides stored in the cache
+     *
+     * @return the number of ephemerides stored in the cache
+     */
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Gets the current memory footprint [bytes] of the stored samples
+     *
+     * @return the current memory footprint [bytes] of the stored samples
+     */
+    public long getSizeInBytes() {
+        synchronized (map) {
+            return sizeInBytes;
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a stored ephemeris
+     *
+     * @return the number of lookups that found a stored ephemeris
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that did not find a stored ephemeris
+     *
+     * @return the number of lookups that did not find a stored ephemeris
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of ephemerides evicted to respect the size limit
+     *
+     * @return the number of ephemerides evicted to respect the size limit
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Removes all stored ephemerides. The counters are kept.
+     */
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+            sizeInBytes = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EphemerisCache{size=%d, bytes=%d, hits=%d, misses=%d, evictions=%d}",
+                size(), getSizeInBytes(), getHits(), getMisses(), getEvictions());
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.propagation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import org.orekit.orbits.KeplerianOrbit;
+import org.orekit.orbits.Orbit;
+import org.orekit.orbits.OrbitType;
+import org.orekit.orbits.PositionAngle;
+import org.orekit.time.AbsoluteDate;
+
+/**
+ * Key that identifies a satellite trajectory over a study window. Two keys are
+ * equal only if the Keplerian elements (semi-major axis, eccentricity,
+ * inclination, argument of perigee, right ascension of the ascending node and
+ * true anomaly) and the study window are equal bit-for-bit.
+ *
+ * @author nhitomi
+ */
+public class OrbitKey implements Serializable {
+
+    private static final long serialVersionUID = 2716504934420129176L;
+
+    /**
+     * The Keplerian elements followed by the window start [s from J2000] and
+     * the window duration [s]
+     */
+    private final double[] values;
+
+    private final int hash;
+
+    /**
+     * Creates a key from the elements of an orbit and a study window
+     *
+     * @param orbit the orbit. Converted to a Keplerian orbit if necessary
+     * @param startDate the start date of the study window
+     * @param endDate the end date of the study window
+     */
+    public OrbitKey(Orbit orbit, AbsoluteDate startDate, AbsoluteDate endDate) {
+        this(toKeplerian(orbit), startDate, endDate);
+    }
+
+    private OrbitKey(KeplerianOrbit orbit, AbsoluteDate startDate, AbsoluteDate endDate) {
+        this(orbit.getA(), orbit.getE(), orbit.getI(),
+                orbit.getPerigeeArgument(), orbit.getRightAscensionOfAscendingNode(),
+                orbit.getAnomaly(PositionAngle.TRUE), startDate, endDate);
+    }
+
+    /**
+     * Creates a key from the orbital elements and a study window
+     *
+     * @param sma the semi-major axis [m]
+     * @param ecc the eccentricity
+     * @param inc the inclination [rad]
+     * @param argPer the argument of perigee [rad]
+     * @param raan the right ascension of the ascending node [rad]
+     * @param anom the true anomaly [rad]
+     * @param startDate the start date of the study window
+     * @param endDate the end date of the study window
+     */
+    public OrbitKey(double sma, double ecc, double inc, double argPer,
+            double raan, double anom, AbsoluteDate startDate, AbsoluteDate endDate) {
+        this.values = new double[]{sma, ecc, inc, argPer, raan, anom,
+            startDate.durationFrom(AbsoluteDate.J2000_EPOCH),
+            endDate.durationFrom(startDate)};
+        this.hash = Arrays.hashCode(values);
+    }
+
+    private static KeplerianOrbit toKeplerian(Orbit orbit) {
+        if (orbit instanceof KeplerianOrbit) {
+            return (KeplerianOrbit) orbit;
+        }
+        return (KeplerianOrbit) OrbitType.KEPLERIAN.convertType(orbit);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final OrbitKey other = (OrbitKey) obj;
+        return Arrays.equals(this.values, other.values);
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.propagation;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.errors.OrekitException;
+import org.orekit.errors.OrekitMessages;
+import org.orekit.orbits.CartesianOrbit;
+import org.orekit.orbits.Orbit;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.propagation.analytical.AbstractAnalyticalPropagator;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.PVCoordinates;
+
+/**
+ * Propagator that interpolates the primitive samples of a sampled ephemeris.
+ * Only the state at each requested date is created, so creating the
+ * propagator costs nothing and the samples are shared with the cache. A
+ * propagator reuses its buffers and must only be used by one thread.
+ *
+ * @author nhitomi
+ */
+public class SampledPropagator extends AbstractAnalyticalPropagator {
+
+    /**
+     * The sampled ephemeris
+     */
+    private final SampledEphemeris ephemeris;
+
+    /**
+     * The mass [kg] of the satellite
+     */
+    private final double mass;
+
+    /**
+     * The gravitational constant
+     */
+    private final double mu;
+
+    /**
+     * Buffers for the interpolated position and velocity
+     */
+    private final double[] position;
+
+    private final double[] velocity;
+
+    /**
+     * Creates a propagator that interpolates the given ephemeris
+     *
+     * @param ephemeris the sampled ephemeris
+     * @param mass the mass [kg] of the satellite
+     * @param mu the gravitational constant
+     * @throws OrekitException
+     */
+    SampledPropagator(SampledEphemeris ephemeris, double mass, double mu) throws OrekitException {
+        super(DEFAULT_LAW);
+        this.ephemeris = ephemeris;
+        this.mass = mass;
+        this.mu = mu;
+        this.position = new double[3];
+        this.velocity = new double[3];
+        super.resetInitialState(basicPropagate(ephemeris.getStartDate()));
+    }
+
+    @Override
+    protected Orbit propagateOrbit(AbsoluteDate date) throws OrekitException {
+        double time = date.durationFrom(ephemeris.getStartDate());
+        if (time < 0 || time > ephemeris.getDuration()) {
+            throw new OrekitException(OrekitMessages.OUT_OF_RANGE_EPHEMERIDES_DATE, date,
+                    ephemeris.getStartDate(), ephemeris.getStartDate().shiftedBy(ephemeris.getDuration()));
+        }
+        ephemeris.interpolate(time, position, velocity);
+        return new CartesianOrbit(new PVCoordinates(
+                new Vector3D(position[0], position[1], position[2]),
+                new Vector3D(velocity[0], velocity[1], velocity[2])),
+                ephemeris.getFrame(), date, mu);
+    }
+
+    @Override
+    protected double getMass(AbsoluteDate date) throws OrekitException {
+        return mass;
+    }
+
+    @Override
+    public void resetInitialState(SpacecraftState state) throws OrekitException {
+        throw new OrekitException(OrekitMessages.NON_RESETABLE_STATE);
+    }
+
+    @Override
+    protected void resetIntermediateState(SpacecraftState state, boolean forward) throws OrekitException {
+        throw new OrekitException(OrekitMessages.NON_RESETABLE_STATE);
+    }
+
+}
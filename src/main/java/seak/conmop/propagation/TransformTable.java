@@ -0,0 +1,337 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.propagation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.frames.Transform;
+import org.orekit.time.AbsoluteDate;
+
+/**
+ * A table of the rotation between two frames with a common origin (e.g.
+ * EME2000 and ITRF) sampled at a fixed time step over a study window. The
+ * rotation is stored as a quaternion and a rotation rate per sample in
+ * primitive arrays so that the transform of a position and velocity is a
+ * table lookup instead of an Earth orientation interpolation. Between samples
+ * the quaternions are interpolated linearly and normalized. Instances are
+ * immutable and can be shared across threads.
+ *
+ * The table can be saved to a file and loaded again with a memory-mapped read
+ * so that runs with the same window and step do not recompute it.
+ *
+ * @author nhitomi
+ */
+public class TransformTable {
+
+    /**
+     * Identifies a saved transform table
+     */
+    private static final long MAGIC = 0x636f6e6d6f70544cL;
+
+    /**
+     * Size of the header of a saved table in bytes
+     */
+    private static final int HEADER_BYTES = 40;
+
+    /**
+     * The number of values stored per sample: the quaternion and the rotation
+     * rate
+     */
+    private static final int STRIDE = 7;
+
+    /**
+     * The date of the first sample
+     */
+    private final AbsoluteDate startDate;
+
+    /**
+     * The time step [s] between samples
+     */
+    private final double step;
+
+    /**
+     * The number of samples
+     */
+    private final int nSamples;
+
+    /**
+     * The quaternion components of the rotation at each sample
+     */
+    private final double[] q0, q1, q2, q3;
+
+    /**
+     * The rotation rate [rad/s] at each sample expressed in the destination
+     * frame
+     */
+    private final double[] wx, wy, wz;
+
+    /**
+     * Computes the rotation from one frame to another over the study window
+     *
+     * @param from the frame to transform from
+     * @param to the frame to transform to
+     * @param startDate the start date of the window
+     * @param endDate the end date of the window
+     * @param step the time step [s] between samples
+     * @throws OrekitException
+     */
+    public TransformTable(Frame from, Frame to, AbsoluteDate startDate, AbsoluteDate endDate, double step) throws OrekitException {
+        this(startDate, step, numberOfSamples(startDate, endDate, step));
+        for (int i = 0; i < nSamples; i++) {
+            Transform transform = from.getTransformTo(to, startDate.shiftedBy(i * step));
+            Rotation rotation = transform.getRotation();
+            q0[i] = rotation.getQ0();
+            q1[i] = rotation.getQ1();
+            q2[i] = rotation.getQ2();
+            q3[i] = rotation.getQ3();
+            //keep consecutive quaternions in the same hemisphere for interpolation
+            if (i > 0 && q0[i] * q0[i - 1] + q1[i] * q1[i - 1] + q2[i] * q2[i - 1] + q3[i] * q3[i - 1] < 0) {
+                q0[i] = -q0[i];
+                q1[i] = -q1[i];
+                q2[i] = -q2[i];
+                q3[i] = -q3[i];
+            }
+            Vector3D rate = transform.getRotationRate();
+            wx[i] = rate.getX();
+            wy[i] = rate.getY();
+            wz[i] = rate.getZ();
+        }
+    }
+
+    private TransformTable(AbsoluteDate startDate, double step, int nSamples) {
+        this.startDate = startDate;
+        this.step = step;
+        this.nSamples = nSamples;
+        this.q0 = new double[nSamples];
+        this.q1 = new double[nSamples];
+        this.q2 = new double[nSamples];
+        this.q3 = new double[nSamples];
+        this.wx = new double[nSamples];
+        this.wy = new double[nSamples];
+        this.wz = new double[nSamples];
+    }
+
+    /**
+     * The number of samples needed to cover the window. One sample beyond
+     * the end date is added so that the whole window can be interpolated.
+     */
+    private static int numberOfSamples(AbsoluteDate startDate, AbsoluteDate endDate, double step) {
+        return (int) FastMath.ceil(endDate.durationFrom(startDate) / step) + 2;
+    }
+
+    /**
+     * Loads the table from the given file if it was saved with the same
+     * frames, window and step. Otherwise the table is computed and saved to
+     * the file.
+     *
+     * @param file the file of the saved table
+     * @param from the frame to transform from
+     * @param to the frame to transform to
+     * @param startDate the start date of the window
+     * @param endDate the end date of the window
+     * @param step the time step [s] between samples
+     * @return the transform table
+     * @throws OrekitException
+     */
+    public static TransformTable loadOrCompute(File file, Frame from, Frame to,
+            AbsoluteDate startDate, AbsoluteDate endDate, double step) throws OrekitException {
+        if (file.exists()) {
+            TransformTable table = load(file, from, to, startDate, endDate, step);
+            if (table != null) {
+                return table;
+            }
+        }
+        TransformTable table = new TransformTable(from, to, startDate, endDate, step);
+        table.save(file, from, to);
+        return table;
+    }
+
+    /**
+     * Loads a saved table with a memory-mapped read
+     *
+     * @param file the file of the saved table
+     * @param from the frame to transform from
+     * @param to the frame to transform to
+     * @param startDate the start date of the window
+     * @param endDate the end date of the window
+     * @param step the time step [s] between samples
+     * @return the transform table or null if the file does not hold a table
+     * for the given frames, window and step
+     */
+    public static TransformTable load(File file, Frame from, Frame to,
+            AbsoluteDate startDate, AbsoluteDate endDate, double step) {
+        int nSamples = numberOfSamples(startDate, endDate, step);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            if (channel.size() != HEADER_BYTES + 8L * STRIDE * nSamples) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getLong() != MAGIC
+                    || buffer.getLong() != frameHash(from, to)
+                    || buffer.getDouble() != startDate.durationFrom(AbsoluteDate.J2000_EPOCH)
+                    || buffer.getDouble() != step
+                    || buffer.getLong() != nSamples) {
+                return null;
+            }
+            TransformTable table = new TransformTable(startDate, step, nSamples);
+            DoubleBuffer values = buffer.asDoubleBuffer();
+            values.get(table.q0).get(table.q1).get(table.q2).get(table.q3)
+                    .get(table.wx).get(table.wy).get(table.wz);
+            return table;
+        } catch (IOException ex) {
+            Logger.getLogger(TransformTable.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Saves this table to the given file
+     *
+     * @param file the file to save the table to
+     * @param from the frame that this table transforms from
+     * @param to the frame that this table transforms to
+     */
+    public void save(File file, Frame from, Frame to) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                FileChannel channel = raf.getChannel()) {
+            long size = HEADER_BYTES + 8L * STRIDE * nSamples;
+            raf.setLength(size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putLong(MAGIC);
+            buffer.putLong(frameHash(from, to));
+            buffer.putDouble(startDate.durationFrom(AbsoluteDate.J2000_EPOCH));
+            buffer.putDouble(step);
+            buffer.putLong(nSamples);
+            DoubleBuffer values = buffer.asDoubleBuffer();
+            values.put(q0).put(q1).put(q2).put(q3).put(wx).put(wy).put(wz);
+            buffer.force();
+        } catch (IOException ex) {
+            Logger.getLogger(TransformTable.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Identifies the pair of frames of a saved table
+     */
+    private static long frameHash(Frame from, Frame to) {
+        return 31L * from.getName().hashCode() + to.getName().hashCode();
+    }
+
+    /**
+     * Gets the date of the first sample
+     *
+     * @return the date of the first sample
+     */
+    public AbsoluteDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Gets the time step [s] between samples
+     *
+     * @return the time step [s] between samples
+     */
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * Checks if the table covers the given time span
+     *
+     * @param date the start of the time span
+     * @param duration the duration [s] of the time span
+     * @return true if the time span is within the table
+     */
+    public boolean covers(AbsoluteDate date, double duration) {
+        double offset = date.durationFrom(startDate);
+        return offset >= 0 && offset + duration <= (nSamples - 1) * step;
+    }
+
+    /**
+     * Transforms a position and velocity. The time must be covered by the
+     * table.
+     *
+     * @param t the time [s] from the start date of the table
+     * @param pos the position [m] in the frame to transform from
+     * @param vel the velocity [m/s] in the frame to transform from
+     * @param outPos the array the transformed position is written to
+     * @param outVel the array the transformed velocity is written to
+     */
+    public void transform(double t, double[] pos, double[] vel, double[] outPos, double[] outVel) {
+        double x = t / step;
+        int i = FastMath.min((int) x, nSamples - 2);
+        double s = x - i;
+
+        rotate(i, s, pos, outPos);
+        rotate(i, s, vel, outVel);
+
+        //remove the velocity of the rotating frame
+        double ox = wx[i] + s * (wx[i + 1] - wx[i]);
+        double oy = wy[i] + s * (wy[i + 1] - wy[i]);
+        double oz = wz[i] + s * (wz[i + 1] - wz[i]);
+        double px = outPos[0];
+        double py = outPos[1];
+        double pz = outPos[2];
+        outVel[0] -= oy * pz - oz * py;
+        outVel[1] -= oz * px - ox * pz;
+        outVel[2] -= ox * py - oy * px;
+    }
+
+    /**
+     * Transforms a position. The time must be covered by the table.
+     *
+     * @param t the time [s] from the start date of the table
+     * @param pos the position [m] in the frame to transform from
+     * @param outPos the array the transformed position is written to
+     */
+    public void transformPosition(double t, double[] pos, double[] outPos) {
+        double x = t / step;
+        int i = FastMath.min((int) x, nSamples - 2);
+        rotate(i, x - i, pos, outPos);
+    }
+
+    /**
+     * Applies the rotation interpolated between sample i and i+1 to a vector
+     *
+     * @param s the normalized time in [0,1]
+     */
+    private void rotate(int i, double s, double[] u, double[] out) {
+        double a0 = q0[i] + s * (q0[i + 1] - q0[i]);
+        double a1 = q1[i] + s * (q1[i + 1] - q1[i]);
+        double a2 = q2[i] + s * (q2[i + 1] - q2[i]);
+        double a3 = q3[i] + s * (q3[i + 1] - q3[i]);
+        double norm = FastMath.sqrt(a0 * a0 + a1 * a1 + a2 * a2 + a3 * a3);
+        rotate(a0 / norm, a1 / norm, a2 / norm, a3 / norm, u, out);
+    }
+
+    /**
+     * Applies the rotation given by a unit quaternion to a vector in the same
+     * way as Rotation.applyTo()
+     */
+    private static void rotate(double a0, double a1, double a2, double a3, double[] u, double[] out) {
+        double x = u[0];
+        double y = u[1];
+        double z = u[2];
+        double s = a1 * x + a2 * y + a3 * z;
+        out[0] = 2 * (a0 * (x * a0 - (a2 * z - a3 * y)) + s * a1) - x;
+        out[1] = 2 * (a0 * (y * a0 - (a3 * x - a1 * z)) + s * a2) - y;
+        out[2] = 2 * (a0 * (z * a0 - (a1 * y - a2 * x)) + s * a3) - z;
+    }
+
+}
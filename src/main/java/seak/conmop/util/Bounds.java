@@ -67,7 +67,8 @@ public class Bounds<T extends Comparable<T>> implements Serializable{
         if (obj == null) {
             return false;
         }
-        if (getClass() != obj.getClass()) {
+        //primitive bounds are equal to generic bounds with the same values
+        if (!(obj instanceof Bounds)) {
             return false;
         }
         final Bounds<?> other = (Bounds<?>) obj;
@@ -0,0 +1,101 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.util;
+
+/**
+ * Bounds of an interval of integers that also stores the bounds as primitive
+ * values so that values can be checked without boxing. The inherited generic
+ * methods behave as for any other Bounds, and an IntBounds is equal to a
+ * Bounds with the same values.
+ *
+ * @author nhitomi
+ */
+public class IntBounds extends Bounds<Integer> {
+
+    private static final long serialVersionUID = -2280459923167415283L;
+
+    private final int lower;
+
+    private final int upper;
+
+    public IntBounds(int lowerBound, int upperBound) {
+        super(lowerBound, upperBound);
+        this.lower = lowerBound;
+        this.upper = upperBound;
+    }
+
+    /**
+     * Gets primitive bounds equal to the given bounds
+     *
+     * @param bounds the bounds
+     * @return the given bounds if they are already primitive bounds. Else new
+     * primitive bounds with the same values
+     */
+    public static IntBounds create(Bounds<Integer> bounds) {
+        if (bounds instanceof IntBounds) {
+            return (IntBounds) bounds;
+        }
+        return new IntBounds(bounds.getLowerBound(), bounds.getUpperBound());
+    }
+
+    /**
+     * Gets the unboxed lower bound
+     *
+     * @return the lower bound
+     */
+    public int getLower() {
+        return lower;
+    }
+
+    /**
+     * Gets the unboxed upper bound
+     *
+     * @return the upper bound
+     */
+    public int getUpper() {
+        return upper;
+    }
+
+    /**
+     * Checks if a value is within the bounds
+     *
+     * @param value the value
+     * @return true if the value is within the bounds
+     */
+    public boolean inBounds(int value) {
+        return value >= lower & value <= upper;
+    }
+
+    /**
+     * Moves a value to the nearest bound if it is out of bounds
+     *
+     * @param value the value
+     * @return the value limited to the bounds
+     */
+    public int clamp(int value) {
+        return Math.min(Math.max(value, lower), upper);
+    }
+
+    /**
+     * Checks if the lower bound equals the upper bound so that only one value
+     * is allowed
+     *
+     * @return true if only one value is allowed
+     */
+    public boolean isFixed() {
+        return lower == upper;
+    }
+
+    /**
+     * Gets the width of the interval
+     *
+     * @return the upper bound minus the lower bound
+     */
+    public int width() {
+        return upper - lower;
+    }
+
+}
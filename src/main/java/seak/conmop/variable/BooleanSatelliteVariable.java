@@ -73,7 +73,7 @@ public class BooleanSatelliteVariable extends SatelliteVariable {
     @Override
     public int hashCode() {
         int hash = 3;
-        hash = 89 * hash + Objects.hashCode(this.manifest);
+        hash = 89 * hash + Objects.hashCode(this.getManifest());
         hash = 89 * hash + super.hashCode();
         return hash;
     }
@@ -87,7 +87,7 @@ public class BooleanSatelliteVariable extends SatelliteVariable {
             return false;
         }
         final BooleanSatelliteVariable other = (BooleanSatelliteVariable) obj;
-        if (!Objects.equals(this.manifest, other.manifest)) {
+        if (!Objects.equals(this.getManifest(), other.getManifest())) {
             return false;
         }
         return super.equals(obj);
@@ -53,7 +53,7 @@ public class ConstellationMatrix extends ConstellationVariable {
     @Override
     public void randomize() {
         ArrayList<SatelliteVariable> sats = new ArrayList();
-        for (int i = 0; i < super.getSatelliteBound().getUpperBound(); i++) {
+        for (int i = 0; i < super.getSatelliteBound().getUpper(); i++) {
             SatelliteVariable var = createSatelliteVariable();
             var.randomize();
             sats.add(var);
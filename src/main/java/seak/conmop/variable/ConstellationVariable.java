@@ -7,20 +7,31 @@ package seak.conmop.variable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Variable;
 import org.orekit.utils.Constants;
 import seak.conmop.deployment.DeploymentStrategy;
 import seak.conmop.deployment.Installment;
 import seak.conmop.util.Bounds;
+import seak.conmop.util.DoubleBounds;
+import seak.conmop.util.IntBounds;
 
 /**
  * A variable containing the information for a constellation. All satellites
  * within this variable have the same bounds on their orbital parameters
  *
+ * Copies of a constellation share their satellite variables until one of them
+ * is modified (copy-on-write). The satellites returned by
+ * getSatelliteVariables() must therefore not be modified directly. Instead,
+ * ownSatelliteVariable(SatelliteVariable) gives a satellite variable that only
+ * this constellation refers to and that can be modified.
+ *
  * @author nhitomi
  */
 public class ConstellationVariable implements Variable {
@@ -30,43 +41,55 @@ public class ConstellationVariable implements Variable {
     /**
      * The bounds on the number of satellites allowed in this constellation
      */
-    private final Bounds<Integer> satelliteBound;
+    private final IntBounds satelliteBound;
 
     /**
      * The bounds on the semi major axis [m]
      */
-    private final Bounds<Double> smaBound;
+    private final DoubleBounds smaBound;
 
     /**
      * The bounds on the eccentricity in the range [0,1]
      */
-    private final Bounds<Double> eccBound;
+    private final DoubleBounds eccBound;
 
     /**
      * The bounds on the inclination [rad]
      */
-    private final Bounds<Double> incBound;
+    private final DoubleBounds incBound;
 
     /**
      * The bounds on the argument of perigee [rad]
      */
-    private final Bounds<Double> argPerBound;
+    private final DoubleBounds argPerBound;
 
     /**
      * The bounds on the right ascension of the ascending node [rad]
      */
-    private final Bounds<Double> raanBound;
+    private final DoubleBounds raanBound;
 
     /**
      * The bounds on the true anomaly [rad]
      */
-    private final Bounds<Double> anomBound;
+    private final DoubleBounds anomBound;
 
     /**
      * Satellite variables
      */
     private final List<SatelliteVariable> satelliteVars;
 
+    /**
+     * Read-only view of the satellite variables
+     */
+    private final List<SatelliteVariable> readOnlySatelliteVars;
+
+    /**
+     * The satellite variables that only this constellation refers to, keyed
+     * by themselves and by the shared satellite variable they replaced. null
+     * if all satellite variables may be shared
+     */
+    private transient IdentityHashMap<SatelliteVariable, SatelliteVariable> owned;
+
     /**
      * Deployment strategy. Auxiliary information that is not a decision.
      */
@@ -88,9 +111,9 @@ public class ConstellationVariable implements Variable {
             Bounds<Double> smaBound, Bounds<Double> eccBound,
             Bounds<Double> incBound) {
         this(satelliteBound, smaBound, eccBound, incBound,
-                new Bounds<>(0.0, 0.0),
-                new Bounds<>(0.0, 2. * Math.PI),
-                new Bounds<>(0.0, 2. * Math.PI));
+                new DoubleBounds(0.0, 0.0),
+                new DoubleBounds(0.0, 2. * Math.PI),
+                new DoubleBounds(0.0, 2. * Math.PI));
     }
 
     /**
@@ -111,14 +134,15 @@ public class ConstellationVariable implements Variable {
             Bounds<Double> smaBound, Bounds<Double> eccBound, Bounds<Double> incBound,
             Bounds<Double> argPerBound, Bounds<Double> raanBound, Bounds<Double> anomBound) {
         checkBounds(satelliteBound, smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
-        this.satelliteBound = satelliteBound;
-        this.smaBound = smaBound;
-        this.eccBound = eccBound;
-        this.incBound = incBound;
-        this.argPerBound = argPerBound;
-        this.raanBound = raanBound;
-        this.anomBound = anomBound;
+        this.satelliteBound = IntBounds.create(satelliteBound);
+        this.smaBound = DoubleBounds.create(smaBound);
+        this.eccBound = DoubleBounds.create(eccBound);
+        this.incBound = DoubleBounds.create(incBound);
+        this.argPerBound = DoubleBounds.create(argPerBound);
+        this.raanBound = DoubleBounds.create(raanBound);
+        this.anomBound = DoubleBounds.create(anomBound);
         this.satelliteVars = new ArrayList<>();
+        this.readOnlySatelliteVars = Collections.unmodifiableList(satelliteVars);
     }
 
     /**
@@ -141,15 +165,20 @@ public class ConstellationVariable implements Variable {
         this.raanBound = rep.getRaanBound();
         this.anomBound = rep.getAnomBound();
         checkBounds(satelliteBound, smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
-        this.satelliteBound = satelliteBound;
+        this.satelliteBound = IntBounds.create(satelliteBound);
         this.satelliteVars = new ArrayList<>();
+        this.readOnlySatelliteVars = Collections.unmodifiableList(satelliteVars);
 
         this.setSatelliteVariables(satellites);
     }
 
     /**
      * Copies the fields of the given constellation variable and creates a new
-     * instance of a constellation.
+     * instance of a constellation. The satellite variables and the deployment
+     * strategy are shared with the given constellation until either is
+     * modified. The satellite variables that the given constellation owns are
+     * copied instead, since it may still modify them. The given constellation
+     * is not modified.
      *
      * @param var the constellation variable to copy
      */
@@ -157,11 +186,18 @@ public class ConstellationVariable implements Variable {
         this(var.satelliteBound,
                 var.smaBound, var.eccBound, var.incBound,
                 var.argPerBound, var.raanBound, var.anomBound);
-        for (SatelliteVariable sat : var.getSatelliteVariables()) {
-            satelliteVars.add((SatelliteVariable) sat.copy());
-        }
-        if (var.getDeploymentStrategy() != null) {
-            this.setDeploymentStrategy(var.getDeploymentStrategy());
+        satelliteVars.addAll(var.satelliteVars);
+        this.deploymentStrategy = var.deploymentStrategy;
+        if (var.owned != null) {
+            Set<SatelliteVariable> modifiable = Collections.newSetFromMap(new IdentityHashMap<SatelliteVariable, Boolean>());
+            for (SatelliteVariable sat : var.satelliteVars) {
+                if (var.owned.get(sat) == sat) {
+                    modifiable.add(sat);
+                }
+            }
+            if (!modifiable.isEmpty()) {
+                replaceShared(modifiable);
+            }
         }
     }
 
@@ -219,7 +255,10 @@ public class ConstellationVariable implements Variable {
     @Override
     public void randomize() {
         satelliteVars.clear();
-        int n = PRNG.nextInt(satelliteBound.getLowerBound(), satelliteBound.getUpperBound());
+        //not marked as owned so that copies share the new satellites instead
+        //of copying them
+        owned = null;
+        int n = PRNG.nextInt(satelliteBound.getLower(), satelliteBound.getUpper());
         for (int i = 0; i < n; i++) {
             SatelliteVariable var = new SatelliteVariable(smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
             var.randomize();
@@ -237,12 +276,120 @@ public class ConstellationVariable implements Variable {
     }
 
     /**
-     * Gets the satellite variables stored within this constellation
+     * Gets the satellite variables stored within this constellation. The
+     * returned collection cannot be modified and the satellite variables may
+     * be shared with copies of this constellation (see
+     * ownSatelliteVariable(SatelliteVariable))
      *
      * @return the satellite variables stored within this constellation
      */
     public Collection<SatelliteVariable> getSatelliteVariables() {
-        return satelliteVars;
+        return readOnlySatelliteVars;
+    }
+
+    /**
+     * Gets a satellite variable stored within this constellation. Like the
+     * satellite variables returned by getSatelliteVariables(), it may be
+     * shared with copies of this constellation
+     *
+     * @param index the index of the satellite variable in the order of
+     * getSatelliteVariables()
+     * @return the satellite variable at the given index
+     */
+    public SatelliteVariable getSatelliteVariable(int index) {
+        return satelliteVars.get(index);
+    }
+
+    /**
+     * Gets a satellite variable of this constellation that can be modified.
+     * If the given satellite variable may be shared with a copy of this
+     * constellation, every occurrence of it in this constellation and in its
+     * deployment strategy is replaced by a copy. Each occurrence gets its own
+     * copy and the copy of the first occurrence is returned. Owning a
+     * satellite that was already replaced returns the copy of its first
+     * occurrence.
+     *
+     * @param satellite a satellite variable of this constellation
+     * @return the satellite variable that only this constellation refers to
+     */
+    public SatelliteVariable ownSatelliteVariable(SatelliteVariable satellite) {
+        if (owned != null) {
+            SatelliteVariable copy = owned.get(satellite);
+            if (copy != null) {
+                return copy;
+            }
+        }
+        Set<SatelliteVariable> shared = Collections.newSetFromMap(new IdentityHashMap<SatelliteVariable, Boolean>());
+        shared.add(satellite);
+        replaceShared(shared);
+        SatelliteVariable copy = owned.get(satellite);
+        if (copy == null) {
+            throw new IllegalArgumentException("Given satellite is not in this constellation");
+        }
+        return copy;
+    }
+
+    /**
+     * Replaces every occurrence of the given satellite variables in this
+     * constellation and in its deployment strategy by copies that only this
+     * constellation refers to. Each occurrence gets its own copy. The k-th
+     * occurrence of a satellite in the installments is replaced by the copy
+     * of its k-th occurrence in this constellation.
+     *
+     * @param shared the satellite variables to replace, compared by identity
+     */
+    private void replaceShared(Set<SatelliteVariable> shared) {
+        if (owned == null) {
+            owned = new IdentityHashMap<>();
+        }
+        IdentityHashMap<SatelliteVariable, List<SatelliteVariable>> copies = new IdentityHashMap<>();
+        for (int i = 0; i < satelliteVars.size(); i++) {
+            SatelliteVariable sat = satelliteVars.get(i);
+            if (!shared.contains(sat)) {
+                continue;
+            }
+            SatelliteVariable copy = (SatelliteVariable) sat.copy();
+            satelliteVars.set(i, copy);
+            owned.put(copy, copy);
+            List<SatelliteVariable> list = copies.get(sat);
+            if (list == null) {
+                list = new ArrayList<>();
+                copies.put(sat, list);
+                owned.put(sat, copy);
+            }
+            list.add(copy);
+        }
+        if (copies.isEmpty()) {
+            return;
+        }
+
+        //the deployment strategy refers to the satellites of this constellation
+        if (deploymentStrategy != null) {
+            IdentityHashMap<SatelliteVariable, Integer> occurrences = new IdentityHashMap<>();
+            ArrayList<Installment> installments = new ArrayList<>();
+            for (Installment installment : deploymentStrategy.getInstallments()) {
+                ArrayList<SatelliteVariable> sats = null;
+                int i = 0;
+                for (SatelliteVariable sat : installment.getSatellites()) {
+                    List<SatelliteVariable> list = copies.get(sat);
+                    if (list != null) {
+                        if (sats == null) {
+                            sats = new ArrayList<>(installment.getSatellites());
+                        }
+                        Integer k = occurrences.get(sat);
+                        k = k == null ? 0 : k;
+                        sats.set(i, list.get(Math.min(k, list.size() - 1)));
+                        occurrences.put(sat, k + 1);
+                    }
+                    i++;
+                }
+                if (sats != null) {
+                    installment = new Installment(sats, installment.getLaunchDV(), installment.getOtherDV());
+                }
+                installments.add(installment);
+            }
+            deploymentStrategy = new DeploymentStrategy(installments);
+        }
     }
 
     /**
@@ -253,7 +400,7 @@ public class ConstellationVariable implements Variable {
      * constellation. Any satellite variables that existed previously to this
      * call are cleared out.
      */
-    public final void setSatelliteVariables(Collection<SatelliteVariable> satellites) {
+    public void setSatelliteVariables(Collection<SatelliteVariable> satellites) {
         //check that all the bounds are still the same and 
         for (SatelliteVariable var : satellites) {
             if (!(var.getSmaBound().equals(this.smaBound)
@@ -268,8 +415,11 @@ public class ConstellationVariable implements Variable {
                         + " Expected the same bounds.");
             }
         }
+        //the given satellites may be a view of this constellation
+        ArrayList<SatelliteVariable> sats = new ArrayList<>(satellites);
         satelliteVars.clear();
-        satelliteVars.addAll(satellites);
+        satelliteVars.addAll(sats);
+        owned = null;
     }
 
     /**
@@ -277,7 +427,7 @@ public class ConstellationVariable implements Variable {
      *
      * @return the bounds on the allowable number of satellites
      */
-    public Bounds<Integer> getSatelliteBound() {
+    public IntBounds getSatelliteBound() {
         return satelliteBound;
     }
 
@@ -286,7 +436,7 @@ public class ConstellationVariable implements Variable {
      *
      * @return the bounds for an allowable semi-major axis [m]
      */
-    public Bounds<Double> getSmaBound() {
+    public DoubleBounds getSmaBound() {
         return smaBound;
     }
 
@@ -295,7 +445,7 @@ public class ConstellationVariable implements Variable {
      *
      * @return the bounds for an allowable eccentricity
      */
-    public Bounds<Double> getEccBound() {
+    public DoubleBounds getEccBound() {
         return eccBound;
     }
 
@@ -304,7 +454,7 @@ public class ConstellationVariable implements Variable {
      *
      * @return the bounds for an allowable inclination [rad]
      */
-    public Bounds<Double> getIncBound() {
+    public DoubleBounds getIncBound() {
         return incBound;
     }
 
@@ -313,7 +463,7 @@ public class ConstellationVariable implements Variable {
      *
      * @return the bounds for an allowable argument of perigee [rad]
      */
-    public Bounds<Double> getArgPerBound() {
+    public DoubleBounds getArgPerBound() {
         return argPerBound;
     }
 
@@ -324,7 +474,7 @@ public class ConstellationVariable implements Variable {
      * @return the bounds for an allowable right ascension of the ascending node
      * [rad]
      */
-    public Bounds<Double> getRaanBound() {
+    public DoubleBounds getRaanBound() {
         return raanBound;
     }
 
@@ -333,7 +483,7 @@ public class ConstellationVariable implements Variable {
      *
      * @return the bounds for an allowable true anomaly [rad]
      */
-    public Bounds<Double> getAnomBound() {
+    public DoubleBounds getAnomBound() {
         return anomBound;
     }
 
@@ -369,7 +519,7 @@ public class ConstellationVariable implements Variable {
             for (SatelliteVariable sat : installSatellites) {
                 for (int i = 0; i < constelSatellites.size(); i++) {
                     if (sat.equals(constelSatellites.get(i))) {
-                        sats.add(sat);
+                        sats.add(constelSatellites.get(i));
                         nSatsAssigned++;
                         constelSatellites.remove(i);
                         break;
@@ -0,0 +1,201 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.variable;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import seak.conmop.util.Bounds;
+import seak.conmop.util.DoubleBounds;
+
+/**
+ * The bounds on the six orbital elements of a satellite. The bounds are also
+ * stored as primitive values so that values can be checked without boxing. A
+ * descriptor is immutable and can be shared by every satellite and
+ * constellation with the same bounds.
+ *
+ * @author nhitomi
+ */
+public class OrbitalElementBounds implements Serializable {
+
+    private static final long serialVersionUID = 2890165739720476212L;
+
+    /**
+     * The index of the semi-major axis [m]
+     */
+    public static final int SMA = 0;
+
+    /**
+     * The index of the eccentricity
+     */
+    public static final int ECC = 1;
+
+    /**
+     * The index of the inclination [rad]
+     */
+    public static final int INC = 2;
+
+    /**
+     * The index of the argument of perigee [rad]
+     */
+    public static final int ARG_PER = 3;
+
+    /**
+     * The index of the right ascension of the ascending node [rad]
+     */
+    public static final int RAAN = 4;
+
+    /**
+     * The index of the true anomaly [rad]
+     */
+    public static final int ANOM = 5;
+
+    /**
+     * The number of orbital elements
+     */
+    public static final int NUMBER_OF_ELEMENTS = 6;
+
+    /**
+     * The names of the elements used in error messages
+     */
+    private static final String[] NAMES = new String[]{"semi-major axis",
+        "eccentricity", "inclination", "argument of perigee",
+        "right ascension of the ascending node", "true anomaly"};
+
+    /**
+     * The bounds on each element
+     */
+    private final DoubleBounds[] bounds;
+
+    /**
+     * The lower bound on each element
+     */
+    private final double[] lower;
+
+    /**
+     * The upper bound on each element
+     */
+    private final double[] upper;
+
+    /**
+     * Creates the bounds on the orbital elements
+     *
+     * @param smaBound The bounds on the semi major axis [m]
+     * @param eccBound The bounds on the eccentricity
+     * @param incBound The bounds on the inclination [rad]
+     * @param argPerBound The bounds on the argument of perigee [rad]
+     * @param raanBound The bounds on the right ascension of the ascending node
+     * [rad]
+     * @param anomBound The bounds on the true anomaly [rad]
+     */
+    public OrbitalElementBounds(
+            Bounds<Double> smaBound, Bounds<Double> eccBound,
+            Bounds<Double> incBound, Bounds<Double> argPerBound,
+            Bounds<Double> raanBound, Bounds<Double> anomBound) {
+        this.bounds = new DoubleBounds[]{
+            DoubleBounds.create(smaBound), DoubleBounds.create(eccBound),
+            DoubleBounds.create(incBound), DoubleBounds.create(argPerBound),
+            DoubleBounds.create(raanBound), DoubleBounds.create(anomBound)};
+        this.lower = new double[NUMBER_OF_ELEMENTS];
+        this.upper = new double[NUMBER_OF_ELEMENTS];
+        for (int i = 0; i < NUMBER_OF_ELEMENTS; i++) {
+            lower[i] = bounds[i].getLower();
+            upper[i] = bounds[i].getUpper();
+        }
+    }
+
+    /**
+     * Gets the bounds on an element
+     *
+     * @param element the index of the element
+     * @return the bounds on the element
+     */
+    public DoubleBounds getBounds(int element) {
+        return bounds[element];
+    }
+
+    /**
+     * Gets the lower bound on an element
+     *
+     * @param element the index of the element
+     * @return the lower bound on the element
+     */
+    public double getLowerBound(int element) {
+        return lower[element];
+    }
+
+    /**
+     * Gets the upper bound on an element
+     *
+     * @param element the index of the element
+     * @return the upper bound on the element
+     */
+    public double getUpperBound(int element) {
+        return upper[element];
+    }
+
+    /**
+     * Checks if a value is within the bounds of an element
+     *
+     * @param element the index of the element
+     * @param value the value of the element
+     * @return true if the value is within the bounds. NaN is out of bounds
+     */
+    public boolean inBounds(int element, double value) {
+        return value >= lower[element] && value <= upper[element];
+    }
+
+    /**
+     * Checks that a value is within the bounds of an element
+     *
+     * @param element the index of the element
+     * @param value the value of the element
+     * @throws IllegalArgumentException if the value is out of bounds
+     */
+    public void checkBounds(int element, double value) {
+        if (!inBounds(element, value)) {
+            throw new IllegalArgumentException(String.format(
+                    "Given %s (%f) is out of bounds ([%f,%f])",
+                    NAMES[element], value, lower[element], upper[element]));
+        }
+    }
+
+    /**
+     * Checks if a satellite variable has these bounds
+     *
+     * @param satellite the satellite variable
+     * @return true if the satellite variable has the same bounds on all
+     * elements
+     */
+    public boolean matches(SatelliteVariable satellite) {
+        return satellite.getSmaBound().equals(bounds[SMA])
+                && satellite.getEccBound().equals(bounds[ECC])
+                && satellite.getIncBound().equals(bounds[INC])
+                && satellite.getArgPerBound().equals(bounds[ARG_PER])
+                && satellite.getRaanBound().equals(bounds[RAAN])
+                && satellite.getAnomBound().equals(bounds[ANOM]);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bounds);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final OrbitalElementBounds other = (OrbitalElementBounds) obj;
+        return Arrays.equals(this.bounds, other.bounds);
+    }
+
+}
@@ -0,0 +1,594 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Variable;
+import seak.conmop.util.Bounds;
+import static seak.conmop.variable.OrbitalElementBounds.*;
+
+/**
+ * A constellation variable that stores the orbital elements of its satellites
+ * as columns of one packed primitive array instead of a list of satellite
+ * variables. Element e of satellite i is stored at index e * n + i, where n is
+ * the number of satellites. The bounds on the orbital elements are a single
+ * immutable descriptor that is shared by all copies, so copying a
+ * constellation only copies the packed array.
+ *
+ * With a manifest, the variable encodes a constellation matrix (see
+ * ConstellationMatrix): the manifest bitset defines which satellites are in
+ * the constellation and only those count towards the number of satellites.
+ *
+ * For compatibility with the operators, getSatelliteVariables() returns views
+ * of the satellites that read and write the packed array. The views are
+ * BooleanSatelliteVariables if the variable has a manifest. A view refers to a
+ * position in the constellation, so it refers to another satellite after the
+ * satellites of the constellation are replaced. Copies of a view are
+ * detached satellite variables.
+ *
+ * @author nhitomi
+ */
+public class PackedConstellationVariable extends ConstellationVariable {
+
+    private static final long serialVersionUID = 4471352618395707683L;
+
+    /**
+     * The order in which SatelliteVariable.randomize() draws the elements
+     */
+    private static final int[] RANDOMIZE_ORDER = new int[]{ANOM, ARG_PER, ECC, INC, RAAN, SMA};
+
+    /**
+     * The bounds on the orbital elements shared by all satellites
+     */
+    private final OrbitalElementBounds bounds;
+
+    /**
+     * The number of satellites in the packed array
+     */
+    private int size;
+
+    /**
+     * The orbital elements of the satellites. Element e of satellite i is at
+     * index e * size + i
+     */
+    private double[] elements;
+
+    /**
+     * The satellites that are manifested. null if this variable has no
+     * manifest
+     */
+    private BitSet manifest;
+
+    /**
+     * The views of the satellites. Created lazily
+     */
+    private transient List<SatelliteVariable> views;
+
+    /**
+     * Constructs a new packed constellation variable
+     *
+     * @param satelliteBound The bounds on the number of satellites allowed in
+     * this constellation
+     * @param smaBound The bounds on the semi major axis [m]
+     * @param eccBound The bounds on the eccentricity
+     * @param incBound The bounds on the inclination [rad]
+     * @param argPerBound The bounds on the argument of perigee [rad]
+     * @param raanBound The bounds on the right ascension of the ascending node
+     * [rad]
+     * @param anomBound The bounds on the true anomaly [rad]
+     * @param hasManifest true if the variable encodes a constellation matrix
+     * with a manifest
+     */
+    public PackedConstellationVariable(
+            Bounds<Integer> satelliteBound,
+            Bounds<Double> smaBound, Bounds<Double> eccBound, Bounds<Double> incBound,
+            Bounds<Double> argPerBound, Bounds<Double> raanBound, Bounds<Double> anomBound,
+            boolean hasManifest) {
+        super(satelliteBound, smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
+        this.bounds = new OrbitalElementBounds(smaBound, eccBound, incBound, argPerBound, raanBound, anomBound);
+        this.size = 0;
+        this.elements = new double[0];
+        this.manifest = hasManifest ? new BitSet() : null;
+    }
+
+    /**
+     * Copies the fields of the given constellation variable and creates a new
+     * instance of a constellation. The bounds are shared with the given
+     * variable.
+     *
+     * @param var the constellation variable to copy
+     */
+    protected PackedConstellationVariable(PackedConstellationVariable var) {
+        super(var.getSatelliteBound(),
+                var.getSmaBound(), var.getEccBound(), var.getIncBound(),
+                var.getArgPerBound(), var.getRaanBound(), var.getAnomBound());
+        this.bounds = var.bounds;
+        this.size = var.size;
+        this.elements = var.elements.clone();
+        this.manifest = var.manifest == null ? null : (BitSet) var.manifest.clone();
+        if (var.getDeploymentStrategy() != null) {
+            this.setDeploymentStrategy(var.getDeploymentStrategy());
+        }
+    }
+
+    @Override
+    public SatelliteVariable createSatelliteVariable() {
+        if (manifest == null) {
+            return super.createSatelliteVariable();
+        } else {
+            return new BooleanSatelliteVariable(super.createSatelliteVariable());
+        }
+    }
+
+    @Override
+    public Variable copy() {
+        return new PackedConstellationVariable(this);
+    }
+
+    @Override
+    public void randomize() {
+        int n;
+        if (manifest == null) {
+            n = PRNG.nextInt(getSatelliteBound().getLower(), getSatelliteBound().getUpper());
+        } else {
+            n = getSatelliteBound().getUpper();
+        }
+        resize(n);
+        for (int i = 0; i < n; i++) {
+            for (int e : RANDOMIZE_ORDER) {
+                elements[e * n + i] = PRNG.nextDouble(bounds.getLowerBound(e), bounds.getUpperBound(e));
+            }
+            if (manifest != null) {
+                manifest.set(i, PRNG.nextBoolean());
+            }
+        }
+
+        if (manifest != null) {
+            //turn random satellites on or off to fit the bounds on the number
+            //of satellites (see RepairNumberOfSatellites)
+            while (manifest.cardinality() < getSatelliteBound().getLower()) {
+                manifest.set(nthIndex(false, PRNG.nextInt(n - manifest.cardinality())));
+            }
+            while (manifest.cardinality() > getSatelliteBound().getUpper()) {
+                manifest.clear(nthIndex(true, PRNG.nextInt(manifest.cardinality())));
+            }
+        }
+    }
+
+    /**
+     * Finds the index of the k-th satellite that is or is not manifested
+     */
+    private int nthIndex(boolean on, int k) {
+        int i = on ? manifest.nextSetBit(0) : manifest.nextClearBit(0);
+        for (int j = 0; j < k; j++) {
+            i = on ? manifest.nextSetBit(i + 1) : manifest.nextClearBit(i + 1);
+        }
+        return i;
+    }
+
+    /**
+     * Replaces the packed array with one for the given number of satellites
+     * and invalidates the views
+     */
+    private void resize(int n) {
+        this.size = n;
+        this.elements = new double[NUMBER_OF_ELEMENTS * n];
+        if (manifest != null) {
+            manifest.clear();
+        }
+        this.views = null;
+    }
+
+    /**
+     * Gets the number of satellites that make up this constellation. With a
+     * manifest, only the manifested satellites are counted
+     *
+     * @return the number of satellites in the constellation
+     */
+    @Override
+    public int getNumberOfSatellites() {
+        return manifest == null ? size : manifest.cardinality();
+    }
+
+    /**
+     * Gets the number of satellites stored in the packed array, including the
+     * ones that are not manifested
+     *
+     * @return the number of satellites stored in the packed array
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets views of the satellites stored within this constellation. The
+     * returned collection cannot be modified, but the views write through to
+     * this constellation
+     *
+     * @return views of the satellites stored within this constellation
+     */
+    @Override
+    public Collection<SatelliteVariable> getSatelliteVariables() {
+        if (views == null) {
+            ArrayList<SatelliteVariable> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (manifest == null) {
+                    list.add(new SatelliteView(this, i));
+                } else {
+                    list.add(new ManifestSatelliteView(this, i));
+                }
+            }
+            views = Collections.unmodifiableList(list);
+        }
+        return views;
+    }
+
+    /**
+     * Gets the view of a satellite stored within this constellation
+     *
+     * @param index the index of the satellite in the packed array
+     * @return the view of the satellite at the given index
+     */
+    @Override
+    public SatelliteVariable getSatelliteVariable(int index) {
+        getSatelliteVariables();
+        return views.get(index);
+    }
+
+    /**
+     * The views of a packed constellation are never shared with its copies,
+     * so they can be modified directly
+     *
+     * @param satellite a view of this constellation
+     * @return the given view
+     */
+    @Override
+    public SatelliteVariable ownSatelliteVariable(SatelliteVariable satellite) {
+        for (SatelliteVariable view : getSatelliteVariables()) {
+            if (view == satellite) {
+                return satellite;
+            }
+        }
+        throw new IllegalArgumentException("Given satellite is not in this constellation");
+    }
+
+    /**
+     * Sets the satellites within this constellation by packing their orbital
+     * elements. All satellite variables must have the same bounds as this
+     * constellation. With a manifest, satellites that are not
+     * BooleanSatelliteVariables are manifested.
+     *
+     * @param satellites the satellite variables to assign to this
+     * constellation. They may be views of this constellation. Any satellites
+     * that existed previously to this call are cleared out.
+     */
+    @Override
+    public void setSatelliteVariables(Collection<SatelliteVariable> satellites) {
+        int n = satellites.size();
+        double[] packed = new double[NUMBER_OF_ELEMENTS * n];
+        BitSet manifested = manifest == null ? null : new BitSet(n);
+        int i = 0;
+        for (SatelliteVariable var : satellites) {
+            if (!bounds.matches(var)) {
+                throw new IllegalArgumentException(
+                        "Given satellites and this constellation have different"
+                        + " bounds on the allowable orbital parameters."
+                        + " Expected the same bounds.");
+            }
+            packed[SMA * n + i] = var.getSma();
+            packed[ECC * n + i] = var.getEcc();
+            packed[INC * n + i] = var.getInc();
+            packed[ARG_PER * n + i] = var.getArgPer();
+            packed[RAAN * n + i] = var.getRaan();
+            packed[ANOM * n + i] = var.getTrueAnomaly();
+            if (manifested != null) {
+                if (var instanceof BooleanSatelliteVariable) {
+                    Boolean on = ((BooleanSatelliteVariable) var).getManifest();
+                    manifested.set(i, on != null && on);
+                } else {
+                    manifested.set(i);
+                }
+            }
+            i++;
+        }
+        this.size = n;
+        this.elements = packed;
+        this.manifest = manifested;
+        this.views = null;
+    }
+
+    /**
+     * Gets an orbital element of a satellite
+     *
+     * @param satellite the index of the satellite
+     * @param element the index of the element (see OrbitalElementBounds)
+     * @return the value of the element
+     */
+    public double getElement(int satellite, int element) {
+        return elements[element * size + satellite];
+    }
+
+    /**
+     * Sets an orbital element of a satellite
+     *
+     * @param satellite the index of the satellite
+     * @param element the index of the element (see OrbitalElementBounds)
+     * @param value the value of the element
+     * @throws IllegalArgumentException if the value is out of bounds
+     */
+    public void setElement(int satellite, int element, double value) {
+        bounds.checkBounds(element, value);
+        elements[element * size + satellite] = value;
+    }
+
+    /**
+     * Checks if this variable has a manifest
+     *
+     * @return true if this variable encodes a constellation matrix
+     */
+    public boolean hasManifest() {
+        return manifest != null;
+    }
+
+    /**
+     * Checks if a satellite is manifested. Satellites are always manifested
+     * if this variable has no manifest
+     *
+     * @param satellite the index of the satellite
+     * @return true if the satellite is manifested
+     */
+    public boolean getManifest(int satellite) {
+        return manifest == null || manifest.get(satellite);
+    }
+
+    /**
+     * Sets if a satellite is manifested
+     *
+     * @param satellite the index of the satellite
+     * @param on true if the satellite is manifested
+     * @throws IllegalStateException if this variable has no manifest
+     */
+    public void setManifest(int satellite, boolean on) {
+        if (manifest == null) {
+            throw new IllegalStateException("Constellation has no manifest");
+        }
+        manifest.set(satellite, on);
+    }
+
+    /**
+     * Gets the bounds on the orbital elements shared by all satellites
+     *
+     * @return the bounds on the orbital elements
+     */
+    public OrbitalElementBounds getElementBounds() {
+        return bounds;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 37 * hash + Objects.hashCode(getSatelliteBound());
+        hash = 37 * hash + Objects.hashCode(bounds);
+        hash = 37 * hash + Arrays.hashCode(elements);
+        hash = 37 * hash + Objects.hashCode(manifest);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final PackedConstellationVariable other = (PackedConstellationVariable) obj;
+        if (!Objects.equals(this.getSatelliteBound(), other.getSatelliteBound())) {
+            return false;
+        }
+        if (!Objects.equals(this.bounds, other.bounds)) {
+            return false;
+        }
+        if (this.size != other.size) {
+            return false;
+        }
+        if (!Arrays.equals(this.elements, other.elements)) {
+            return false;
+        }
+        return Objects.equals(this.manifest, other.manifest);
+    }
+
+    /**
+     * A satellite variable that reads and writes a position of a packed
+     * constellation
+     */
+    private static class SatelliteView extends SatelliteVariable {
+
+        private static final long serialVersionUID = -1829427365928718223L;
+
+        private final PackedConstellationVariable owner;
+
+        private final int index;
+
+        SatelliteView(PackedConstellationVariable owner, int index) {
+            super(owner.getSmaBound(), owner.getEccBound(), owner.getIncBound(),
+                    owner.getArgPerBound(), owner.getRaanBound(), owner.getAnomBound());
+            this.owner = owner;
+            this.index = index;
+        }
+
+        @Override
+        public Double getSma() {
+            return owner.getElement(index, SMA);
+        }
+
+        @Override
+        public void setSma(Double sma) {
+            owner.setElement(index, SMA, sma);
+        }
+
+        @Override
+        public Double getEcc() {
+            return owner.getElement(index, ECC);
+        }
+
+        @Override
+        public void setEcc(Double ecc) {
+            owner.setElement(index, ECC, ecc);
+        }
+
+        @Override
+        public Double getInc() {
+            return owner.getElement(index, INC);
+        }
+
+        @Override
+        public void setInc(Double inc) {
+            owner.setElement(index, INC, inc);
+        }
+
+        @Override
+        public Double getArgPer() {
+            return owner.getElement(index, ARG_PER);
+        }
+
+        @Override
+        public void setArgPer(Double argPer) {
+            owner.setElement(index, ARG_PER, argPer);
+        }
+
+        @Override
+        public Double getRaan() {
+            return owner.getElement(index, RAAN);
+        }
+
+        @Override
+        public void setRaan(Double raan) {
+            owner.setElement(index, RAAN, raan);
+        }
+
+        @Override
+        public Double getTrueAnomaly() {
+            return owner.getElement(index, ANOM);
+        }
+
+        @Override
+        public void setTrueAnomaly(Double anom) {
+            owner.setElement(index, ANOM, anom);
+        }
+
+        @Override
+        public Variable copy() {
+            return new SatelliteVariable(this);
+        }
+    }
+
+    /**
+     * A boolean satellite variable that reads and writes a position of a
+     * packed constellation with a manifest
+     */
+    private static class ManifestSatelliteView extends BooleanSatelliteVariable {
+
+        private static final long serialVersionUID = 6350243957617418810L;
+
+        private final PackedConstellationVariable owner;
+
+        private final int index;
+
+        ManifestSatelliteView(PackedConstellationVariable owner, int index) {
+            super(owner.getSmaBound(), owner.getEccBound(), owner.getIncBound(),
+                    owner.getArgPerBound(), owner.getRaanBound(), owner.getAnomBound());
+            this.owner = owner;
+            this.index = index;
+        }
+
+        @Override
+        public Boolean getManifest() {
+            return owner.getManifest(index);
+        }
+
+        @Override
+        public void setManifest(Boolean manifest) {
+            owner.setManifest(index, manifest);
+        }
+
+        @Override
+        public Double getSma() {
+            return owner.getElement(index, SMA);
+        }
+
+        @Override
+        public void setSma(Double sma) {
+            owner.setElement(index, SMA, sma);
+        }
+
+        @Override
+        public Double getEcc() {
+            return owner.getElement(index, ECC);
+        }
+
+        @Override
+        public void setEcc(Double ecc) {
+            owner.setElement(index, ECC, ecc);
+        }
+
+        @Override
+        public Double getInc() {
+            return owner.getElement(index, INC);
+        }
+
+        @Override
+        public void setInc(Double inc) {
+            owner.setElement(index, INC, inc);
+        }
+
+        @Override
+        public Double getArgPer() {
+            return owner.getElement(index, ARG_PER);
+        }
+
+        @Override
+        public void setArgPer(Double argPer) {
+            owner.setElement(index, ARG_PER, argPer);
+        }
+
+        @Override
+        public Double getRaan() {
+            return owner.getElement(index, RAAN);
+        }
+
+        @Override
+        public void setRaan(Double raan) {
+            owner.setElement(index, RAAN, raan);
+        }
+
+        @Override
+        public Double getTrueAnomaly() {
+            return owner.getElement(index, ANOM);
+        }
+
+        @Override
+        public void setTrueAnomaly(Double anom) {
+            owner.setElement(index, ANOM, anom);
+        }
+
+        @Override
+        public Variable copy() {
+            return new BooleanSatelliteVariable(this);
+        }
+    }
+
+}
@@ -14,6 +14,7 @@ import org.orekit.orbits.Orbit;
 import org.orekit.orbits.PositionAngle;
 import org.orekit.time.AbsoluteDate;
 import seak.conmop.util.Bounds;
+import seak.conmop.util.DoubleBounds;
 
 /**
  * Variable for the satellite
@@ -27,32 +28,32 @@ public class SatelliteVariable implements Variable {
     /**
      * The bounds on the semi major axis
      */
-    private final Bounds<Double> smaBound;
+    private final DoubleBounds smaBound;
 
     /**
      * The bounds on the eccentricity
      */
-    private final Bounds<Double> eccBound;
+    private final DoubleBounds eccBound;
 
     /**
      * The bounds on the inclination
      */
-    private final Bounds<Double> incBound;
+    private final DoubleBounds incBound;
 
     /**
      * The bounds on the argument of perigee
      */
-    private final Bounds<Double> argPerBound;
+    private final DoubleBounds argPerBound;
 
     /**
      * The bounds on the right ascension of the ascending node
      */
-    private final Bounds<Double> raanBound;
+    private final DoubleBounds raanBound;
 
     /**
      * The bounds on the true anomaly
      */
-    private final Bounds<Double> anomBound;
+    private final DoubleBounds anomBound;
 
     private Double sma;
 
@@ -78,9 +79,9 @@ public class SatelliteVariable implements Variable {
     public SatelliteVariable(Bounds<Double> smaBound, Bounds<Double> eccBound,
             Bounds<Double> incBound) {
         this(smaBound, eccBound, incBound,
-                new Bounds<>(0.0, 2. * Math.PI),
-                new Bounds<>(0.0, 2. * Math.PI),
-                new Bounds<>(0.0, 2. * Math.PI));
+                new DoubleBounds(0.0, 2. * Math.PI),
+                new DoubleBounds(0.0, 2. * Math.PI),
+                new DoubleBounds(0.0, 2. * Math.PI));
     }
 
     /**
@@ -98,12 +99,12 @@ public class SatelliteVariable implements Variable {
             Bounds<Double> smaBound, Bounds<Double> eccBound,
             Bounds<Double> incBound, Bounds<Double> argPerBound,
             Bounds<Double> raanBound, Bounds<Double> anomBound) {
-        this.smaBound = smaBound;
-        this.eccBound = eccBound;
-        this.incBound = incBound;
-        this.argPerBound = argPerBound;
-        this.raanBound = raanBound;
-        this.anomBound = anomBound;
+        this.smaBound = DoubleBounds.create(smaBound);
+        this.eccBound = DoubleBounds.create(eccBound);
+        this.incBound = DoubleBounds.create(incBound);
+        this.argPerBound = DoubleBounds.create(argPerBound);
+        this.raanBound = DoubleBounds.create(raanBound);
+        this.anomBound = DoubleBounds.create(anomBound);
         this.sma = Double.NaN;
         this.ecc = Double.NaN;
         this.inc = Double.NaN;
@@ -148,7 +149,7 @@ public class SatelliteVariable implements Variable {
      * @param sma the semimajor axis [m]
      */
     public void setSma(Double sma) {
-        if (smaBound.inBounds(sma)) {
+        if (smaBound.inBounds((double) sma)) {
             this.sma = sma;
         } else {
             throw new IllegalArgumentException(String.format(
@@ -172,7 +173,7 @@ public class SatelliteVariable implements Variable {
      * @param ecc the eccentricity
      */
     public void setEcc(Double ecc) {
-        if (eccBound.inBounds(ecc)) {
+        if (eccBound.inBounds((double) ecc)) {
             this.ecc = ecc;
         } else {
             throw new IllegalArgumentException(String.format(
@@ -196,7 +197,7 @@ public class SatelliteVariable implements Variable {
      * @param inc the inclination [rad]
      */
     public void setInc(Double inc) {
-        if (incBound.inBounds(inc)) {
+        if (incBound.inBounds((double) inc)) {
             this.inc = inc;
         } else {
             throw new IllegalArgumentException(String.format(
@@ -220,7 +221,7 @@ public class SatelliteVariable implements Variable {
      * @param argPer the argument of perigee [rad]
      */
     public void setArgPer(Double argPer) {
-        if (argPerBound.inBounds(argPer)) {
+        if (argPerBound.inBounds((double) argPer)) {
             this.argPer = argPer;
         } else {
             throw new IllegalArgumentException(String.format(
@@ -244,7 +245,7 @@ public class SatelliteVariable implements Variable {
      * @param raan the right ascension of the ascending node [rad]
      */
     public void setRaan(Double raan) {
-        if (raanBound.inBounds(raan)) {
+        if (raanBound.inBounds((double) raan)) {
             this.raan = raan;
         } else {
             throw new IllegalArgumentException(String.format(
@@ -268,7 +269,7 @@ public class SatelliteVariable implements Variable {
      * @param anom the true anomaly [rad]
      */
     public void setTrueAnomaly(Double anom) {
-        if (anomBound.inBounds(anom)) {
+        if (anomBound.inBounds((double) anom)) {
             this.anom = anom;
         } else {
             throw new IllegalArgumentException(String.format(
@@ -284,12 +285,12 @@ public class SatelliteVariable implements Variable {
 
     @Override
     public void randomize() {
-        this.setTrueAnomaly(PRNG.nextDouble(anomBound.getLowerBound(), anomBound.getUpperBound()));
-        this.setArgPer(PRNG.nextDouble(argPerBound.getLowerBound(), argPerBound.getUpperBound()));
-        this.setEcc(PRNG.nextDouble(eccBound.getLowerBound(), eccBound.getUpperBound()));
-        this.setInc(PRNG.nextDouble(incBound.getLowerBound(), incBound.getUpperBound()));
-        this.setRaan(PRNG.nextDouble(raanBound.getLowerBound(), raanBound.getUpperBound()));
-        this.setSma(PRNG.nextDouble(smaBound.getLowerBound(), smaBound.getUpperBound()));
+        this.setTrueAnomaly(PRNG.nextDouble(anomBound.getLower(), anomBound.getUpper()));
+        this.setArgPer(PRNG.nextDouble(argPerBound.getLower(), argPerBound.getUpper()));
+        this.setEcc(PRNG.nextDouble(eccBound.getLower(), eccBound.getUpper()));
+        this.setInc(PRNG.nextDouble(incBound.getLower(), incBound.getUpper()));
+        this.setRaan(PRNG.nextDouble(raanBound.getLower(), raanBound.getUpper()));
+        this.setSma(PRNG.nextDouble(smaBound.getLower(), smaBound.getUpper()));
     }
 
     /**
@@ -297,7 +298,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the bounds for an allowable semi-major axis [m]
      */
-    public Bounds<Double> getSmaBound() {
+    public DoubleBounds getSmaBound() {
         return smaBound;
     }
 
@@ -306,7 +307,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the bounds for an allowable eccentricity
      */
-    public Bounds<Double> getEccBound() {
+    public DoubleBounds getEccBound() {
         return eccBound;
     }
 
@@ -315,7 +316,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the bounds for an allowable inclination [rad]
      */
-    public Bounds<Double> getIncBound() {
+    public DoubleBounds getIncBound() {
         return incBound;
     }
 
@@ -324,7 +325,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the bounds for an allowable argument of perigee [rad]
      */
-    public Bounds<Double> getArgPerBound() {
+    public DoubleBounds getArgPerBound() {
         return argPerBound;
     }
 
@@ -335,7 +336,7 @@ public class SatelliteVariable implements Variable {
      * @return the bounds for an allowable right ascension of the ascending node
      * [rad]
      */
-    public Bounds<Double> getRaanBound() {
+    public DoubleBounds getRaanBound() {
         return raanBound;
     }
 
@@ -344,7 +345,7 @@ public class SatelliteVariable implements Variable {
      *
      * @return the bounds for an allowable true anomaly [rad]
      */
-    public Bounds<Double> getAnomBound() {
+    public DoubleBounds getAnomBound() {
         return anomBound;
     }
 
@@ -368,12 +369,12 @@ public class SatelliteVariable implements Variable {
     @Override
     public int hashCode() {
         int hash = 5;
-        hash = 89 * hash + Objects.hashCode(this.sma);
-        hash = 89 * hash + Objects.hashCode(this.ecc);
-        hash = 89 * hash + Objects.hashCode(this.inc);
-        hash = 89 * hash + Objects.hashCode(this.argPer);
-        hash = 89 * hash + Objects.hashCode(this.raan);
-        hash = 89 * hash + Objects.hashCode(this.anom);
+        hash = 89 * hash + Objects.hashCode(this.getSma());
+        hash = 89 * hash + Objects.hashCode(this.getEcc());
+        hash = 89 * hash + Objects.hashCode(this.getInc());
+        hash = 89 * hash + Objects.hashCode(this.getArgPer());
+        hash = 89 * hash + Objects.hashCode(this.getRaan());
+        hash = 89 * hash + Objects.hashCode(this.getTrueAnomaly());
         return hash;
     }
 
@@ -389,22 +390,22 @@ public class SatelliteVariable implements Variable {
             return false;
         }
         final SatelliteVariable other = (SatelliteVariable) obj;
-        if (!Objects.equals(this.sma, other.sma)) {
+        if (!Objects.equals(this.getSma(), other.getSma())) {
             return false;
         }
-        if (!Objects.equals(this.ecc, other.ecc)) {
+        if (!Objects.equals(this.getEcc(), other.getEcc())) {
             return false;
         }
-        if (!Objects.equals(this.inc, other.inc)) {
+        if (!Objects.equals(this.getInc(), other.getInc())) {
             return false;
         }
-        if (!Objects.equals(this.argPer, other.argPer)) {
+        if (!Objects.equals(this.getArgPer(), other.getArgPer())) {
             return false;
         }
-        if (!Objects.equals(this.raan, other.raan)) {
+        if (!Objects.equals(this.getRaan(), other.getRaan())) {
             return false;
         }
-        if (!Objects.equals(this.anom, other.anom)) {
+        if (!Objects.equals(this.getTrueAnomaly(), other.getTrueAnomaly())) {
             return false;
         }
         return true;
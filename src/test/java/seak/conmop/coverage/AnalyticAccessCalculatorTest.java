@@ -0,0 +1,111 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.coverage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.hipparchus.util.FastMath;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.orekit.bodies.GeodeticPoint;
+import org.orekit.bodies.OneAxisEllipsoid;
+import org.orekit.data.DataProvidersManager;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.frames.TopocentricFrame;
+import org.orekit.orbits.KeplerianOrbit;
+import org.orekit.orbits.Orbit;
+import org.orekit.orbits.PositionAngle;
+import org.orekit.propagation.analytical.EcksteinHechlerPropagator;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScalesFactory;
+import org.orekit.utils.Constants;
+import org.orekit.utils.IERSConventions;
+import seak.conmop.propagation.SampledEphemeris;
+import seak.conmop.propagation.TransformTable;
+
+/**
+ * Compares the accesses predicted by the AnalyticAccessCalculator with the
+ * accesses computed by the AccessCalculator from an ephemeris propagated with
+ * an Eckstein-Hechler J2 propagator over one week. The orbits are given as
+ * osculating elements, as the reference propagator reads them.
+ *
+ * @author nhitomi
+ */
+public class AnalyticAccessCalculatorTest {
+
+    private static final double MU = Constants.WGS84_EARTH_MU;
+
+    private static final double RE = Constants.WGS84_EARTH_EQUATORIAL_RADIUS;
+
+    private static Frame inertialFrame;
+
+    private static AbsoluteDate startDate;
+
+    private static AccessCalculator reference;
+
+    private static AnalyticAccessCalculator analytic;
+
+    @BeforeClass
+    public static void setUp() throws OrekitException {
+        System.setProperty(DataProvidersManager.OREKIT_DATA_PATH, "resources");
+        inertialFrame = FramesFactory.getEME2000();
+        Frame earthFrame = FramesFactory.getITRF(IERSConventions.IERS_2003, true);
+        OneAxisEllipsoid earthShape = new OneAxisEllipsoid(RE, Constants.WGS84_EARTH_FLATTENING, earthFrame);
+        startDate = new AbsoluteDate(2016, 1, 1, 0, 0, 0, TimeScalesFactory.getUTC());
+        AbsoluteDate endDate = startDate.shiftedBy(7 * 86400.);
+
+        List<TopocentricFrame> points = new ArrayList<>();
+        for (int lat = -60; lat <= 60; lat += 15) {
+            for (int lon = -180; lon < 180; lon += 30) {
+                points.add(new TopocentricFrame(earthShape, new GeodeticPoint(
+                        FastMath.toRadians(lat), FastMath.toRadians(lon), 0.), "point"));
+            }
+        }
+        double[][] positions = AccessCalculator.positions(points, earthShape);
+        double[][] zeniths = AccessCalculator.zeniths(points);
+        double[] minElevations = new double[points.size()];
+        Arrays.fill(minElevations, FastMath.toRadians(10.));
+        double[] halfAngles = new double[points.size()];
+        Arrays.fill(halfAngles, FastMath.PI);
+
+        TransformTable table = new TransformTable(inertialFrame, earthFrame, startDate, endDate, 60.);
+        reference = new AccessCalculator(earthFrame, positions, zeniths, minElevations, halfAngles, table);
+        analytic = new AnalyticAccessCalculator(positions, zeniths, minElevations, halfAngles,
+                table, startDate, endDate, 30.);
+    }
+
+    private static void compare(AccessValidator validator, double altitude, double inc) throws OrekitException {
+        Orbit orbit = new KeplerianOrbit(RE + altitude, 0., FastMath.toRadians(inc), 0., 0.5, 1.0,
+                PositionAngle.TRUE, inertialFrame, startDate, MU);
+        EcksteinHechlerPropagator propagator = new EcksteinHechlerPropagator(orbit,
+                RE, MU, Constants.WGS84_EARTH_C20, 0., 0., 0., 0.);
+        SampledEphemeris ephemeris = new SampledEphemeris(propagator, startDate,
+                startDate.shiftedBy(7 * 86400.), 60., inertialFrame, MU);
+        validator.compare(reference.compute(ephemeris), analytic.compute(orbit));
+    }
+
+    /**
+     * With the osculating elements in the secular rates, the mean timing
+     * error was about 250 s and a third of the points had a different number
+     * of accesses. With the mean elements it is about 18 s, mostly from
+     * grazing passes near the minimum elevation.
+     */
+    @Test
+    public void testAgreesWithPropagatedAccess() throws OrekitException {
+        AccessValidator validator = new AccessValidator();
+        for (double altitude : new double[]{400e3, 700e3, 1200e3}) {
+            for (double inc : new double[]{30., 51.6, 98.}) {
+                compare(validator, altitude, inc);
+            }
+        }
+        assertTrue(validator.toString(), validator.getMeanError() < 30.);
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import seak.architecture.enumeration.FullFactorial;
+import seak.conmop.util.Bounds;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * Checks that the deployment orders have the same minimal delta V as the
+ * brute force search over all permutations that they replace, and that the
+ * exact order breaks ties in the same way
+ *
+ * @author nhitomi
+ */
+public class ConstellationDeploymentTest {
+
+    /**
+     * The number of random groups tried per group size
+     */
+    private static final int TRIALS = 50;
+
+    /**
+     * The largest group size checked against the brute force search
+     */
+    private static final int MAX_SIZE = 7;
+
+    /**
+     * Enumerates all permutations of n indices in lexicographic order
+     */
+    private static List<int[]> permutations(int n) {
+        List<int[]> out = new ArrayList<>();
+        permute(new int[n], new boolean[n], 0, out);
+        return out;
+    }
+
+    private static void permute(int[] permutation, boolean[] used, int k, List<int[]> out) {
+        if (k == permutation.length) {
+            out.add(permutation.clone());
+            return;
+        }
+        for (int i = 0; i < permutation.length; i++) {
+            if (!used[i]) {
+                used[i] = true;
+                permutation[k] = i;
+                permute(permutation, used, k + 1, out);
+                used[i] = false;
+            }
+        }
+    }
+
+    /**
+     * The brute force search over all permutations with the tie rule of the
+     * exact order: the first permutation in lexicographic order whose cost is
+     * within the tie tolerance of the smallest cost is kept
+     *
+     * @param cost the transfer cost between each pair of satellites
+     * @return the first order with the minimal total transfer cost
+     */
+    private static int[] bruteForceOrder(double[][] cost) {
+        List<int[]> permutations = permutations(cost.length);
+        double minDV = Double.POSITIVE_INFINITY;
+        for (int[] permutation : permutations) {
+            minDV = Math.min(minDV, ConstellationDeployment.orderDV(permutation, cost));
+        }
+        for (int[] permutation : permutations) {
+            if (ConstellationDeployment.orderDV(permutation, cost) <= minDV + ConstellationDeployment.TIE_TOLERANCE) {
+                return permutation;
+            }
+        }
+        throw new IllegalStateException("No minimal permutation found");
+    }
+
+    /**
+     * Creates a random asymmetric cost matrix. If ties is true, the costs are
+     * drawn from a few integers so that many orders have the same cost
+     */
+    private static double[][] randomCost(Random random, int n, boolean ties) {
+        double[][] cost = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    cost[i][j] = ties ? random.nextInt(3) : random.nextDouble() * 100;
+                }
+            }
+        }
+        return cost;
+    }
+
+    private static void assertPermutation(int[] order, int n) {
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, sorted[i]);
+        }
+    }
+
+    @Test
+    public void testExactOrderMatchesBruteForce() {
+        Random random = new Random(4);
+        for (int n = 1; n <= MAX_SIZE; n++) {
+            for (int trial = 0; trial < TRIALS; trial++) {
+                double[][] cost = randomCost(random, n, false);
+                int[] order = ConstellationDeployment.exactOrder(cost);
+                assertPermutation(order, n);
+                int[] expected = bruteForceOrder(cost);
+                assertEquals(ConstellationDeployment.orderDV(expected, cost), ConstellationDeployment.orderDV(order, cost), 1e-9);
+                assertArrayEquals(expected, order);
+            }
+        }
+    }
+
+    @Test
+    public void testExactOrderMatchesBruteForceWithTies() {
+        Random random = new Random(5);
+        for (int n = 1; n <= MAX_SIZE; n++) {
+            for (int trial = 0; trial < TRIALS; trial++) {
+                double[][] cost = randomCost(random, n, true);
+                int[] order = ConstellationDeployment.exactOrder(cost);
+                assertPermutation(order, n);
+                int[] expected = bruteForceOrder(cost);
+                assertEquals(ConstellationDeployment.orderDV(expected, cost), ConstellationDeployment.orderDV(order, cost), 0);
+                //many orders have the minimal cost, so the first one must be kept
+                assertArrayEquals(expected, order);
+            }
+        }
+    }
+
+    @Test
+    public void testHeuristicOrderIsNeverBetterThanExact() {
+        Random random = new Random(6);
+        for (int n = 1; n <= MAX_SIZE; n++) {
+            for (int trial = 0; trial < TRIALS; trial++) {
+                double[][] cost = randomCost(random, n, trial % 2 == 0);
+                int[] order = ConstellationDeployment.heuristicOrder(cost);
+                assertPermutation(order, n);
+                assertTrue(ConstellationDeployment.orderDV(order, cost)
+                        >= ConstellationDeployment.orderDV(ConstellationDeployment.exactOrder(cost), cost) - 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Satellites with repeated inclinations and altitudes are deployed in the
+     * same order as the baseline, which tried the permutations of the
+     * satellites sorted by inclination and kept the first one with the
+     * minimal tug delta V, up to the tie tolerance
+     */
+    @Test
+    public void testDeltaVCompatibleMatchesBruteForce() {
+        Random random = new Random(7);
+        double[] incs = new double[]{0.5, 0.8, 1.0};
+        double[] smas = new double[]{6978137, 7178137, 7378137};
+        for (int n = 2; n <= MAX_SIZE; n++) {
+            for (int trial = 0; trial < TRIALS; trial++) {
+                List<SatelliteVariable> satellites = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    SatelliteVariable sat = new SatelliteVariable(
+                            new Bounds<>(6978137., 7378137.), new Bounds<>(0., 0.), new Bounds<>(0., Math.PI));
+                    sat.setSma(smas[random.nextInt(smas.length)]);
+                    sat.setInc(incs[random.nextInt(incs.length)]);
+                    sat.setRaan(random.nextDouble());
+                    satellites.add(sat);
+                }
+                List<SatelliteVariable> order = ConstellationDeployment.deltaVCompatible(
+                        satellites, Double.POSITIVE_INFINITY, DeploymentOrdering.EXACT);
+                assertEquals(n, order.size());
+
+                //the baseline permuted the satellites sorted by inclination
+                List<SatelliteVariable> incOrder = new ArrayList<>(satellites);
+                Collections.sort(incOrder, new Comparator<SatelliteVariable>() {
+                    @Override
+                    public int compare(SatelliteVariable o1, SatelliteVariable o2) {
+                        return Double.compare(o1.getInc(), o2.getInc());
+                    }
+                });
+                int[] expected = bruteForceOrder(ConstellationDeployment.transferDV(incOrder));
+                for (int i = 0; i < n; i++) {
+                    assertSame(incOrder.get(expected[i]), order.get(i));
+                }
+
+                double minDV = Double.POSITIVE_INFINITY;
+                for (int[] permutation : FullFactorial.ffPermuting(n)) {
+                    List<SatelliteVariable> candidate = new ArrayList<>();
+                    for (int i : permutation) {
+                        candidate.add(satellites.get(i));
+                    }
+                    minDV = Math.min(minDV, ConstellationDeployment.deploymentDV(candidate));
+                }
+                assertEquals(minDV, ConstellationDeployment.deploymentDV(order), 1e-6);
+            }
+        }
+    }
+
+}
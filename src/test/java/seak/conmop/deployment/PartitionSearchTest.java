@@ -0,0 +1,185 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.deployment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import seak.conmop.util.Bounds;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * Checks that the partition solver, the serial partition enumeration and the
+ * parallel partition search find the same deployment for the same
+ * satellites
+ *
+ * @author nhitomi
+ */
+public class PartitionSearchTest {
+
+    /**
+     * The number of random constellations tried per size
+     */
+    private static final int TRIALS = 20;
+
+    /**
+     * The largest constellation checked
+     */
+    private static final int MAX_SIZE = 10;
+
+    /**
+     * The time [s] limit for satellites in the same launch to drift to their
+     * ascending node
+     */
+    private static final double RAAN_TIME_LIMIT = 30. * 24. * 3600.;
+
+    /**
+     * The limited tug delta V [m/s]
+     */
+    private static final double TUG_DV_LIMIT = 1500.;
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void setUpClass() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+
+    /**
+     * Creates satellites in a few planes so that some groups are feasible and
+     * some are not
+     */
+    private static List<SatelliteVariable> randomSatellites(Random random, int n) {
+        double[] incs = new double[]{0.87, 0.91, 1.05};
+        double[] smas = new double[]{6978137., 7078137., 7178137.};
+        double[] raans = new double[]{0., 0.02, 1.5, 3.};
+        List<SatelliteVariable> satellites = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            SatelliteVariable sat = new SatelliteVariable(
+                    new Bounds<>(6978137., 7178137.), new Bounds<>(0., 0.), new Bounds<>(0., Math.PI));
+            sat.setSma(smas[random.nextInt(smas.length)]);
+            sat.setInc(incs[random.nextInt(incs.length)]);
+            sat.setRaan(raans[random.nextInt(raans.length)] + random.nextDouble() * 0.01);
+            sat.setTrueAnomaly(random.nextDouble() * 2. * Math.PI);
+            satellites.add(sat);
+        }
+        return satellites;
+    }
+
+    /**
+     * The serial streaming search: the first enumerated partition with the
+     * fewest launches and then the least total delta V is kept
+     */
+    private static List<Installment> enumerate(GroupFeasibilityCache groups, long satellites) {
+        PartitionIterator iter = new PartitionIterator(groups, satellites);
+        long[] best = null;
+        double minDV = Double.POSITIVE_INFINITY;
+        while (iter.hasNext()) {
+            long[] partition = iter.next();
+            double dv = totalDV(groups, partition);
+            if (best == null || partition.length < best.length
+                    || (partition.length == best.length && dv < minDV)) {
+                best = partition;
+                minDV = dv;
+            }
+        }
+        List<Installment> out = new ArrayList<>();
+        for (long group : best) {
+            out.add(groups.getInstallment(group));
+        }
+        return out;
+    }
+
+    private static double totalDV(GroupFeasibilityCache groups, long[] partition) {
+        double dv = 0;
+        for (long group : partition) {
+            Installment installment = groups.getInstallment(group);
+            dv += installment.getOtherDV() + installment.getLaunchDV();
+        }
+        return dv;
+    }
+
+    private static double totalDV(List<Installment> deployment) {
+        double dv = 0;
+        for (Installment installment : deployment) {
+            dv += installment.getOtherDV() + installment.getLaunchDV();
+        }
+        return dv;
+    }
+
+    /**
+     * The bitmask of the satellites of each installment
+     */
+    private static long[] masks(List<Installment> deployment, List<SatelliteVariable> satellites) {
+        long[] out = new long[deployment.size()];
+        for (int i = 0; i < deployment.size(); i++) {
+            for (SatelliteVariable sat : deployment.get(i).getSatellites()) {
+                for (int j = 0; j < satellites.size(); j++) {
+                    if (satellites.get(j) == sat) {
+                        out[i] |= 1L << j;
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    @Test
+    public void testSearchesFindTheSameDeployment() {
+        Random random = new Random(11);
+        int multiLaunch = 0;
+        for (int n = 1; n <= MAX_SIZE; n++) {
+            for (int trial = 0; trial < TRIALS; trial++) {
+                List<SatelliteVariable> satellites = randomSatellites(random, n);
+                GroupFeasibilityCache groups = new GroupFeasibilityCache(satellites,
+                        RAAN_TIME_LIMIT, TUG_DV_LIMIT, 0.5, DeploymentOrdering.EXACT);
+                long all = (1L << n) - 1;
+
+                List<Installment> enumerated = enumerate(groups, all);
+                List<Installment> solved = new PartitionSolver(groups).solve(all);
+                List<Installment> parallel = new ParallelPartitionSearch(groups, 2, pool).solve(all);
+
+                //every search covers all satellites exactly once
+                assertFalse(Double.isNaN(totalDV(enumerated)));
+                for (List<Installment> deployment : Arrays.asList(enumerated, solved, parallel)) {
+                    long covered = 0;
+                    for (long mask : masks(deployment, satellites)) {
+                        assertEquals(0, covered & mask);
+                        covered |= mask;
+                    }
+                    assertEquals(all, covered);
+                }
+
+                //the same fewest launches and least delta V
+                assertEquals(enumerated.size(), solved.size());
+                assertEquals(enumerated.size(), parallel.size());
+                assertEquals(totalDV(enumerated), totalDV(solved), 1e-6);
+                assertEquals(totalDV(enumerated), totalDV(parallel), 1e-6);
+
+                //the parallel search keeps the partition of the serial search
+                assertArrayEquals(masks(enumerated, satellites), masks(parallel, satellites));
+
+                if (enumerated.size() > 1 && enumerated.size() < n) {
+                    multiLaunch++;
+                }
+            }
+        }
+        //the constellations must exercise groups that are partly feasible
+        assertTrue(multiLaunch > TRIALS);
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.util.ArrayList;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Solution;
+import seak.conmop.deployment.DeploymentStrategy;
+import seak.conmop.deployment.Installment;
+import seak.conmop.variable.ConstellationVariable;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * Checks that a duplicate of an evaluated constellation gets the objectives,
+ * attributes and deployment strategy of the evaluated constellation from the
+ * duplicate filter without being evaluated again
+ *
+ * @author nozomihitomi
+ */
+public class DuplicateFilterTest {
+
+    /**
+     * The inclination [rad] that the test problem moves the first satellite
+     * to, like the ConstellationOptimizer moves satellites away from the
+     * critical inclination
+     */
+    private static final double ADJUSTED_INC = 1.2;
+
+    /**
+     * A problem that counts its evaluations and sets the objectives, the
+     * attributes and the deployment strategy like the ConstellationOptimizer
+     */
+    private static class CountingProblem implements Problem {
+
+        private final boolean anytime;
+
+        private final boolean adjust;
+
+        private int evaluations;
+
+        CountingProblem(boolean anytime, boolean adjust) {
+            this.anytime = anytime;
+            this.adjust = adjust;
+        }
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public int getNumberOfVariables() {
+            return 1;
+        }
+
+        @Override
+        public int getNumberOfObjectives() {
+            return 4;
+        }
+
+        @Override
+        public int getNumberOfConstraints() {
+            return 0;
+        }
+
+        @Override
+        public void evaluate(Solution solution) {
+            evaluations++;
+            ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
+            if (adjust) {
+                constel.ownSatelliteVariable(constel.getSatelliteVariable(0)).setInc(ADJUSTED_INC);
+            }
+            double sum = 0;
+            ArrayList<SatelliteVariable> satellites = new ArrayList<>();
+            for (SatelliteVariable sat : constel.getSatelliteVariables()) {
+                sum += sat.getInc() + sat.getRaan();
+                satellites.add(sat);
+            }
+            ArrayList<Installment> installments = new ArrayList<>();
+            installments.add(new Installment(new ArrayList<>(satellites.subList(0, 2)), sum, 10.));
+            installments.add(new Installment(new ArrayList<>(satellites.subList(2, satellites.size())), sum, 20.));
+            constel.setDeploymentStrategy(new DeploymentStrategy(installments));
+            solution.setObjectives(new double[]{sum, -sum, 2 * sum, evaluations});
+            if (anytime) {
+                solution.setAttribute("deploymentComplete", false);
+                solution.setAttribute("launchLowerBound", 1);
+                solution.setAttribute("deploymentDVLowerBound", sum / 2);
+            } else {
+                solution.removeAttribute("deploymentComplete");
+                solution.removeAttribute("launchLowerBound");
+                solution.removeAttribute("deploymentDVLowerBound");
+            }
+        }
+
+        @Override
+        public Solution newSolution() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testDuplicateIsNotEvaluated() {
+        for (boolean anytime : new boolean[]{true, false}) {
+            CountingProblem problem = new CountingProblem(anytime, false);
+            DuplicateFilter filter = new DuplicateFilter(problem, 10);
+            Solution evaluated = FitnessMemoTest.evaluatedSolution(1, false);
+            filter.evaluate(evaluated);
+            assertEquals(1, problem.evaluations);
+
+            //the duplicate has its satellites in another order and the stale
+            //attributes of a parent
+            Solution duplicate = FitnessMemoTest.shuffledCopy(evaluated, 2);
+            filter.evaluate(duplicate);
+            assertEquals(1, problem.evaluations);
+            assertEquals(1, filter.getSkipped());
+            FitnessMemoTest.assertRestored(evaluated, duplicate);
+        }
+    }
+
+    @Test
+    public void testOtherConstellationIsEvaluated() {
+        CountingProblem problem = new CountingProblem(true, false);
+        DuplicateFilter filter = new DuplicateFilter(problem, 10);
+        filter.evaluate(FitnessMemoTest.evaluatedSolution(1, false));
+        Solution other = FitnessMemoTest.evaluatedSolution(2, false);
+        filter.evaluate(other);
+        assertEquals(2, problem.evaluations);
+        assertEquals(0, filter.getSkipped());
+    }
+
+    /**
+     * The evaluation replaces a satellite, so the record is stored under the
+     * evaluated constellation and not under the constellation before the
+     * evaluation
+     */
+    @Test
+    public void testSatellitesReplacedByTheEvaluation() {
+        CountingProblem problem = new CountingProblem(true, true);
+        DuplicateFilter filter = new DuplicateFilter(problem, 10);
+        Solution original = FitnessMemoTest.evaluatedSolution(1, false);
+        Solution beforeEvaluation = FitnessMemoTest.shuffledCopy(original, 3);
+        filter.evaluate(original);
+        assertEquals(ADJUSTED_INC, ((ConstellationVariable) original.getVariable(0)).getSatelliteVariable(0).getInc(), 0);
+
+        Solution duplicate = FitnessMemoTest.shuffledCopy(original, 4);
+        filter.evaluate(duplicate);
+        assertEquals(1, problem.evaluations);
+        FitnessMemoTest.assertRestored(original, duplicate);
+
+        filter.evaluate(beforeEvaluation);
+        assertEquals(2, problem.evaluations);
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.memo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.moeaframework.core.Solution;
+import seak.conmop.deployment.DeploymentStrategy;
+import seak.conmop.deployment.Installment;
+import seak.conmop.util.Bounds;
+import seak.conmop.variable.ConstellationVariable;
+import seak.conmop.variable.SatelliteVariable;
+
+/**
+ * Checks that the objectives, attributes and deployment strategy of an
+ * evaluated constellation survive a round trip through the fitness memo, both
+ * in memory and through the spill file
+ *
+ * @author nozomihitomi
+ */
+public class FitnessMemoTest {
+
+    /**
+     * Creates an evaluated solution of a random constellation with a
+     * deployment strategy of two installments
+     *
+     * @param seed the seed of the constellation
+     * @param anytime true if the solution has the attributes of the anytime
+     * deployment search
+     */
+    static Solution evaluatedSolution(long seed, boolean anytime) {
+        Random random = new Random(seed);
+        ConstellationVariable constel = new ConstellationVariable(new Bounds<>(1, 10),
+                new Bounds<>(6978137., 7378137.), new Bounds<>(0., 0.), new Bounds<>(0., Math.PI));
+        ArrayList<SatelliteVariable> satellites = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            SatelliteVariable sat = constel.createSatelliteVariable();
+            sat.setSma(6978137. + random.nextInt(3) * 100000.);
+            sat.setEcc(0.);
+            sat.setInc(random.nextDouble() * Math.PI);
+            sat.setArgPer(0.);
+            sat.setRaan(random.nextDouble() * 2. * Math.PI);
+            sat.setTrueAnomaly(random.nextDouble() * 2. * Math.PI);
+            satellites.add(sat);
+        }
+        constel.setSatelliteVariables(satellites);
+        ArrayList<Installment> installments = new ArrayList<>();
+        installments.add(new Installment(new ArrayList<>(satellites.subList(0, 4)), 9000. + seed, 120.5));
+        installments.add(new Installment(new ArrayList<>(satellites.subList(4, 6)), 9100. + seed, 80.25));
+        constel.setDeploymentStrategy(new DeploymentStrategy(installments));
+
+        Solution solution = new Solution(1, 4);
+        solution.setVariable(0, constel);
+        solution.setObjectives(new double[]{seed + 0.5, -0.25, 18420.75, 3.});
+        if (anytime) {
+            solution.setAttribute("deploymentComplete", false);
+            solution.setAttribute("launchLowerBound", 2);
+            solution.setAttribute("deploymentDVLowerBound", 18000.125);
+        }
+        return solution;
+    }
+
+    /**
+     * Creates an unevaluated copy of the constellation of the given solution
+     * with its satellites in another order and the stale attributes of a
+     * parent
+     */
+    static Solution shuffledCopy(Solution solution, long seed) {
+        ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
+        ArrayList<SatelliteVariable> satellites = new ArrayList<>();
+        for (SatelliteVariable sat : constel.getSatelliteVariables()) {
+            satellites.add((SatelliteVariable) sat.copy());
+        }
+        Collections.shuffle(satellites, new Random(seed));
+        ConstellationVariable copy = new ConstellationVariable(new Bounds<>(1, 10), satellites);
+        Solution out = new Solution(1, 4);
+        out.setVariable(0, copy);
+        out.setAttribute("deploymentComplete", true);
+        out.setAttribute("launchLowerBound", 7);
+        out.setAttribute("deploymentDVLowerBound", 1.);
+        return out;
+    }
+
+    static ConstellationKey key(Solution solution) {
+        ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
+        return ConstellationKey.create(ConstellationKey.canonicalOrder(constel.getSatelliteVariables()));
+    }
+
+    static FitnessRecord record(Solution solution) {
+        ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
+        return FitnessRecord.create(solution, constel.getDeploymentStrategy(),
+                ConstellationKey.canonicalOrder(constel.getSatelliteVariables()));
+    }
+
+    /**
+     * Restores a record on the given solution in the same way as the
+     * ConstellationOptimizer
+     */
+    static void restore(FitnessRecord record, Solution solution) {
+        ConstellationVariable constel = (ConstellationVariable) solution.getVariable(0);
+        solution.setObjectives(record.getObjectives());
+        record.copyAttributes(solution);
+        constel.setDeploymentStrategy(record.toDeploymentStrategy(
+                ConstellationKey.canonicalOrder(constel.getSatelliteVariables())));
+    }
+
+    /**
+     * Checks that the restored solution has the objectives, attributes and
+     * deployment strategy of the evaluated solution and that its deployment
+     * strategy refers to its own satellites
+     */
+    static void assertRestored(Solution evaluated, Solution restored) {
+        assertArrayEquals(evaluated.getObjectives(), restored.getObjectives(), 0);
+        for (String name : new String[]{"deploymentComplete", "launchLowerBound", "deploymentDVLowerBound"}) {
+            assertEquals(evaluated.hasAttribute(name), restored.hasAttribute(name));
+            assertEquals(evaluated.getAttribute(name), restored.getAttribute(name));
+        }
+
+        ConstellationVariable constel = (ConstellationVariable) restored.getVariable(0);
+        List<Installment> expected = new ArrayList<>(
+                ((ConstellationVariable) evaluated.getVariable(0)).getDeploymentStrategy().getInstallments());
+        List<Installment> actual = new ArrayList<>(constel.getDeploymentStrategy().getInstallments());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLaunchDV(), actual.get(i).getLaunchDV(), 0);
+            assertEquals(expected.get(i).getOtherDV(), actual.get(i).getOtherDV(), 0);
+            assertEquals(expected.get(i).getSatellites(), actual.get(i).getSatellites());
+            for (SatelliteVariable sat : actual.get(i).getSatellites()) {
+                boolean own = false;
+                for (SatelliteVariable other : constel.getSatelliteVariables()) {
+                    own |= sat == other;
+                }
+                assertTrue(own);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTripInMemory() {
+        FitnessMemo memo = new FitnessMemo(10);
+        for (boolean anytime : new boolean[]{true, false}) {
+            Solution evaluated = evaluatedSolution(anytime ? 1 : 2, anytime);
+            memo.put(key(evaluated), record(evaluated));
+
+            Solution duplicate = shuffledCopy(evaluated, 3);
+            FitnessRecord record = memo.get(key(duplicate));
+            assertNotNull(record);
+            restore(record, duplicate);
+            assertRestored(evaluated, duplicate);
+        }
+        assertEquals(2, memo.getHits());
+        assertEquals(0, memo.getMisses());
+        assertNull(memo.get(key(evaluatedSolution(4, true))));
+    }
+
+    @Test
+    public void testRoundTripThroughSpillFile() throws IOException {
+        File file = File.createTempFile("fitnessmemo", ".spill");
+        file.deleteOnExit();
+        Solution[] evaluated = new Solution[]{
+            evaluatedSolution(5, true), evaluatedSolution(6, false), evaluatedSolution(7, true)};
+
+        //only one record is kept in memory so the others are spilled
+        FitnessMemo memo = new FitnessMemo(1, file, 64, 42L);
+        for (Solution solution : evaluated) {
+            memo.put(key(solution), record(solution));
+        }
+        for (int i = 0; i < evaluated.length; i++) {
+            Solution duplicate = shuffledCopy(evaluated[i], i);
+            FitnessRecord record = memo.get(key(duplicate));
+            assertNotNull(record);
+            restore(record, duplicate);
+            assertRestored(evaluated[i], duplicate);
+        }
+        assertTrue(memo.getSpillHits() >= 2);
+        memo.close();
+
+        //a problem with the same fingerprint reuses the spilled records
+        FitnessMemo reopened = new FitnessMemo(1, file, 64, 42L);
+        for (int i = 0; i < evaluated.length; i++) {
+            Solution duplicate = shuffledCopy(evaluated[i], i + 10);
+            FitnessRecord record = reopened.get(key(duplicate));
+            assertNotNull(record);
+            restore(record, duplicate);
+            assertRestored(evaluated[i], duplicate);
+        }
+        reopened.close();
+
+        //another problem does not
+        FitnessMemo other = new FitnessMemo(1, file, 64, 43L);
+        assertNull(other.get(key(evaluated[0])));
+        other.close();
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.operators;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.operator.CompoundVariation;
+import org.moeaframework.core.operator.real.SBX;
+import org.moeaframework.core.variable.RealVariable;
+
+/**
+ * Checks that SBXPM produces the same offspring as the simulated binary
+ * crossover followed by the polynomial mutation that it replaces
+ *
+ * @author nhitomi
+ */
+public class SBXPMTest {
+
+    /**
+     * The number of random seeds tried per setting
+     */
+    private static final int SEEDS = 200;
+
+    /**
+     * Creates two parents with random values within random bounds. Some
+     * values lie on their bounds and some are shared by both parents so that
+     * the clamping and the equal-value case of the crossover are exercised.
+     */
+    private static Solution[] randomParents(Random random, int n) {
+        Solution parent1 = new Solution(n, 0);
+        Solution parent2 = new Solution(n, 0);
+        for (int i = 0; i < n; i++) {
+            double lb = random.nextDouble() * 10 - 5;
+            double ub = lb + 0.1 + random.nextDouble() * 10;
+            double x1 = lb + random.nextDouble() * (ub - lb);
+            double x2 = lb + random.nextDouble() * (ub - lb);
+            switch (random.nextInt(5)) {
+                case 0:
+                    x1 = lb;
+                    break;
+                case 1:
+                    x2 = ub;
+                    break;
+                case 2:
+                    x2 = x1;
+                    break;
+                default:
+            }
+            parent1.setVariable(i, new RealVariable(x1, lb, ub));
+            parent2.setVariable(i, new RealVariable(x2, lb, ub));
+        }
+        return new Solution[]{parent1, parent2};
+    }
+
+    /**
+     * Evolves the same parents with both operators from the same seed and
+     * checks that the offspring are identical
+     */
+    private static void assertSameOffspring(Variation expected, Variation actual, long seed, int n) {
+        Solution[] parents = randomParents(new Random(seed), n);
+        PRNG.setSeed(seed);
+        Solution[] expectedChildren = expected.evolve(parents);
+        double nextExpected = PRNG.nextDouble();
+        PRNG.setSeed(seed);
+        Solution[] actualChildren = actual.evolve(parents);
+        double nextActual = PRNG.nextDouble();
+
+        assertEquals(expectedChildren.length, actualChildren.length);
+        for (int k = 0; k < expectedChildren.length; k++) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(((RealVariable) expectedChildren[k].getVariable(i)).getValue(),
+                        ((RealVariable) actualChildren[k].getVariable(i)).getValue(), 0);
+            }
+        }
+        //both operators drew the same number of random numbers
+        assertEquals(nextExpected, nextActual, 0);
+    }
+
+    @Test
+    public void testSameOffspringAsCompoundVariation() {
+        for (int n = 1; n <= 12; n++) {
+            for (long seed = 0; seed < SEEDS; seed++) {
+                assertSameOffspring(new CompoundVariation(new SBX(1, 20), new VariablePM(20)),
+                        new SBXPM(1, 20, 20), seed, n);
+            }
+        }
+    }
+
+    @Test
+    public void testSameOffspringWithCrossoverProbability() {
+        for (long seed = 0; seed < SEEDS; seed++) {
+            assertSameOffspring(new CompoundVariation(new SBX(0.5, 5), new VariablePM(10)),
+                    new SBXPM(0.5, 5, 10), seed, 6);
+        }
+    }
+
+    @Test
+    public void testParentsAreNotModified() {
+        Solution[] parents = randomParents(new Random(1), 8);
+        double[] values = new double[16];
+        for (int i = 0; i < 8; i++) {
+            values[i] = ((RealVariable) parents[0].getVariable(i)).getValue();
+            values[8 + i] = ((RealVariable) parents[1].getVariable(i)).getValue();
+        }
+        PRNG.setSeed(1);
+        new SBXPM(1, 20, 20).evolve(parents);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(values[i], ((RealVariable) parents[0].getVariable(i)).getValue(), 0);
+            assertEquals(values[8 + i], ((RealVariable) parents[1].getVariable(i)).getValue(), 0);
+        }
+    }
+
+}
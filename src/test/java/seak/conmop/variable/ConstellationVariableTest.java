@@ -0,0 +1,188 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seak.conmop.variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.moeaframework.core.Solution;
+import seak.conmop.deployment.DeploymentStrategy;
+import seak.conmop.deployment.Installment;
+import seak.conmop.util.Bounds;
+
+/**
+ * Checks that copies of a constellation that share their satellite variables
+ * are isolated from each other's modifications (copy-on-write)
+ *
+ * @author nhitomi
+ */
+public class ConstellationVariableTest {
+
+    /**
+     * Creates a constellation of n satellites with distinct elements and a
+     * deployment strategy that launches the satellites in pairs
+     */
+    private static ConstellationVariable constellation(int n) {
+        ConstellationVariable constel = new ConstellationVariable(new Bounds<>(1, 10),
+                new Bounds<>(6978137., 7378137.), new Bounds<>(0., 0.), new Bounds<>(0., Math.PI));
+        ArrayList<SatelliteVariable> satellites = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            satellites.add(satellite(constel, 0.1 * i));
+        }
+        constel.setSatelliteVariables(satellites);
+        constel.setDeploymentStrategy(pairs(satellites));
+        return constel;
+    }
+
+    private static SatelliteVariable satellite(ConstellationVariable constel, double raan) {
+        SatelliteVariable sat = constel.createSatelliteVariable();
+        sat.setSma(7000000.);
+        sat.setEcc(0.);
+        sat.setInc(1.);
+        sat.setArgPer(0.);
+        sat.setRaan(raan);
+        sat.setTrueAnomaly(0.);
+        return sat;
+    }
+
+    private static DeploymentStrategy pairs(List<SatelliteVariable> satellites) {
+        ArrayList<Installment> installments = new ArrayList<>();
+        for (int i = 0; i < satellites.size(); i += 2) {
+            installments.add(new Installment(new ArrayList<>(
+                    satellites.subList(i, Math.min(i + 2, satellites.size()))), 1., 2.));
+        }
+        return new DeploymentStrategy(installments);
+    }
+
+    private static double[] raans(ConstellationVariable constel) {
+        double[] out = new double[constel.getNumberOfSatellites()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = constel.getSatelliteVariable(i).getRaan();
+        }
+        return out;
+    }
+
+    /**
+     * Checks that every satellite of the deployment strategy is one of the
+     * satellite variables of the constellation, compared by identity
+     */
+    private static void assertDeploymentUsesOwnSatellites(ConstellationVariable constel) {
+        int count = 0;
+        for (Installment installment : constel.getDeploymentStrategy().getInstallments()) {
+            for (SatelliteVariable sat : installment.getSatellites()) {
+                boolean found = false;
+                for (SatelliteVariable own : constel.getSatelliteVariables()) {
+                    found |= sat == own;
+                }
+                assertTrue(found);
+                count++;
+            }
+        }
+        assertEquals(constel.getNumberOfSatellites(), count);
+    }
+
+    @Test
+    public void testCopySharesSatellitesUntilModified() {
+        ConstellationVariable parent = constellation(4);
+        ConstellationVariable child = (ConstellationVariable) parent.copy();
+        for (int i = 0; i < 4; i++) {
+            assertSame(parent.getSatelliteVariable(i), child.getSatelliteVariable(i));
+        }
+        assertEquals(parent, child);
+    }
+
+    @Test
+    public void testModifiedCopyDoesNotChangeOriginal() {
+        ConstellationVariable parent = constellation(4);
+        double[] expected = raans(parent);
+        ConstellationVariable child = (ConstellationVariable) parent.copy();
+
+        SatelliteVariable sat = child.ownSatelliteVariable(child.getSatelliteVariable(1));
+        sat.setRaan(2.);
+        assertSame(sat, child.getSatelliteVariable(1));
+        assertNotSame(sat, parent.getSatelliteVariable(1));
+        assertEquals(2., child.getSatelliteVariable(1).getRaan(), 0);
+        assertArrayEquals(expected, raans(parent), 0);
+
+        //owning the same satellite again returns the same copy
+        assertSame(sat, child.ownSatelliteVariable(sat));
+
+        //the deployment strategies follow their own satellites
+        assertDeploymentUsesOwnSatellites(child);
+        assertDeploymentUsesOwnSatellites(parent);
+        assertFalse(parent.equals(child));
+    }
+
+    @Test
+    public void testModifiedOriginalDoesNotChangeCopy() {
+        ConstellationVariable parent = constellation(4);
+        SatelliteVariable sat = parent.ownSatelliteVariable(parent.getSatelliteVariable(0));
+        ConstellationVariable child = (ConstellationVariable) parent.copy();
+        double[] expected = raans(child);
+
+        //the parent owns the satellite and may still modify it
+        sat.setRaan(3.);
+        assertEquals(3., parent.getSatelliteVariable(0).getRaan(), 0);
+        assertArrayEquals(expected, raans(child), 0);
+        assertDeploymentUsesOwnSatellites(child);
+    }
+
+    @Test
+    public void testCopiesOfSolutionAreIsolated() {
+        Solution parent = new Solution(1, 1);
+        parent.setVariable(0, constellation(3));
+        double[] expected = raans((ConstellationVariable) parent.getVariable(0));
+
+        Solution child1 = parent.copy();
+        Solution child2 = parent.copy();
+        ConstellationVariable constel1 = (ConstellationVariable) child1.getVariable(0);
+        constel1.ownSatelliteVariable(constel1.getSatelliteVariable(2)).setRaan(1.5);
+
+        assertArrayEquals(expected, raans((ConstellationVariable) parent.getVariable(0)), 0);
+        assertArrayEquals(expected, raans((ConstellationVariable) child2.getVariable(0)), 0);
+        assertEquals(1.5, constel1.getSatelliteVariable(2).getRaan(), 0);
+    }
+
+    /**
+     * A satellite variable that occurs twice gets one copy per occurrence, so
+     * modifying one occurrence does not change the other
+     */
+    @Test
+    public void testRepeatedSatelliteGetsOneCopyPerOccurrence() {
+        ConstellationVariable constel = constellation(1);
+        SatelliteVariable shared = constel.getSatelliteVariable(0);
+        List<SatelliteVariable> satellites = Arrays.asList(shared, shared, satellite(constel, 0.5));
+        constel.setSatelliteVariables(satellites);
+        constel.setDeploymentStrategy(pairs(satellites));
+        ConstellationVariable copy = (ConstellationVariable) constel.copy();
+
+        SatelliteVariable first = copy.ownSatelliteVariable(shared);
+        assertSame(first, copy.getSatelliteVariable(0));
+        assertNotSame(copy.getSatelliteVariable(0), copy.getSatelliteVariable(1));
+        first.setRaan(1.);
+        assertEquals(0., copy.getSatelliteVariable(1).getRaan(), 0);
+        assertEquals(0., shared.getRaan(), 0);
+        assertDeploymentUsesOwnSatellites(copy);
+    }
+
+    @Test
+    public void testSatelliteVariablesCannotBeModifiedThroughTheView() {
+        ConstellationVariable constel = constellation(2);
+        try {
+            constel.getSatelliteVariables().clear();
+            fail("Expected an UnsupportedOperationException");
+        } catch (UnsupportedOperationException ex) {
+            assertEquals(2, constel.getNumberOfSatellites());
+        }
+
+        //setting the satellites from the view of the same constellation keeps them
+        constel.setSatelliteVariables(constel.getSatelliteVariables());
+        assertEquals(2, constel.getNumberOfSatellites());
+    }
+
+}